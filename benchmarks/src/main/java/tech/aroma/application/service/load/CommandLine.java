@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.load;
+
+import java.util.*;
+
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * The {@code --name value} options given to one of the load tools.
+ *
+ * @author SirWellington
+ */
+@Immutable
+final class CommandLine
+{
+
+    private final Map<String, String> options;
+
+    private CommandLine(Map<String, String> options)
+    {
+        this.options = options;
+    }
+
+    static CommandLine parse(String[] args) throws IllegalArgumentException
+    {
+        Map<String, String> options = new HashMap<>();
+
+        for (int i = 0; i < args.length; i += 2)
+        {
+            if (!args[i].startsWith("--") || i + 1 >= args.length)
+            {
+                throw new IllegalArgumentException("Expected an option followed by its value but found: " + args[i]);
+            }
+
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        return new CommandLine(Collections.unmodifiableMap(options));
+    }
+
+    boolean has(String name)
+    {
+        return options.containsKey(name);
+    }
+
+    String getString(String name, String defaultValue)
+    {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue)
+    {
+        return has(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    long getLong(String name, long defaultValue)
+    {
+        return has(name) ? Long.parseLong(options.get(name)) : defaultValue;
+    }
+
+    /**
+     * Reads a comma-separated list, such as {@code --followers 0,10,100}.
+     */
+    List<Integer> getInts(String name, String defaultValue)
+    {
+        List<Integer> result = new ArrayList<>();
+
+        for (String value : getString(name, defaultValue).split(","))
+        {
+            result.add(Integer.parseInt(value.trim()));
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CommandLine{" + "options=" + options + '}';
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.load;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.thrift.TException;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.data.FollowerRepository;
+import tech.aroma.data.ReactionRepository;
+import tech.aroma.thrift.Application;
+import tech.aroma.thrift.User;
+import tech.aroma.thrift.reactions.*;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * The shape of the data a load test runs against: how many people follow the Application, and how many
+ * Reactions the Application and each of its followers have.
+ *
+ * @author SirWellington
+ */
+@Immutable
+final class LoadScenario
+{
+
+    static final String MATCHING_TITLE = "Build Failed";
+
+    private final int followers;
+    private final int reactions;
+
+    private LoadScenario(int followers, int reactions)
+    {
+        this.followers = followers;
+        this.reactions = reactions;
+    }
+
+    static LoadScenario of(int followers, int reactions) throws IllegalArgumentException
+    {
+        checkThat(followers, reactions)
+            .usingMessage("counts cannot be negative")
+            .are(greaterThanOrEqualTo(0));
+
+        return new LoadScenario(followers, reactions);
+    }
+
+    int getFollowers()
+    {
+        return followers;
+    }
+
+    int getReactions()
+    {
+        return reactions;
+    }
+
+    /**
+     * Saves the followers of the Application, and the Reactions of the Application and of each follower.
+     * Half of the Reactions match the Messages the load test sends.
+     */
+    void seed(Application app, FollowerRepository followerRepo, ReactionRepository reactionRepo) throws TException
+    {
+        reactionRepo.saveReactionsForApplication(app.applicationId, createReactions());
+
+        for (int i = 0; i < followers; ++i)
+        {
+            User follower = new User()
+                .setUserId(UUID.randomUUID().toString())
+                .setName("Follower " + i)
+                .setEmail("follower-" + i + "@aroma.tech");
+
+            followerRepo.saveFollowing(follower, app);
+            reactionRepo.saveReactionsForUser(follower.userId, createReactions());
+        }
+    }
+
+    private List<Reaction> createReactions()
+    {
+        List<Reaction> result = Lists.create();
+
+        for (int i = 0; i < reactions; ++i)
+        {
+            String title = i % 2 == 0 ? MATCHING_TITLE : "Never Sent " + i;
+
+            Reaction reaction = new Reaction()
+                .setName("Reaction " + i)
+                .setMatchers(Lists.createFrom(AromaMatcher.titleIs(new MatcherTitleIs(title))))
+                .setActions(Lists.createFrom(AromaAction.sendPushNotification(new ActionSendPushNotification())));
+
+            result.add(reaction);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LoadScenario{" + "followers=" + followers + ", reactions=" + reactions + '}';
+    }
+
+}
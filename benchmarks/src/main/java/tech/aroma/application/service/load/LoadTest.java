@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.load;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import org.HdrHistogram.Histogram;
+import org.apache.thrift.TException;
+import tech.aroma.application.service.ModuleApplicationService;
+import tech.aroma.application.service.pipeline.StagedPipeline;
+import tech.aroma.data.FollowerRepository;
+import tech.aroma.data.ReactionRepository;
+import tech.aroma.thrift.Application;
+import tech.aroma.thrift.Urgency;
+import tech.aroma.thrift.application.service.ApplicationService;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.aroma.thrift.authentication.ApplicationToken;
+
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Drives the Application Service in-process, through its real Guice wiring, and reports how many Messages
+ * per second it handles and how long each took.
+ * <p>
+ * The Repositories are kept in memory, with a configurable latency standing in for the database.
+ * The rate, concurrency and duplicate limits are lifted, since the goal is to find the ceiling of the Service.
+ * <pre>
+ * java -cp target/benchmarks.jar tech.aroma.application.service.load.LoadTest \
+ *     --messages 20000 --clients 32 --latency-micros 500 --jitter-micros 500 --followers 0,10,100 --reactions 0,10
+ * </pre>
+ *
+ * @author SirWellington
+ */
+public final class LoadTest
+{
+
+    private static final long HIGHEST_LATENCY_MICROS = MINUTES.toMicros(1);
+
+    private final int messages;
+    private final int warmUpMessages;
+    private final int clients;
+    private final RepositoryLatency latency;
+
+    private LoadTest(int messages, int warmUpMessages, int clients, RepositoryLatency latency)
+    {
+        this.messages = messages;
+        this.warmUpMessages = warmUpMessages;
+        this.clients = clients;
+        this.latency = latency;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        CommandLine options = CommandLine.parse(args);
+
+        int messages = options.getInt("messages", 20_000);
+        LoadTest loadTest = new LoadTest(messages,
+                                         options.getInt("warm-up", messages / 10),
+                                         options.getInt("clients", 32),
+                                         RepositoryLatency.of(options.getLong("latency-micros", 500),
+                                                              options.getLong("jitter-micros", 500)));
+
+        System.out.printf("%d messages from %d clients, %s%n", loadTest.messages, loadTest.clients, loadTest.latency);
+        System.out.printf("%10s %10s %12s %10s %10s %10s %10s %10s %8s%n",
+                          "followers", "reactions", "msgs/sec", "p50 (us)", "p90 (us)", "p99 (us)", "p99.9 (us)", "max (us)", "errors");
+
+        for (int followers : options.getInts("followers", "0,10,100"))
+        {
+            for (int reactions : options.getInts("reactions", "0,10"))
+            {
+                loadTest.run(LoadScenario.of(followers, reactions));
+            }
+        }
+
+        System.exit(0);
+    }
+
+    private void run(LoadScenario scenario) throws Exception
+    {
+        ModuleLoadTestServices services = new ModuleLoadTestServices();
+        Injector injector = createInjector(services, latency);
+
+        Application app = new Application()
+            .setApplicationId(UUID.randomUUID().toString())
+            .setName("Load Test");
+
+        String tokenId = UUID.randomUUID().toString();
+        services.registerToken(ModuleLoadTestServices.applicationToken(tokenId, app.applicationId, app.name));
+        scenario.seed(app, injector.getInstance(FollowerRepository.class), injector.getInstance(ReactionRepository.class));
+
+        ApplicationService.Iface service = injector.getInstance(ApplicationService.Iface.class);
+        ApplicationToken token = new ApplicationToken().setTokenId(tokenId);
+
+        send(service, token, warmUpMessages);
+        Result result = send(service, token, messages);
+
+        Histogram histogram = result.histogram;
+        double perSecond = messages / (result.elapsedNanos / (double) SECONDS.toNanos(1));
+
+        System.out.printf("%10d %10d %12.0f %10d %10d %10d %10d %10d %8d%n",
+                          scenario.getFollowers(),
+                          scenario.getReactions(),
+                          perSecond,
+                          histogram.getValueAtPercentile(50),
+                          histogram.getValueAtPercentile(90),
+                          histogram.getValueAtPercentile(99),
+                          histogram.getValueAtPercentile(99.9),
+                          histogram.getMaxValue(),
+                          result.errors);
+
+        shutdown(injector);
+    }
+
+    /**
+     * Wires the Service the way {@code TcpServer} does, but with the stand-in Services and latent in-memory
+     * Repositories.
+     */
+    static Injector createInjector(ModuleLoadTestServices services, RepositoryLatency latency)
+    {
+        return Guice.createInjector(Modules.override(new ModuleApplicationService()).with(services),
+                                    new ModuleLatentMemoryRepositories(latency));
+    }
+
+    static void shutdown(Injector injector) throws IOException
+    {
+        injector.getInstance(StagedPipeline.class).close();
+        injector.getInstance(ExecutorService.class).shutdown();
+        injector.getInstance(ScheduledExecutorService.class).shutdown();
+    }
+
+    /**
+     * Sends the Messages from all of the clients at once, each client sending its next Message as soon as the
+     * last one returns.
+     */
+    private Result send(ApplicationService.Iface service, ApplicationToken token, int count) throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        AtomicLong remaining = new AtomicLong(count);
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Histogram>> histograms = new ArrayList<>(clients);
+
+        for (int i = 0; i < clients; ++i)
+        {
+            histograms.add(pool.submit(() ->
+            {
+                Histogram histogram = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+                start.await();
+
+                while (remaining.getAndDecrement() > 0)
+                {
+                    SendMessageRequest request = new SendMessageRequest()
+                        .setApplicationToken(token)
+                        .setTitle(LoadScenario.MATCHING_TITLE)
+                        .setBody("Load Test Message")
+                        .setUrgency(Urgency.HIGH)
+                        .setHostname("load-test")
+                        .setTimeOfMessage(System.currentTimeMillis());
+
+                    long begin = System.nanoTime();
+
+                    try
+                    {
+                        service.sendMessage(request);
+                    }
+                    catch (TException ex)
+                    {
+                        errors.incrementAndGet();
+                    }
+
+                    long micros = NANOSECONDS.toMicros(System.nanoTime() - begin);
+                    histogram.recordValue(Math.min(micros, HIGHEST_LATENCY_MICROS));
+                }
+
+                return histogram;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+
+        Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+
+        for (Future<Histogram> histogram : histograms)
+        {
+            total.add(histogram.get());
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+
+        return new Result(total, elapsed, errors.get());
+    }
+
+    private static final class Result
+    {
+
+        private final Histogram histogram;
+        private final long elapsedNanos;
+        private final long errors;
+
+        private Result(Histogram histogram, long elapsedNanos, long errors)
+        {
+            this.histogram = histogram;
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.load;
+
+import java.lang.reflect.*;
+import java.util.List;
+
+import com.google.inject.*;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.data.*;
+import tech.aroma.data.memory.ModuleMemoryDataRepositories;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Binds the in-memory Repositories, with every call held up by the given {@link RepositoryLatency}.
+ * This lets the Service be measured as if it were talking to a database, without needing one.
+ *
+ * @author SirWellington
+ */
+public final class ModuleLatentMemoryRepositories extends AbstractModule
+{
+
+    private static final List<Class<?>> REPOSITORIES = Lists.createFrom(ActivityRepository.class,
+                                                                         ApplicationRepository.class,
+                                                                         CredentialRepository.class,
+                                                                         FollowerRepository.class,
+                                                                         InboxRepository.class,
+                                                                         MediaRepository.class,
+                                                                         MessageRepository.class,
+                                                                         OrganizationRepository.class,
+                                                                         ReactionRepository.class,
+                                                                         TokenRepository.class,
+                                                                         UserRepository.class,
+                                                                         UserPreferencesRepository.class);
+
+    private final RepositoryLatency latency;
+
+    public ModuleLatentMemoryRepositories(RepositoryLatency latency)
+    {
+        checkThat(latency).is(notNull());
+
+        this.latency = latency;
+    }
+
+    @Override
+    protected void configure()
+    {
+        Injector memory = Guice.createInjector(new ModuleMemoryDataRepositories());
+
+        for (Class<?> repository : REPOSITORIES)
+        {
+            bindWithLatency(repository, memory);
+        }
+    }
+
+    private <T> void bindWithLatency(Class<T> repository, Injector memory)
+    {
+        T delegate = memory.getInstance(repository);
+        bind(repository).toInstance(withLatency(repository, delegate, latency));
+    }
+
+    /**
+     * Wraps the Repository so that each of its calls waits out the latency before going through.
+     */
+    static <T> T withLatency(Class<T> repository, T delegate, RepositoryLatency latency)
+    {
+        if (latency.isNone())
+        {
+            return delegate;
+        }
+
+        InvocationHandler handler = (proxy, method, args) ->
+        {
+            if (method.getDeclaringClass() == Object.class)
+            {
+                return method.invoke(delegate, args);
+            }
+
+            latency.pause();
+
+            try
+            {
+                return method.invoke(delegate, args);
+            }
+            catch (InvocationTargetException ex)
+            {
+                throw ex.getCause();
+            }
+        };
+
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[] { repository }, handler));
+    }
+
+}
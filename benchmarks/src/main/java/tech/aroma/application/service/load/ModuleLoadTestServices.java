@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.load;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Singleton;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.notnoop.apns.ApnsService;
+import org.apache.thrift.TException;
+import tech.aroma.application.service.operations.ConcurrencyLimitOptions;
+import tech.aroma.application.service.operations.DeduplicationOptions;
+import tech.aroma.application.service.operations.RateLimitOptions;
+import tech.aroma.thrift.authentication.AuthenticationToken;
+import tech.aroma.thrift.authentication.TokenType;
+import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.exceptions.InvalidTokenException;
+import tech.aroma.thrift.notification.service.NotificationService;
+import tech.aroma.thrift.services.NoOpAuthenticationService;
+import tech.aroma.thrift.services.NoOpNotificationService;
+
+/**
+ * Stands in for the other Aroma Services, and lifts the limits that would otherwise throttle a load test
+ * sending from a single Application.
+ * <p>
+ * Meant to override the bindings of {@code ModuleApplicationService}.
+ *
+ * @author SirWellington
+ */
+final class ModuleLoadTestServices extends AbstractModule
+{
+
+    private final Map<String, AuthenticationToken> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Makes the Token known to the stand-in Authentication Service.
+     */
+    void registerToken(AuthenticationToken token)
+    {
+        tokens.put(token.tokenId, token);
+    }
+
+    @Override
+    protected void configure()
+    {
+        bind(RateLimitOptions.class).toInstance(RateLimitOptions.disabled());
+        bind(ConcurrencyLimitOptions.class).toInstance(ConcurrencyLimitOptions.disabled());
+        bind(DeduplicationOptions.class).toInstance(DeduplicationOptions.disabled());
+        bind(NotificationService.Iface.class).to(NoOpNotificationService.class);
+    }
+
+    @Singleton
+    @Provides
+    AuthenticationService.Iface provideAuthenticationService()
+    {
+        return new NoOpAuthenticationService()
+        {
+            @Override
+            public GetTokenInfoResponse getTokenInfo(GetTokenInfoRequest request) throws TException
+            {
+                AuthenticationToken token = tokens.get(request.tokenId);
+
+                if (token == null)
+                {
+                    throw new InvalidTokenException("Unknown Token: " + request.tokenId);
+                }
+
+                return new GetTokenInfoResponse(token);
+            }
+        };
+    }
+
+    @Singleton
+    @Provides
+    ApnsService provideApnsService()
+    {
+        return (ApnsService) Proxy.newProxyInstance(ApnsService.class.getClassLoader(),
+                                                    new Class<?>[] { ApnsService.class },
+                                                    (proxy, method, args) -> null);
+    }
+
+    static AuthenticationToken applicationToken(String tokenId, String appId, String appName)
+    {
+        return new AuthenticationToken()
+            .setTokenId(tokenId)
+            .setOwnerId(appId)
+            .setOwnerName(appName)
+            .setTokenType(TokenType.APPLICATION)
+            .setTimeOfCreation(System.currentTimeMillis())
+            .setTimeOfExpiration(System.currentTimeMillis() + 86_400_000L);
+    }
+
+}
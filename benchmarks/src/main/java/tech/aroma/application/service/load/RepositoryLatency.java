@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * How long each call to a Repository should take, to stand in for the round trip to a database.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class RepositoryLatency
+{
+
+    private static final RepositoryLatency NONE = new RepositoryLatency(0, 0);
+
+    private final long baseMicros;
+    private final long jitterMicros;
+
+    private RepositoryLatency(long baseMicros, long jitterMicros)
+    {
+        this.baseMicros = baseMicros;
+        this.jitterMicros = jitterMicros;
+    }
+
+    public static RepositoryLatency none()
+    {
+        return NONE;
+    }
+
+    /**
+     * @param baseMicros   Every call takes at least this long.
+     * @param jitterMicros Up to this much more is added to each call, at random.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If either is negative.
+     */
+    public static RepositoryLatency of(long baseMicros, long jitterMicros) throws IllegalArgumentException
+    {
+        checkThat(baseMicros, jitterMicros)
+            .usingMessage("latency cannot be negative")
+            .are(greaterThanOrEqualTo(0L));
+
+        return new RepositoryLatency(baseMicros, jitterMicros);
+    }
+
+    public boolean isNone()
+    {
+        return baseMicros == 0 && jitterMicros == 0;
+    }
+
+    /**
+     * Holds up the calling Thread for one call's worth of latency.
+     */
+    void pause()
+    {
+        if (isNone())
+        {
+            return;
+        }
+
+        long micros = baseMicros;
+
+        if (jitterMicros > 0)
+        {
+            micros += ThreadLocalRandom.current().nextLong(jitterMicros + 1);
+        }
+
+        LockSupport.parkNanos(MICROSECONDS.toNanos(micros));
+    }
+
+    public long getBaseMicros()
+    {
+        return baseMicros;
+    }
+
+    public long getJitterMicros()
+    {
+        return jitterMicros;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RepositoryLatency{" + "baseMicros=" + baseMicros + ", jitterMicros=" + jitterMicros + '}';
+    }
+
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.load;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.inject.Injector;
+import org.HdrHistogram.Histogram;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.*;
+import tech.aroma.application.service.server.LocalTcpServer;
+import tech.aroma.data.FollowerRepository;
+import tech.aroma.data.ReactionRepository;
+import tech.aroma.thrift.Application;
+import tech.aroma.thrift.Urgency;
+import tech.aroma.thrift.application.service.*;
+import tech.aroma.thrift.authentication.ApplicationToken;
+
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Sends Messages to the Application Service over the network, at a fixed rate, from a number of persistent
+ * connections.
+ * <p>
+ * The rate is open-loop: the n-th Message is due at {@code n / rate} seconds after the start, whether or not
+ * earlier Messages have returned. Each response time is measured from when its Message was due, rather than
+ * from when a connection became free to send it, so a stalled server shows up in the percentiles instead of
+ * quietly lowering the rate. The time spent on the wire alone is reported separately as the service time.
+ * <p>
+ * Without a {@code --host}, a local server is started first, with the stand-in Services and in-memory
+ * Repositories used by {@link LoadTest}.
+ * <pre>
+ * java -cp target/benchmarks.jar tech.aroma.application.service.load.WireLoadGenerator \
+ *     --connections 16 --rate 2000 --seconds 30 --warm-up-seconds 5 --method sendMessage
+ * </pre>
+ *
+ * @author SirWellington
+ */
+public final class WireLoadGenerator
+{
+
+    private static final long HIGHEST_LATENCY_MICROS = MINUTES.toMicros(10);
+    private static final int SOCKET_TIMEOUT_MILLIS = (int) SECONDS.toMillis(60);
+
+    private final String host;
+    private final int port;
+    private final String tokenId;
+    private final int connections;
+    private final int rate;
+    private final long warmUpNanos;
+    private final long measureNanos;
+    private final boolean async;
+
+    private WireLoadGenerator(String host,
+                              int port,
+                              String tokenId,
+                              int connections,
+                              int rate,
+                              long warmUpNanos,
+                              long measureNanos,
+                              boolean async)
+    {
+        this.host = host;
+        this.port = port;
+        this.tokenId = tokenId;
+        this.connections = connections;
+        this.rate = rate;
+        this.warmUpNanos = warmUpNanos;
+        this.measureNanos = measureNanos;
+        this.async = async;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        CommandLine options = CommandLine.parse(args);
+
+        String method = options.getString("method", "sendMessage");
+
+        if (!method.equals("sendMessage") && !method.equals("sendMessageAsync"))
+        {
+            throw new IllegalArgumentException("--method must be sendMessage or sendMessageAsync but was: " + method);
+        }
+
+        int port = options.getInt("port", ApplicationServiceConstants.SERVICE_PORT);
+        String tokenId = options.getString("token", UUID.randomUUID().toString());
+
+        Injector injector = null;
+        LocalTcpServer server = null;
+
+        if (!options.has("host"))
+        {
+            ModuleLoadTestServices services = new ModuleLoadTestServices();
+            injector = LoadTest.createInjector(services,
+                                               RepositoryLatency.of(options.getLong("latency-micros", 0),
+                                                                    options.getLong("jitter-micros", 0)));
+
+            Application app = new Application()
+                .setApplicationId(UUID.randomUUID().toString())
+                .setName("Wire Load Test");
+
+            services.registerToken(ModuleLoadTestServices.applicationToken(tokenId, app.applicationId, app.name));
+            LoadScenario.of(options.getInt("followers", 0), options.getInt("reactions", 0))
+                .seed(app, injector.getInstance(FollowerRepository.class), injector.getInstance(ReactionRepository.class));
+
+            server = LocalTcpServer.start(port, injector.getInstance(ApplicationService.Iface.class));
+        }
+        else if (!options.has("token"))
+        {
+            throw new IllegalArgumentException("--token is required when sending to a remote --host");
+        }
+
+        WireLoadGenerator generator = new WireLoadGenerator(options.getString("host", "localhost"),
+                                                            port,
+                                                            tokenId,
+                                                            options.getInt("connections", 16),
+                                                            options.getInt("rate", 2_000),
+                                                            SECONDS.toNanos(options.getLong("warm-up-seconds", 5)),
+                                                            SECONDS.toNanos(options.getLong("seconds", 30)),
+                                                            method.equals("sendMessageAsync"));
+
+        generator.run(System.out);
+
+        if (server != null)
+        {
+            server.close();
+            LoadTest.shutdown(injector);
+        }
+
+        System.exit(0);
+    }
+
+    private void run(PrintStream out) throws Exception
+    {
+        out.printf("%s to %s:%d at %d msgs/sec over %d connections, for %ds after a %ds warm-up%n",
+                   async ? "sendMessageAsync" : "sendMessage",
+                   host,
+                   port,
+                   rate,
+                   connections,
+                   NANOSECONDS.toSeconds(measureNanos),
+                   NANOSECONDS.toSeconds(warmUpNanos));
+
+        List<Connection> clients = new ArrayList<>(connections);
+
+        for (int i = 0; i < connections; ++i)
+        {
+            clients.add(new Connection());
+        }
+
+        Schedule schedule = new Schedule(System.nanoTime() + MILLISECONDS.toNanos(100));
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+
+        List<Future<?>> futures = new ArrayList<>(connections);
+
+        for (Connection client : clients)
+        {
+            futures.add(pool.submit(() -> send(client, schedule)));
+        }
+
+        for (Future<?> future : futures)
+        {
+            future.get();
+        }
+
+        pool.shutdown();
+
+        Histogram responseTimes = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        Histogram serviceTimes = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        long errors = 0;
+
+        for (Connection client : clients)
+        {
+            responseTimes.add(client.responseTimes);
+            serviceTimes.add(client.serviceTimes);
+            errors += client.errors;
+            client.close();
+        }
+
+        double measuredSeconds = measureNanos / (double) SECONDS.toNanos(1);
+
+        out.printf("completed %d, achieved %.0f msgs/sec, %d errors, %d never sent because the run fell too far behind%n",
+                   responseTimes.getTotalCount(),
+                   responseTimes.getTotalCount() / measuredSeconds,
+                   errors,
+                   schedule.getUnsent());
+
+        printSummary(out, "response time", responseTimes);
+        printSummary(out, "service time", serviceTimes);
+
+        out.println();
+        out.println("Response time distribution (ms):");
+        responseTimes.outputPercentileDistribution(out, 1000.0);
+    }
+
+    /**
+     * Sends on one connection until the schedule runs out. A Message due while every connection is busy is
+     * sent late by whichever connection frees up first, and its wait counts towards its response time.
+     */
+    private void send(Connection client, Schedule schedule)
+    {
+        long intendedStart;
+
+        while ((intendedStart = schedule.next()) != Schedule.DONE)
+        {
+            sleepUntil(intendedStart);
+
+            long actualStart = System.nanoTime();
+            boolean succeeded = client.send();
+            long end = System.nanoTime();
+
+            if (!schedule.isMeasured(intendedStart))
+            {
+                continue;
+            }
+
+            if (!succeeded)
+            {
+                client.errors++;
+                continue;
+            }
+
+            client.responseTimes.recordValue(toMicros(end - intendedStart));
+            client.serviceTimes.recordValue(toMicros(end - actualStart));
+        }
+    }
+
+    private static void sleepUntil(long nanoTime)
+    {
+        long remaining;
+
+        while ((remaining = nanoTime - System.nanoTime()) > 0)
+        {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static long toMicros(long nanos)
+    {
+        return Math.min(NANOSECONDS.toMicros(nanos), HIGHEST_LATENCY_MICROS);
+    }
+
+    private static void printSummary(PrintStream out, String name, Histogram histogram)
+    {
+        out.printf("%-14s p50 %8d us, p90 %8d us, p99 %8d us, p99.9 %8d us, max %8d us%n",
+                   name,
+                   histogram.getValueAtPercentile(50),
+                   histogram.getValueAtPercentile(90),
+                   histogram.getValueAtPercentile(99),
+                   histogram.getValueAtPercentile(99.9),
+                   histogram.getMaxValue());
+    }
+
+    /**
+     * Hands out the times each Message is due, shared by all of the connections.
+     */
+    private final class Schedule
+    {
+
+        private static final long DONE = Long.MIN_VALUE;
+
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicLong handedOut = new AtomicLong();
+        private final long start;
+        private final long measureFrom;
+        private final long end;
+        private final long giveUpAt;
+        private final double intervalNanos = SECONDS.toNanos(1) / (double) rate;
+
+        private Schedule(long start)
+        {
+            this.start = start;
+            this.measureFrom = start + warmUpNanos;
+            this.end = measureFrom + measureNanos;
+            //If the server cannot keep up, the backlog could take far longer than the run itself to drain.
+            this.giveUpAt = end + measureNanos;
+        }
+
+        /**
+         * @return When the next Message is due, or {@link #DONE}.
+         */
+        long next()
+        {
+            long intendedStart = start + (long) (sequence.getAndIncrement() * intervalNanos);
+
+            if (intendedStart >= end)
+            {
+                return DONE;
+            }
+
+            if (System.nanoTime() > giveUpAt)
+            {
+                return DONE;
+            }
+
+            handedOut.incrementAndGet();
+            return intendedStart;
+        }
+
+        boolean isMeasured(long intendedStart)
+        {
+            return intendedStart >= measureFrom;
+        }
+
+        long getUnsent()
+        {
+            long scheduled = (long) Math.ceil((end - start) / intervalNanos);
+            return Math.max(0, scheduled - handedOut.get());
+        }
+
+    }
+
+    /**
+     * A single persistent connection, along with what was measured on it. Only used by one thread at a time.
+     */
+    private final class Connection
+    {
+
+        private final Histogram responseTimes = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        private final Histogram serviceTimes = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        private final ApplicationToken token = new ApplicationToken().setTokenId(tokenId);
+
+        private TTransport transport;
+        private ApplicationService.Client client;
+        private long errors = 0;
+
+        private Connection() throws TTransportException
+        {
+            connect();
+        }
+
+        private void connect() throws TTransportException
+        {
+            transport = new TSocket(host, port, SOCKET_TIMEOUT_MILLIS);
+            transport.open();
+            client = new ApplicationService.Client(new TBinaryProtocol(transport));
+        }
+
+        boolean send()
+        {
+            SendMessageRequest request = new SendMessageRequest()
+                .setApplicationToken(token)
+                .setTitle(LoadScenario.MATCHING_TITLE)
+                .setBody("Wire Load Test Message")
+                .setUrgency(Urgency.HIGH)
+                .setHostname("load-test")
+                .setTimeOfMessage(System.currentTimeMillis());
+
+            try
+            {
+                if (async)
+                {
+                    client.sendMessageAsync(request);
+                }
+                else
+                {
+                    client.sendMessage(request);
+                }
+
+                return true;
+            }
+            catch (TTransportException ex)
+            {
+                reconnect();
+                return false;
+            }
+            catch (TException ex)
+            {
+                return false;
+            }
+        }
+
+        private void reconnect()
+        {
+            close();
+
+            try
+            {
+                connect();
+            }
+            catch (TTransportException ex)
+            {
+                //The next send fails and tries again.
+            }
+        }
+
+        void close()
+        {
+            if (transport != null)
+            {
+                transport.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.*;
+import tech.aroma.application.service.pipeline.PipelineOptions;
+import tech.aroma.application.service.pipeline.StagedPipeline;
+import tech.aroma.thrift.Message;
+
+/**
+ * Compares how long each {@link ActionRunner} takes to run through a tree of Actions that block as if
+ * waiting on I/O, and how many threads it takes to do so.
+ * <p>
+ * The score is the makespan: the time from handing the Actions to the runner until every level has run.
+ * The {@code threadsUsed} counter is the most threads any single run spread the tree across.
+ * <pre>
+ * java -jar target/benchmarks.jar ActionRunnerBenchmark -p fanOut=8 -p depth=3 -p blockingMicros=1000
+ * </pre>
+ *
+ * @author SirWellington
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActionRunnerBenchmark
+{
+
+    public enum Strategy
+    {
+        SYNCHRONOUS,
+        ASYNCHRONOUS,
+        STAGED
+    }
+
+    @Param
+    public Strategy strategy;
+
+    @Param({ "4", "16" })
+    public int fanOut;
+
+    @Param({ "1", "3" })
+    public int depth;
+
+    @Param({ "0", "250", "1000" })
+    public long blockingMicros;
+
+    private final Set<Thread> threadsUsed = ConcurrentHashMap.newKeySet();
+
+    private ActionRunner runner;
+    private StagedPipeline pipeline;
+    private Message message;
+    private int expectedActions;
+
+    @Setup
+    public void setUp()
+    {
+        ActionRunnerLimits limits = ActionRunnerLimits.defaults();
+        expectedActions = SyntheticAction.sizeOf(fanOut, depth);
+
+        if (expectedActions > limits.getMaxTotalActions() || depth > limits.getMaxDepth())
+        {
+            throw new IllegalArgumentException("A tree of " + expectedActions + " Actions, " + depth + " deep, exceeds " + limits);
+        }
+
+        switch (strategy)
+        {
+            case SYNCHRONOUS:
+                runner = ActionRunner.newSynchronousRunner(limits);
+                break;
+            case ASYNCHRONOUS:
+                runner = ActionRunner.newAsynchronousRunner(limits);
+                break;
+            case STAGED:
+                pipeline = StagedPipeline.newInstance(PipelineOptions.defaults(), new MetricRegistry());
+                runner = new ActionRunnerStaged(limits, pipeline);
+                break;
+            default:
+                throw new IllegalStateException("Unknown strategy: " + strategy);
+        }
+
+        message = new Message()
+            .setMessageId(UUID.randomUUID().toString())
+            .setApplicationId(UUID.randomUUID().toString())
+            .setTitle("Benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        if (pipeline != null)
+        {
+            pipeline.close();
+        }
+    }
+
+    @Benchmark
+    public int runThroughActions(Report report)
+    {
+        threadsUsed.clear();
+        List<Action> actions = SyntheticAction.tree(fanOut, depth, blockingMicros, threadsUsed);
+
+        int actionsRun = runner.runThroughActions(message, actions);
+
+        if (actionsRun != expectedActions)
+        {
+            throw new IllegalStateException("Expected to run " + expectedActions + " Actions but ran " + actionsRun);
+        }
+
+        report.threadsUsed = Math.max(report.threadsUsed, threadsUsed.size());
+
+        return actionsRun;
+    }
+
+    /**
+     * Reported by JMH alongside the makespan.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Report
+    {
+
+        public int threadsUsed;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            threadsUsed = 0;
+        }
+
+    }
+
+}
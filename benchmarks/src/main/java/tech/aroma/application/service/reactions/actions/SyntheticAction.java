@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+import tech.aroma.thrift.Message;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * An {@link Action} that blocks for a while, as if waiting on I/O, and then creates the next level of a
+ * tree of Actions.
+ *
+ * @author SirWellington
+ */
+final class SyntheticAction implements Action
+{
+
+    private final int fanOut;
+    private final int levelsBelow;
+    private final long blockingNanos;
+    private final Set<Thread> threadsUsed;
+
+    private SyntheticAction(int fanOut, int levelsBelow, long blockingNanos, Set<Thread> threadsUsed)
+    {
+        this.fanOut = fanOut;
+        this.levelsBelow = levelsBelow;
+        this.blockingNanos = blockingNanos;
+        this.threadsUsed = threadsUsed;
+    }
+
+    /**
+     * Creates the first level of a tree in which every Action creates {@code fanOut} more, down to
+     * {@code depth} levels.
+     *
+     * @param threadsUsed Every thread that runs one of the Actions is added to this Set. It must be thread-safe.
+     */
+    static List<Action> tree(int fanOut, int depth, long blockingMicros, Set<Thread> threadsUsed)
+    {
+        return level(fanOut, depth - 1, MICROSECONDS.toNanos(blockingMicros), threadsUsed);
+    }
+
+    /**
+     * @return How many Actions a tree of this shape holds.
+     */
+    static int sizeOf(int fanOut, int depth)
+    {
+        int size = 0;
+        int width = 1;
+
+        for (int level = 0; level < depth; ++level)
+        {
+            width *= fanOut;
+            size += width;
+        }
+
+        return size;
+    }
+
+    private static List<Action> level(int fanOut, int levelsBelow, long blockingNanos, Set<Thread> threadsUsed)
+    {
+        List<Action> actions = new ArrayList<>(fanOut);
+
+        for (int i = 0; i < fanOut; ++i)
+        {
+            actions.add(new SyntheticAction(fanOut, levelsBelow, blockingNanos, threadsUsed));
+        }
+
+        return actions;
+    }
+
+    @Override
+    public List<Action> actOnMessage(Message message)
+    {
+        threadsUsed.add(Thread.currentThread());
+
+        if (blockingNanos > 0)
+        {
+            long wakeAt = System.nanoTime() + blockingNanos;
+            long remaining;
+
+            while ((remaining = wakeAt - System.nanoTime()) > 0)
+            {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+
+        if (levelsBelow <= 0)
+        {
+            return Collections.emptyList();
+        }
+
+        return level(fanOut, levelsBelow - 1, blockingNanos, threadsUsed);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SyntheticAction{" + "fanOut=" + fanOut + ", levelsBelow=" + levelsBelow + ", blockingNanos=" + blockingNanos + '}';
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.matchers;
+
+import java.util.UUID;
+
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.Urgency;
+
+/**
+ * Builds the Messages the matcher Benchmarks run against.
+ * <p>
+ * Each benchmark uses a target, which the matchers are built to accept, and a decoy, which differs from the
+ * target in every field a matcher looks at. The bodies end in a marker, so that substring searches have to
+ * scan the whole body.
+ *
+ * @author SirWellington
+ */
+final class BenchmarkMessages
+{
+
+    static final String TARGET_MARKER = "aroma-target";
+    static final String DECOY_MARKER = "aroma-decoy";
+    static final String ABSENT = "never-in-a-message";
+
+    private BenchmarkMessages()
+    {
+    }
+
+    static Message target(int bodyLength)
+    {
+        return create("Build Failed", "build-server-01.aroma.tech", Urgency.HIGH, TARGET_MARKER, bodyLength);
+    }
+
+    static Message decoy(int bodyLength)
+    {
+        return create("Deploy Finished", "web-07.example.org", Urgency.LOW, DECOY_MARKER, bodyLength);
+    }
+
+    private static Message create(String title, String hostname, Urgency urgency, String marker, int bodyLength)
+    {
+        return new Message()
+            .setMessageId(UUID.randomUUID().toString())
+            .setApplicationId(UUID.randomUUID().toString())
+            .setApplicationName("Benchmarks")
+            .setTitle(title)
+            .setHostname(hostname)
+            .setUrgency(urgency)
+            .setBody(bodyOf(bodyLength, marker))
+            .setTimeOfCreation(System.currentTimeMillis())
+            .setTimeMessageReceived(System.currentTimeMillis());
+    }
+
+    private static String bodyOf(int length, String marker)
+    {
+        StringBuilder body = new StringBuilder(length);
+        String filler = "The quick brown fox jumps over the lazy dog. ";
+
+        while (body.length() < length - marker.length())
+        {
+            body.append(filler);
+        }
+
+        body.setLength(Math.max(0, length - marker.length()));
+        return body.append(marker).toString();
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.matchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.reactions.AromaMatcher;
+
+import static tech.aroma.thrift.application.service.ApplicationServiceConstants.MAX_CHARACTERS_IN_BODY;
+
+/**
+ * Measures matching one Message against all of the Reactions of its Application, the way
+ * the {@code MessageReactor} does.
+ *
+ * @author SirWellington
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchAlgorithmBenchmark
+{
+
+    public enum Algorithm
+    {
+        AND,
+        OR
+    }
+
+    @Param
+    public Algorithm algorithm;
+
+    @Param({ "1", "10", "100" })
+    public int reactionCount;
+
+    @Param
+    public MatcherMix mix;
+
+    @Param({ "64", "1024", "" + MAX_CHARACTERS_IN_BODY })
+    public int bodyLength;
+
+    private MatchAlgorithm matchAlgorithm;
+    private Message message;
+    private List<List<AromaMatcher>> reactions;
+
+    @Setup
+    public void setUp()
+    {
+        MatcherFactory factory = new MatcherFactoryImpl();
+        matchAlgorithm = algorithm == Algorithm.AND ? new MatchAlgorithmAnd(factory) : new MatchAlgorithmOr(factory);
+
+        message = BenchmarkMessages.target(bodyLength);
+        Message decoy = BenchmarkMessages.decoy(bodyLength);
+
+        reactions = new ArrayList<>(reactionCount);
+
+        for (int i = 0; i < reactionCount; ++i)
+        {
+            reactions.add(mix.matchersFor(i, message, decoy));
+        }
+    }
+
+    /**
+     * @return The number of Reactions that match.
+     */
+    @Benchmark
+    public int matchReactions()
+    {
+        int matches = 0;
+
+        for (List<AromaMatcher> matchers : reactions)
+        {
+            if (matchAlgorithm.matches(message, matchers))
+            {
+                ++matches;
+            }
+        }
+
+        return matches;
+    }
+
+}
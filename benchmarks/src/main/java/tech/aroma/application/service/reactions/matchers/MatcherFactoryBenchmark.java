@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.matchers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.reactions.AromaMatcher;
+
+/**
+ * Measures how quickly {@link MatcherFactoryImpl} turns each kind of {@link AromaMatcher} into a predicate.
+ * This happens for every matcher of every Reaction, on every Message.
+ *
+ * @author SirWellington
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatcherFactoryBenchmark
+{
+
+    @Param
+    public MatcherKind kind;
+
+    private MatcherFactory factory;
+    private AromaMatcher matcher;
+
+    @Setup
+    public void setUp()
+    {
+        Message message = BenchmarkMessages.target(256);
+
+        factory = new MatcherFactoryImpl();
+        matcher = kind.toAromaMatcher(message);
+    }
+
+    @Benchmark
+    public MessageMatcher matcherFor()
+    {
+        return factory.matcherFor(matcher);
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.matchers;
+
+import sir.wellington.alchemy.collections.sets.Sets;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.reactions.*;
+
+import static tech.aroma.application.service.reactions.matchers.BenchmarkMessages.ABSENT;
+
+/**
+ * Every kind of {@link AromaMatcher}, along with the {@link MessageMatchers} predicate it becomes.
+ * The matchers built are the ones that accept the Message they are built from.
+ *
+ * @author SirWellington
+ */
+enum MatcherKind
+{
+    ALL
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.all(new MatcherAll());
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.matchesAll();
+        }
+    },
+    APPLICATION_IS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.applicationIs(new MatcherApplicationIs(message.applicationId));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.applicationIs(message.applicationId);
+        }
+    },
+    APPLICATION_IS_NOT
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.applicationIsNot(new MatcherApplicationIsNot(OTHER_APPLICATION_ID));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.applicationIsNot(OTHER_APPLICATION_ID);
+        }
+    },
+    TITLE_IS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.titleIs(new MatcherTitleIs(message.title));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.titleIs(message.title);
+        }
+    },
+    TITLE_IS_NOT
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.titleIsNot(new MatcherTitleIsNot(ABSENT));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.titleIsNot(ABSENT);
+        }
+    },
+    TITLE_CONTAINS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.titleContains(new MatcherTitleContains(tailOf(message.title)));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.titleContains(tailOf(message.title));
+        }
+    },
+    TITLE_DOES_NOT_CONTAIN
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.titleDoesNotContain(new MatcherTitleDoesNotContain(ABSENT));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.not(MessageMatchers.titleContains(ABSENT));
+        }
+    },
+    BODY_IS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.bodyIs(new MatcherBodyIs(message.body));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.bodyIs(message.body);
+        }
+    },
+    BODY_CONTAINS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.bodyContains(new MatcherBodyContains(tailOf(message.body)));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.bodyContains(tailOf(message.body));
+        }
+    },
+    BODY_DOES_NOT_CONTAIN
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.bodyDoesNotContain(new MatcherBodyDoesNotContain(ABSENT));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.bodyDoesNotContain(ABSENT);
+        }
+    },
+    URGENCY_IS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.urgencyEquals(new MatcherUrgencyIs(Sets.createFrom(message.urgency)));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.urgencyIsOneOf(Sets.createFrom(message.urgency));
+        }
+    },
+    HOSTNAME_IS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.hostnameIs(new MatcherHostnameIs(message.hostname));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.hostnameIs(message.hostname);
+        }
+    },
+    HOSTNAME_CONTAINS
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.hostnameContains(new MatcherHostnameContains(tailOf(message.hostname)));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.hostnameContains(tailOf(message.hostname));
+        }
+    },
+    HOSTNAME_DOES_NOT_CONTAIN
+    {
+        @Override
+        AromaMatcher toAromaMatcher(Message message)
+        {
+            return AromaMatcher.hostnameDoesNotContain(new MatcherHostnameDoesNotContain(ABSENT));
+        }
+
+        @Override
+        MessageMatcher toPredicate(Message message)
+        {
+            return MessageMatchers.hostnameDoesNotContain(ABSENT);
+        }
+    };
+
+    private static final String OTHER_APPLICATION_ID = "00000000-0000-0000-0000-000000000000";
+
+    /**
+     * @return A matcher that accepts the Message.
+     */
+    abstract AromaMatcher toAromaMatcher(Message message);
+
+    /**
+     * @return The predicate {@link MatcherFactoryImpl} would create for {@link #toAromaMatcher(Message)}.
+     */
+    abstract MessageMatcher toPredicate(Message message);
+
+    /**
+     * The end of the text, so that a substring search has to look through all of it.
+     */
+    private static String tailOf(String text)
+    {
+        return text.substring(Math.max(0, text.length() - 8));
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.matchers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.reactions.AromaMatcher;
+
+/**
+ * The kinds of matchers each Reaction in a Benchmark is made of.
+ *
+ * @author SirWellington
+ */
+enum MatcherMix
+{
+    /**
+     * Cheap comparisons only, the most common Reactions.
+     */
+    TITLE_AND_URGENCY(MatcherKind.TITLE_IS, MatcherKind.URGENCY_IS),
+    /**
+     * Searches through the body, the most expensive Reactions.
+     */
+    BODY_SEARCH(MatcherKind.BODY_CONTAINS, MatcherKind.BODY_DOES_NOT_CONTAIN),
+    /**
+     * Every kind of matcher, three to a Reaction.
+     */
+    MIXED(MatcherKind.values());
+
+    private static final int MATCHERS_PER_MIXED_REACTION = 3;
+
+    private final MatcherKind[] kinds;
+
+    private MatcherMix(MatcherKind... kinds)
+    {
+        this.kinds = kinds;
+    }
+
+    /**
+     * Creates the matchers of the Reaction at the given position. Reactions alternate between accepting the
+     * target and accepting the decoy, so that about half of them match.
+     */
+    List<AromaMatcher> matchersFor(int reaction, Message target, Message decoy)
+    {
+        Message accepted = reaction % 2 == 0 ? target : decoy;
+        int count = this == MIXED ? MATCHERS_PER_MIXED_REACTION : kinds.length;
+
+        List<AromaMatcher> matchers = new ArrayList<>(count);
+
+        for (int i = 0; i < count; ++i)
+        {
+            MatcherKind kind = kinds[(reaction + i) % kinds.length];
+            matchers.add(kind.toAromaMatcher(accepted));
+        }
+
+        return matchers;
+    }
+
+}
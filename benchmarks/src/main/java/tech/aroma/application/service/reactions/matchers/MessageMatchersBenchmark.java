@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.matchers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tech.aroma.thrift.Message;
+
+import static tech.aroma.thrift.application.service.ApplicationServiceConstants.MAX_CHARACTERS_IN_BODY;
+
+/**
+ * Measures each {@link MessageMatchers} predicate against a Message it accepts, and one it rejects.
+ *
+ * @author SirWellington
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageMatchersBenchmark
+{
+
+    @Param
+    public MatcherKind kind;
+
+    @Param({ "64", "1024", "" + MAX_CHARACTERS_IN_BODY })
+    public int bodyLength;
+
+    private Message target;
+    private Message decoy;
+    private MessageMatcher predicate;
+
+    @Setup
+    public void setUp()
+    {
+        target = BenchmarkMessages.target(bodyLength);
+        decoy = BenchmarkMessages.decoy(bodyLength);
+        predicate = kind.toPredicate(target);
+    }
+
+    @Benchmark
+    public boolean matchesTarget()
+    {
+        return predicate.matches(target);
+    }
+
+    @Benchmark
+    public boolean matchesDecoy()
+    {
+        return predicate.matches(decoy);
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import java.io.Closeable;
+
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.thrift.application.service.ApplicationService;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validPort;
+
+/**
+ * Serves an {@link ApplicationService.Iface} on a local port, using the same server {@link TcpServer} runs
+ * its primary listener on. This lets load tests go through the real socket accept, Protocol decoding and
+ * worker pool.
+ *
+ * @author SirWellington
+ */
+public final class LocalTcpServer implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(LocalTcpServer.class);
+
+    private final TServer server;
+    private final int port;
+
+    private LocalTcpServer(TServer server, int port)
+    {
+        this.server = server;
+        this.port = port;
+    }
+
+    /**
+     * Starts serving in the background, and returns once the server is accepting connections.
+     *
+     * @throws TTransportException If the port could not be bound.
+     */
+    public static LocalTcpServer start(int port, @Required ApplicationService.Iface service) throws TTransportException,
+                                                                                                 InterruptedException
+    {
+        checkThat(port).is(validPort());
+        checkThat(service).is(notNull());
+
+        TServer server = TcpServer.createServer(ListenerOptions.autoDetect(port), new ApplicationService.Processor<>(service));
+
+        Thread thread = new Thread(server::serve, "local-server-" + port);
+        thread.setDaemon(true);
+        thread.start();
+
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+
+        while (!server.isServing())
+        {
+            if (System.nanoTime() > deadline)
+            {
+                server.stop();
+                throw new TTransportException("Server at port " + port + " did not start in time");
+            }
+
+            Thread.sleep(10);
+        }
+
+        LOG.info("Local Application Service serving at port {}", port);
+
+        return new LocalTcpServer(server, port);
+    }
+
+    public int getPort()
+    {
+        return port;
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LocalTcpServer{" + "port=" + port + ", serving=" + server.isServing() + '}';
+    }
+
+}
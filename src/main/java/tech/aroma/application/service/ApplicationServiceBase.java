@@ -19,9 +19,16 @@ package tech.aroma.application.service;
 import java.util.concurrent.ExecutorService;
 import javax.inject.Inject;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.aroma.application.service.operations.ApplicationThrottledException;
+import tech.aroma.application.service.operations.ServiceAtCapacityException;
+import tech.aroma.application.service.pipeline.RingBuffer;
+import tech.aroma.application.service.pipeline.RingBufferOptions;
+import tech.aroma.application.service.pipeline.StageName;
+import tech.aroma.application.service.pipeline.StagedPipeline;
 import tech.aroma.thrift.AromaConstants;
 import tech.aroma.thrift.application.service.*;
 import tech.aroma.thrift.exceptions.*;
@@ -50,16 +57,25 @@ final class ApplicationServiceBase implements ApplicationService.Iface
 
     private final ThriftOperation<SendMessageRequest, SendMessageResponse> sendMessageOperation;
     private final ExecutorService executor;
+    private final StagedPipeline pipeline;
+    private final RingBuffer<SendMessageRequest> ringBuffer;
     
     @Inject
     ApplicationServiceBase(ThriftOperation<SendMessageRequest, SendMessageResponse> sendMessageOperation,
-                           ExecutorService executor)
+                           ExecutorService executor,
+                           StagedPipeline pipeline,
+                           RingBufferOptions ringBufferOptions,
+                           MetricRegistry metrics)
     {
-        checkThat(executor, sendMessageOperation)
+        checkThat(executor, sendMessageOperation, pipeline, ringBufferOptions, metrics)
             .are(notNull());
         
         this.sendMessageOperation = sendMessageOperation;
         this.executor = executor;
+        this.pipeline = pipeline;
+        this.ringBuffer = ringBufferOptions.isEnabled()
+                          ? RingBuffer.start(ringBufferOptions, "send-message-async", this::trySendMessage, metrics)
+                          : null;
     }
     
     @Override
@@ -81,7 +97,23 @@ final class ApplicationServiceBase implements ApplicationService.Iface
         SendMessageRequest requestWithoutBody = new SendMessageRequest(request).setBody(null);
         LOG.debug("Received request to send message: {}", requestWithoutBody);
         
-        return sendMessageOperation.process(request);
+        try
+        {
+            return sendMessageOperation.process(request);
+        }
+        //The Service definition does not declare ThroughoutExceededException, so Thrift would report it as an Internal Error.
+        catch (ApplicationThrottledException ex)
+        {
+            throw new OperationFailedException("Rate Limited: " + ex.getMessage());
+        }
+        catch (ServiceAtCapacityException ex)
+        {
+            throw new OperationFailedException("Service At Capacity: " + ex.getMessage());
+        }
+        catch (ThroughoutExceededException ex)
+        {
+            throw new OperationFailedException("Throughput Exceeded: " + ex.getMessage());
+        }
     }
     
     @Override
@@ -93,7 +125,43 @@ final class ApplicationServiceBase implements ApplicationService.Iface
             return;
         }
         
-        executor.submit(() -> this.sendMessage(request));
+        if (ringBuffer != null)
+        {
+            if (!ringBuffer.tryPublish(request))
+            {
+                LOG.warn("Dropping asynchronous request. Ring buffer is full.");
+            }
+            
+            return;
+        }
+        
+        if (!pipeline.isEnabled())
+        {
+            executor.submit(() -> this.sendMessage(request));
+            return;
+        }
+        
+        try
+        {
+            pipeline.stage(StageName.INGEST).execute(() -> this.trySendMessage(request));
+        }
+        catch (ThroughoutExceededException ex)
+        {
+            //There is no one to tell, since the caller is not waiting on a response.
+            LOG.warn("Dropping asynchronous request. {}", ex.getMessage());
+        }
+    }
+    
+    private void trySendMessage(SendMessageRequest request)
+    {
+        try
+        {
+            this.sendMessage(request);
+        }
+        catch (TException ex)
+        {
+            LOG.error("Failed to send message asynchronously", ex);
+        }
     }
     
 }
@@ -23,6 +23,7 @@ import decorice.DecoratedBy;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import tech.aroma.thrift.application.service.*;
 import tech.aroma.thrift.authentication.*;
 import tech.aroma.thrift.authentication.service.*;
@@ -30,6 +31,8 @@ import tech.aroma.thrift.exceptions.*;
 import tech.sirwellington.alchemy.annotations.access.Internal;
 import tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern;
 
+import static tech.aroma.application.service.latency.SendPathStage.GET_TOKEN_INFO;
+import static tech.aroma.application.service.latency.SendPathStage.VERIFY_TOKEN;
 import static tech.aroma.data.assertions.AuthenticationAssertions.completeToken;
 import static tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern.Role.CONCRETE_DECORATOR;
 import static tech.sirwellington.alchemy.arguments.Arguments.*;
@@ -53,18 +56,21 @@ final class AuthenticationLayer implements ApplicationService.Iface
     private final AuthenticationService.Iface authenticationService;
     private final ApplicationService.Iface delegate;
     private final Function<AuthenticationToken, ApplicationToken> tokenMapper;
+    private final SendPathLatencies latencies;
 
     @Inject
     AuthenticationLayer(AuthenticationService.Iface authenticationService,
                         @DecoratedBy(AuthenticationLayer.class) ApplicationService.Iface delegate,
-                        Function<AuthenticationToken, ApplicationToken> tokenMapper)
+                        Function<AuthenticationToken, ApplicationToken> tokenMapper,
+                        SendPathLatencies latencies)
     {
-        checkThat(delegate, authenticationService, tokenMapper)
+        checkThat(delegate, authenticationService, tokenMapper, latencies)
             .are(notNull());
 
         this.authenticationService = authenticationService;
         this.delegate = delegate;
         this.tokenMapper = tokenMapper;
+        this.latencies = latencies;
     }
 
     @Override
@@ -84,7 +90,10 @@ final class AuthenticationLayer implements ApplicationService.Iface
 
         if(!request.applicationToken.isSetApplicationId())
         {
+            long startedAt = latencies.start();
             ApplicationToken newToken = getAdditionalTokenInfo(request.applicationToken);
+            latencies.record(GET_TOKEN_INFO, startedAt);
+
             request.setApplicationToken(newToken);
         }
         
@@ -156,9 +165,12 @@ final class AuthenticationLayer implements ApplicationService.Iface
             .setTokenId(token.tokenId)
             .setOwnerId(token.applicationId);
         
+        long startedAt = latencies.start();
+
         try
         {
             authenticationService.verifyToken(request);
+            latencies.record(VERIFY_TOKEN, startedAt);
         }
         catch (TException ex)
         {
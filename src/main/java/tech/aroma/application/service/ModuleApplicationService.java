@@ -21,15 +21,30 @@ package tech.aroma.application.service;
 import java.util.concurrent.*;
 import javax.inject.Singleton;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import decorice.DecoratorModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.aroma.application.service.latency.LatencyOptions;
+import tech.aroma.application.service.operations.ConcurrencyLimitOptions;
+import tech.aroma.application.service.operations.DeduplicationOptions;
 import tech.aroma.application.service.operations.ModuleApplicationServiceOperations;
+import tech.aroma.application.service.operations.RateLimitOptions;
+import tech.aroma.application.service.pipeline.PipelineOptions;
+import tech.aroma.application.service.pipeline.RingBufferOptions;
+import tech.aroma.application.service.reactions.SingleFlightOptions;
+import tech.aroma.application.service.reactions.StormCollapseOptions;
+import tech.aroma.application.service.reactions.actions.ActionRunnerLimits;
+import tech.aroma.application.service.reactions.actions.CircuitBreakerOptions;
+import tech.aroma.application.service.reactions.actions.NotificationDispatchOptions;
+import tech.aroma.application.service.reactions.actions.PooledWebhookClient;
+import tech.aroma.application.service.reactions.actions.WebhookClient;
+import tech.aroma.application.service.reactions.actions.WebhookClientOptions;
+import tech.aroma.application.service.reactions.actions.WebhookDeliveryOptions;
+import tech.aroma.application.service.reactions.actions.WebhookDigestOptions;
 import tech.aroma.thrift.application.service.ApplicationService;
-import tech.sirwellington.alchemy.http.AlchemyHttp;
-import tech.sirwellington.alchemy.http.AlchemyHttpBuilder;
 
 /**
  *
@@ -46,17 +61,35 @@ public final class ModuleApplicationService extends AbstractModule
         install(new ServiceModule());
 
         bind(ExecutorService.class).toInstance(Executors.newWorkStealingPool(8));
+        bind(ActionRunnerLimits.class).toInstance(ActionRunnerLimits.defaults());
+        bind(WebhookDigestOptions.class).toInstance(WebhookDigestOptions.disabled());
+        bind(WebhookDeliveryOptions.class).toInstance(WebhookDeliveryOptions.defaults());
+        bind(CircuitBreakerOptions.class).toInstance(CircuitBreakerOptions.defaults());
+        bind(WebhookClientOptions.class).toInstance(WebhookClientOptions.defaults());
+        bind(NotificationDispatchOptions.class).toInstance(NotificationDispatchOptions.disabled());
+        bind(RateLimitOptions.class).toInstance(RateLimitOptions.defaults());
+        bind(ConcurrencyLimitOptions.class).toInstance(ConcurrencyLimitOptions.defaults());
+        bind(DeduplicationOptions.class).toInstance(DeduplicationOptions.disabled());
+        bind(StormCollapseOptions.class).toInstance(StormCollapseOptions.disabled());
+        bind(SingleFlightOptions.class).toInstance(SingleFlightOptions.disabled());
+        bind(PipelineOptions.class).toInstance(PipelineOptions.disabled());
+        bind(RingBufferOptions.class).toInstance(RingBufferOptions.disabled());
+        bind(LatencyOptions.class).toInstance(LatencyOptions.defaults());
+        bind(MetricRegistry.class).toInstance(new MetricRegistry());
     }
 
     @Singleton
     @Provides
-    AlchemyHttp provideHttpClient(ExecutorService executor)
+    ScheduledExecutorService provideScheduledExecutor()
     {
-        return AlchemyHttpBuilder.newInstance()
-                                 .enableAsyncCallbacks()
-                                 .usingExecutor(executor)
-                                 .usingTimeout(45, TimeUnit.SECONDS)
-                                 .build();
+        return Executors.newScheduledThreadPool(2);
+    }
+
+    @Singleton
+    @Provides
+    WebhookClient provideWebhookClient(WebhookClientOptions options, MetricRegistry metrics)
+    {
+        return new PooledWebhookClient(options, metrics);
     }
 
     private static class ServiceModule extends DecoratorModule
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Objects;
+
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * The base of the immutable {@code XxxOptions} classes. Equality, hashing and {@link #toString() } are worked out
+ * from the instance fields of the subclass, so a subclass only declares its fields, factories and getters.
+ *
+ * @author SirWellington
+ */
+@Immutable
+@Internal
+public abstract class Options
+{
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>()
+    {
+        @Override
+        protected Field[] computeValue(Class<?> type)
+        {
+            return Arrays.stream(type.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .peek(field -> field.setAccessible(true))
+                .toArray(Field[]::new);
+        }
+    };
+
+    protected Options()
+    {
+    }
+
+    private Object[] values()
+    {
+        Field[] fields = FIELDS.get(getClass());
+        Object[] values = new Object[fields.length];
+
+        for (int i = 0; i < fields.length; ++i)
+        {
+            try
+            {
+                values[i] = fields[i].get(this);
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("could not read " + fields[i], ex);
+            }
+        }
+
+        return values;
+    }
+
+    @Override
+    public final int hashCode()
+    {
+        return 31 * getClass().hashCode() + Arrays.hashCode(values());
+    }
+
+    @Override
+    public final boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+
+        return Arrays.equals(values(), ((Options) obj).values());
+    }
+
+    @Override
+    public final String toString()
+    {
+        Field[] fields = FIELDS.get(getClass());
+        Object[] values = values();
+        StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append('{');
+
+        for (int i = 0; i < fields.length; ++i)
+        {
+            if (i > 0)
+            {
+                builder.append(", ");
+            }
+            builder.append(fields[i].getName()).append('=').append(Objects.toString(values[i]));
+        }
+
+        return builder.append('}').toString();
+    }
+
+}
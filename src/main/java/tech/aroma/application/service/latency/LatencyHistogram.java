@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The latencies of one thing being timed, in microseconds.
+ * <p>
+ * Recording never blocks. The distribution is read in intervals: each {@linkplain #takeInterval() read} covers
+ * what was recorded since the one before it, while the count and sum keep growing for as long as the
+ * process runs.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class LatencyHistogram
+{
+
+    private final Recorder recorder;
+    private final long highestTrackableMicros;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    LatencyHistogram(LatencyOptions options)
+    {
+        this.highestTrackableMicros = MILLISECONDS.toMicros(options.getHighestTrackableMillis());
+        this.recorder = new Recorder(highestTrackableMicros, options.getSignificantDigits());
+    }
+
+    void record(long elapsedNanos)
+    {
+        long micros = Math.max(0, Math.min(NANOSECONDS.toMicros(elapsedNanos), highestTrackableMicros));
+
+        recorder.recordValue(micros);
+        count.increment();
+        sumMicros.add(micros);
+    }
+
+    /**
+     * @return Everything recorded since the last time this was called.
+     */
+    synchronized Histogram takeInterval()
+    {
+        return recorder.getIntervalHistogram();
+    }
+
+    long getCount()
+    {
+        return count.sum();
+    }
+
+    long getSumMicros()
+    {
+        return sumMicros.sum();
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+
+/**
+ * Controls whether {@link SendPathLatencies} records anything, and how precise its histograms are.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class LatencyOptions extends Options
+{
+
+    public static final long DEFAULT_HIGHEST_TRACKABLE_MILLIS = 60_000;
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * The most digits an HdrHistogram supports.
+     */
+    public static final int MAX_SIGNIFICANT_DIGITS = 5;
+
+    private static final LatencyOptions DISABLED = new LatencyOptions(false, 0, 0);
+    private static final LatencyOptions DEFAULTS = new LatencyOptions(true, DEFAULT_HIGHEST_TRACKABLE_MILLIS, DEFAULT_SIGNIFICANT_DIGITS);
+
+    private final boolean enabled;
+    private final long highestTrackableMillis;
+    private final int significantDigits;
+
+    private LatencyOptions(boolean enabled, long highestTrackableMillis, int significantDigits)
+    {
+        this.enabled = enabled;
+        this.highestTrackableMillis = highestTrackableMillis;
+        this.significantDigits = significantDigits;
+    }
+
+    public static LatencyOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static LatencyOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param highestTrackableMillis Anything slower is recorded as this.
+     * @param significantDigits      How many digits of each value are kept. Each digit makes the histograms roughly
+     *                               10 times larger.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static LatencyOptions of(long highestTrackableMillis, int significantDigits) throws IllegalArgumentException
+    {
+        checkThat(highestTrackableMillis)
+            .usingMessage("highest trackable value must be at least 1ms")
+            .is(greaterThanOrEqualTo(1L));
+
+        checkThat(significantDigits)
+            .usingMessage("significant digits must be between 0 and " + MAX_SIGNIFICANT_DIGITS)
+            .is(greaterThanOrEqualTo(0))
+            .is(lessThanOrEqualTo(MAX_SIGNIFICANT_DIGITS));
+
+        return new LatencyOptions(true, highestTrackableMillis, significantDigits);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getHighestTrackableMillis()
+    {
+        return highestTrackableMillis;
+    }
+
+    public int getSignificantDigits()
+    {
+        return significantDigits;
+    }
+
+}
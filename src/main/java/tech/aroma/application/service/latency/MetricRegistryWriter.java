@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.*;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+
+/**
+ * Writes the counters, gauges, meters, histograms, and timers of a {@link MetricRegistry} in the Prometheus
+ * text exposition format.
+ * <p>
+ * Metric names are prefixed with {@value #PREFIX}, and every character Prometheus does not allow becomes an
+ * underscore. Counters and meters are exported as counters of their count, and only numeric and boolean gauges
+ * are exported. Histograms and timers are exported as summaries of their reservoir, with timers in seconds. Their
+ * reservoirs do not keep a sum, so the summaries carry only the quantiles and the count.
+ *
+ * @author SirWellington
+ */
+@Internal
+final class MetricRegistryWriter
+{
+
+    static final String PREFIX = "aroma_";
+    static final double[] QUANTILES = { 0.5, 0.75, 0.95, 0.99, 0.999 };
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private MetricRegistryWriter()
+    {
+    }
+
+    static void writePrometheus(MetricRegistry registry, Writer out) throws IOException
+    {
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet())
+        {
+            writeValue(out, nameOf(entry.getKey()), "counter", String.valueOf(entry.getValue().getCount()));
+        }
+
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet())
+        {
+            Object value = entry.getValue().getValue();
+
+            if (value instanceof Number)
+            {
+                writeValue(out, nameOf(entry.getKey()), "gauge", String.valueOf(((Number) value).doubleValue()));
+            }
+            else if (value instanceof Boolean)
+            {
+                writeValue(out, nameOf(entry.getKey()), "gauge", (Boolean) value ? "1" : "0");
+            }
+        }
+
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet())
+        {
+            writeValue(out, nameOf(entry.getKey()), "counter", String.valueOf(entry.getValue().getCount()));
+        }
+
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet())
+        {
+            Histogram histogram = entry.getValue();
+            writeSummary(out, nameOf(entry.getKey()), histogram.getSnapshot(), histogram.getCount(), 1.0);
+        }
+
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet())
+        {
+            Timer timer = entry.getValue();
+            writeSummary(out, nameOf(entry.getKey()) + "_seconds", timer.getSnapshot(), timer.getCount(), NANOS_PER_SECOND);
+        }
+    }
+
+    static String nameOf(String metricName)
+    {
+        return PREFIX + metricName.replaceAll("[^a-zA-Z0-9_:]", "_");
+    }
+
+    private static void writeValue(Writer out, String name, String type, String value) throws IOException
+    {
+        out.write("# TYPE " + name + " " + type + "\n");
+        out.write(name + " " + value + "\n");
+    }
+
+    private static void writeSummary(Writer out, String name, Snapshot snapshot, long count, double unit) throws IOException
+    {
+        out.write("# TYPE " + name + " summary\n");
+
+        for (double quantile : QUANTILES)
+        {
+            double value = snapshot.size() == 0 ? Double.NaN : snapshot.getValue(quantile) / unit;
+            out.write(name + "{quantile=\"" + quantile + "\"} " + value + "\n");
+        }
+
+        out.write(name + "_count " + count + "\n");
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.codahale.metrics.MetricRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+
+/**
+ * Serves the {@link SendPathLatencies}, and every metric in the service's {@link MetricRegistry}, at {@value #PATH},
+ * in the Prometheus text format, using the HTTP server built into the JDK. Scrapes are answered one at a time.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+public final class PrometheusEndpoint implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(PrometheusEndpoint.class);
+
+    public static final String PATH = "/metrics";
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SendPathLatencies latencies;
+    private final MetricRegistry metrics;
+
+    private PrometheusEndpoint(HttpServer server, ExecutorService executor, SendPathLatencies latencies, MetricRegistry metrics)
+    {
+        this.server = server;
+        this.executor = executor;
+        this.latencies = latencies;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param port The port to listen on. 0 picks any free port.
+     *
+     * @throws IOException If the port could not be bound.
+     */
+    public static PrometheusEndpoint start(int port,
+                                           @Required SendPathLatencies latencies,
+                                           @Required MetricRegistry metrics) throws IOException
+    {
+        checkThat(port)
+            .usingMessage("invalid port: " + port)
+            .is(greaterThanOrEqualTo(0))
+            .is(lessThanOrEqualTo(65_535));
+
+        checkThat(latencies, metrics)
+            .are(notNull());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "prometheus-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+
+        PrometheusEndpoint endpoint = new PrometheusEndpoint(server, executor, latencies, metrics);
+        server.createContext(PATH, endpoint::handle);
+        server.start();
+
+        LOG.info("Serving metrics at port {}{}", endpoint.getPort(), PATH);
+
+        return endpoint;
+    }
+
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            if (!"GET".equals(exchange.getRequestMethod()))
+            {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+            try (Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8))
+            {
+                latencies.writePrometheus(writer);
+                MetricRegistryWriter.writePrometheus(metrics, writer);
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.size());
+
+            try (OutputStream response = exchange.getResponseBody())
+            {
+                body.writeTo(response);
+            }
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            LOG.error("Failed to serve metrics", ex);
+            throw ex;
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PrometheusEndpoint{" + "port=" + getPort() + ", latencies=" + latencies + ", metrics=" + metrics.getNames().size() + '}';
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.HdrHistogram.Histogram;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Records how long each {@linkplain SendPathStage stage} of sending a Message takes, and how long each kind of
+ * Action takes to run, in HdrHistograms.
+ * <p>
+ * Callers take a {@linkplain #start() start time} before the work and {@linkplain #record(SendPathStage, long) record}
+ * against it afterwards. When disabled, both do nothing.
+ * <p>
+ * The histograms are exported as Prometheus summaries. The quantiles of each summary cover the time since the
+ * previous export; the count and sum cover the lifetime of the process. Since each export resets the quantiles,
+ * only one scraper should read them: two scrapers would each see only part of every interval.
+ * Actions are labeled with the fully qualified name of their class, so that classes sharing a simple name in
+ * different packages keep separate series.
+ *
+ * @author SirWellington
+ * @see PrometheusEndpoint
+ */
+@Singleton
+@ThreadSafe
+public final class SendPathLatencies
+{
+
+    static final String STAGE_METRIC = "aroma_send_path_latency_seconds";
+    static final String ACTION_METRIC = "aroma_action_latency_seconds";
+    static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final SendPathLatencies DISABLED = new SendPathLatencies(LatencyOptions.disabled());
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+    private final LatencyOptions options;
+    private final Map<SendPathStage, LatencyHistogram> stages = new EnumMap<>(SendPathStage.class);
+    private final ConcurrentMap<Class<?>, LatencyHistogram> actions = new ConcurrentHashMap<>();
+
+    @Inject
+    SendPathLatencies(LatencyOptions options)
+    {
+        checkThat(options).is(notNull());
+
+        this.options = options;
+
+        if (options.isEnabled())
+        {
+            for (SendPathStage stage : SendPathStage.values())
+            {
+                stages.put(stage, new LatencyHistogram(options));
+            }
+        }
+    }
+
+    /**
+     * Creates an instance that records nothing.
+     */
+    public static SendPathLatencies disabled()
+    {
+        return DISABLED;
+    }
+
+    public static SendPathLatencies newInstance(@Required LatencyOptions options) throws IllegalArgumentException
+    {
+        checkThat(options).is(notNull());
+
+        return new SendPathLatencies(options);
+    }
+
+    public boolean isEnabled()
+    {
+        return options.isEnabled();
+    }
+
+    /**
+     * @return The time to pass to {@link #record(SendPathStage, long)} or {@link #recordAction(Class, long)} once
+     *         the work is done.
+     */
+    public long start()
+    {
+        return options.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    public void record(@Required SendPathStage stage, long startedAt)
+    {
+        if (!options.isEnabled())
+        {
+            return;
+        }
+
+        checkThat(stage).is(notNull());
+
+        stages.get(stage).record(System.nanoTime() - startedAt);
+    }
+
+    /**
+     * @param actionClass The class of the Action that ran. Actions are grouped, and exported, by class name.
+     */
+    public void recordAction(@Required Class<?> actionClass, long startedAt)
+    {
+        if (!options.isEnabled())
+        {
+            return;
+        }
+
+        checkThat(actionClass).is(notNull());
+
+        actions.computeIfAbsent(actionClass, ignored -> new LatencyHistogram(options))
+            .record(System.nanoTime() - startedAt);
+    }
+
+    /**
+     * @return How many times the stage has been recorded.
+     */
+    public long getCount(@Required SendPathStage stage)
+    {
+        checkThat(stage).is(notNull());
+
+        LatencyHistogram histogram = stages.get(stage);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    /**
+     * @return How many times an Action of this class has been recorded.
+     */
+    public long getActionCount(@Required Class<?> actionClass)
+    {
+        checkThat(actionClass).is(notNull());
+
+        LatencyHistogram histogram = actions.get(actionClass);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    /**
+     * Writes every histogram in the Prometheus text exposition format.
+     */
+    public void writePrometheus(@Required Writer out) throws IOException
+    {
+        checkThat(out).is(notNull());
+
+        Map<String, LatencyHistogram> stagesByName = new LinkedHashMap<>();
+        stages.forEach((stage, histogram) -> stagesByName.put(stage.getShortName(), histogram));
+
+        Map<String, LatencyHistogram> actionsByName = new TreeMap<>();
+        actions.forEach((actionClass, histogram) -> actionsByName.put(actionClass.getName(), histogram));
+
+        writeSummary(out, STAGE_METRIC, "Time spent in each stage of sending a Message.", "stage", stagesByName);
+        writeSummary(out, ACTION_METRIC, "Time spent running each kind of Action.", "action", actionsByName);
+    }
+
+    private static void writeSummary(Writer out,
+                                     String metric,
+                                     String help,
+                                     String label,
+                                     Map<String, LatencyHistogram> series) throws IOException
+    {
+        out.write("# HELP " + metric + " " + help + "\n");
+        out.write("# TYPE " + metric + " summary\n");
+
+        for (Map.Entry<String, LatencyHistogram> entry : series.entrySet())
+        {
+            String labelValue = label + "=\"" + escape(entry.getKey()) + "\"";
+            LatencyHistogram histogram = entry.getValue();
+            Histogram interval = histogram.takeInterval();
+
+            for (double quantile : QUANTILES)
+            {
+                double value = interval.getTotalCount() == 0
+                               ? Double.NaN
+                               : interval.getValueAtPercentile(quantile * 100) / MICROS_PER_SECOND;
+
+                out.write(metric + "{" + labelValue + ",quantile=\"" + quantile + "\"} " + value + "\n");
+            }
+
+            out.write(metric + "_sum{" + labelValue + "} " + histogram.getSumMicros() / MICROS_PER_SECOND + "\n");
+            out.write(metric + "_count{" + labelValue + "} " + histogram.getCount() + "\n");
+        }
+    }
+
+    private static String escape(String labelValue)
+    {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SendPathLatencies{" + "options=" + options + ", actions=" + actions.size() + '}';
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+/**
+ * The steps a {@code sendMessage} call goes through, each timed separately by {@link SendPathLatencies}.
+ *
+ * @author SirWellington
+ */
+public enum SendPathStage
+{
+    /**
+     * Verifying the Application Token with the Authentication Service.
+     */
+    VERIFY_TOKEN,
+    /**
+     * Fetching the rest of a Token from the Authentication Service, when the request only carries its ID.
+     */
+    GET_TOKEN_INFO,
+    /**
+     * Resolving the Token into the Application it belongs to.
+     */
+    RESOLVE_TOKEN,
+    /**
+     * Building the Message from the request.
+     */
+    BUILD_MESSAGE,
+    /**
+     * Everything the Message Reactor does with a Message, from looking up Reactions to running the last Action.
+     */
+    REACT,
+    /**
+     * Loading the Reactions of the Application.
+     */
+    LOOKUP_REACTIONS,
+    /**
+     * Matching the Message against those Reactions.
+     */
+    MATCH_REACTIONS,
+    /**
+     * Running through all of the Actions, and the Actions they create.
+     */
+    RUN_ACTIONS;
+
+    /**
+     * The name used for the stage in exported Metrics.
+     */
+    public String getShortName()
+    {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.application.service.reactions.actions.TokenBucket;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Keeps a {@link TokenBucket} for each Application, so that no single Application can crowd out the others.
+ * <p>
+ * Buckets that have filled back up are forgotten once too many Applications are being tracked, since a
+ * full bucket is no different from a new one. The sweep runs at most once per {@link #SWEEP_INTERVAL_NANOS},
+ * by whichever caller first finds it due, so its cost is spread across the calls in between.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+final class ApplicationRateLimiter
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(ApplicationRateLimiter.class);
+
+    static final String METRIC_THROTTLED = MetricRegistry.name(ApplicationRateLimiter.class, "throttled");
+
+    static final int MAX_TRACKED_APPLICATIONS = 10_000;
+    static final long SWEEP_INTERVAL_NANOS = SECONDS.toNanos(1);
+
+    private final RateLimitOptions options;
+    private final LongSupplier clock;
+    private final Counter throttled;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt;
+
+    @Inject
+    ApplicationRateLimiter(RateLimitOptions options, MetricRegistry metrics)
+    {
+        this(options, metrics, System::nanoTime);
+    }
+
+    ApplicationRateLimiter(RateLimitOptions options, MetricRegistry metrics, LongSupplier clock)
+    {
+        checkThat(options, metrics, clock)
+            .are(notNull());
+
+        this.options = options;
+        this.clock = clock;
+        this.throttled = metrics.counter(METRIC_THROTTLED);
+        this.nextSweepAt = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Takes one Message from the Application's bucket.
+     *
+     * @throws ApplicationThrottledException If the Application has sent too many Messages recently.
+     */
+    void checkAllowed(@Required String applicationId) throws ApplicationThrottledException
+    {
+        if (tryAcquire(applicationId, 1) < 1)
+        {
+            throw new ApplicationThrottledException("Application " + applicationId + " is limited to " +
+                                                    options.getMessagesPerSecond() + " messages per second");
+        }
+    }
+
+    /**
+     * Takes as many of {@code messages} as the Application's bucket allows.
+     *
+     * @return The number of Messages allowed, between 0 and {@code messages}.
+     */
+    int tryAcquire(@Required String applicationId, int messages)
+    {
+        checkThat(applicationId)
+            .usingMessage("missing application id")
+            .is(nonEmptyString());
+
+        checkThat(messages)
+            .is(greaterThanOrEqualTo(0));
+
+        if (!options.isEnabled() || messages == 0)
+        {
+            return messages;
+        }
+
+        long now = clock.getAsLong();
+
+        if (buckets.size() > MAX_TRACKED_APPLICATIONS)
+        {
+            forgetFullBucketsIfDue(now);
+        }
+
+        long nowMillis = NANOSECONDS.toMillis(now);
+        TokenBucket bucket = buckets.computeIfAbsent(applicationId, id -> newBucket(nowMillis));
+        int allowed;
+
+        synchronized (bucket)
+        {
+            allowed = bucket.take(messages, nowMillis);
+        }
+
+        if (allowed < messages)
+        {
+            LOG.debug("Throttled {} of {} Messages from Application {}", messages - allowed, messages, applicationId);
+            throttled.inc(messages - allowed);
+        }
+
+        return allowed;
+    }
+
+    int getNumberOfTrackedApplications()
+    {
+        return buckets.size();
+    }
+
+    private void forgetFullBucketsIfDue(long now)
+    {
+        long due = nextSweepAt.get();
+
+        if (now - due < 0 || !nextSweepAt.compareAndSet(due, now + SWEEP_INTERVAL_NANOS))
+        {
+            return;
+        }
+
+        long nowMillis = NANOSECONDS.toMillis(now);
+        int before = buckets.size();
+
+        buckets.values().removeIf(bucket ->
+        {
+            synchronized (bucket)
+            {
+                return bucket.isFull(nowMillis);
+            }
+        });
+
+        LOG.debug("Forgot {} full buckets", before - buckets.size());
+    }
+
+    private TokenBucket newBucket(long nowMillis)
+    {
+        return new TokenBucket(options.getMessagesPerSecond(), options.getBurst(), nowMillis);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ApplicationRateLimiter{" + "options=" + options + ", trackedApplications=" + buckets.size() + '}';
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.operations;
+
+import tech.aroma.thrift.exceptions.ThroughoutExceededException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+
+/**
+ * Thrown when a single Application is sending Messages faster than it is allowed to,
+ * while the service itself may still have room.
+ *
+ * @see ServiceAtCapacityException
+ * @author SirWellington
+ */
+@Internal
+public final class ApplicationThrottledException extends ThroughoutExceededException
+{
+
+    public ApplicationThrottledException(String message)
+    {
+        super(message);
+    }
+
+}
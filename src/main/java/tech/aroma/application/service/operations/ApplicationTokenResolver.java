@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.function.Function;
+
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.thrift.authentication.*;
+import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.exceptions.*;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.aroma.data.assertions.RequestAssertions.validApplicationId;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Checks Application Tokens against the {@linkplain AuthenticationService.Iface Authentication Service},
+ * and looks up the Application they belong to.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class ApplicationTokenResolver
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(ApplicationTokenResolver.class);
+
+    private final AuthenticationService.Iface authenticationService;
+    private final Function<AuthenticationToken, ApplicationToken> tokenMapper;
+
+    ApplicationTokenResolver(AuthenticationService.Iface authenticationService,
+                             Function<AuthenticationToken, ApplicationToken> tokenMapper)
+    {
+        checkThat(authenticationService, tokenMapper)
+            .are(notNull());
+
+        this.authenticationService = authenticationService;
+        this.tokenMapper = tokenMapper;
+    }
+
+    /**
+     * Makes sure the Token is valid.
+     *
+     * @throws InvalidTokenException    If the Token is missing or rejected.
+     * @throws OperationFailedException If the Authentication Service could not be reached.
+     */
+    void verify(@Required ApplicationToken applicationToken) throws InvalidTokenException, OperationFailedException
+    {
+        checkThat(applicationToken)
+            .throwing(InvalidTokenException.class)
+            .usingMessage("Request missing token")
+            .is(notNull());
+
+        checkThat(applicationToken.tokenId)
+            .throwing(InvalidTokenException.class)
+            .usingMessage("Request missing tokenId")
+            .is(nonEmptyString());
+
+        VerifyTokenRequest request = new VerifyTokenRequest()
+            .setTokenId(applicationToken.tokenId)
+            .setOwnerId(applicationToken.applicationId);
+
+        try
+        {
+            authenticationService.verifyToken(request);
+        }
+        catch (InvalidTokenException ex)
+        {
+            LOG.warn("Application Token is Invalid: [{}]", applicationToken, ex);
+            throw ex;
+        }
+        catch (TException ex)
+        {
+            LOG.error("Failed to verify Token [{}]", applicationToken, ex);
+            throw new OperationFailedException("Could not verify token: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Looks up the full Application Token, including the ID and Name of the Application.
+     *
+     * @throws InvalidTokenException    If the Token is rejected.
+     * @throws OperationFailedException If the Token Info could not be loaded, or does not contain a valid Application ID.
+     */
+    ApplicationToken resolve(@Required ApplicationToken applicationToken) throws InvalidTokenException,
+                                                                                 OperationFailedException
+    {
+        GetTokenInfoRequest getTokenInfoRequest = new GetTokenInfoRequest()
+            .setTokenId(applicationToken.tokenId)
+            .setTokenType(TokenType.APPLICATION);
+
+        GetTokenInfoResponse tokenInfo;
+        try
+        {
+            tokenInfo = authenticationService.getTokenInfo(getTokenInfoRequest);
+        }
+        catch (InvalidTokenException ex)
+        {
+            LOG.warn("Application Token is Invalid: [{}]", applicationToken, ex);
+            throw ex;
+        }
+        catch (TException ex)
+        {
+            LOG.error("Failed to get info for Token [{}]", applicationToken, ex);
+            throw new OperationFailedException("Could not get token info: " + ex.getMessage());
+        }
+
+        checkThat(tokenInfo, tokenInfo.token)
+            .throwing(OperationFailedException.class)
+            .usingMessage("AuthenticationService Response is missing Token Info")
+            .are(notNull());
+
+        checkThat(tokenInfo.token.ownerId)
+            .throwing(OperationFailedException.class)
+            .usingMessage("missing Token Info")
+            .is(nonEmptyString());
+
+        ApplicationToken appToken;
+        try
+        {
+            appToken = tokenMapper.apply(tokenInfo.token);
+        }
+        catch (Exception ex)
+        {
+            LOG.error("Failed to map Auth Token {} to App Token", tokenInfo.token, ex);
+            throw new OperationFailedException("Could not map Auth Token to App Token: " + ex.getMessage());
+        }
+
+        checkThat(appToken)
+            .throwing(OperationFailedException.class)
+            .usingMessage("Could not map Auth Token to App Token")
+            .is(notNull());
+
+        checkThat(appToken.applicationId)
+            .throwing(OperationFailedException.class)
+            .usingMessage("Could not get Application ID from Token")
+            .is(validApplicationId());
+
+        return appToken;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ApplicationTokenResolver{" + "authenticationService=" + authenticationService + ", tokenMapper=" + tokenMapper + '}';
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls how many Messages the service processes at once, across all Applications.
+ * <p>
+ * The limit starts at {@code initialLimit}, and moves between {@code minLimit} and {@code maxLimit}:
+ * where the pipeline queues Messages, it grows by one while they wait less than {@code targetLatencyMillis}
+ * for their work to start, and shrinks by a tenth when they wait longer. Where nothing queues them, it follows
+ * the gradient of their service time instead, and {@code targetLatencyMillis} does not apply.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class ConcurrencyLimitOptions extends Options
+{
+
+    public static final int DEFAULT_INITIAL_LIMIT = 64;
+    public static final int DEFAULT_MIN_LIMIT = 8;
+    public static final int DEFAULT_MAX_LIMIT = 512;
+    public static final long DEFAULT_TARGET_LATENCY_MILLIS = 250L;
+
+    private static final ConcurrencyLimitOptions DISABLED = new ConcurrencyLimitOptions(false,
+                                                                                        Integer.MAX_VALUE,
+                                                                                        Integer.MAX_VALUE,
+                                                                                        Integer.MAX_VALUE,
+                                                                                        Long.MAX_VALUE);
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyMillis;
+
+    private ConcurrencyLimitOptions(boolean enabled, int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis)
+    {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyMillis = targetLatencyMillis;
+    }
+
+    /**
+     * No Message is ever turned away.
+     */
+    public static ConcurrencyLimitOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static ConcurrencyLimitOptions defaults()
+    {
+        return of(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_TARGET_LATENCY_MILLIS);
+    }
+
+    /**
+     * @param initialLimit        The limit to start with.
+     * @param minLimit            The limit never shrinks below this.
+     * @param maxLimit            The limit never grows above this.
+     * @param targetLatencyMillis Messages waiting in a stage queue longer than this for their work to start
+     *                            shrink the limit.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static ConcurrencyLimitOptions of(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis) throws IllegalArgumentException
+    {
+        checkThat(minLimit)
+            .usingMessage("min limit must be at least 1")
+            .is(greaterThanOrEqualTo(1));
+
+        checkThat(initialLimit, maxLimit)
+            .usingMessage("limits must be at least the min limit")
+            .are(greaterThanOrEqualTo(minLimit));
+
+        checkThat(initialLimit)
+            .usingMessage("initial limit cannot exceed the max limit")
+            .is(lessThanOrEqualTo(maxLimit));
+
+        checkThat(targetLatencyMillis)
+            .usingMessage("target latency must be positive")
+            .is(positiveLong());
+
+        return new ConcurrencyLimitOptions(true, initialLimit, minLimit, maxLimit, targetLatencyMillis);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public int getInitialLimit()
+    {
+        return initialLimit;
+    }
+
+    public int getMinLimit()
+    {
+        return minLimit;
+    }
+
+    public int getMaxLimit()
+    {
+        return maxLimit;
+    }
+
+    public long getTargetLatencyMillis()
+    {
+        return targetLatencyMillis;
+    }
+
+}
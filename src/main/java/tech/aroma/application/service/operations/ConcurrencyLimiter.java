@@ -0,0 +1,309 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Limits how many Messages are processed at once, and sheds the rest as soon as they arrive
+ * rather than letting them queue up behind a slow downstream.
+ * <p>
+ * Where a stage queue sits between claiming a slot and the work, the limit adapts to how long each Message
+ * waits in it before its work is {@linkplain Permit#started() started}, rather than to how long the work
+ * itself takes, so that slow but uncongested work does not shed load. The limit grows by one when a Message
+ * starts within the target while the limit is more than half used, and shrinks by a tenth, at most once per
+ * target interval, when a Message waits longer.
+ * <p>
+ * Where there is no such queue, a Permit is closed without being started, and the limit follows the gradient
+ * of its service time instead: the ratio of a long-term average to a short-term average, between one half and
+ * one. While the service time holds steady the gradient is one, and the limit grows by its square root, but only
+ * while more than half of it is in use. Once the service time rises above its long-term average, the limit
+ * shrinks in proportion.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+final class ConcurrencyLimiter
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    static final String METRIC_LIMIT = MetricRegistry.name(ConcurrencyLimiter.class, "limit");
+    static final String METRIC_IN_FLIGHT = MetricRegistry.name(ConcurrencyLimiter.class, "in-flight");
+    static final String METRIC_SHED = MetricRegistry.name(ConcurrencyLimiter.class, "shed");
+    static final String METRIC_LATENCY = MetricRegistry.name(ConcurrencyLimiter.class, "latency");
+    static final String METRIC_WAIT = MetricRegistry.name(ConcurrencyLimiter.class, "wait");
+
+    private static final Permit UNLIMITED = new Permit()
+    {
+        @Override
+        public void started()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
+    private final ConcurrencyLimitOptions options;
+    private final LongSupplier clock;
+    private final long targetLatencyNanos;
+
+    private static final double SHORT_WINDOW = 10.0;
+    private static final double LONG_WINDOW = 100.0;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private long lastDecreaseNanos;
+
+    private double estimatedLimit;
+    private double shortServiceNanos;
+    private double longServiceNanos;
+
+    private final Counter shed;
+    private final Timer latency;
+    private final Timer wait;
+
+    @Inject
+    ConcurrencyLimiter(ConcurrencyLimitOptions options, MetricRegistry metrics)
+    {
+        this(options, metrics, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(ConcurrencyLimitOptions options, MetricRegistry metrics, LongSupplier clock)
+    {
+        checkThat(options, metrics, clock)
+            .are(notNull());
+
+        this.options = options;
+        this.clock = clock;
+        this.targetLatencyNanos = MILLISECONDS.toNanos(options.getTargetLatencyMillis());
+        this.limit = options.getInitialLimit();
+        this.estimatedLimit = limit;
+        this.lastDecreaseNanos = clock.getAsLong();
+
+        this.shed = metrics.counter(METRIC_SHED);
+        this.latency = metrics.timer(METRIC_LATENCY);
+        this.wait = metrics.timer(METRIC_WAIT);
+
+        if (options.isEnabled())
+        {
+            metrics.register(METRIC_LIMIT, (Gauge<Integer>) () -> limit);
+            metrics.register(METRIC_IN_FLIGHT, (Gauge<Integer>) inFlight::get);
+        }
+    }
+
+    /**
+     * Claims a slot, which should be {@linkplain Permit#started() started} once the work begins, and must be
+     * {@linkplain Permit#close() closed} once the work is done.
+     *
+     * @throws ServiceAtCapacityException If the service is already at its limit.
+     */
+    Permit acquire() throws ServiceAtCapacityException
+    {
+        if (!options.isEnabled())
+        {
+            return UNLIMITED;
+        }
+
+        while (true)
+        {
+            int current = inFlight.get();
+            int currentLimit = limit;
+
+            if (current >= currentLimit)
+            {
+                shed.inc();
+                LOG.debug("Shedding request: {} already in flight", current);
+                throw new ServiceAtCapacityException("Service is at capacity. Try again later.");
+            }
+
+            if (inFlight.compareAndSet(current, current + 1))
+            {
+                return new TimedPermit(current + 1, clock.getAsLong());
+            }
+        }
+    }
+
+    int getLimit()
+    {
+        return limit;
+    }
+
+    int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    private void onStarted(int inFlightAtStart, long waited)
+    {
+        long now = clock.getAsLong();
+        wait.update(waited, NANOSECONDS);
+
+        synchronized (this)
+        {
+            if (waited > targetLatencyNanos)
+            {
+                if (now - lastDecreaseNanos >= targetLatencyNanos)
+                {
+                    limit = Math.max(options.getMinLimit(), limit - Math.max(1, limit / 10));
+                    estimatedLimit = limit;
+                    lastDecreaseNanos = now;
+                    LOG.debug("Wait of {}ms exceeded target. Limit lowered to {}", NANOSECONDS.toMillis(waited), limit);
+                }
+            }
+            else if (inFlightAtStart * 2 >= limit && limit < options.getMaxLimit())
+            {
+                limit += 1;
+                estimatedLimit = limit;
+            }
+        }
+    }
+
+    private void onComplete(int inFlightAtStart, long acquiredNanos, boolean started)
+    {
+        inFlight.decrementAndGet();
+
+        long serviceNanos = clock.getAsLong() - acquiredNanos;
+        latency.update(serviceNanos, NANOSECONDS);
+
+        if (!started)
+        {
+            onServiceTime(inFlightAtStart, serviceNanos);
+        }
+    }
+
+    private synchronized void onServiceTime(int inFlightAtStart, long serviceNanos)
+    {
+        if (longServiceNanos == 0)
+        {
+            shortServiceNanos = serviceNanos;
+            longServiceNanos = serviceNanos;
+            return;
+        }
+
+        shortServiceNanos += (serviceNanos - shortServiceNanos) / SHORT_WINDOW;
+        longServiceNanos += (serviceNanos - longServiceNanos) / LONG_WINDOW;
+
+        if (longServiceNanos > shortServiceNanos * 2)
+        {
+            //The service time has recovered from a spike; let the long-term average catch up quicker.
+            longServiceNanos *= 0.95;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longServiceNanos / Math.max(1.0, shortServiceNanos)));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+
+        if (target > estimatedLimit && inFlightAtStart * 2 < limit)
+        {
+            //Too little of the limit is in use to tell whether more would help.
+            return;
+        }
+
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+        estimatedLimit = Math.max(options.getMinLimit(), Math.min(options.getMaxLimit(), estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrencyLimiter{" + "options=" + options + ", limit=" + limit + ", inFlight=" + inFlight + '}';
+    }
+
+    /**
+     * A claimed slot. Closing it more than once has no further effect.
+     */
+    interface Permit extends AutoCloseable
+    {
+
+        /**
+         * Marks the moment the Message leaves a stage queue and its work begins. Only the first call counts. Where
+         * no queue exists, this should not be called, and the limit follows the service time instead.
+         */
+        void started();
+
+        @Override
+        void close();
+
+    }
+
+    private final class TimedPermit implements Permit
+    {
+
+        private final int inFlightAtStart;
+        private final long acquiredNanos;
+        private boolean started = false;
+        private boolean closed = false;
+
+        private TimedPermit(int inFlightAtStart, long acquiredNanos)
+        {
+            this.inFlightAtStart = inFlightAtStart;
+            this.acquiredNanos = acquiredNanos;
+        }
+
+        @Override
+        public synchronized void started()
+        {
+            if (started || closed)
+            {
+                return;
+            }
+
+            started = true;
+            onStarted(inFlightAtStart, clock.getAsLong() - acquiredNanos);
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            closed = true;
+            onComplete(inFlightAtStart, acquiredNanos, started);
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls how long, and how many, recently sent Messages are remembered so that retries of them
+ * can be recognized.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class DeduplicationOptions extends Options
+{
+
+    public static final long DEFAULT_WINDOW_MILLIS = 5 * 60 * 1_000L;
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private static final DeduplicationOptions DISABLED = new DeduplicationOptions(false, 0L, 0);
+    private static final DeduplicationOptions DEFAULTS = new DeduplicationOptions(true, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_ENTRIES);
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxEntries;
+
+    private DeduplicationOptions(boolean enabled, long windowMillis, int maxEntries)
+    {
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Every Message is treated as new, even if it is a retry.
+     */
+    public static DeduplicationOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static DeduplicationOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param windowMillis How long a Message is remembered after it is first sent.
+     * @param maxEntries   The most Messages remembered at once. The oldest are forgotten first.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static DeduplicationOptions of(long windowMillis, int maxEntries) throws IllegalArgumentException
+    {
+        checkThat(windowMillis)
+            .usingMessage("window must be positive")
+            .is(positiveLong());
+
+        checkThat(maxEntries)
+            .usingMessage("max entries must be at least 1")
+            .is(greaterThanOrEqualTo(1));
+
+        return new DeduplicationOptions(true, windowMillis, maxEntries);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getWindowMillis()
+    {
+        return windowMillis;
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+}
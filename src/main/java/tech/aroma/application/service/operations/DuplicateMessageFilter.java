@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.Checks.isNullOrEmpty;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Remembers the Messages sent recently, so that a client retrying a Message gets back the ID of the
+ * original instead of the Message being stored and delivered again.
+ * <p>
+ * A Message is identified by a fingerprint of its Application, Title, Time of Message, and Hostname.
+ * Messages without a Time of Message cannot be told apart from legitimate repeats, so they are never
+ * considered duplicates.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+final class DuplicateMessageFilter
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(DuplicateMessageFilter.class);
+
+    static final String METRIC_DUPLICATES = MetricRegistry.name(DuplicateMessageFilter.class, "duplicates");
+
+    private final DeduplicationOptions options;
+    private final Counter duplicates;
+
+    /**
+     * Fingerprints mapped to the ID of the Message first sent with them. Entries expire once the window has passed,
+     * and the least recently seen are dropped once there are too many.
+     */
+    private final ConcurrentMap<UUID, String> recent;
+
+    @Inject
+    DuplicateMessageFilter(DeduplicationOptions options, MetricRegistry metrics)
+    {
+        this(options, metrics, System::nanoTime);
+    }
+
+    DuplicateMessageFilter(DeduplicationOptions options, MetricRegistry metrics, LongSupplier clock)
+    {
+        checkThat(options, metrics, clock)
+            .are(notNull());
+
+        this.options = options;
+        this.duplicates = metrics.counter(METRIC_DUPLICATES);
+        this.recent = CacheBuilder.newBuilder()
+            .maximumSize(options.getMaxEntries())
+            .expireAfterWrite(options.getWindowMillis(), MILLISECONDS)
+            .ticker(new Ticker()
+            {
+                @Override
+                public long read()
+                {
+                    return clock.getAsLong();
+                }
+            })
+            .<UUID, String>build()
+            .asMap();
+    }
+
+    /**
+     * @return The fingerprint of the Message, or {@code null} if it cannot be reliably identified.
+     */
+    static UUID fingerprintOf(String applicationId, SendMessageRequest request)
+    {
+        if (isNullOrEmpty(applicationId) || request == null || request.timeOfMessage <= 0)
+        {
+            return null;
+        }
+
+        String identity = applicationId + '\u0000' +
+                          request.title + '\u0000' +
+                          request.timeOfMessage + '\u0000' +
+                          request.hostname;
+
+        return UUID.nameUUIDFromBytes(identity.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records that the Message with the given fingerprint is being sent with the given ID.
+     *
+     * @return The ID of the original Message if it was already sent within the window; {@code null} if this
+     *         is the first time it has been seen, in which case the caller should go ahead and send it.
+     */
+    String claim(UUID fingerprint, String messageId)
+    {
+        if (!options.isEnabled() || fingerprint == null)
+        {
+            return null;
+        }
+
+        String existing = recent.putIfAbsent(fingerprint, messageId);
+
+        if (existing != null)
+        {
+            duplicates.inc();
+            LOG.debug("Message {} is a retry of Message {}", messageId, existing);
+        }
+
+        return existing;
+    }
+
+    /**
+     * Forgets a claim made by a Message that could not be sent, so that a retry of it goes through.
+     */
+    void release(UUID fingerprint, String messageId)
+    {
+        if (!options.isEnabled() || fingerprint == null)
+        {
+            return;
+        }
+
+        recent.remove(fingerprint, messageId);
+    }
+
+    int size()
+    {
+        return recent.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DuplicateMessageFilter{" + "options=" + options + ", size=" + size() + '}';
+    }
+
+}
@@ -43,6 +43,8 @@ public final class ModuleApplicationServiceOperations extends AbstractModule
     {
         bind(new TypeLiteral<ThriftOperation<SendMessageRequest, SendMessageResponse>>() {})
             .to(SendMessageOperation.class);
+
+        bind(SendMessageBatchOperation.class);
     }
 
     @Provides
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThan;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * Controls how many Messages a single Application may send, using a token bucket per Application.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class RateLimitOptions extends Options
+{
+
+    public static final double DEFAULT_MESSAGES_PER_SECOND = 100.0;
+    public static final int DEFAULT_BURST = 500;
+
+    private static final RateLimitOptions DISABLED = new RateLimitOptions(false, Double.MAX_VALUE, Integer.MAX_VALUE);
+    private static final RateLimitOptions DEFAULTS = new RateLimitOptions(true, DEFAULT_MESSAGES_PER_SECOND, DEFAULT_BURST);
+
+    private final boolean enabled;
+    private final double messagesPerSecond;
+    private final int burst;
+
+    private RateLimitOptions(boolean enabled, double messagesPerSecond, int burst)
+    {
+        this.enabled = enabled;
+        this.messagesPerSecond = messagesPerSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * Applications may send as fast as they like.
+     */
+    public static RateLimitOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static RateLimitOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param messagesPerSecond The rate an Application may keep up indefinitely.
+     * @param burst             The most Messages an Application may send at once, after being idle.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static RateLimitOptions of(double messagesPerSecond, int burst) throws IllegalArgumentException
+    {
+        checkThat(messagesPerSecond)
+            .usingMessage("rate must be positive")
+            .is(greaterThan(0.0));
+
+        checkThat(burst)
+            .usingMessage("burst must be at least 1")
+            .is(greaterThanOrEqualTo(1));
+
+        return new RateLimitOptions(true, messagesPerSecond, burst);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public double getMessagesPerSecond()
+    {
+        return messagesPerSecond;
+    }
+
+    public int getBurst()
+    {
+        return burst;
+    }
+
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import javax.inject.Inject;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.operations.SendMessageBatchResponse.Result;
+import tech.aroma.application.service.pipeline.Stage;
+import tech.aroma.application.service.pipeline.StagedPipeline;
+import tech.aroma.application.service.reactions.MessageReactor;
+import tech.aroma.application.service.reactions.PartialReactionException;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.aroma.thrift.authentication.ApplicationToken;
+import tech.aroma.thrift.authentication.AuthenticationToken;
+import tech.aroma.thrift.authentication.service.AuthenticationService;
+import tech.aroma.thrift.exceptions.InvalidArgumentException;
+import tech.aroma.thrift.exceptions.InvalidTokenException;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.aroma.thrift.exceptions.ThroughoutExceededException;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.arguments.FailedAssertionException;
+import tech.sirwellington.alchemy.thrift.operations.ThriftOperation;
+
+import static tech.aroma.application.service.pipeline.StageName.AUTHENTICATE;
+import static tech.aroma.application.service.pipeline.StageName.MATCH;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Sends a group of Messages under a single Application Token.
+ * <p>
+ * The Token is verified and resolved once for the whole batch, and the Messages are handed to the
+ * {@link MessageReactor} together, so that the Reactions of the Application are only looked up once.
+ * Each Message gets its own {@link Result}; an invalid Message does not fail the rest of the batch.
+ * <p>
+ * Since the batch types are not Thrift structs, this is not a {@link ThriftOperation}; it is meant to be
+ * called in-process, by the transports that receive Messages in bulk.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+public final class SendMessageBatchOperation
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(SendMessageBatchOperation.class);
+
+    public static final int MAX_MESSAGES_PER_BATCH = 500;
+
+    private final ApplicationTokenResolver tokenResolver;
+    private final MessageReactor messageReactor;
+    private final ApplicationRateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final DuplicateMessageFilter duplicateFilter;
+    private final StagedPipeline pipeline;
+
+    @Inject
+    SendMessageBatchOperation(AuthenticationService.Iface authenticationService,
+                              MessageReactor messageReactor,
+                              Function<AuthenticationToken, ApplicationToken> tokenMapper,
+                              ApplicationRateLimiter rateLimiter,
+                              ConcurrencyLimiter concurrencyLimiter,
+                              DuplicateMessageFilter duplicateFilter,
+                              StagedPipeline pipeline)
+    {
+        checkThat(authenticationService, tokenMapper, messageReactor, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline)
+            .are(notNull());
+
+        this.tokenResolver = new ApplicationTokenResolver(authenticationService, tokenMapper);
+        this.messageReactor = messageReactor;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.duplicateFilter = duplicateFilter;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Creates an operation without any rate or concurrency limits, without duplicate detection,
+     * and with every stage running on the calling Thread.
+     */
+    public static SendMessageBatchOperation newInstance(@Required AuthenticationService.Iface authenticationService,
+                                                        @Required MessageReactor messageReactor,
+                                                        @Required Function<AuthenticationToken, ApplicationToken> tokenMapper,
+                                                        @Required MetricRegistry metrics)
+        throws IllegalArgumentException
+    {
+        checkThat(metrics).is(notNull());
+
+        return new SendMessageBatchOperation(authenticationService,
+                                             messageReactor,
+                                             tokenMapper,
+                                             new ApplicationRateLimiter(RateLimitOptions.disabled(), metrics),
+                                             new ConcurrencyLimiter(ConcurrencyLimitOptions.disabled(), metrics),
+                                             new DuplicateMessageFilter(DeduplicationOptions.disabled(), metrics),
+                                             StagedPipeline.inline());
+    }
+
+    public SendMessageBatchResponse process(@Required SendMessageBatchRequest batch) throws TException
+    {
+        checkThat(batch)
+            .throwing(InvalidArgumentException.class)
+            .usingMessage("batch is missing")
+            .is(notNull());
+
+        checkBatchSize(batch.getMessages());
+
+        return authenticate(batch.getApplicationToken()).send(batch.getMessages());
+    }
+
+    /**
+     * Verifies and resolves the Token once, so that any number of batches can then be sent under it.
+     * This is meant for long-lived connections, where the Application authenticates only when it connects.
+     *
+     * @throws InvalidTokenException    If the Token is missing or rejected.
+     * @throws OperationFailedException If the Token could not be checked.
+     */
+    public Session authenticate(@Required ApplicationToken applicationToken) throws TException
+    {
+        ApplicationToken appToken = pipeline.stage(AUTHENTICATE).call(() ->
+        {
+            tokenResolver.verify(applicationToken);
+            return tokenResolver.resolve(applicationToken);
+        });
+
+        return new Session(appToken);
+    }
+
+    private void checkBatchSize(List<SendMessageRequest> requests) throws InvalidArgumentException
+    {
+        checkThat(requests.size())
+            .throwing(InvalidArgumentException.class)
+            .usingMessage("A batch may contain at most " + MAX_MESSAGES_PER_BATCH + " messages")
+            .is(lessThanOrEqualTo(MAX_MESSAGES_PER_BATCH));
+    }
+
+    private void checkMessage(SendMessageRequest request) throws FailedAssertionException
+    {
+        checkThat(request)
+            .usingMessage("Message is missing")
+            .is(notNull());
+
+        checkThat(request.title)
+            .usingMessage("Missing Message Title")
+            .is(nonEmptyString());
+    }
+
+    /**
+     * An Application whose Token has already been verified.
+     */
+    @ThreadSafe
+    public final class Session
+    {
+
+        private final ApplicationToken appToken;
+
+        private Session(ApplicationToken appToken)
+        {
+            this.appToken = appToken;
+        }
+
+        public String getApplicationId()
+        {
+            return appToken.applicationId;
+        }
+
+        /**
+         * Sends a batch of Messages on behalf of the Application, without checking its Token again.
+         * Retries of Messages sent recently are accepted with the ID of the original, but not sent again.
+         *
+         * @throws InvalidArgumentException If there are more than {@link #MAX_MESSAGES_PER_BATCH} Messages.
+         */
+        public SendMessageBatchResponse send(@Required List<SendMessageRequest> requests) throws TException
+        {
+            checkThat(requests)
+                .throwing(InvalidArgumentException.class)
+                .usingMessage("messages are missing")
+                .is(notNull());
+
+            checkBatchSize(requests);
+
+            Result[] results = new Result[requests.size()];
+            List<Message> messages = Lists.create();
+            List<Integer> positions = Lists.create();
+            List<UUID> fingerprints = Lists.create();
+
+            for (int i = 0; i < requests.size(); ++i)
+            {
+                SendMessageRequest request = requests.get(i);
+
+                try
+                {
+                    checkMessage(request);
+                }
+                catch (FailedAssertionException ex)
+                {
+                    results[i] = Result.rejected(i, ex.getMessage());
+                    continue;
+                }
+
+                UUID fingerprint = DuplicateMessageFilter.fingerprintOf(appToken.applicationId, request);
+                Message message = SendMessageOperation.createMessageFrom(request, appToken);
+
+                String originalMessageId = duplicateFilter.claim(fingerprint, message.messageId);
+
+                if (originalMessageId != null)
+                {
+                    results[i] = Result.accepted(i, originalMessageId);
+                    continue;
+                }
+
+                messages.add(message);
+                positions.add(i);
+                fingerprints.add(fingerprint);
+            }
+
+            LOG.debug("Accepted {} of {} Messages from Application {}", messages.size(), requests.size(), appToken.applicationId);
+
+            int allowed = rateLimiter.tryAcquire(appToken.applicationId, messages.size());
+
+            for (int i = allowed; i < messages.size(); ++i)
+            {
+                int position = positions.get(i);
+                results[position] = Result.throttled(position, "Application is sending too fast");
+                duplicateFilter.release(fingerprints.get(i), messages.get(i).messageId);
+            }
+
+            messages = messages.subList(0, allowed);
+
+            try (ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire())
+            {
+                List<Message> accepted = messages;
+                Stage match = pipeline.stage(MATCH);
+                match.call(() ->
+                {
+                    if (!match.isInline())
+                    {
+                        //Only a real stage queue makes the batch wait; otherwise the limit follows the service time.
+                        permit.started();
+                    }
+
+                    return messageReactor.reactToMessages(accepted);
+                });
+
+                for (int i = 0; i < messages.size(); ++i)
+                {
+                    int position = positions.get(i);
+                    results[position] = Result.accepted(position, messages.get(i).messageId);
+                }
+            }
+            catch (ThroughoutExceededException ex)
+            {
+                for (int i = 0; i < messages.size(); ++i)
+                {
+                    int position = positions.get(i);
+                    results[position] = Result.throttled(position, ex.getMessage());
+                    duplicateFilter.release(fingerprints.get(i), messages.get(i).messageId);
+                }
+            }
+            catch (PartialReactionException ex)
+            {
+                int reacted = ex.getResponses().size();
+                LOG.error("Failed to react to {} of {} Messages from Application {}", messages.size() - reacted, messages.size(), appToken.applicationId, ex);
+
+                for (int i = 0; i < messages.size(); ++i)
+                {
+                    int position = positions.get(i);
+
+                    if (i < reacted)
+                    {
+                        results[position] = Result.accepted(position, messages.get(i).messageId);
+                    }
+                    else
+                    {
+                        results[position] = Result.failed(position, messages.get(i).messageId, ex.getMessage());
+                        duplicateFilter.release(fingerprints.get(i), messages.get(i).messageId);
+                    }
+                }
+            }
+            catch (TException | RuntimeException ex)
+            {
+                LOG.error("Failed to react to batch of {} Messages from Application {}", messages.size(), appToken.applicationId, ex);
+
+                for (int i = 0; i < messages.size(); ++i)
+                {
+                    int position = positions.get(i);
+                    results[position] = Result.failed(position, messages.get(i).messageId, ex.getMessage());
+                    duplicateFilter.release(fingerprints.get(i), messages.get(i).messageId);
+                }
+            }
+
+            return new SendMessageBatchResponse(Arrays.asList(results));
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Session{" + "applicationId=" + appToken.applicationId + '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.List;
+
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.aroma.thrift.authentication.ApplicationToken;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A group of Messages sent by the same Application under a single {@link ApplicationToken}.
+ * <p>
+ * The Token is checked once for the whole batch; any Token set on the individual
+ * {@linkplain SendMessageRequest requests} is ignored.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class SendMessageBatchRequest
+{
+
+    private final ApplicationToken applicationToken;
+    private final List<SendMessageRequest> messages;
+
+    public SendMessageBatchRequest(@Required ApplicationToken applicationToken,
+                                   @Required List<SendMessageRequest> messages) throws IllegalArgumentException
+    {
+        checkThat(applicationToken, messages)
+            .are(notNull());
+
+        this.applicationToken = new ApplicationToken(applicationToken);
+        this.messages = Lists.immutableCopyOf(messages);
+    }
+
+    public ApplicationToken getApplicationToken()
+    {
+        return new ApplicationToken(applicationToken);
+    }
+
+    public List<SendMessageRequest> getMessages()
+    {
+        return messages;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SendMessageBatchRequest{" + "applicationToken=" + applicationToken + ", messages=" + messages.size() + '}';
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.List;
+import java.util.Objects;
+
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * The outcome of a {@link SendMessageBatchRequest}, with one {@link Result} for each Message in the batch,
+ * in the order they were sent.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class SendMessageBatchResponse
+{
+
+    public enum Status
+    {
+        /** The Message was accepted and reacted to. */
+        ACCEPTED,
+        /** The Message itself was invalid, and was not processed. */
+        REJECTED,
+        /** The Message was valid, but could not be processed. It may be retried. */
+        FAILED,
+        /** The Application is sending too fast, or the service is at capacity. It may be retried later. */
+        THROTTLED
+    }
+
+    private final List<Result> results;
+
+    public SendMessageBatchResponse(@Required List<Result> results)
+    {
+        checkThat(results).is(notNull());
+
+        this.results = Lists.immutableCopyOf(results);
+    }
+
+    public List<Result> getResults()
+    {
+        return results;
+    }
+
+    public int getNumberOf(Status status)
+    {
+        return (int) results.stream()
+            .filter(result -> result.status == status)
+            .count();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(results);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final SendMessageBatchResponse other = (SendMessageBatchResponse) obj;
+        return Objects.equals(this.results, other.results);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SendMessageBatchResponse{" + "results=" + results + '}';
+    }
+
+    @Immutable
+    public static final class Result
+    {
+
+        private final int index;
+        private final String messageId;
+        private final Status status;
+        private final String reason;
+
+        private Result(int index, String messageId, Status status, String reason)
+        {
+            this.index = index;
+            this.messageId = messageId;
+            this.status = status;
+            this.reason = reason;
+        }
+
+        static Result accepted(int index, String messageId)
+        {
+            return new Result(index, messageId, Status.ACCEPTED, null);
+        }
+
+        static Result rejected(int index, String reason)
+        {
+            return new Result(index, null, Status.REJECTED, reason);
+        }
+
+        static Result throttled(int index, String reason)
+        {
+            return new Result(index, null, Status.THROTTLED, reason);
+        }
+
+        static Result failed(int index, String messageId, String reason)
+        {
+            return new Result(index, messageId, Status.FAILED, reason);
+        }
+
+        /**
+         * @return The position of the Message in the original {@link SendMessageBatchRequest}.
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        /**
+         * @return The ID assigned to the Message, or {@code null} if it was rejected.
+         */
+        @Optional
+        public String getMessageId()
+        {
+            return messageId;
+        }
+
+        public Status getStatus()
+        {
+            return status;
+        }
+
+        @Optional
+        public String getReason()
+        {
+            return reason;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(index, messageId, status, reason);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null)
+            {
+                return false;
+            }
+            if (getClass() != obj.getClass())
+            {
+                return false;
+            }
+            final Result other = (Result) obj;
+            return this.index == other.index &&
+                   Objects.equals(this.messageId, other.messageId) &&
+                   this.status == other.status &&
+                   Objects.equals(this.reason, other.reason);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Result{" + "index=" + index + ", messageId=" + messageId + ", status=" + status + ", reason=" + reason + '}';
+        }
+
+    }
+
+}
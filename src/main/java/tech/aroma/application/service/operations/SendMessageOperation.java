@@ -25,6 +25,9 @@ import com.datastax.driver.core.utils.UUIDs;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import tech.aroma.application.service.latency.SendPathLatencies;
+import tech.aroma.application.service.pipeline.Stage;
+import tech.aroma.application.service.pipeline.StagedPipeline;
 import tech.aroma.application.service.reactions.MessageReactor;
 import tech.aroma.thrift.Message;
 import tech.aroma.thrift.application.service.SendMessageRequest;
@@ -35,7 +38,9 @@ import tech.aroma.thrift.exceptions.*;
 import tech.sirwellington.alchemy.arguments.AlchemyAssertion;
 import tech.sirwellington.alchemy.thrift.operations.ThriftOperation;
 
-import static tech.aroma.data.assertions.RequestAssertions.validApplicationId;
+import static tech.aroma.application.service.latency.SendPathStage.*;
+import static tech.aroma.application.service.pipeline.StageName.AUTHENTICATE;
+import static tech.aroma.application.service.pipeline.StageName.MATCH;
 import static tech.aroma.thrift.application.service.ApplicationServiceConstants.MAX_CHARACTERS_IN_BODY;
 import static tech.aroma.thrift.application.service.ApplicationServiceConstants.MAX_TITLE_LENGTH;
 import static tech.sirwellington.alchemy.arguments.Arguments.*;
@@ -52,26 +57,40 @@ final class SendMessageOperation implements ThriftOperation<SendMessageRequest,
 
     private final static Logger LOG = LoggerFactory.getLogger(SendMessageOperation.class);
 
-    private final AuthenticationService.Iface authenticationService;
+    private final ApplicationTokenResolver tokenResolver;
     private final MessageReactor messageReactor;
-    private final Function<AuthenticationToken, ApplicationToken> tokenMapper;
+    private final ApplicationRateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final DuplicateMessageFilter duplicateFilter;
+    private final StagedPipeline pipeline;
+    private final SendPathLatencies latencies;
 
     @Inject
     SendMessageOperation(AuthenticationService.Iface authenticationService,
                          MessageReactor messageReactor,
-                         Function<AuthenticationToken, ApplicationToken> tokenMapper)
+                         Function<AuthenticationToken, ApplicationToken> tokenMapper,
+                         ApplicationRateLimiter rateLimiter,
+                         ConcurrencyLimiter concurrencyLimiter,
+                         DuplicateMessageFilter duplicateFilter,
+                         StagedPipeline pipeline,
+                         SendPathLatencies latencies)
     {
-        checkThat(authenticationService, tokenMapper, messageReactor)
+        checkThat(authenticationService, tokenMapper, messageReactor, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies)
             .are(notNull());
 
-        this.authenticationService = authenticationService;
+        this.tokenResolver = new ApplicationTokenResolver(authenticationService, tokenMapper);
         this.messageReactor = messageReactor;
-        this.tokenMapper = tokenMapper;
-
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.duplicateFilter = duplicateFilter;
+        this.pipeline = pipeline;
+        this.latencies = latencies;
     }
 
-    /*
-     * TODO: Add Rate Limiting
+    /**
+     * A retry of a Message sent recently is not sent again; the response carries the ID of the original.
+     *
+     * @throws ThroughoutExceededException If the Application is sending too fast, or the service is at capacity.
      */
     @Override
     public SendMessageResponse process(SendMessageRequest request) throws TException
@@ -80,14 +99,51 @@ final class SendMessageOperation implements ThriftOperation<SendMessageRequest,
             .throwing(ex -> new InvalidArgumentException(ex.getMessage()))
             .is(good());
 
-        ApplicationToken appToken = tryToGetTokenInfo(request.applicationToken);
-
-        String applicationId = appToken.applicationId;
-        checkAppId(applicationId);
+        Message message;
 
-        Message message = createMessageFrom(request, appToken);
-
-        messageReactor.reactToMessage(message);
+        try (ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire())
+        {
+            long startedAt = latencies.start();
+            Stage authenticate = pipeline.stage(AUTHENTICATE);
+            ApplicationToken appToken = authenticate.call(() ->
+            {
+                if (!authenticate.isInline())
+                {
+                    //Only a real stage queue makes the Message wait; otherwise the limit follows the service time.
+                    permit.started();
+                }
+
+                return tokenResolver.resolve(request.applicationToken);
+            });
+            latencies.record(RESOLVE_TOKEN, startedAt);
+
+            UUID fingerprint = DuplicateMessageFilter.fingerprintOf(appToken.applicationId, request);
+
+            startedAt = latencies.start();
+            message = createMessageFrom(request, appToken);
+            latencies.record(BUILD_MESSAGE, startedAt);
+
+            String originalMessageId = duplicateFilter.claim(fingerprint, message.messageId);
+
+            if (originalMessageId != null)
+            {
+                return new SendMessageResponse().setMessageId(originalMessageId);
+            }
+
+            try
+            {
+                rateLimiter.checkAllowed(appToken.applicationId);
+
+                startedAt = latencies.start();
+                pipeline.stage(MATCH).call(() -> messageReactor.reactToMessage(message));
+                latencies.record(REACT, startedAt);
+            }
+            catch (TException | RuntimeException ex)
+            {
+                duplicateFilter.release(fingerprint, message.messageId);
+                throw ex;
+            }
+        }
 
         SendMessageResponse response = new SendMessageResponse()
             .setMessageId(message.messageId);
@@ -95,61 +151,7 @@ final class SendMessageOperation implements ThriftOperation<SendMessageRequest,
         return response;
     }
 
-    private ApplicationToken tryToGetTokenInfo(ApplicationToken applicationToken) throws InvalidTokenException,
-                                                                                             OperationFailedException
-    {
-
-        GetTokenInfoRequest getTokenInfoRequest = new GetTokenInfoRequest()
-            .setTokenId(applicationToken.tokenId)
-            .setTokenType(TokenType.APPLICATION);
-
-        GetTokenInfoResponse tokenInfo;
-        try
-        {
-            tokenInfo = authenticationService.getTokenInfo(getTokenInfoRequest);
-        }
-        catch (InvalidTokenException ex)
-        {
-            LOG.warn("Application Token is Invalid: [{}]", applicationToken, ex);
-            throw ex;
-        }
-        catch (TException ex)
-        {
-            LOG.error("Failed to get info for Token [{}]", applicationToken, ex);
-            throw new OperationFailedException("Could not get token info: " + ex.getMessage());
-        }
-
-        checkThat(tokenInfo, tokenInfo.token)
-            .throwing(OperationFailedException.class)
-            .usingMessage("AuthenticationService Response is missing Token Info")
-            .are(notNull());
-
-        checkThat(tokenInfo.token.ownerId)
-            .throwing(OperationFailedException.class)
-            .usingMessage("missing Token Info")
-            .is(nonEmptyString());
-
-        
-        ApplicationToken appToken;
-        try
-        {
-            appToken = tokenMapper.apply(tokenInfo.token);
-        }
-        catch (Exception ex)
-        {
-            LOG.error("Failed to map Auth Token {} to App Token", tokenInfo.token, ex);
-            throw new OperationFailedException("Could not map Auth Token to App Token: " + ex.getMessage());
-        }
-
-        checkThat(appToken)
-            .throwing(OperationFailedException.class)
-            .usingMessage("Could not map Auth Token to App Token")
-            .is(notNull());
-        
-        return appToken;
-    }
-
-    private Message createMessageFrom(SendMessageRequest request, ApplicationToken token)
+    static Message createMessageFrom(SendMessageRequest request, ApplicationToken token)
     {
         //Time-Based UUIDs to optimize Storage in Cassandra.
         UUID messageId = UUIDs.timeBased();
@@ -180,7 +182,7 @@ final class SendMessageOperation implements ThriftOperation<SendMessageRequest,
         return message;
     }
 
-    private AlchemyAssertion<SendMessageRequest> good()
+    static AlchemyAssertion<SendMessageRequest> good()
     {
         return request ->
         {
@@ -195,12 +197,4 @@ final class SendMessageOperation implements ThriftOperation<SendMessageRequest,
         };
     }
 
-    private void checkAppId(String applicationId) throws OperationFailedException
-    {
-        checkThat(applicationId)
-            .throwing(OperationFailedException.class)
-            .usingMessage("Could not get Application ID from Token")
-            .is(validApplicationId());
-    }
-
 }
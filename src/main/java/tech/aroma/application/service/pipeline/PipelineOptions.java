@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Controls whether incoming Messages are handed between {@linkplain StageName stages}, and the budget of
+ * each stage. When disabled, every stage runs inline on the calling Thread.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class PipelineOptions extends Options
+{
+
+    private static final PipelineOptions DISABLED = new PipelineOptions(false, new EnumMap<>(StageName.class));
+
+    private final boolean enabled;
+    private final Map<StageName, StageOptions> stages;
+
+    private PipelineOptions(boolean enabled, EnumMap<StageName, StageOptions> stages)
+    {
+        this.enabled = enabled;
+        this.stages = Collections.unmodifiableMap(stages);
+    }
+
+    /**
+     * Every stage runs inline, on the calling Thread.
+     */
+    public static PipelineOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static PipelineOptions defaults()
+    {
+        EnumMap<StageName, StageOptions> stages = new EnumMap<>(StageName.class);
+        stages.put(StageName.INGEST, StageOptions.of(8, 1_000));
+        stages.put(StageName.AUTHENTICATE, StageOptions.of(16, 1_000));
+        stages.put(StageName.MATCH, StageOptions.of(16, 1_000));
+        stages.put(StageName.FAN_OUT, StageOptions.of(8, 10_000));
+        stages.put(StageName.PERSIST, StageOptions.of(16, 10_000));
+        stages.put(StageName.NOTIFY, StageOptions.of(8, 10_000));
+
+        return new PipelineOptions(true, stages);
+    }
+
+    /**
+     * Creates a copy of these options, with a different budget for one stage. The copy is enabled.
+     */
+    public PipelineOptions withStage(@Required StageName stage, @Required StageOptions options) throws IllegalArgumentException
+    {
+        checkThat(stage, options)
+            .are(notNull());
+
+        EnumMap<StageName, StageOptions> copy = new EnumMap<>(StageName.class);
+        copy.putAll(enabled ? stages : defaults().stages);
+        copy.put(stage, options);
+
+        return new PipelineOptions(true, copy);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return The budget of the stage, or {@code null} if disabled.
+     */
+    public StageOptions getStage(StageName stage)
+    {
+        return stages.get(stage);
+    }
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.BooleanAssertions.trueStatement;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * A fixed-size ring of slots, allocated up front, that producers publish into and a set of consumer Threads
+ * take from.
+ * <p>
+ * Every slot carries a sequence number. Producers and consumers claim a position by advancing a shared
+ * counter with compare-and-set, then use the slot's sequence to tell whether it is ready for them.
+ * Publishing takes no locks and allocates nothing. When the ring is full, {@link #tryPublish(Object)}
+ * gives up instead of waiting, so that a producer is never stuck behind slow consumers.
+ * <p>
+ * When idle, consumers wait according to the {@link WaitStrategy} of the {@linkplain RingBufferOptions options}.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+public final class RingBuffer<T> implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(RingBuffer.class);
+
+    private static final long BLOCKING_TIMEOUT_MILLIS = 10L;
+
+    private final String name;
+    private final int capacity;
+    private final int mask;
+    private final Object[] entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final Consumer<T> handler;
+    private final WaitStrategy waitStrategy;
+    private final Counter dropped;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private volatile boolean running = true;
+
+    private RingBuffer(String name, RingBufferOptions options, Consumer<T> handler, Counter dropped)
+    {
+        this.name = name;
+        this.capacity = options.getCapacity();
+        this.mask = capacity - 1;
+        this.entries = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.handler = handler;
+        this.waitStrategy = options.getWaitStrategy();
+        this.dropped = dropped;
+
+        for (int i = 0; i < capacity; ++i)
+        {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Creates a buffer and starts its consumers.
+     *
+     * @param options The shape of the buffer. Must be enabled.
+     * @param name    Used for the consumer Threads and Metrics.
+     * @param handler Called by the consumers for each entry taken. Failures are logged.
+     * @param metrics Where the size and drops of the buffer are reported.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If any are missing, or the options are disabled.
+     */
+    public static <T> RingBuffer<T> start(@Required RingBufferOptions options,
+                                          @Required String name,
+                                          @Required Consumer<T> handler,
+                                          @Required MetricRegistry metrics) throws IllegalArgumentException
+    {
+        checkThat(options, handler, metrics)
+            .are(notNull());
+
+        checkThat(name)
+            .is(nonEmptyString());
+
+        checkThat(options.isEnabled())
+            .usingMessage("ring buffer is disabled: " + options)
+            .is(trueStatement());
+
+        String metricName = MetricRegistry.name(RingBuffer.class, name);
+        Counter dropped = metrics.counter(MetricRegistry.name(metricName, "dropped"));
+
+        RingBuffer<T> buffer = new RingBuffer<>(name, options, handler, dropped);
+        metrics.register(MetricRegistry.name(metricName, "size"), (Gauge<Integer>) buffer::size);
+
+        for (int i = 1; i <= options.getConsumers(); ++i)
+        {
+            Thread consumer = new Thread(buffer::consume, "ring-" + name + "-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+
+        LOG.info("Started ring buffer {} with {}", name, options);
+        return buffer;
+    }
+
+    /**
+     * Places the entry in the next free slot.
+     *
+     * @return {@code false} if the buffer is full or closed, in which case the entry is dropped.
+     */
+    public boolean tryPublish(@Required T entry)
+    {
+        checkThat(entry).is(notNull());
+
+        if (!running)
+        {
+            dropped.inc();
+            return false;
+        }
+
+        long position = tail.get();
+
+        while (true)
+        {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0)
+            {
+                if (tail.compareAndSet(position, position + 1))
+                {
+                    entries[index] = entry;
+                    sequences.lazySet(index, position + 1);
+                    signalConsumers();
+                    return true;
+                }
+            }
+            else if (difference < 0)
+            {
+                //The consumers have not yet freed this slot from the last time around.
+                dropped.inc();
+                return false;
+            }
+
+            position = tail.get();
+        }
+    }
+
+    /**
+     * @return The number of entries published but not yet taken.
+     */
+    public int size()
+    {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Stops accepting entries. The consumers finish what is already in the buffer, then exit.
+     */
+    @Override
+    public void close()
+    {
+        running = false;
+
+        lock.lock();
+        try
+        {
+            notEmpty.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T poll()
+    {
+        long position = head.get();
+
+        while (true)
+        {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+
+            if (difference == 0)
+            {
+                if (head.compareAndSet(position, position + 1))
+                {
+                    T entry = (T) entries[index];
+                    entries[index] = null;
+                    sequences.lazySet(index, position + capacity);
+                    return entry;
+                }
+            }
+            else if (difference < 0)
+            {
+                return null;
+            }
+
+            position = head.get();
+        }
+    }
+
+    private void consume()
+    {
+        int attempt = 0;
+
+        while (running)
+        {
+            T entry = poll();
+
+            if (entry == null)
+            {
+                ++attempt;
+                idle(attempt);
+                continue;
+            }
+
+            attempt = 0;
+            handle(entry);
+        }
+
+        for (T entry = poll(); entry != null; entry = poll())
+        {
+            handle(entry);
+        }
+    }
+
+    private void handle(T entry)
+    {
+        try
+        {
+            handler.accept(entry);
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.error("Ring buffer {} failed to handle entry", name, ex);
+        }
+    }
+
+    private void idle(int attempt)
+    {
+        if (waitStrategy != WaitStrategy.BLOCKING)
+        {
+            waitStrategy.idle(attempt);
+            return;
+        }
+
+        lock.lock();
+        try
+        {
+            waiting.incrementAndGet();
+
+            //Checked after announcing that we are waiting, so that a producer publishing now is sure to signal.
+            if (running && tail.get() == head.get())
+            {
+                notEmpty.await(BLOCKING_TIMEOUT_MILLIS, MILLISECONDS);
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        finally
+        {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private void signalConsumers()
+    {
+        if (waitStrategy == WaitStrategy.BLOCKING && waiting.get() > 0)
+        {
+            lock.lock();
+            try
+            {
+                notEmpty.signal();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RingBuffer{" + "name=" + name + ", capacity=" + capacity + ", size=" + size() + ", waitStrategy=" + waitStrategy + '}';
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+
+/**
+ * Controls whether Messages sent asynchronously are handed off through a {@link RingBuffer},
+ * and how that buffer is shaped.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class RingBufferOptions extends Options
+{
+
+    public static final int DEFAULT_CAPACITY = 8_192;
+    public static final int DEFAULT_CONSUMERS = 4;
+    public static final WaitStrategy DEFAULT_WAIT_STRATEGY = WaitStrategy.SLEEPING;
+
+    /**
+     * Keeps the index math within an int.
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    private static final RingBufferOptions DISABLED = new RingBufferOptions(false, 0, 0, DEFAULT_WAIT_STRATEGY);
+    private static final RingBufferOptions DEFAULTS = new RingBufferOptions(true, DEFAULT_CAPACITY, DEFAULT_CONSUMERS, DEFAULT_WAIT_STRATEGY);
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int consumers;
+    private final WaitStrategy waitStrategy;
+
+    private RingBufferOptions(boolean enabled, int capacity, int consumers, WaitStrategy waitStrategy)
+    {
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.consumers = consumers;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public static RingBufferOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static RingBufferOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param capacity     The number of slots in the buffer. Must be a power of 2.
+     * @param consumers    The number of Threads taking from the buffer.
+     * @param waitStrategy How consumers wait when the buffer is empty.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If the capacity is not a power of 2, or there are no consumers.
+     */
+    public static RingBufferOptions of(int capacity, int consumers, @Required WaitStrategy waitStrategy) throws IllegalArgumentException
+    {
+        checkThat(capacity)
+            .usingMessage("capacity must be between 2 and " + MAX_CAPACITY)
+            .is(greaterThanOrEqualTo(2))
+            .is(lessThanOrEqualTo(MAX_CAPACITY));
+
+        checkThat(Integer.bitCount(capacity))
+            .usingMessage("capacity must be a power of 2: " + capacity)
+            .is(lessThanOrEqualTo(1));
+
+        checkThat(consumers)
+            .usingMessage("need at least 1 consumer")
+            .is(greaterThanOrEqualTo(1));
+
+        checkThat(waitStrategy)
+            .is(notNull());
+
+        return new RingBufferOptions(true, capacity, consumers, waitStrategy);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    public int getConsumers()
+    {
+        return consumers;
+    }
+
+    public WaitStrategy getWaitStrategy()
+    {
+        return waitStrategy;
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.*;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.aroma.thrift.exceptions.ThroughoutExceededException;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A single step of the {@link StagedPipeline}: a fixed number of Threads working through a bounded queue.
+ * <p>
+ * When the queue is full, the stage pushes back instead of letting work pile up. Each stage reports its
+ * queue depth, how long tasks waited for a Thread, how long they took to run, and how many were turned away.
+ * <p>
+ * The stage has one slot per Thread, and no task runs without one, wherever it runs. Callers that
+ * {@linkplain #call(StageTask) wait for a result} run the task themselves once a slot is free, since handing it
+ * to another Thread would only add a context switch while they wait; the stage's own Threads, and callers whose
+ * {@linkplain #submit(StageTask) submitted} task did not fit in the queue, take a slot the same way. So no more
+ * tasks run at once than the stage has Threads.
+ * <p>
+ * An inline stage has no Threads of its own, and runs everything on the calling Thread.
+ *
+ * @author SirWellington
+ */
+@ThreadSafe
+public final class Stage
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(Stage.class);
+
+    /**
+     * The stage the current Thread belongs to, if any.
+     */
+    private static final ThreadLocal<Stage> CURRENT = new ThreadLocal<>();
+
+    private final StageName name;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final AtomicInteger waitingForSlot = new AtomicInteger();
+    private final Timer queueWait;
+    private final Timer serviceTime;
+    private final Counter rejected;
+
+    private Stage(StageName name,
+                  ThreadPoolExecutor executor,
+                  Semaphore slots,
+                  Timer queueWait,
+                  Timer serviceTime,
+                  Counter rejected)
+    {
+        this.name = name;
+        this.executor = executor;
+        this.slots = slots;
+        this.queueWait = queueWait;
+        this.serviceTime = serviceTime;
+        this.rejected = rejected;
+    }
+
+    static Stage inline(StageName name)
+    {
+        return new Stage(name, null, null, null, null, null);
+    }
+
+    static Stage create(StageName name, StageOptions options, MetricRegistry metrics)
+    {
+        String prefix = "pipeline-" + name.getShortName() + "-";
+        AtomicInteger counter = new AtomicInteger();
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+
+        Stage[] self = new Stage[1];
+        ThreadFactory threads = runnable ->
+        {
+            Thread thread = new Thread(() ->
+            {
+                CURRENT.set(self[0]);
+                runnable.run();
+            }, prefix + counter.incrementAndGet());
+
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(options.getThreads(),
+                                                             options.getThreads(),
+                                                             0L, MILLISECONDS,
+                                                             queue,
+                                                             threads,
+                                                             new ThreadPoolExecutor.AbortPolicy());
+
+        String metricName = MetricRegistry.name(Stage.class, name.getShortName());
+
+        self[0] = new Stage(name,
+                            executor,
+                            new Semaphore(options.getThreads()),
+                            metrics.timer(MetricRegistry.name(metricName, "queue-wait")),
+                            metrics.timer(MetricRegistry.name(metricName, "service-time")),
+                            metrics.counter(MetricRegistry.name(metricName, "rejected")));
+
+        metrics.register(MetricRegistry.name(metricName, "queue-depth"), (Gauge<Integer>) self[0]::getQueueDepth);
+
+        return self[0];
+    }
+
+    public StageName getName()
+    {
+        return name;
+    }
+
+    public boolean isInline()
+    {
+        return executor == null;
+    }
+
+    /**
+     * @return The number of tasks waiting for a Thread, or for a slot.
+     */
+    public int getQueueDepth()
+    {
+        return isInline() ? 0 : executor.getQueue().size() + waitingForSlot.get();
+    }
+
+    /**
+     * Runs the task on the calling Thread once the stage has a free slot, and returns its result.
+     * Tasks already running on this stage run in place.
+     *
+     * @throws TException If the task fails with one, or the caller is interrupted while waiting its turn.
+     */
+    public <T> T call(StageTask<T> task) throws TException
+    {
+        if (isInline() || CURRENT.get() == this)
+        {
+            return unwrap(task);
+        }
+
+        long enqueuedAt = System.nanoTime();
+        return unwrap(() -> runInSlot(task, enqueuedAt));
+    }
+
+    /**
+     * Hands the task to this stage without waiting for it. If the stage is full, the task runs on the calling
+     * Thread instead, once a slot is free, which slows the caller down to the pace of the stage.
+     *
+     * @return The eventual result of the task.
+     */
+    public <T> CompletableFuture<T> submit(StageTask<T> task)
+    {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        if (isInline() || CURRENT.get() == this)
+        {
+            complete(result, task);
+            return result;
+        }
+
+        long enqueuedAt = System.nanoTime();
+        try
+        {
+            executor.execute(() -> complete(result, () -> runInSlot(task, enqueuedAt)));
+        }
+        catch (RejectedExecutionException ex)
+        {
+            rejected.inc();
+            LOG.debug("Stage {} is full. Running task on the caller.", name);
+            complete(result, () -> runInSlot(task, enqueuedAt));
+        }
+
+        return result;
+    }
+
+    /**
+     * Hands the task to this stage without waiting for it.
+     *
+     * @throws ThroughoutExceededException If the stage's queue is full.
+     */
+    public void execute(Runnable task) throws ThroughoutExceededException
+    {
+        if (isInline())
+        {
+            task.run();
+            return;
+        }
+
+        long enqueuedAt = System.nanoTime();
+        try
+        {
+            executor.execute(() ->
+            {
+                try
+                {
+                    runInSlot(() ->
+                    {
+                        task.run();
+                        return null;
+                    }, enqueuedAt);
+                }
+                catch (Exception ex)
+                {
+                    LOG.error("Task failed on stage {}", name, ex);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex)
+        {
+            throw reject();
+        }
+    }
+
+    void shutdown()
+    {
+        if (!isInline())
+        {
+            executor.shutdown();
+        }
+    }
+
+    private <T> T runInSlot(StageTask<T> task, long enqueuedAt) throws Exception
+    {
+        waitingForSlot.incrementAndGet();
+
+        try
+        {
+            slots.acquire();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new OperationFailedException("Interrupted while waiting on stage " + name);
+        }
+        finally
+        {
+            waitingForSlot.decrementAndGet();
+        }
+
+        Stage previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try
+        {
+            return timed(task, enqueuedAt);
+        }
+        finally
+        {
+            CURRENT.set(previous);
+            slots.release();
+        }
+    }
+
+    private <T> T timed(StageTask<T> task, long enqueuedAt) throws Exception
+    {
+        queueWait.update(System.nanoTime() - enqueuedAt, NANOSECONDS);
+
+        try (Timer.Context ignored = serviceTime.time())
+        {
+            return task.call();
+        }
+    }
+
+    private ThroughoutExceededException reject()
+    {
+        rejected.inc();
+        return new ThroughoutExceededException("Service is at capacity. Try again later.");
+    }
+
+    private static <T> void complete(CompletableFuture<T> result, StageTask<T> task)
+    {
+        try
+        {
+            result.complete(task.call());
+        }
+        catch (Throwable ex)
+        {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private static <T> T unwrap(StageTask<T> task) throws TException
+    {
+        try
+        {
+            return task.call();
+        }
+        catch (TException | RuntimeException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new OperationFailedException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Stage{" + "name=" + name + ", inline=" + isInline() + ", queueDepth=" + getQueueDepth() + '}';
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+/**
+ * The stages a Message passes through on its way in.
+ *
+ * @author SirWellington
+ */
+public enum StageName
+{
+    /**
+     * Accepts Messages sent asynchronously and starts them on their way.
+     */
+    INGEST,
+    /**
+     * Verifies and resolves Application Tokens. This is where the calls to the Authentication Service happen.
+     */
+    AUTHENTICATE,
+    /**
+     * Matches Messages against the Reactions of their Application.
+     */
+    MATCH,
+    /**
+     * Runs the Actions that expand into further Actions, such as running through Follower Inboxes.
+     */
+    FAN_OUT,
+    /**
+     * Runs the Actions that store Messages.
+     */
+    PERSIST,
+    /**
+     * Runs the Actions that notify people or other services.
+     */
+    NOTIFY;
+
+    /**
+     * The name used for the stage's Threads and Metrics.
+     */
+    public String getShortName()
+    {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
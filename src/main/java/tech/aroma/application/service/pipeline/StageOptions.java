@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * The budget of a single stage: how many Threads work on it, and how much work may wait for them.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class StageOptions extends Options
+{
+
+    private final int threads;
+    private final int queueCapacity;
+
+    private StageOptions(int threads, int queueCapacity)
+    {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @param threads       The number of Threads working on the stage. This is also the most tasks that run on it
+     *                      at once, counting the callers that run their own.
+     * @param queueCapacity The most tasks that may wait for a Thread. Beyond this, the stage pushes back.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If either is less than 1.
+     */
+    public static StageOptions of(int threads, int queueCapacity) throws IllegalArgumentException
+    {
+        checkThat(threads, queueCapacity)
+            .usingMessage("stage needs at least 1 thread and room for 1 task")
+            .are(greaterThanOrEqualTo(1));
+
+        return new StageOptions(threads, queueCapacity);
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public int getQueueCapacity()
+    {
+        return queueCapacity;
+    }
+
+}
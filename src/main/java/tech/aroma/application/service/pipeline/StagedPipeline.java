@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Splits the handling of incoming Messages into {@linkplain StageName stages}, each with its own
+ * {@linkplain Stage Threads and queue}. A slow stage, such as one waiting on the Authentication Service,
+ * fills up its own queue and pushes back, instead of tying up the Threads of every other stage.
+ * <p>
+ * Stages only ever wait on stages further down the pipeline, and full action stages fall back to
+ * running on the caller, so a stage never waits on itself.
+ *
+ * @author SirWellington
+ * @see PipelineOptions
+ */
+@Singleton
+@ThreadSafe
+public final class StagedPipeline implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(StagedPipeline.class);
+
+    private final PipelineOptions options;
+    private final Map<StageName, Stage> stages = new EnumMap<>(StageName.class);
+
+    @Inject
+    StagedPipeline(PipelineOptions options, MetricRegistry metrics)
+    {
+        checkThat(options)
+            .is(notNull());
+
+        if (options.isEnabled())
+        {
+            checkThat(metrics)
+                .usingMessage("metrics are required when the pipeline is enabled")
+                .is(notNull());
+        }
+
+        this.options = options;
+
+        for (StageName name : StageName.values())
+        {
+            Stage stage = options.isEnabled()
+                          ? Stage.create(name, options.getStage(name), metrics)
+                          : Stage.inline(name);
+
+            stages.put(name, stage);
+        }
+    }
+
+    /**
+     * Creates a pipeline that runs every stage on the calling Thread.
+     */
+    public static StagedPipeline inline()
+    {
+        return new StagedPipeline(PipelineOptions.disabled(), null);
+    }
+
+    /**
+     * Creates a pipeline with its own Threads for each stage. Remember to {@linkplain #close() close} it.
+     */
+    public static StagedPipeline newInstance(@Required PipelineOptions options, @Required MetricRegistry metrics) throws IllegalArgumentException
+    {
+        checkThat(options, metrics)
+            .are(notNull());
+
+        return new StagedPipeline(options, metrics);
+    }
+
+    public boolean isEnabled()
+    {
+        return options.isEnabled();
+    }
+
+    public Stage stage(@Required StageName name)
+    {
+        checkThat(name).is(notNull());
+
+        return stages.get(name);
+    }
+
+    /**
+     * Stops accepting new work. Work already queued is allowed to finish.
+     */
+    @Override
+    public void close()
+    {
+        LOG.info("Shutting down pipeline {}", options);
+        stages.values().forEach(Stage::shutdown);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StagedPipeline{" + "options=" + options + ", stages=" + stages.values() + '}';
+    }
+
+}
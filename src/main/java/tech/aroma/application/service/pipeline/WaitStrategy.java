@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How the consumers of a {@link RingBuffer} wait when there is nothing to take. Waiting more actively
+ * picks up new entries sooner, at the cost of CPU that could be doing other work.
+ *
+ * @author SirWellington
+ */
+public enum WaitStrategy
+{
+    /**
+     * Keeps checking without ever giving up the CPU. Lowest latency; each consumer uses up a whole core.
+     */
+    BUSY_SPIN
+    {
+        @Override
+        void idle(int attempt)
+        {
+        }
+    },
+    /**
+     * Spins for a short while, then yields to other Threads between checks.
+     */
+    YIELDING
+    {
+        @Override
+        void idle(int attempt)
+        {
+            if (attempt > SPIN_TRIES)
+            {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * Spins, then yields, then sleeps briefly between checks. Gentle on the CPU when traffic is bursty.
+     */
+    SLEEPING
+    {
+        @Override
+        void idle(int attempt)
+        {
+            if (attempt > SPIN_TRIES + YIELD_TRIES)
+            {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+            else if (attempt > SPIN_TRIES)
+            {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * Parks until a producer signals. Uses no CPU while idle, but publishing costs more when consumers are waiting.
+     */
+    BLOCKING
+    {
+        @Override
+        void idle(int attempt)
+        {
+            //The RingBuffer parks consumers itself, since it needs to be signalled.
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = 100_000L;
+
+    /**
+     * Called each time a consumer finds nothing to take.
+     *
+     * @param attempt How many times in a row the consumer has come up empty, starting at 1.
+     */
+    abstract void idle(int attempt);
+
+}
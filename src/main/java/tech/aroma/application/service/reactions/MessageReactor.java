@@ -16,7 +16,11 @@
 
 package tech.aroma.application.service.reactions;
 
+import java.util.List;
+
 import com.google.inject.ImplementedBy;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import org.apache.thrift.TException;
 import tech.aroma.application.service.reactions.actions.ActionFactory;
 import tech.aroma.application.service.reactions.actions.ActionRunner;
@@ -33,17 +37,52 @@ import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
  * 
  * @author SirWellington
  */
-@ImplementedBy(MessageReactorImpl.class)
+@ImplementedBy(SingleFlightMessageReactor.class)
 @ThreadSafe
 public interface MessageReactor
 {
     SendMessageResponse reactToMessage(@Required Message message) throws TException;
 
+    /**
+     * Reacts to a group of Messages, in order.
+     *
+     * @param messages The Messages to react to.
+     *
+     * @return One response for each Message, in the same order.
+     *
+     * @throws PartialReactionException If reacting to one of the Messages failed. The Messages before it were
+     *                                   reacted to, and the exception carries their responses.
+     * @throws TException                If the Messages could not be reacted to at all.
+     */
+    default List<SendMessageResponse> reactToMessages(@Required List<Message> messages) throws TException
+    {
+        List<SendMessageResponse> responses = Lists.create();
+
+        try
+        {
+            for (Message message : messages)
+            {
+                responses.add(reactToMessage(message));
+            }
+        }
+        catch (TException | RuntimeException ex)
+        {
+            throw new PartialReactionException(responses, ex);
+        }
+
+        return responses;
+    }
+
     static MessageReactor newInstance(@Required ActionFactory actionFactory, 
                                       @Required ActionRunner actionRunner,
                                       @Required MatchAlgorithm matchAlgorithm,
                                       @Required ReactionRepository reactionRepo) throws IllegalArgumentException
     {
-        return new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, reactionRepo);
+        return new MessageReactorImpl(actionRunner,
+                                      actionFactory,
+                                      matchAlgorithm,
+                                      reactionRepo,
+                                      StormCollapser.disabled(),
+                                      SendPathLatencies.disabled());
     }
 }
@@ -17,12 +17,15 @@
 package tech.aroma.application.service.reactions;
 
 import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
 
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sir.wellington.alchemy.collections.lists.Lists;
+import sir.wellington.alchemy.collections.maps.Maps;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import tech.aroma.application.service.reactions.actions.*;
 import tech.aroma.application.service.reactions.matchers.MatchAlgorithm;
 import tech.aroma.data.ReactionRepository;
@@ -35,6 +38,7 @@ import tech.sirwellington.alchemy.annotations.arguments.Required;
 import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
 
 import static java.util.stream.Collectors.toList;
+import static tech.aroma.application.service.latency.SendPathStage.*;
 import static tech.sirwellington.alchemy.arguments.Arguments.*;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 
@@ -42,6 +46,8 @@ import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull
  * This Message Reactor creates the initial {@linkplain Action Actions}
  * for an incoming message, and begins the 
  * {@linkplain ActionRunner#runThroughActions(tech.aroma.thrift.Message, java.util.List) execution process}.
+ * <p>
+ * Repeats of an alert that the {@link StormCollapser} collapses are acknowledged without running any Actions.
  * 
  * @author SirWellington
  */
@@ -56,29 +62,126 @@ final class MessageReactorImpl implements MessageReactor
     private final ActionFactory actionFactory;
     private final MatchAlgorithm matchAlgorithm;
     private final ReactionRepository reactionRepo;
+    private final StormCollapser stormCollapser;
+    private final SendPathLatencies latencies;
     
     @Inject
     MessageReactorImpl(ActionRunner actionRunner,
                        ActionFactory actionFactory,
                        MatchAlgorithm matchAlgorithm,
-                       ReactionRepository reactionRepo)
+                       ReactionRepository reactionRepo,
+                       StormCollapser stormCollapser,
+                       SendPathLatencies latencies)
     {
-        checkThat(actionRunner, actionFactory, matchAlgorithm, reactionRepo)
+        checkThat(actionRunner, actionFactory, matchAlgorithm, reactionRepo, stormCollapser, latencies)
             .are(notNull());
         
         this.actionRunner = actionRunner;
         this.actionFactory = actionFactory;
         this.matchAlgorithm = matchAlgorithm;
         this.reactionRepo = reactionRepo;
+        this.stormCollapser = stormCollapser;
+        this.latencies = latencies;
     }
     
     @Override
     public SendMessageResponse reactToMessage(@Required Message message) throws TException
+    {
+        return reactToMessage(message, this::lookUpReactionsFor);
+    }
+
+    /**
+     * Reacts to the Message using the Reactions that {@code lookup} finds for its Application.
+     */
+    SendMessageResponse reactToMessage(@Required Message message, @Required ReactionLookup lookup) throws TException
     {
         Action.checkMessage(message);
-        
-        List<AromaAction> applicableActions = getAllActionsApplicableToMessage(message);
-        
+        checkThat(lookup).is(notNull());
+
+        if (!stormCollapser.admit(message, this::reactToRollUp))
+        {
+            return new SendMessageResponse().setMessageId(message.messageId);
+        }
+
+        List<Reaction> reactions = lookup.reactionsFor(message.applicationId);
+
+        return reactToMessage(message, reactions);
+    }
+
+    List<Reaction> lookUpReactionsFor(String applicationId) throws TException
+    {
+        long startedAt = latencies.start();
+        List<Reaction> reactions = Lists.nullToEmpty(reactionRepo.getReactionsForApplication(applicationId));
+        latencies.record(LOOKUP_REACTIONS, startedAt);
+
+        return reactions;
+    }
+
+    /**
+     * Looks up the Reactions of each Application only once, no matter how many of the Messages it sent.
+     */
+    @Override
+    public List<SendMessageResponse> reactToMessages(@Required List<Message> messages) throws TException
+    {
+        checkThat(messages).is(notNull());
+
+        for (Message message : messages)
+        {
+            Action.checkMessage(message);
+        }
+
+        Map<String, List<Reaction>> reactionsByApp = Maps.create();
+        List<SendMessageResponse> responses = Lists.create();
+
+        try
+        {
+            for (Message message : messages)
+            {
+                if (!stormCollapser.admit(message, this::reactToRollUp))
+                {
+                    responses.add(new SendMessageResponse().setMessageId(message.messageId));
+                    continue;
+                }
+
+                String appId = message.applicationId;
+                List<Reaction> reactions = reactionsByApp.get(appId);
+
+                if (reactions == null)
+                {
+                    reactions = lookUpReactionsFor(appId);
+                    reactionsByApp.put(appId, reactions);
+                }
+
+                responses.add(reactToMessage(message, reactions));
+            }
+        }
+        catch (TException | RuntimeException ex)
+        {
+            throw new PartialReactionException(responses, ex);
+        }
+
+        return responses;
+    }
+
+    private void reactToRollUp(Message rollUp)
+    {
+        try
+        {
+            List<Reaction> reactions = lookUpReactionsFor(rollUp.applicationId);
+            reactToMessage(rollUp, reactions);
+        }
+        catch (TException ex)
+        {
+            LOG.error("Failed to load Reactions for roll-up {}", rollUp.messageId, ex);
+        }
+    }
+
+    private SendMessageResponse reactToMessage(Message message, List<Reaction> reactions)
+    {
+        long startedAt = latencies.start();
+        List<AromaAction> applicableActions = getAllActionsApplicableToMessage(message, reactions);
+        latencies.record(MATCH_REACTIONS, startedAt);
+
         LOG.debug("Found {} applicable actions for Message {}", applicableActions.size(), message.messageId);
         
         //Unlike other Actions, these are assumed to be true unless otherwise excluded.
@@ -118,18 +221,17 @@ final class MessageReactorImpl implements MessageReactor
         }
         
         LOG.debug("Processing Message with {} initial actions: [{}]", initialActions.size(), message.messageId);
+        startedAt = latencies.start();
         int totalActions = actionRunner.runThroughActions(message, initialActions);
+        latencies.record(RUN_ACTIONS, startedAt);
+
         LOG.debug("Ran through {} total actions for Message {}", totalActions, message.messageId);
         
         return new SendMessageResponse().setMessageId(message.messageId);
     }
 
-    private List<AromaAction> getAllActionsApplicableToMessage(Message message) throws TException
+    private List<AromaAction> getAllActionsApplicableToMessage(Message message, List<Reaction> reactions)
     {
-        String appId = message.applicationId;
-
-        List<Reaction> reactions = reactionRepo.getReactionsForApplication(appId);
-
         return Lists.nullToEmpty(reactions)
             .stream()
             .filter(reaction -> matchAlgorithm.matches(message, reaction.matchers))
@@ -139,4 +241,13 @@ final class MessageReactorImpl implements MessageReactor
             .collect(toList());
     }
 
+    /**
+     * Finds the Reactions that belong to an Application.
+     */
+    @FunctionalInterface
+    interface ReactionLookup
+    {
+        List<Reaction> reactionsFor(String applicationId) throws TException;
+    }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions;
+
+import java.util.List;
+
+import org.apache.thrift.TException;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.thrift.application.service.SendMessageResponse;
+
+/**
+ * Thrown when reacting to a group of Messages fails part way through. The Messages before the one that failed
+ * were fully reacted to, and their responses are kept here; the rest were not touched.
+ *
+ * @author SirWellington
+ * @see MessageReactor#reactToMessages(List)
+ */
+public final class PartialReactionException extends TException
+{
+
+    private final List<SendMessageResponse> responses;
+
+    public PartialReactionException(List<SendMessageResponse> responses, Throwable cause)
+    {
+        super(cause.getMessage(), cause);
+
+        this.responses = Lists.immutableCopyOf(responses);
+    }
+
+    /**
+     * @return One response for each Message that was reacted to before the failure, in order.
+     */
+    public List<SendMessageResponse> getResponses()
+    {
+        return responses;
+    }
+
+}
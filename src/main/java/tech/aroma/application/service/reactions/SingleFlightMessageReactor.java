@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.application.service.reactions.actions.Action;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.application.service.SendMessageResponse;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.aroma.thrift.reactions.Reaction;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.DecoratorPattern.Role.CONCRETE_DECORATOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A single-flight cache of Reaction lookups: the Messages that arrive from an Application at about the same time
+ * share one lookup of its Reactions, instead of each starting its own.
+ * <p>
+ * Nothing waits for a group to form. The first Message starts the lookup right away, and the Messages that arrive
+ * while it is in flight, within the {@linkplain SingleFlightOptions#getWindowMillis() window}, wait for that
+ * lookup instead of starting their own. Nothing else is grouped: each Message is then matched and reacted to on its
+ * caller's own Thread, and each caller gets its own response or Exception.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+@DecoratorPattern(role = CONCRETE_DECORATOR)
+final class SingleFlightMessageReactor implements MessageReactor
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(SingleFlightMessageReactor.class);
+
+    private final MessageReactorImpl delegate;
+    private final SingleFlightOptions options;
+    private final ConcurrentMap<String, SharedLookup> lookups = new ConcurrentHashMap<>();
+
+    @Inject
+    SingleFlightMessageReactor(MessageReactorImpl delegate, SingleFlightOptions options)
+    {
+        checkThat(delegate, options)
+            .are(notNull());
+
+        this.delegate = delegate;
+        this.options = options;
+    }
+
+    @Override
+    public SendMessageResponse reactToMessage(@Required Message message) throws TException
+    {
+        if (!options.isEnabled())
+        {
+            return delegate.reactToMessage(message);
+        }
+
+        Action.checkMessage(message);
+
+        return delegate.reactToMessage(message, this::sharedReactionsFor);
+    }
+
+    /**
+     * The Messages are already grouped, so they go straight through.
+     */
+    @Override
+    public List<SendMessageResponse> reactToMessages(@Required List<Message> messages) throws TException
+    {
+        return delegate.reactToMessages(messages);
+    }
+
+    int getNumberOfLookupsInFlight()
+    {
+        return lookups.size();
+    }
+
+    int getNumberOfMessagesSharing(String applicationId)
+    {
+        SharedLookup lookup = lookups.get(applicationId);
+        return lookup == null ? 0 : lookup.members.get();
+    }
+
+    private List<Reaction> sharedReactionsFor(String applicationId) throws TException
+    {
+        while (true)
+        {
+            SharedLookup lookup = lookups.get(applicationId);
+
+            if (lookup == null)
+            {
+                SharedLookup created = new SharedLookup(applicationId);
+                lookup = lookups.putIfAbsent(applicationId, created);
+
+                if (lookup == null)
+                {
+                    lookUp(created);
+                    return await(created);
+                }
+            }
+
+            if (lookup.join())
+            {
+                return await(lookup);
+            }
+
+            //Too old or too full to join; the next Message starts a fresh one.
+            lookups.remove(applicationId, lookup);
+        }
+    }
+
+    private void lookUp(SharedLookup lookup)
+    {
+        try
+        {
+            lookup.reactions.complete(delegate.lookUpReactionsFor(lookup.applicationId));
+        }
+        catch (TException | RuntimeException ex)
+        {
+            LOG.error("Failed to look up Reactions for Application {}", lookup.applicationId, ex);
+            lookup.reactions.completeExceptionally(ex);
+        }
+        finally
+        {
+            lookups.remove(lookup.applicationId, lookup);
+        }
+
+        LOG.debug("Shared Reactions of Application {} among {} Messages", lookup.applicationId, lookup.members.get());
+    }
+
+    private List<Reaction> await(SharedLookup lookup) throws TException
+    {
+        boolean interrupted = false;
+
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return lookup.reactions.get();
+                }
+                catch (InterruptedException ex)
+                {
+                    //The lookup is already in flight, so the result is not far off.
+                    interrupted = true;
+                }
+            }
+        }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof TException)
+            {
+                throw (TException) cause;
+            }
+
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+
+            throw new OperationFailedException("Could not look up Reactions: " + cause);
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SingleFlightMessageReactor{" + "delegate=" + delegate + ", options=" + options + ", lookupsInFlight=" + lookups.size() + '}';
+    }
+
+    private final class SharedLookup
+    {
+
+        private final String applicationId;
+        private final long startedAt = System.nanoTime();
+        private final AtomicInteger members = new AtomicInteger(1);
+        private final CompletableFuture<List<Reaction>> reactions = new CompletableFuture<>();
+
+        private SharedLookup(String applicationId)
+        {
+            this.applicationId = applicationId;
+        }
+
+        /**
+         * @return False if the lookup started too long ago, or is already shared by as many Messages as allowed.
+         */
+        private boolean join()
+        {
+            long age = System.nanoTime() - startedAt;
+
+            if (age > TimeUnit.MILLISECONDS.toNanos(options.getWindowMillis()))
+            {
+                return false;
+            }
+
+            return members.incrementAndGet() <= options.getMaxMessages();
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls whether Messages arriving at the same time from the same Application share one lookup of its Reactions,
+ * and for how long after it starts a lookup may still be shared.
+ * <p>
+ * No Message waits for others to arrive. A longer window shares each lookup more widely, at the cost of reacting
+ * with Reactions that may be up to that old.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class SingleFlightOptions extends Options
+{
+
+    public static final long DEFAULT_WINDOW_MILLIS = 2L;
+    public static final int DEFAULT_MAX_MESSAGES = 100;
+
+    private static final SingleFlightOptions DISABLED = new SingleFlightOptions(false, 0L, 1);
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxMessages;
+
+    private SingleFlightOptions(boolean enabled, long windowMillis, int maxMessages)
+    {
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxMessages = maxMessages;
+    }
+
+    /**
+     * Every Message looks up its Application's Reactions on its own.
+     */
+    public static SingleFlightOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static SingleFlightOptions defaults()
+    {
+        return of(DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_MESSAGES);
+    }
+
+    /**
+     * @param windowMillis How long after a lookup starts other Messages may still share it.
+     * @param maxMessages  The most Messages that may share a single lookup.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static SingleFlightOptions of(long windowMillis, int maxMessages) throws IllegalArgumentException
+    {
+        checkThat(windowMillis)
+            .usingMessage("sharing window must be positive")
+            .is(positiveLong());
+
+        checkThat(maxMessages)
+            .usingMessage("lookup must allow at least 1 message")
+            .is(greaterThanOrEqualTo(1));
+
+        return new SingleFlightOptions(true, windowMillis, maxMessages);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getWindowMillis()
+    {
+        return windowMillis;
+    }
+
+    public int getMaxMessages()
+    {
+        return maxMessages;
+    }
+
+}
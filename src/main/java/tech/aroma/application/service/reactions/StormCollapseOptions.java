@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls whether repeats of the same alert are collapsed during a storm, and for how long.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class StormCollapseOptions extends Options
+{
+
+    public static final long DEFAULT_WINDOW_MILLIS = 60_000L;
+    public static final int DEFAULT_MAX_TRACKED_ALERTS = 10_000;
+
+    private static final StormCollapseOptions DISABLED = new StormCollapseOptions(false, 0L, 0);
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxTrackedAlerts;
+
+    private StormCollapseOptions(boolean enabled, long windowMillis, int maxTrackedAlerts)
+    {
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxTrackedAlerts = maxTrackedAlerts;
+    }
+
+    /**
+     * Every Message runs through its Reactions, no matter how often it repeats.
+     */
+    public static StormCollapseOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static StormCollapseOptions defaults()
+    {
+        return of(DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_TRACKED_ALERTS);
+    }
+
+    /**
+     * @param windowMillis     How often a roll-up is sent while an alert keeps repeating.
+     * @param maxTrackedAlerts The most alerts tracked at once. Once reached, new alerts are not collapsed.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static StormCollapseOptions of(long windowMillis, int maxTrackedAlerts) throws IllegalArgumentException
+    {
+        checkThat(windowMillis)
+            .usingMessage("collapse window must be positive")
+            .is(positiveLong());
+
+        checkThat(maxTrackedAlerts)
+            .usingMessage("must track at least 1 alert")
+            .is(greaterThanOrEqualTo(1));
+
+        return new StormCollapseOptions(true, windowMillis, maxTrackedAlerts);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getWindowMillis()
+    {
+        return windowMillis;
+    }
+
+    public int getMaxTrackedAlerts()
+    {
+        return maxTrackedAlerts;
+    }
+
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions;
+
+import java.time.Instant;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.utils.UUIDs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.aroma.thrift.application.service.ApplicationServiceConstants.MAX_CHARACTERS_IN_BODY;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.Checks.isNullOrEmpty;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Collapses an alert that keeps repeating into a periodic roll-up, according to the
+ * {@link StormCollapseOptions}.
+ * <p>
+ * An alert is identified by its Application, Title, and Hostname. The first occurrence runs through the
+ * Reactions as usual and opens a window; repeats within the window are only counted. When the window ends,
+ * a roll-up carrying the count is sent, and a new window opens if there were any repeats. An alert that
+ * keeps repeating therefore produces one Message per window, instead of one per repeat.
+ * <p>
+ * The shared scheduler only ends the windows. Roll-ups run through their Reactions and Actions on the
+ * collapser's own Threads, so a slow roll-up never holds up the other work on the scheduler.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+final class StormCollapser
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(StormCollapser.class);
+
+    static final String METRIC_COLLAPSED = MetricRegistry.name(StormCollapser.class, "collapsed");
+    static final String METRIC_DROPPED_ROLL_UPS = MetricRegistry.name(StormCollapser.class, "dropped-roll-ups");
+
+    private static final int ROLL_UP_THREADS = 2;
+
+    private final StormCollapseOptions options;
+    private final ScheduledExecutorService scheduler;
+    private final Executor rollUpSenders;
+    private final Counter collapsed;
+    private final Counter droppedRollUps;
+    private final ConcurrentMap<String, Storm> storms = new ConcurrentHashMap<>();
+
+    @Inject
+    StormCollapser(StormCollapseOptions options, ScheduledExecutorService scheduler, MetricRegistry metrics)
+    {
+        this(options, scheduler, options != null && options.isEnabled() ? newRollUpSenders(options) : null, metrics);
+    }
+
+    StormCollapser(StormCollapseOptions options,
+                   ScheduledExecutorService scheduler,
+                   Executor rollUpSenders,
+                   MetricRegistry metrics)
+    {
+        checkThat(options, metrics)
+            .are(notNull());
+
+        if (options.isEnabled())
+        {
+            checkThat(scheduler)
+                .usingMessage("scheduler is required to end the windows")
+                .is(notNull());
+
+            checkThat(rollUpSenders)
+                .usingMessage("executor is required to send roll-ups")
+                .is(notNull());
+        }
+
+        this.options = options;
+        this.scheduler = scheduler;
+        this.rollUpSenders = rollUpSenders;
+        this.collapsed = metrics.counter(METRIC_COLLAPSED);
+        this.droppedRollUps = metrics.counter(METRIC_DROPPED_ROLL_UPS);
+    }
+
+    static StormCollapser disabled()
+    {
+        return new StormCollapser(StormCollapseOptions.disabled(), null, null, new MetricRegistry());
+    }
+
+    /**
+     * Decides whether a Message should run through its Reactions.
+     *
+     * @param message The Message that just arrived.
+     * @param sender  Sends the roll-ups for the alert. If the alert is already being collapsed, the Sender it
+     *                was first admitted with is used.
+     *
+     * @return {@code true} if the Message should run through its Reactions; {@code false} if it was counted
+     *         as a repeat instead.
+     */
+    boolean admit(@Required Message message, @Required RollUpSender sender)
+    {
+        checkThat(message, sender)
+            .are(notNull());
+
+        if (!options.isEnabled())
+        {
+            return true;
+        }
+
+        String key = keyOf(message);
+
+        while (true)
+        {
+            Storm storm = storms.get(key);
+
+            if (storm == null)
+            {
+                if (storms.size() >= options.getMaxTrackedAlerts())
+                {
+                    LOG.debug("Already tracking {} alerts. Not collapsing Message {}", storms.size(), message.messageId);
+                    return true;
+                }
+
+                Storm newStorm = new Storm(key, sender);
+
+                if (storms.putIfAbsent(key, newStorm) == null)
+                {
+                    scheduleEndOf(newStorm);
+                    return true;
+                }
+
+                continue;
+            }
+
+            synchronized (storm)
+            {
+                if (storm.closed)
+                {
+                    //Its window just ended.
+                    continue;
+                }
+
+                storm.repeats += 1;
+                storm.latest = message;
+            }
+
+            collapsed.inc();
+            return false;
+        }
+    }
+
+    int getNumberOfOpenStorms()
+    {
+        return storms.size();
+    }
+
+    private void endWindowOf(Storm storm)
+    {
+        Message rollUp;
+
+        synchronized (storm)
+        {
+            if (storm.repeats == 0)
+            {
+                storm.closed = true;
+                storms.remove(storm.key, storm);
+                return;
+            }
+
+            rollUp = createRollUp(storm.latest, storm.repeats);
+
+            storm.repeats = 0;
+            storm.latest = null;
+            scheduleEndOf(storm);
+        }
+
+        try
+        {
+            rollUpSenders.execute(() -> send(rollUp, storm.sender));
+        }
+        catch (RejectedExecutionException ex)
+        {
+            droppedRollUps.inc();
+            LOG.error("Too many roll-ups waiting to be sent. Dropping {} for Application {}", rollUp.messageId, rollUp.applicationId);
+        }
+    }
+
+    private void send(Message rollUp, RollUpSender sender)
+    {
+        LOG.debug("Sending roll-up {} for Application {}", rollUp.messageId, rollUp.applicationId);
+
+        try
+        {
+            sender.send(rollUp);
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.error("Failed to send roll-up {} for Application {}", rollUp.messageId, rollUp.applicationId, ex);
+        }
+    }
+
+    private void scheduleEndOf(Storm storm)
+    {
+        scheduler.schedule(() -> endWindowOf(storm), options.getWindowMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Message createRollUp(Message latest, int repeats)
+    {
+        long window = options.getWindowMillis();
+        String period = window >= 1_000 ? TimeUnit.MILLISECONDS.toSeconds(window) + " seconds" : window + " milliseconds";
+        String summary = String.format("Repeated %d more times in the last %s.", repeats, period);
+
+        String body = isNullOrEmpty(latest.body) ? summary : summary + "\n\n" + latest.body;
+
+        if (body.length() > MAX_CHARACTERS_IN_BODY)
+        {
+            body = body.substring(0, MAX_CHARACTERS_IN_BODY);
+        }
+
+        return new Message(latest)
+            .setMessageId(UUIDs.timeBased().toString())
+            .setBody(body)
+            .setTimeMessageReceived(Instant.now().toEpochMilli());
+    }
+
+    /**
+     * Every tracked alert creates at most one roll-up per window, so the queue holds a full window's worth.
+     */
+    private static ExecutorService newRollUpSenders(StormCollapseOptions options)
+    {
+        AtomicInteger counter = new AtomicInteger();
+
+        ThreadFactory threads = runnable ->
+        {
+            Thread thread = new Thread(runnable, "storm-roll-up-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(ROLL_UP_THREADS,
+                                      ROLL_UP_THREADS,
+                                      0L,
+                                      TimeUnit.MILLISECONDS,
+                                      new LinkedBlockingQueue<>(options.getMaxTrackedAlerts()),
+                                      threads);
+    }
+
+    private static String keyOf(Message message)
+    {
+        return message.applicationId + '\u0000' + message.title + '\u0000' + message.hostname;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StormCollapser{" + "options=" + options + ", openStorms=" + storms.size() + '}';
+    }
+
+    /**
+     * Runs a roll-up through the Reactions of its Application.
+     */
+    @FunctionalInterface
+    interface RollUpSender
+    {
+
+        void send(Message rollUp);
+    }
+
+    private static final class Storm
+    {
+
+        private final String key;
+        private final RollUpSender sender;
+        private int repeats = 0;
+        private Message latest;
+        private boolean closed = false;
+
+        private Storm(String key, RollUpSender sender)
+        {
+            this.key = key;
+            this.sender = sender;
+        }
+
+    }
+
+}
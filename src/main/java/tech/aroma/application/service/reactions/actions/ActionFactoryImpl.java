@@ -16,8 +16,11 @@
 
 package tech.aroma.application.service.reactions.actions;
 
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 
+import com.google.common.cache.CacheBuilder;
 import com.notnoop.apns.ApnsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,16 +28,14 @@ import tech.aroma.application.service.reactions.matchers.MatchAlgorithm;
 import tech.aroma.data.*;
 import tech.aroma.thrift.Message;
 import tech.aroma.thrift.User;
-import tech.aroma.thrift.notification.service.NotificationService;
 import tech.aroma.thrift.reactions.*;
 import tech.sirwellington.alchemy.annotations.access.Internal;
 import tech.sirwellington.alchemy.annotations.designs.patterns.FactoryPattern;
-import tech.sirwellington.alchemy.http.AlchemyHttp;
 
 import static tech.sirwellington.alchemy.annotations.designs.patterns.FactoryPattern.Role.FACTORY;
 import static tech.sirwellington.alchemy.arguments.Arguments.*;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
-import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validURL;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
 
 /**
  *
@@ -47,7 +48,7 @@ final class ActionFactoryImpl implements ActionFactory
 
     private final static Logger LOG = LoggerFactory.getLogger(ActionFactoryImpl.class);
     
-    private final AlchemyHttp http;
+    private final WebhookClient http;
     private final ApnsService apns;
     
     private final FollowerRepository followerRepo;
@@ -57,10 +58,31 @@ final class ActionFactoryImpl implements ActionFactory
     private final ReactionRepository reactionRepo;
     private final UserPreferencesRepository userPreferencesRepo;
     
-    private final NotificationService.Iface notificationService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final WebhookCoalescer webhookCoalescer;
+    private final WebhookDeliveryQueue webhookDeliveryQueue;
+
+    /*
+     * These Actions hold no per-Message state, so a single instance of each is shared.
+     * The Actions needed once per User are shared too, and bound to the User when asked for.
+     */
+    private final Action doNothing;
+    private final Action storeMessage;
+    private final Action sendNotifications;
+    private final Action runThroughFollowerInboxes;
+    private final ParameterizedAction<User> runThroughInbox;
+    private final ParameterizedAction<User> storeInInbox;
+    private final ParameterizedAction<String> sendPushNotification;
+
+    /*
+     * Forwarding Actions are kept per configuration, so that the same Reaction
+     * does not have its Webhook URL parsed and validated again for every Message.
+     */
+    private final ConcurrentMap<ActionForwardToSlackChannel, Action> slackActions = newActionCache();
+    private final ConcurrentMap<ActionForwardToGitter, Action> gitterActions = newActionCache();
 
     @Inject
-    ActionFactoryImpl(AlchemyHttp http,
+    ActionFactoryImpl(WebhookClient http,
                       ApnsService apns,
                       FollowerRepository followerRepo,
                       InboxRepository inboxRepo,
@@ -68,9 +90,14 @@ final class ActionFactoryImpl implements ActionFactory
                       MessageRepository messageRepo,
                       ReactionRepository reactionRepo,
                       UserPreferencesRepository userPreferencesRepo,
-                      NotificationService.Iface notificationService)
+                      NotificationDispatcher notificationDispatcher,
+                      WebhookCoalescer webhookCoalescer,
+                      WebhookDeliveryQueue webhookDeliveryQueue)
     {
-        checkThat(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService)
+        checkThat(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher)
+            .are(notNull());
+        
+        checkThat(webhookCoalescer, webhookDeliveryQueue)
             .are(notNull());
         
         this.http = http;
@@ -81,7 +108,17 @@ final class ActionFactoryImpl implements ActionFactory
         this.messageRepo = messageRepo;
         this.reactionRepo = reactionRepo;
         this.userPreferencesRepo = userPreferencesRepo;
-        this.notificationService = notificationService;
+        this.notificationDispatcher = notificationDispatcher;
+        this.webhookCoalescer = webhookCoalescer;
+        this.webhookDeliveryQueue = webhookDeliveryQueue;
+
+        this.doNothing = new DoNothingAction();
+        this.storeMessage = new StoreMessageAction(messageRepo);
+        this.sendNotifications = new SendNotificationAction(notificationDispatcher);
+        this.runThroughFollowerInboxes = new RunThroughFollowerInboxesAction(this, followerRepo);
+        this.runThroughInbox = new RunThroughInboxAction(this, matchAlgorithm, reactionRepo);
+        this.storeInInbox = new StoreInInboxAction(inboxRepo);
+        this.sendPushNotification = new SendPushNotificationAction(apns, userPreferencesRepo);
     }
    
 
@@ -119,24 +156,75 @@ final class ActionFactoryImpl implements ActionFactory
     @Override
     public Action actionToDoNothing()
     {
-        return new DoNothingAction();
+        return doNothing;
     }
 
     @Override
     public Action actionToSendToGitter(ActionForwardToGitter gitter)
     {
         checkThat(gitter).is(notNull());
-        checkThat(gitter.gitterWebhookUrl)
-            .usingMessage("Gitter Webhook not a valid URL: " + gitter.gitterWebhookUrl)
-            .is(validURL());
 
-        return new ForwardToGitterAction(http, gitter);
+        Action cached = gitterActions.get(gitter);
+
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        //The key is copied, since Thrift objects can be changed after they are handed over.
+        ActionForwardToGitter key = new ActionForwardToGitter(gitter);
+        return gitterActions.computeIfAbsent(key, this::createGitterAction);
+    }
+
+    private Action createGitterAction(ActionForwardToGitter gitter)
+    {
+        try
+        {
+            return new ForwardToGitterAction(http, gitter, webhookCoalescer, webhookDeliveryQueue);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            LOG.warn("Cannot forward to Gitter Webhook {}. Ignoring it.", gitter, ex);
+            return actionToDoNothing();
+        }
     }
 
     @Override
     public Action actionToSendToSlackChannel(ActionForwardToSlackChannel slack)
     {
-        return new ForwardToSlackChannelAction(slack, http);
+        checkThat(slack).is(notNull());
+
+        Action cached = slackActions.get(slack);
+
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        ActionForwardToSlackChannel key = new ActionForwardToSlackChannel(slack);
+        return slackActions.computeIfAbsent(key, this::createSlackAction);
+    }
+
+    private Action createSlackAction(ActionForwardToSlackChannel slack)
+    {
+        try
+        {
+            return new ForwardToSlackChannelAction(slack, http, webhookCoalescer, webhookDeliveryQueue);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            LOG.warn("Cannot forward to Slack Channel {}. Ignoring it.", slack, ex);
+            return actionToDoNothing();
+        }
+    }
+
+    private static <K> ConcurrentMap<K, Action> newActionCache()
+    {
+        return CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .<K, Action>build()
+            .asMap();
     }
 
     @Override
@@ -148,43 +236,49 @@ final class ActionFactoryImpl implements ActionFactory
     @Override
     public Action actionToSendNotifications(Message message)
     {
-        return new SendNotificationAction(notificationService);
+        return sendNotifications;
     }
 
     @Override
     public Action actionToRunThroughFollowerInboxes(Message message)
     {
-        return new RunThroughFollowerInboxesAction(this, followerRepo);
+        return runThroughFollowerInboxes;
     }
 
     @Override
     public Action actionToRunThroughInbox(User user)
     {
-        return new RunThroughInboxAction(this, matchAlgorithm, reactionRepo, user);
+        checkThat(user).is(notNull());
+
+        return runThroughInbox.boundTo(user);
     }
 
     @Override
     public Action actionToStoreMessage(Message message)
     {
-        return new StoreMessageAction(messageRepo);
+        return storeMessage;
     }
 
     @Override
     public Action actionToStoreInInbox(User user)
     {
-        return new StoreInInboxAction(inboxRepo, user);
+        checkThat(user).is(notNull());
+
+        return storeInInbox.boundTo(user);
     }
 
     @Override
     public Action actionToSendEmail(ActionSendEmail sendEmail)
     {
-        return new DoNothingAction();
+        return doNothing;
     }
 
     @Override
     public Action actionToSendPushNotification(String userId)
     {
-        return new SendPushNotificationAction(apns, userPreferencesRepo, userId);
+        checkThat(userId).is(nonEmptyString());
+
+        return sendPushNotification.boundTo(userId);
     }
 
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadUnsafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Keeps track of the {@linkplain Action Actions} still pending for a single Message.
+ * <p>
+ * Instead of copying every child Action into one big queue, the frontier keeps an iterator over
+ * each List of children and pulls from it one bounded {@linkplain Chunk Chunk} at a time.
+ * The most recently produced children are drained first, so the number of pending Actions
+ * grows with the depth of the tree rather than with its width.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadUnsafe
+final class ActionFrontier
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(ActionFrontier.class);
+
+    private final ActionRunnerLimits limits;
+    private final Deque<Generation> pending = new ArrayDeque<>();
+
+    private int totalPulled = 0;
+
+    ActionFrontier(ActionRunnerLimits limits, List<Action> initialActions)
+    {
+        checkThat(limits, initialActions)
+            .are(notNull());
+
+        this.limits = limits;
+
+        if (!Lists.isEmpty(initialActions))
+        {
+            pending.push(new Generation(initialActions.iterator(), 1));
+        }
+    }
+
+    boolean hasMore()
+    {
+        while (!pending.isEmpty() && !pending.peek().actions.hasNext())
+        {
+            pending.pop();
+        }
+
+        if (pending.isEmpty())
+        {
+            return false;
+        }
+
+        if (totalPulled >= limits.getMaxTotalActions())
+        {
+            LOG.warn("Reached limit of {} total Actions for Message. Skipping remaining Actions.", limits.getMaxTotalActions());
+            pending.clear();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Pulls the next set of Actions to run. All of the Actions in a Chunk belong to the same generation.
+     *
+     * @return An empty Chunk if there is nothing left to run.
+     */
+    Chunk nextChunk()
+    {
+        if (!hasMore())
+        {
+            return new Chunk(Lists.emptyList(), 0);
+        }
+
+        Generation generation = pending.peek();
+        int maxToPull = Math.min(limits.getChunkSize(), limits.getMaxTotalActions() - totalPulled);
+
+        List<Action> actions = new ArrayList<>(maxToPull);
+
+        while (actions.size() < maxToPull && generation.actions.hasNext())
+        {
+            Action next = generation.actions.next();
+
+            if (next != null)
+            {
+                actions.add(next);
+            }
+        }
+
+        totalPulled += actions.size();
+
+        return new Chunk(actions, generation.depth);
+    }
+
+    /**
+     * Schedules the Actions produced by running an Action from the given Chunk.
+     */
+    void addChildrenOf(Chunk parent, List<Action> children)
+    {
+        if (Lists.isEmpty(children))
+        {
+            return;
+        }
+
+        int depth = parent.depth + 1;
+
+        if (depth > limits.getMaxDepth())
+        {
+            LOG.warn("Dropping {} Actions that exceed the maximum depth of {}", children.size(), limits.getMaxDepth());
+            return;
+        }
+
+        pending.push(new Generation(children.iterator(), depth));
+    }
+
+    int getTotalPulled()
+    {
+        return totalPulled;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ActionFrontier{" + "limits=" + limits + ", pending=" + pending.size() + ", totalPulled=" + totalPulled + '}';
+    }
+
+    static final class Chunk
+    {
+
+        final List<Action> actions;
+        final int depth;
+
+        private Chunk(List<Action> actions, int depth)
+        {
+            this.actions = actions;
+            this.depth = depth;
+        }
+
+        boolean isEmpty()
+        {
+            return actions.isEmpty();
+        }
+
+        int size()
+        {
+            return actions.size();
+        }
+
+    }
+
+    private static final class Generation
+    {
+
+        private final Iterator<Action> actions;
+        private final int depth;
+
+        private Generation(Iterator<Action> actions, int depth)
+        {
+            this.actions = actions;
+            this.depth = depth;
+        }
+
+    }
+
+}
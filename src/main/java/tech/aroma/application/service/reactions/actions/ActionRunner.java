@@ -32,12 +32,13 @@ import static tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPa
  */
 @StrategyPattern(role = INTERFACE)
 @ThreadSafe
-@ImplementedBy(ActionRunnerAsynchronous.class)
+@ImplementedBy(ActionRunnerStaged.class)
 public interface ActionRunner
 {
     
     /**
-     * Runs through all of the Actions supplied, and all subsequently created actions until none are left.
+     * Runs through all of the Actions supplied, and all subsequently created actions until none are left,
+     * or until the runner's {@linkplain ActionRunnerLimits limits} are reached.
      * 
      * @param message The message to process.
      * @param actions The Actions to perform based on the message. Can be empty but not null.
@@ -51,9 +52,19 @@ public interface ActionRunner
         return new ActionRunnerSynchronous();
     }
     
+    static ActionRunner newSynchronousRunner(@Required ActionRunnerLimits limits) throws IllegalArgumentException
+    {
+        return new ActionRunnerSynchronous(limits);
+    }
+    
     static ActionRunner newAsynchronousRunner()
     {
         return new ActionRunnerAsynchronous();
     }
+    
+    static ActionRunner newAsynchronousRunner(@Required ActionRunnerLimits limits) throws IllegalArgumentException
+    {
+        return new ActionRunnerAsynchronous(limits);
+    }
 
 }
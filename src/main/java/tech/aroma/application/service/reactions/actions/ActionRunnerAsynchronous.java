@@ -17,22 +17,25 @@
 package tech.aroma.application.service.reactions.actions;
 
 import java.util.List;
-import java.util.Queue;
+import javax.inject.Inject;
 
-import com.google.common.collect.Queues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import tech.aroma.thrift.Message;
 import tech.sirwellington.alchemy.annotations.access.Internal;
 import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
 
 import static java.util.stream.Collectors.toList;
 import static tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern.Role.CONCRETE_BEHAVIOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 
 /**
  * This is a concrete implementation of the {@link ActionRunner} interface
- * that executes {@linkplain Action Actions} in a FI-FO manner.
+ * that executes {@linkplain Action Actions} in parallel, one bounded chunk at a time,
+ * within the supplied {@linkplain ActionRunnerLimits limits}.
  * 
  * @author SirWellington
  */
@@ -43,27 +46,51 @@ final class ActionRunnerAsynchronous implements ActionRunner
 
     private final static Logger LOG = LoggerFactory.getLogger(ActionRunnerAsynchronous.class);
 
+    private final ActionRunnerLimits limits;
+    private final SendPathLatencies latencies;
+
+    ActionRunnerAsynchronous()
+    {
+        this(ActionRunnerLimits.defaults());
+    }
+
+    ActionRunnerAsynchronous(ActionRunnerLimits limits)
+    {
+        this(limits, SendPathLatencies.disabled());
+    }
+
+    @Inject
+    ActionRunnerAsynchronous(ActionRunnerLimits limits, SendPathLatencies latencies)
+    {
+        checkThat(limits, latencies)
+            .are(notNull());
+
+        this.limits = limits;
+        this.latencies = latencies;
+    }
+
     @Override
     public int runThroughActions(Message message, List<Action> actions)
     {
         
         int totalRuns = 0;
-        Queue<Action> queue = Queues.newLinkedBlockingDeque(actions);
+        int passes = 0;
+        ActionFrontier frontier = new ActionFrontier(limits, actions);
 
-        while (!queue.isEmpty())
+        while (frontier.hasMore())
         {
-            ++totalRuns;
+            ActionFrontier.Chunk chunk = frontier.nextChunk();
+            ++passes;
 
-            List<Action> additionalActions = queue.parallelStream()
+            List<List<Action>> additionalActions = chunk.actions
+                .parallelStream()
                 .map(action -> this.tryToRunActionOnMessage(action, message))
-                .flatMap(List::stream)
                 .collect(toList());
-            
-            queue.clear();
-            LOG.debug("Pass {} complete with {} additional actions to run through.", totalRuns, additionalActions.size());
 
-            queue.addAll(additionalActions);
+            totalRuns += chunk.size();
+            additionalActions.forEach(children -> frontier.addChildrenOf(chunk, children));
 
+            LOG.debug("Pass {} complete after running {} actions.", passes, chunk.size());
         }
 
         return totalRuns;
@@ -71,6 +98,8 @@ final class ActionRunnerAsynchronous implements ActionRunner
 
     private List<Action> tryToRunActionOnMessage(Action action, Message message)
     {
+        long startedAt = latencies.start();
+
         try
         {
             return action.actOnMessage(message);
@@ -80,5 +109,9 @@ final class ActionRunnerAsynchronous implements ActionRunner
             LOG.error("Failed to run Action {} on Message {}", action, message, ex);
             return Lists.emptyList();
         }
+        finally
+        {
+            latencies.recordAction(BoundAction.kindOf(action), startedAt);
+        }
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+
+/**
+ * Bounds how far an {@link ActionRunner} may expand the {@linkplain Action Actions} created
+ * for a single Message.
+ * <p>
+ * The depth limit also guards against Actions that keep re-emitting Actions, since every
+ * generation counts as an additional level.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class ActionRunnerLimits extends Options
+{
+
+    public static final int DEFAULT_MAX_DEPTH = 10;
+    public static final int DEFAULT_MAX_TOTAL_ACTIONS = 250_000;
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private static final ActionRunnerLimits DEFAULTS = new ActionRunnerLimits(DEFAULT_MAX_DEPTH,
+                                                                              DEFAULT_MAX_TOTAL_ACTIONS,
+                                                                              DEFAULT_CHUNK_SIZE);
+
+    private final int maxDepth;
+    private final int maxTotalActions;
+    private final int chunkSize;
+
+    private ActionRunnerLimits(int maxDepth, int maxTotalActions, int chunkSize)
+    {
+        this.maxDepth = maxDepth;
+        this.maxTotalActions = maxTotalActions;
+        this.chunkSize = chunkSize;
+    }
+
+    public static ActionRunnerLimits defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param maxDepth        The maximum number of generations of Actions to run. The initial Actions are at depth 1.
+     * @param maxTotalActions The maximum number of Actions to run for a single Message.
+     * @param chunkSize       The maximum number of Actions pulled and run together in one pass.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If any of the limits are less than 1.
+     */
+    public static ActionRunnerLimits of(int maxDepth, int maxTotalActions, int chunkSize) throws IllegalArgumentException
+    {
+        checkThat(maxDepth, maxTotalActions, chunkSize)
+            .usingMessage("limits must be at least 1")
+            .are(greaterThanOrEqualTo(1));
+
+        return new ActionRunnerLimits(maxDepth, maxTotalActions, chunkSize);
+    }
+
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    public int getMaxTotalActions()
+    {
+        return maxTotalActions;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.latency.SendPathLatencies;
+import tech.aroma.application.service.pipeline.StageName;
+import tech.aroma.application.service.pipeline.StagedPipeline;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern.Role.CONCRETE_BEHAVIOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * This is a concrete implementation of the {@link ActionRunner} interface
+ * that hands each {@link Action} to the {@linkplain StagedPipeline pipeline} stage suited to it:
+ * Actions that store Messages run on {@link StageName#PERSIST}, Actions that notify run on
+ * {@link StageName#NOTIFY}, and the rest run on {@link StageName#FAN_OUT}.
+ * <p>
+ * Chunks are still run one at a time, within the supplied {@linkplain ActionRunnerLimits limits}.
+ * The calling Thread runs the last Action of each Chunk itself, so a Chunk of one Action costs no hand-off.
+ * When the pipeline is disabled, this runner behaves like the {@linkplain ActionRunnerAsynchronous asynchronous one}.
+ *
+ * @author SirWellington
+ */
+@Internal
+@StrategyPattern(role = CONCRETE_BEHAVIOR)
+final class ActionRunnerStaged implements ActionRunner
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(ActionRunnerStaged.class);
+
+    private final ActionRunnerLimits limits;
+    private final StagedPipeline pipeline;
+    private final SendPathLatencies latencies;
+    private final ActionRunner fallback;
+
+    ActionRunnerStaged(ActionRunnerLimits limits, StagedPipeline pipeline)
+    {
+        this(limits, pipeline, SendPathLatencies.disabled());
+    }
+
+    @Inject
+    ActionRunnerStaged(ActionRunnerLimits limits, StagedPipeline pipeline, SendPathLatencies latencies)
+    {
+        checkThat(limits, pipeline, latencies)
+            .are(notNull());
+
+        this.limits = limits;
+        this.pipeline = pipeline;
+        this.latencies = latencies;
+        this.fallback = new ActionRunnerAsynchronous(limits, latencies);
+    }
+
+    @Override
+    public int runThroughActions(Message message, List<Action> actions)
+    {
+        if (!pipeline.isEnabled())
+        {
+            return fallback.runThroughActions(message, actions);
+        }
+
+        int totalRuns = 0;
+        int passes = 0;
+        ActionFrontier frontier = new ActionFrontier(limits, actions);
+
+        while (frontier.hasMore())
+        {
+            ActionFrontier.Chunk chunk = frontier.nextChunk();
+            ++passes;
+
+            if (chunk.isEmpty())
+            {
+                continue;
+            }
+
+            int last = chunk.size() - 1;
+            List<CompletableFuture<List<Action>>> results = new ArrayList<>(last);
+
+            for (Action action : chunk.actions.subList(0, last))
+            {
+                results.add(pipeline.stage(stageFor(action)).submit(() -> tryToRunActionOnMessage(action, message)));
+            }
+
+            //Rather than sit idle waiting on the others, the caller runs the last one itself.
+            List<Action> childrenOfLast = tryToRunActionOnMessage(chunk.actions.get(last), message);
+
+            for (CompletableFuture<List<Action>> result : results)
+            {
+                frontier.addChildrenOf(chunk, result.join());
+            }
+
+            frontier.addChildrenOf(chunk, childrenOfLast);
+
+            totalRuns += chunk.size();
+
+            LOG.debug("Pass {} complete after running {} actions.", passes, chunk.size());
+        }
+
+        return totalRuns;
+    }
+
+    static StageName stageFor(Action action)
+    {
+        Object target = action;
+
+        if (action instanceof BoundAction)
+        {
+            target = ((BoundAction<?>) action).getAction();
+        }
+
+        if (target instanceof StoreMessageAction || target instanceof StoreInInboxAction)
+        {
+            return StageName.PERSIST;
+        }
+
+        if (target instanceof SendNotificationAction ||
+            target instanceof SendPushNotificationAction ||
+            target instanceof ForwardToSlackChannelAction ||
+            target instanceof ForwardToGitterAction)
+        {
+            return StageName.NOTIFY;
+        }
+
+        return StageName.FAN_OUT;
+    }
+
+    private List<Action> tryToRunActionOnMessage(Action action, Message message)
+    {
+        long startedAt = latencies.start();
+
+        try
+        {
+            return action.actOnMessage(message);
+        }
+        catch (Exception ex)
+        {
+            LOG.error("Failed to run Action {} on Message {}", action, message, ex);
+            return Lists.emptyList();
+        }
+        finally
+        {
+            latencies.recordAction(BoundAction.kindOf(action), startedAt);
+        }
+    }
+}
@@ -17,21 +17,24 @@
 package tech.aroma.application.service.reactions.actions;
 
 import java.util.List;
-import java.util.Queue;
+import javax.inject.Inject;
 
-import com.google.common.collect.Queues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import tech.aroma.thrift.Message;
 import tech.sirwellington.alchemy.annotations.access.Internal;
 import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
 
 import static tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern.Role.CONCRETE_BEHAVIOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 
 /**
  * This is a concrete implementation of the {@link ActionRunner} interface
- * that executes {@linkplain Action Actions} in a FI-FO manner.
+ * that executes {@linkplain Action Actions} one at a time on the calling Thread,
+ * within the supplied {@linkplain ActionRunnerLimits limits}.
  * 
  * @author SirWellington
  */
@@ -42,27 +45,49 @@ final class ActionRunnerSynchronous implements ActionRunner
 
     private final static Logger LOG = LoggerFactory.getLogger(ActionRunnerSynchronous.class);
 
+    private final ActionRunnerLimits limits;
+    private final SendPathLatencies latencies;
+
+    ActionRunnerSynchronous()
+    {
+        this(ActionRunnerLimits.defaults());
+    }
+
+    ActionRunnerSynchronous(ActionRunnerLimits limits)
+    {
+        this(limits, SendPathLatencies.disabled());
+    }
+
+    @Inject
+    ActionRunnerSynchronous(ActionRunnerLimits limits, SendPathLatencies latencies)
+    {
+        checkThat(limits, latencies)
+            .are(notNull());
+
+        this.limits = limits;
+        this.latencies = latencies;
+    }
+
     @Override
     public int runThroughActions(Message message, List<Action> actions)
     {
         
         int totalRuns = 0;
-        Queue<Action> queue = Queues.newLinkedBlockingDeque(actions);
+        ActionFrontier frontier = new ActionFrontier(limits, actions);
 
-        while (!queue.isEmpty())
+        while (frontier.hasMore())
         {
-            Action nextAction = queue.poll();
-            
-            if (nextAction == null)
+            ActionFrontier.Chunk chunk = frontier.nextChunk();
+
+            for (Action nextAction : chunk.actions)
             {
-                break;
-            }
-            ++totalRuns;
-            
-            List<Action> additionalActions = runAction(message, nextAction);
-            queue.addAll(additionalActions);
+                ++totalRuns;
+
+                List<Action> additionalActions = runAction(message, nextAction);
+                frontier.addChildrenOf(chunk, additionalActions);
 
-            LOG.debug("Pass {} complete with {} additional actions to run through.", totalRuns, additionalActions.size());
+                LOG.debug("Action {} complete with {} additional actions to run through.", totalRuns, additionalActions.size());
+            }
         }
 
         return totalRuns;
@@ -70,6 +95,8 @@ final class ActionRunnerSynchronous implements ActionRunner
 
     private List<Action> runAction(Message message, Action action)
     {
+        long startedAt = latencies.start();
+
         try
         {
             return action.actOnMessage(message);
@@ -79,5 +106,9 @@ final class ActionRunnerSynchronous implements ActionRunner
             LOG.error("Failed to run Action {} on Message {}", action, message, ex);
             return Lists.emptyList();
         }
+        finally
+        {
+            latencies.recordAction(BoundAction.kindOf(action), startedAt);
+        }
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+
+import org.apache.thrift.TException;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Pairs a shared {@link ParameterizedAction} with its parameter.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Immutable
+final class BoundAction<P> implements Action
+{
+
+    private final ParameterizedAction<P> action;
+    private final P parameter;
+
+    BoundAction(ParameterizedAction<P> action, P parameter)
+    {
+        checkThat(action, parameter)
+            .are(notNull());
+
+        this.action = action;
+        this.parameter = parameter;
+    }
+
+    @Override
+    public List<Action> actOnMessage(Message message) throws TException
+    {
+        return action.actOnMessage(parameter, message);
+    }
+
+    ParameterizedAction<P> getAction()
+    {
+        return action;
+    }
+
+    P getParameter()
+    {
+        return parameter;
+    }
+
+    /**
+     * @return The class that does the work of the Action: the shared Action's for a {@link BoundAction},
+     *         otherwise the Action's own.
+     */
+    static Class<?> kindOf(Action action)
+    {
+        if (action instanceof BoundAction)
+        {
+            return ((BoundAction<?>) action).getAction().getClass();
+        }
+
+        return action.getClass();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundAction{" + "action=" + action + ", parameter=" + parameter + '}';
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Stops calls to an endpoint that keeps failing.
+ * <p>
+ * The circuit starts {@linkplain State#CLOSED closed}. After enough failures in a row it
+ * {@linkplain State#OPEN opens}, and calls fail fast. Once the open period is over it becomes
+ * {@linkplain State#HALF_OPEN half-open}, and trial calls decide whether it closes again or re-opens.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class CircuitBreaker
+{
+
+    private final String name;
+    private final CircuitBreakerOptions options;
+    private final Listener listener;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private int trialSuccesses = 0;
+    private long openedAt = 0L;
+
+    CircuitBreaker(String name, CircuitBreakerOptions options, Listener listener)
+    {
+        checkThat(name)
+            .is(nonEmptyString());
+
+        checkThat(options, listener)
+            .are(notNull());
+
+        this.name = name;
+        this.options = options;
+        this.listener = listener;
+    }
+
+    /**
+     * Checks whether a call may go through right now. An open circuit whose open period is over
+     * turns half-open.
+     */
+    synchronized boolean allowRequest(long nowMillis)
+    {
+        if (state != State.OPEN)
+        {
+            return true;
+        }
+
+        if (millisUntilTrial(nowMillis) > 0)
+        {
+            return false;
+        }
+
+        trialSuccesses = 0;
+        transitionTo(State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * @return How long until an open circuit lets a trial call through, or 0 if calls may go through now.
+     */
+    synchronized long millisUntilTrial(long nowMillis)
+    {
+        if (state != State.OPEN)
+        {
+            return 0L;
+        }
+
+        return Math.max(0L, openedAt + options.getOpenMillis() - nowMillis);
+    }
+
+    synchronized void onSuccess()
+    {
+        consecutiveFailures = 0;
+
+        if (state == State.HALF_OPEN && ++trialSuccesses >= options.getHalfOpenSuccesses())
+        {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    synchronized void onFailure(long nowMillis)
+    {
+        consecutiveFailures += 1;
+
+        boolean shouldOpen = state == State.HALF_OPEN ||
+                             (state == State.CLOSED && consecutiveFailures >= options.getFailureThreshold());
+
+        if (shouldOpen)
+        {
+            openedAt = nowMillis;
+            transitionTo(State.OPEN);
+        }
+    }
+
+    synchronized State getState()
+    {
+        return state;
+    }
+
+    private void transitionTo(State newState)
+    {
+        State oldState = this.state;
+        this.state = newState;
+
+        listener.onTransition(name, oldState, newState);
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "CircuitBreaker{" + "name=" + name + ", state=" + state + ", consecutiveFailures=" + consecutiveFailures + '}';
+    }
+
+    enum State
+    {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Notified, while the breaker is locked, every time the state of a circuit changes.
+     */
+    @FunctionalInterface
+    interface Listener
+    {
+
+        void onTransition(String name, State from, State to);
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls when a {@link CircuitBreaker} opens, and how it tries to close again.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class CircuitBreakerOptions extends Options
+{
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = 60_000L;
+    public static final int DEFAULT_HALF_OPEN_SUCCESSES = 1;
+
+    private static final CircuitBreakerOptions DEFAULTS = new CircuitBreakerOptions(DEFAULT_FAILURE_THRESHOLD,
+                                                                                    DEFAULT_OPEN_MILLIS,
+                                                                                    DEFAULT_HALF_OPEN_SUCCESSES);
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int halfOpenSuccesses;
+
+    private CircuitBreakerOptions(int failureThreshold, long openMillis, int halfOpenSuccesses)
+    {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenSuccesses = halfOpenSuccesses;
+    }
+
+    public static CircuitBreakerOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param failureThreshold  How many failures in a row open the circuit.
+     * @param openMillis        How long the circuit stays open before a trial request is let through.
+     * @param halfOpenSuccesses How many trial requests must succeed before the circuit closes again.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If any of the options are less than 1.
+     */
+    public static CircuitBreakerOptions of(int failureThreshold, long openMillis, int halfOpenSuccesses) throws IllegalArgumentException
+    {
+        checkThat(failureThreshold, halfOpenSuccesses)
+            .usingMessage("thresholds must be at least 1")
+            .are(greaterThanOrEqualTo(1));
+
+        checkThat(openMillis)
+            .usingMessage("open duration must be positive")
+            .is(positiveLong());
+
+        return new CircuitBreakerOptions(failureThreshold, openMillis, halfOpenSuccesses);
+    }
+
+    public int getFailureThreshold()
+    {
+        return failureThreshold;
+    }
+
+    public long getOpenMillis()
+    {
+        return openMillis;
+    }
+
+    public int getHalfOpenSuccesses()
+    {
+        return halfOpenSuccesses;
+    }
+
+}
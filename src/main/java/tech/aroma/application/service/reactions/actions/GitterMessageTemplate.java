@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.stream.JsonWriter;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.aroma.thrift.Urgency.HIGH;
+
+/**
+ * Writes the body of a Gitter Webhook post into the {@link JsonWriter} of the {@link WebhookClient}.
+ * A digest of Messages is combined into one Gitter Message, which is reported as an error if any of the Messages are.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Immutable
+final class GitterMessageTemplate
+{
+
+    static final String GITTER_LEVEL_INFO = "info";
+    static final String GITTER_LEVEL_ERROR = "error";
+    static final String DIGEST_SEPARATOR = "\n\n---\n\n";
+
+    private final boolean includeBody;
+
+    GitterMessageTemplate(boolean includeBody)
+    {
+        this.includeBody = includeBody;
+    }
+
+    WebhookClient.Payload payloadFor(@NonEmpty List<Message> messages)
+    {
+        return json -> write(messages, json);
+    }
+
+    void write(@NonEmpty List<Message> messages, JsonWriter json) throws IOException
+    {
+        StringBuilder text = new StringBuilder(256 * messages.size());
+        boolean isError = false;
+
+        for (Message message : messages)
+        {
+            if (text.length() > 0)
+            {
+                text.append(DIGEST_SEPARATOR);
+            }
+
+            appendMessage(text, message);
+            isError |= message.urgency == HIGH;
+        }
+
+        json.beginObject();
+        json.name("message").value(text.toString());
+        json.name("level").value(isError ? GITTER_LEVEL_ERROR : GITTER_LEVEL_INFO);
+        json.endObject();
+    }
+
+    private void appendMessage(StringBuilder text, Message message)
+    {
+        text.append("**").append(message.applicationName).append("** - *via Aroma*\n")
+            .append("**").append(message.title).append("**\n\n")
+            .append("From Device: ").append(message.hostname);
+
+        if (includeBody)
+        {
+            text.append("\n\n").append(message.body);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GitterMessageTemplate{" + "includeBody=" + includeBody + '}';
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls whether Notifications are queued and sent to the Notification Service off the
+ * calling Thread, how long and how many of them may wait before a flush, and how many are
+ * sent at once. Each Notification is still sent as its own request.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class NotificationDispatchOptions extends Options
+{
+
+    public static final int DEFAULT_FLUSH_THRESHOLD = 100;
+    public static final long DEFAULT_LINGER_MILLIS = 250L;
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+    public static final int DEFAULT_MAX_CONCURRENT_SENDS = 8;
+
+    private static final NotificationDispatchOptions DISABLED = new NotificationDispatchOptions(false, 1, 0L, 1, 1);
+
+    private final boolean enabled;
+    private final int flushThreshold;
+    private final long lingerMillis;
+    private final int maxPending;
+    private final int maxConcurrentSends;
+
+    private NotificationDispatchOptions(boolean enabled, int flushThreshold, long lingerMillis, int maxPending, int maxConcurrentSends)
+    {
+        this.enabled = enabled;
+        this.flushThreshold = flushThreshold;
+        this.lingerMillis = lingerMillis;
+        this.maxPending = maxPending;
+        this.maxConcurrentSends = maxConcurrentSends;
+    }
+
+    /**
+     * Every Notification is sent on its own, on the calling Thread.
+     */
+    public static NotificationDispatchOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static NotificationDispatchOptions defaults()
+    {
+        return of(DEFAULT_FLUSH_THRESHOLD, DEFAULT_LINGER_MILLIS, DEFAULT_MAX_PENDING, DEFAULT_MAX_CONCURRENT_SENDS);
+    }
+
+    public static NotificationDispatchOptions of(int flushThreshold, long lingerMillis, int maxPending) throws IllegalArgumentException
+    {
+        return of(flushThreshold, lingerMillis, maxPending, DEFAULT_MAX_CONCURRENT_SENDS);
+    }
+
+    /**
+     * @param flushThreshold     The queue is flushed as soon as this many Notifications are waiting.
+     * @param lingerMillis       How long the first waiting Notification may wait before the queue is flushed.
+     * @param maxPending         Notifications beyond this many waiting to be sent are dropped.
+     * @param maxConcurrentSends How many Notifications are sent to the Notification Service at once.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static NotificationDispatchOptions of(int flushThreshold,
+                                              long lingerMillis,
+                                              int maxPending,
+                                              int maxConcurrentSends) throws IllegalArgumentException
+    {
+        checkThat(flushThreshold)
+            .usingMessage("flush threshold must be at least 1")
+            .is(greaterThanOrEqualTo(1));
+
+        checkThat(lingerMillis)
+            .usingMessage("linger time must be positive")
+            .is(positiveLong());
+
+        checkThat(maxPending)
+            .usingMessage("max pending must be at least the flush threshold")
+            .is(greaterThanOrEqualTo(flushThreshold));
+
+        checkThat(maxConcurrentSends)
+            .usingMessage("must allow at least 1 concurrent send")
+            .is(greaterThanOrEqualTo(1));
+
+        return new NotificationDispatchOptions(true, flushThreshold, lingerMillis, maxPending, maxConcurrentSends);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public int getFlushThreshold()
+    {
+        return flushThreshold;
+    }
+
+    public long getLingerMillis()
+    {
+        return lingerMillis;
+    }
+
+    public int getMaxPending()
+    {
+        return maxPending;
+    }
+
+    public int getMaxConcurrentSends()
+    {
+        return maxConcurrentSends;
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.thrift.notification.service.NotificationService;
+import tech.aroma.thrift.notification.service.SendNotificationRequest;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Sends Notifications to the Notification Service off the calling Thread, according to the
+ * {@link NotificationDispatchOptions}.
+ * <p>
+ * The Notification Service has no bulk call, so every Notification is still its own request. Queued
+ * Notifications are flushed once the {@linkplain NotificationDispatchOptions#getFlushThreshold() threshold}
+ * is reached, or once the first of them has waited for the linger time. The dispatcher has its own
+ * flushing Thread, so it never holds up the shared scheduler, and sends what it drains concurrently on
+ * its own {@linkplain NotificationDispatchOptions#getMaxConcurrentSends() bounded set of Threads}. Only
+ * one flush is in flight at a time, so Notifications that arrive meanwhile wait in the pending queue,
+ * and are refused once it is full.
+ * When dispatching is disabled, every Notification is sent right away on the calling Thread.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+final class NotificationDispatcher
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    static final String METRIC_SENT = MetricRegistry.name(NotificationDispatcher.class, "sent");
+    static final String METRIC_FAILED = MetricRegistry.name(NotificationDispatcher.class, "failed");
+    static final String METRIC_DROPPED = MetricRegistry.name(NotificationDispatcher.class, "dropped");
+    static final String METRIC_PENDING = MetricRegistry.name(NotificationDispatcher.class, "pending");
+    static final String METRIC_FLUSH_SIZE = MetricRegistry.name(NotificationDispatcher.class, "flush-size");
+
+    private final NotificationService.Iface notificationService;
+    private final NotificationDispatchOptions options;
+    private final ScheduledExecutorService flusher;
+    private final Executor senders;
+
+    private final BlockingQueue<SendNotificationRequest> pending;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean immediateFlushScheduled = new AtomicBoolean(false);
+
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter dropped;
+    private final Histogram flushSizes;
+
+    @Inject
+    NotificationDispatcher(NotificationService.Iface notificationService,
+                        NotificationDispatchOptions options,
+                        MetricRegistry metrics)
+    {
+        this(notificationService,
+             options,
+             Executors.newSingleThreadScheduledExecutor(daemonThreads("notification-flusher-")),
+             Executors.newFixedThreadPool(options.getMaxConcurrentSends(), daemonThreads("notification-sender-")),
+             metrics);
+    }
+
+    NotificationDispatcher(NotificationService.Iface notificationService,
+                        NotificationDispatchOptions options,
+                        ScheduledExecutorService flusher,
+                        Executor senders,
+                        MetricRegistry metrics)
+    {
+        checkThat(notificationService, options, flusher, senders, metrics)
+            .are(notNull());
+
+        this.notificationService = notificationService;
+        this.options = options;
+        this.flusher = flusher;
+        this.senders = senders;
+        this.pending = new LinkedBlockingQueue<>(options.getMaxPending());
+
+        this.sent = metrics.counter(METRIC_SENT);
+        this.failed = metrics.counter(METRIC_FAILED);
+        this.dropped = metrics.counter(METRIC_DROPPED);
+        this.flushSizes = metrics.histogram(METRIC_FLUSH_SIZE);
+        metrics.register(METRIC_PENDING, (Gauge<Integer>) pending::size);
+    }
+
+    /**
+     * @return False if the Notification was dropped, because too many are already waiting to be sent.
+     */
+    boolean submit(@Required SendNotificationRequest request)
+    {
+        checkThat(request)
+            .is(notNull());
+
+        if (!options.isEnabled())
+        {
+            sendNow(request);
+            return true;
+        }
+
+        if (!pending.offer(request))
+        {
+            dropped.inc();
+            LOG.error("{} Notifications already waiting to be sent. Dropping {}", options.getMaxPending(), request);
+            return false;
+        }
+
+        if (pending.size() >= options.getFlushThreshold())
+        {
+            if (immediateFlushScheduled.compareAndSet(false, true))
+            {
+                flusher.execute(this::flush);
+            }
+        }
+        else if (flushScheduled.compareAndSet(false, true))
+        {
+            flusher.schedule(this::flush, options.getLingerMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        return true;
+    }
+
+    int getNumberOfPendingNotifications()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Sends everything waiting, up to the threshold at a time.
+     */
+    void flush()
+    {
+        flushScheduled.set(false);
+        immediateFlushScheduled.set(false);
+
+        List<SendNotificationRequest> drained = new ArrayList<>(options.getFlushThreshold());
+
+        while (pending.drainTo(drained, options.getFlushThreshold()) > 0)
+        {
+            send(drained);
+            drained.clear();
+        }
+    }
+
+    private void send(List<SendNotificationRequest> drained)
+    {
+        flushSizes.update(drained.size());
+
+        CountDownLatch remaining = new CountDownLatch(drained.size());
+
+        for (SendNotificationRequest request : drained)
+        {
+            senders.execute(() ->
+            {
+                try
+                {
+                    sendNow(request);
+                }
+                finally
+                {
+                    remaining.countDown();
+                }
+            });
+        }
+
+        awaitUninterruptibly(remaining);
+    }
+
+    private void sendNow(SendNotificationRequest request)
+    {
+        try
+        {
+            notificationService.sendNotification(request);
+            sent.inc();
+        }
+        catch (TException | RuntimeException ex)
+        {
+            failed.inc();
+            LOG.warn("Failed to send Notification request: {}", request, ex);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch)
+    {
+        boolean interrupted = false;
+
+        while (true)
+        {
+            try
+            {
+                latch.await();
+                break;
+            }
+            catch (InterruptedException ex)
+            {
+                //The Notifications are already in flight; let it finish.
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix)
+    {
+        AtomicInteger counter = new AtomicInteger();
+
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return "NotificationDispatcher{" + "notificationService=" + notificationService + ", options=" + options + ", pending=" + pending.size() + '}';
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+
+import org.apache.thrift.TException;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+/**
+ * The shared part of an {@link Action} that would otherwise be created once for every User (or other parameter)
+ * a Message reaches. A single instance is kept, and {@link #boundTo(Object)} pairs it with the parameter
+ * when an {@link Action} is needed.
+ *
+ * @param <P> The parameter the Action needs, for example a User.
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+@FunctionalInterface
+interface ParameterizedAction<P>
+{
+
+    List<Action> actOnMessage(@Required P parameter, @Required Message message) throws TException;
+
+    default Action boundTo(@Required P parameter)
+    {
+        return new BoundAction<>(this, parameter);
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
+import tech.sirwellington.alchemy.http.HttpResponse;
+import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern.Role.CONCRETE_BEHAVIOR;
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Posts to Webhooks over pooled, kept-alive connections.
+ * <p>
+ * Each Webhook host gets its own pool of up to {@link WebhookClientOptions#getMaxConnectionsPerHost()}
+ * connections, so the TLS handshake to hosts like {@code hooks.slack.com} is paid once rather than
+ * on every post. Idle connections are kept for as long as the host allows, capped at
+ * {@link WebhookClientOptions#getKeepAliveMillis()}, and evicted in the background after that.
+ * <p>
+ * Connecting and waiting for a response have separate timeouts, and the pool publishes its
+ * utilization to the {@link MetricRegistry}.
+ *
+ * @author SirWellington
+ */
+@StrategyPattern(role = CONCRETE_BEHAVIOR)
+@ThreadSafe
+public final class PooledWebhookClient implements WebhookClient, Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(PooledWebhookClient.class);
+
+    static final String METRIC_CONNECTIONS_LEASED = MetricRegistry.name(PooledWebhookClient.class, "connections", "leased");
+    static final String METRIC_CONNECTIONS_AVAILABLE = MetricRegistry.name(PooledWebhookClient.class, "connections", "available");
+    static final String METRIC_CONNECTIONS_PENDING = MetricRegistry.name(PooledWebhookClient.class, "connections", "pending");
+    static final String METRIC_POSTS = MetricRegistry.name(PooledWebhookClient.class, "posts");
+    static final String METRIC_FAILURES = MetricRegistry.name(PooledWebhookClient.class, "failures");
+
+    private static final String ACCEPT = "application/json, text/plain, text/javascript";
+
+    /**
+     * Buffers that grew past this for an unusually large post are let go, rather than held by their Thread.
+     */
+    static final int MAX_RETAINED_BUFFER_BYTES = 64 * 1024;
+
+    private static final ThreadLocal<PayloadBuffer> BUFFERS = ThreadLocal.withInitial(PayloadBuffer::new);
+
+    private final WebhookClientOptions options;
+    private final PoolingHttpClientConnectionManager pool;
+    private final CloseableHttpClient client;
+    private final Timer posts;
+    private final Counter failures;
+
+    public PooledWebhookClient(WebhookClientOptions options, MetricRegistry metrics)
+    {
+        checkThat(options, metrics)
+            .are(notNull());
+
+        this.options = options;
+
+        this.pool = new PoolingHttpClientConnectionManager();
+        pool.setDefaultMaxPerRoute(options.getMaxConnectionsPerHost());
+        pool.setMaxTotal(options.getMaxConnectionsTotal());
+        pool.setDefaultSocketConfig(SocketConfig.custom()
+            .setSoTimeout((int) options.getReadTimeoutMillis())
+            .setSoKeepAlive(true)
+            .setTcpNoDelay(true)
+            .build());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout((int) options.getConnectTimeoutMillis())
+            .setConnectionRequestTimeout((int) options.getConnectTimeoutMillis())
+            .setSocketTimeout((int) options.getReadTimeoutMillis())
+            .build();
+
+        this.client = HttpClients.custom()
+            .setConnectionManager(pool)
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy(this::keepAliveFor)
+            .evictExpiredConnections()
+            .evictIdleConnections(options.getKeepAliveMillis(), TimeUnit.MILLISECONDS)
+            .disableCookieManagement()
+            .disableAutomaticRetries()
+            .build();
+
+        this.posts = metrics.timer(METRIC_POSTS);
+        this.failures = metrics.counter(METRIC_FAILURES);
+
+        metrics.register(METRIC_CONNECTIONS_LEASED, (Gauge<Integer>) () -> pool.getTotalStats().getLeased());
+        metrics.register(METRIC_CONNECTIONS_AVAILABLE, (Gauge<Integer>) () -> pool.getTotalStats().getAvailable());
+        metrics.register(METRIC_CONNECTIONS_PENDING, (Gauge<Integer>) () -> pool.getTotalStats().getPending());
+    }
+
+    @Override
+    public HttpResponse post(URL url, Payload body) throws AlchemyHttpException
+    {
+        checkThat(url, body)
+            .throwing(AlchemyHttpException.class)
+            .are(notNull());
+
+        HttpPost request = toRequest(url);
+        request.setHeader(HttpHeaders.ACCEPT, ACCEPT);
+
+        PayloadBuffer buffer = BUFFERS.get();
+        boolean reuseBuffer = false;
+        HttpResponse response;
+
+        try (Timer.Context time = posts.time())
+        {
+            request.setEntity(buffer.write(body));
+
+            try (CloseableHttpResponse httpResponse = client.execute(request))
+            {
+                response = toResponse(httpResponse);
+            }
+
+            reuseBuffer = !buffer.isOversized();
+        }
+        catch (IOException ex)
+        {
+            failures.inc();
+            LOG.warn("Failed to post to {}", url, ex);
+            throw new AlchemyHttpException("Failed to post to " + url + ": " + ex.getMessage(), ex);
+        }
+        finally
+        {
+            //A post that failed part way through could leave characters behind in the buffer's Writer.
+            if (!reuseBuffer)
+            {
+                BUFFERS.remove();
+            }
+        }
+
+        if (!response.isOk())
+        {
+            failures.inc();
+            throw new AlchemyHttpException(response, "Webhook at " + url + " responded with " + response.statusCode());
+        }
+
+        return response;
+    }
+
+    /**
+     * @return The utilization of the connection pool kept for the host of the URL.
+     */
+    PoolStats getPoolStatsFor(@Required URL url)
+    {
+        checkThat(url).is(notNull());
+
+        int port = url.getPort() >= 0 ? url.getPort() : url.getDefaultPort();
+        HttpHost host = new HttpHost(url.getHost(), port, url.getProtocol());
+        boolean secure = "https".equalsIgnoreCase(url.getProtocol());
+
+        return pool.getStats(new HttpRoute(host, null, secure));
+    }
+
+    PoolStats getTotalPoolStats()
+    {
+        return pool.getTotalStats();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        client.close();
+    }
+
+    private long keepAliveFor(org.apache.http.HttpResponse response, org.apache.http.protocol.HttpContext context)
+    {
+        long requestedByHost = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+        if (requestedByHost <= 0)
+        {
+            return options.getKeepAliveMillis();
+        }
+
+        return Math.min(requestedByHost, options.getKeepAliveMillis());
+    }
+
+    private static HttpPost toRequest(URL url) throws AlchemyHttpException
+    {
+        try
+        {
+            return new HttpPost(url.toURI());
+        }
+        catch (URISyntaxException ex)
+        {
+            LOG.error("Webhook URL is not a valid URI: {}", url, ex);
+            throw new AlchemyHttpException("Invalid Webhook URL: " + url, ex);
+        }
+    }
+
+    private static HttpResponse toResponse(CloseableHttpResponse httpResponse) throws IOException
+    {
+        Map<String, String> headers = new HashMap<>();
+
+        for (Header header : httpResponse.getAllHeaders())
+        {
+            headers.merge(header.getName(), header.getValue(), (first, second) -> first + ", " + second);
+        }
+
+        HttpEntity entity = httpResponse.getEntity();
+        String body = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : "";
+
+        return HttpResponse.Builder.newInstance()
+            .withStatusCode(httpResponse.getStatusLine().getStatusCode())
+            .withResponseHeaders(headers)
+            .withResponseBody(toJson(body))
+            .build();
+    }
+
+    /**
+     * Webhooks like Slack answer with plain text such as {@code ok}, which is kept as a JSON string.
+     */
+    private static JsonElement toJson(String body)
+    {
+        if (body.trim().isEmpty())
+        {
+            return JsonNull.INSTANCE;
+        }
+
+        try
+        {
+            return new JsonParser().parse(body);
+        }
+        catch (JsonParseException ex)
+        {
+            return new JsonPrimitive(body);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PooledWebhookClient{" + "options=" + options + ", pool=" + pool.getTotalStats() + '}';
+    }
+
+    /**
+     * The UTF-8 bytes of a post, which the request reads from directly. Each Thread reuses its own,
+     * since a post has been sent by the time {@link #post(URL, Payload)} returns.
+     */
+    private static final class PayloadBuffer extends ByteArrayOutputStream
+    {
+
+        private final Writer writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+
+        private PayloadBuffer()
+        {
+            super(1024);
+        }
+
+        private HttpEntity write(Payload body) throws IOException
+        {
+            reset();
+
+            JsonWriter json = new JsonWriter(writer);
+            body.writeTo(json);
+            json.flush();
+
+            return new ByteArrayEntity(buf, 0, count, ContentType.APPLICATION_JSON);
+        }
+
+        private boolean isOversized()
+        {
+            return buf.length > MAX_RETAINED_BUFFER_BYTES;
+        }
+
+    }
+
+}
@@ -28,12 +28,16 @@ import tech.aroma.thrift.User;
 import tech.sirwellington.alchemy.annotations.access.Internal;
 import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
 
-import static java.util.stream.Collectors.toList;
+import static com.google.common.collect.Lists.transform;
 import static tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern.Role.CONCRETE_BEHAVIOR;
 import static tech.sirwellington.alchemy.arguments.Arguments.*;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 
 /**
+ * Creates an Action to run through the Inbox of each Follower of the Message's Application.
+ * <p>
+ * The Inbox Actions are created lazily, as the {@link ActionRunner} pulls them in chunks,
+ * so an Application with a very large audience does not create every Inbox Action at once.
  *
  * @author SirWellington
  */
@@ -66,11 +70,22 @@ final class RunThroughFollowerInboxesAction implements Action
         List<User> followers = followerRepo.getApplicationFollowers(appId);
         followers = Lists.nullToEmpty(followers);
 
-        LOG.debug("Creating {} additional actions to run through Follower Inboxes for App {}", followers.size(), appId);
+        LOG.debug("Streaming {} additional actions to run through Follower Inboxes for App {}", followers.size(), appId);
 
-        return followers.stream()
-            .map(user -> factory.actionToRunThroughInbox(user))
-            .collect(toList());
+        return transform(followers, this::actionToRunThroughInboxOf);
+    }
+
+    private Action actionToRunThroughInboxOf(User follower)
+    {
+        try
+        {
+            return factory.actionToRunThroughInbox(follower);
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.warn("Could not create action to run through Inbox of {}", follower, ex);
+            return factory.actionToDoNothing();
+        }
     }
 
     @Override
@@ -27,6 +27,7 @@ import tech.aroma.application.service.reactions.matchers.MatchAlgorithm;
 import tech.aroma.data.ReactionRepository;
 import tech.aroma.thrift.Message;
 import tech.aroma.thrift.User;
+import tech.aroma.thrift.exceptions.InvalidArgumentException;
 import tech.aroma.thrift.reactions.AromaAction;
 import tech.aroma.thrift.reactions.Reaction;
 import tech.sirwellington.alchemy.annotations.access.Internal;
@@ -40,12 +41,13 @@ import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull
 
 /**
  * This step runs the message through a follower's Inbox and any Reactions it may have.
+ * One instance is shared by all followers.
  *
  * @author SirWellington
  */
 @StrategyPattern(role = CONCRETE_BEHAVIOR)
 @Internal
-final class RunThroughInboxAction implements Action
+final class RunThroughInboxAction implements ParameterizedAction<User>
 {
 
     private final static Logger LOG = LoggerFactory.getLogger(RunThroughInboxAction.class);
@@ -53,29 +55,28 @@ final class RunThroughInboxAction implements Action
     private final ActionFactory actionFactory;
     private final MatchAlgorithm matchAlgorithm;
     private final ReactionRepository reactionRepo;
-    private final User user;
 
     RunThroughInboxAction(ActionFactory actionFactory,
                           MatchAlgorithm matchAlgorithm,
-                          ReactionRepository reactionRepo,
-                          User user)
+                          ReactionRepository reactionRepo)
     {
-        checkThat(actionFactory, matchAlgorithm, reactionRepo, user)
+        checkThat(actionFactory, matchAlgorithm, reactionRepo)
             .are(notNull());
-        
-        checkThat(user).is(validUser());
 
         this.actionFactory = actionFactory;
         this.matchAlgorithm = matchAlgorithm;
         this.reactionRepo = reactionRepo;
-        this.user = user;
     }
 
     @Override
-    public List<Action> actOnMessage(Message message) throws TException
+    public List<Action> actOnMessage(User user, Message message) throws TException
     {
         Action.checkMessage(message);
 
+        checkThat(user)
+            .throwing(InvalidArgumentException.class)
+            .is(validUser());
+
         List<AromaAction> applicableActions = getApplicationActionsFor(message, user);
         
         LOG.debug("Found {} application actions for message {} through Inbox of user {}",
@@ -153,6 +154,6 @@ final class RunThroughInboxAction implements Action
     @Override
     public String toString()
     {
-        return "RunThroughInboxAction{" + "actionFactory=" + actionFactory + ", matchAlgorithm=" + matchAlgorithm + ", reactionRepo=" + reactionRepo + ", user=" + user + '}';
+        return "RunThroughInboxAction{" + "actionFactory=" + actionFactory + ", matchAlgorithm=" + matchAlgorithm + ", reactionRepo=" + reactionRepo + '}';
     }
 }
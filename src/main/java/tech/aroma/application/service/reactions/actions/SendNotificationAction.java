@@ -18,6 +18,7 @@ package tech.aroma.application.service.reactions.actions;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
@@ -26,7 +27,7 @@ import sir.wellington.alchemy.collections.lists.Lists;
 import tech.aroma.thrift.Application;
 import tech.aroma.thrift.Message;
 import tech.aroma.thrift.events.*;
-import tech.aroma.thrift.notification.service.NotificationService;
+import tech.aroma.thrift.exceptions.OperationFailedException;
 import tech.aroma.thrift.notification.service.SendNotificationRequest;
 import tech.sirwellington.alchemy.annotations.access.Internal;
 import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
@@ -36,6 +37,9 @@ import static tech.sirwellington.alchemy.arguments.Arguments.*;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 
 /**
+ * Hands a Notification for the Message to the {@link NotificationDispatcher}, which sends it to the
+ * Notification Service. The Action fails if the dispatcher has too many Notifications waiting to
+ * take it.
  *
  * @author SirWellington
  */
@@ -46,14 +50,14 @@ final class SendNotificationAction implements Action
 
     private final static Logger LOG = LoggerFactory.getLogger(SendNotificationAction.class);
 
-    private final NotificationService.Iface notificationService;
+    private final NotificationDispatcher notificationDispatcher;
 
-    SendNotificationAction(NotificationService.Iface notificationService)
+    SendNotificationAction(NotificationDispatcher notificationDispatcher)
     {
-        checkThat(notificationService)
+        checkThat(notificationDispatcher)
             .is(notNull());
         
-        this.notificationService = notificationService;
+        this.notificationDispatcher = notificationDispatcher;
     }
 
     @Override
@@ -63,7 +67,10 @@ final class SendNotificationAction implements Action
 
         SendNotificationRequest request = createNotificationRequestFor(message);
 
-        tryToSendNotification(request);
+        if (!notificationDispatcher.submit(request))
+        {
+            throw new OperationFailedException("Notification Service is backed up. Dropped Notification for Message: " + message.messageId);
+        }
 
         return Lists.emptyList();
     }
@@ -71,7 +78,7 @@ final class SendNotificationAction implements Action
     private SendNotificationRequest createNotificationRequestFor(Message message)
     {
         ApplicationSentMessage applicationSentMessage = new ApplicationSentMessage()
-            .setMessage(message.messageId)
+            .setMessageId(message.messageId)
             .setMessage(message.body);
 
         EventType eventType = new EventType();
@@ -83,29 +90,30 @@ final class SendNotificationAction implements Action
         Event event = new Event()
             .setApplication(app)
             .setApplicationId(appId)
-            .setTimestamp(Instant.now().toEpochMilli())
-            .setEventId("")
+            .setTimestamp(timestampOf(message))
+            .setEventId(UUID.randomUUID().toString())
             .setEventType(eventType);
 
         return new SendNotificationRequest().setEvent(event);
     }
 
-    private void tryToSendNotification(SendNotificationRequest sendNotificationRequest)
+    /**
+     * The Event happened when the Message arrived, not when its Notification was put together.
+     */
+    private static long timestampOf(Message message)
     {
-        try
+        if (message.timeMessageReceived > 0)
         {
-            notificationService.sendNotification(sendNotificationRequest);
-        }
-        catch (TException ex)
-        {
-            LOG.warn("Failed to send Notification request: {}", sendNotificationRequest, ex);
+            return message.timeMessageReceived;
         }
+
+        return Instant.now().toEpochMilli();
     }
 
     @Override
     public String toString()
     {
-        return "SendNotificationAction{" + "notificationService=" + notificationService + '}';
+        return "SendNotificationAction{" + "notificationDispatcher=" + notificationDispatcher + '}';
     }
 
 }
@@ -48,34 +48,34 @@ import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull
  */
 @Internal
 @StrategyPattern(role = CONCRETE_BEHAVIOR)
-final class SendPushNotificationAction implements Action
+final class SendPushNotificationAction implements ParameterizedAction<String>
 {
     private final static Logger LOG = LoggerFactory.getLogger(SendPushNotificationAction.class);
 
     private final ApnsService apns;
     private final UserPreferencesRepository userPreferencesRepo;
-    private final String userId;
 
     @Inject
-    SendPushNotificationAction(ApnsService apns, UserPreferencesRepository userPreferencesRepo, String userId)
+    SendPushNotificationAction(ApnsService apns, UserPreferencesRepository userPreferencesRepo)
     {
         checkThat(apns, userPreferencesRepo)
             .are(notNull());
         
-        checkThat(userId).is(validUserId());
-        
         this.apns = apns;
         this.userPreferencesRepo = userPreferencesRepo;
-        this.userId = userId;
     }
 
     @Override
-    public List<Action> actOnMessage(Message message) throws TException
+    public List<Action> actOnMessage(String userId, Message message) throws TException
     {
         checkThat(message)
             .throwing(InvalidArgumentException.class)
             .is(validMessage());
         
+        checkThat(userId)
+            .throwing(InvalidArgumentException.class)
+            .is(validUserId());
+        
        userPreferencesRepo.getMobileDevices(userId)
             .stream()
             .filter(MobileDevice::isSetIosDevice)
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.base.Strings;
+import com.google.gson.stream.JsonWriter;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Nullable;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+/**
+ * Renders the body of a Slack Webhook post.
+ * <p>
+ * The body is written field by field into the {@link JsonWriter} of the {@link WebhookClient}, rather than
+ * built up as a tree first; {@link PooledWebhookClient} hands it a Writer over a reused UTF-8 buffer, so a post
+ * has no intermediate document or String.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Immutable
+final class SlackPayloadTemplate
+{
+
+    static final String ICON_URL = "https://raw.githubusercontent.com/RedRoma/Aroma/develop/Graphics/Logo.png";
+    static final String USERNAME = "Aroma";
+
+    static final String COLOR_LOW = "#037AFF";
+    static final String COLOR_MEDIUM = "#F8E71C";
+    static final String COLOR_HIGH = "#FB3E3C";
+
+    private static final String DEVICE_FIELD_TITLE = "From Device";
+
+    private final String channel;
+
+    SlackPayloadTemplate(@Nullable String channel)
+    {
+        this.channel = Strings.emptyToNull(channel);
+    }
+
+    WebhookClient.Payload payloadFor(@NonEmpty List<Message> messages)
+    {
+        return json -> write(messages, json);
+    }
+
+    void write(@NonEmpty List<Message> messages, JsonWriter json) throws IOException
+    {
+        boolean isDigest = messages.size() > 1;
+        Message first = messages.get(0);
+
+        json.beginObject();
+        json.name("icon_url").value(ICON_URL);
+        json.name("username").value(USERNAME);
+        json.name("text").value(isDigest ? digestTextFor(messages) : textFor(first));
+
+        if (channel != null)
+        {
+            json.name("channel").value(channel);
+        }
+
+        json.name("mrkdwn").value(true);
+        json.name("attachments").beginArray();
+
+        for (Message message : messages)
+        {
+            writeAttachment(json, message, isDigest);
+        }
+
+        json.endArray();
+        json.endObject();
+    }
+
+    private static String textFor(Message message)
+    {
+        return new StringBuilder()
+            .append('*').append(message.applicationName).append("* - ")
+            .append(message.title)
+            .toString();
+    }
+
+    /**
+     * A digest is keyed by its channel, so its Messages may come from more than one Application.
+     * Each of them is named, in the order they first appear.
+     */
+    private static String digestTextFor(List<Message> messages)
+    {
+        Set<String> applications = new LinkedHashSet<>();
+
+        for (Message message : messages)
+        {
+            applications.add(message.applicationName);
+        }
+
+        StringBuilder text = new StringBuilder();
+
+        if (applications.size() == 1)
+        {
+            return text.append('*').append(applications.iterator().next()).append("* - ")
+                .append(messages.size()).append(" new messages")
+                .toString();
+        }
+
+        text.append(messages.size()).append(" new messages from ");
+        String separator = "";
+
+        for (String application : applications)
+        {
+            text.append(separator).append('*').append(application).append('*');
+            separator = ", ";
+        }
+
+        return text.toString();
+    }
+
+    private static void writeAttachment(JsonWriter json, Message message, boolean isDigest) throws IOException
+    {
+        json.beginObject();
+
+        if (isDigest)
+        {
+            json.name("pretext").value(new StringBuilder().append('*').append(message.applicationName).append('*').toString());
+        }
+
+        json.name("color").value(colorFor(message));
+        json.name("fields").beginArray();
+        writeField(json, message.title, message.body);
+        writeField(json, DEVICE_FIELD_TITLE, message.hostname);
+        json.endArray();
+
+        json.endObject();
+    }
+
+    private static String colorFor(Message message)
+    {
+        if (message.urgency == null)
+        {
+            return COLOR_LOW;
+        }
+
+        switch (message.urgency)
+        {
+            case HIGH:
+                return COLOR_HIGH;
+            case MEDIUM:
+                return COLOR_MEDIUM;
+            default:
+                return COLOR_LOW;
+        }
+    }
+
+    private static void writeField(JsonWriter json, String title, String value) throws IOException
+    {
+        json.beginObject();
+
+        if (title != null)
+        {
+            json.name("title").value(title);
+        }
+
+        if (value != null)
+        {
+            json.name("value").value(value);
+        }
+
+        json.name("isShort").value(false);
+        json.endObject();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SlackPayloadTemplate{" + "channel=" + channel + '}';
+    }
+
+}
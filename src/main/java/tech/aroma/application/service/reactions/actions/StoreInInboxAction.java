@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 import sir.wellington.alchemy.collections.lists.Lists;
 import tech.aroma.data.InboxRepository;
 import tech.aroma.thrift.*;
+import tech.aroma.thrift.exceptions.InvalidArgumentException;
 import tech.sirwellington.alchemy.annotations.access.Internal;
 import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
 
@@ -32,35 +33,38 @@ import static tech.sirwellington.alchemy.arguments.Arguments.*;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 
 /**
- * This Action actually save a message in a User's Inbox.
+ * This Action actually save a message in a User's Inbox. One instance is shared by all Users.
  *
  * @author SirWellington
  */
 @Internal
 @StrategyPattern(role = CONCRETE_BEHAVIOR)
-final class StoreInInboxAction implements Action
+final class StoreInInboxAction implements ParameterizedAction<User>
 {
 
     private final static Logger LOG = LoggerFactory.getLogger(StoreInInboxAction.class);
     private final static LengthOfTime DEFAULT_DURATION = new LengthOfTime(TimeUnit.DAYS, 7);
 
     private final InboxRepository inboxRepo;
-    private final User user;
 
-    StoreInInboxAction(InboxRepository inboxRepo, User user)
+    StoreInInboxAction(InboxRepository inboxRepo)
     {
-        checkThat(inboxRepo, user)
-            .are(notNull());
+        checkThat(inboxRepo)
+            .is(notNull());
 
         this.inboxRepo = inboxRepo;
-        this.user = user;
     }
 
     @Override
-    public List<Action> actOnMessage(Message message) throws TException
+    public List<Action> actOnMessage(User user, Message message) throws TException
     {
         Action.checkMessage(message);
 
+        checkThat(user)
+            .throwing(InvalidArgumentException.class)
+            .usingMessage("missing user")
+            .is(notNull());
+
         inboxRepo.saveMessageForUser(user, message, DEFAULT_DURATION);
         LOG.debug("Saved Message {}/{} in Inbox of User {}", message.applicationId, message.messageId, user);
 
@@ -70,7 +74,7 @@ final class StoreInInboxAction implements Action
     @Override
     public String toString()
     {
-        return "StoreInInboxAction{" + "inboxRepo=" + inboxRepo + ", user=" + user + '}';
+        return "StoreInInboxAction{" + "inboxRepo=" + inboxRepo + '}';
     }
 
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadUnsafe;
+
+/**
+ * A classic token bucket: it holds up to {@code capacity} permits, and refills continuously at a fixed rate.
+ * Callers must synchronize access to it themselves. It paces the Webhook posts to each URL, and the Messages
+ * of each Application.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadUnsafe
+public final class TokenBucket
+{
+
+    private final double permitsPerSecond;
+    private final double capacity;
+
+    private double permits;
+    private long lastRefillMillis;
+
+    public TokenBucket(double permitsPerSecond, int capacity, long nowMillis)
+    {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.permits = capacity;
+        this.lastRefillMillis = nowMillis;
+    }
+
+    /**
+     * Attempts to take a single permit.
+     *
+     * @param nowMillis The current time, in milliseconds.
+     *
+     * @return 0 if a permit was taken, otherwise the number of milliseconds until the next permit is available.
+     */
+    public long tryAcquire(long nowMillis)
+    {
+        refill(nowMillis);
+
+        if (permits >= 1.0)
+        {
+            permits -= 1.0;
+            return 0L;
+        }
+
+        double missing = 1.0 - permits;
+        return Math.max(1L, (long) Math.ceil(missing * 1_000.0 / permitsPerSecond));
+    }
+
+    /**
+     * Takes as many of the requested permits as are available.
+     *
+     * @param requested How many permits to take.
+     * @param nowMillis The current time, in milliseconds.
+     *
+     * @return The number of permits taken, between 0 and {@code requested}.
+     */
+    public int take(int requested, long nowMillis)
+    {
+        refill(nowMillis);
+
+        int taken = (int) Math.min(requested, Math.floor(permits));
+        permits -= taken;
+        return taken;
+    }
+
+    /**
+     * @return True if the bucket has refilled completely, making it no different from a new one.
+     */
+    public boolean isFull(long nowMillis)
+    {
+        refill(nowMillis);
+        return permits >= capacity;
+    }
+
+    private void refill(long nowMillis)
+    {
+        long elapsed = nowMillis - lastRefillMillis;
+
+        if (elapsed <= 0)
+        {
+            return;
+        }
+
+        permits = Math.min(capacity, permits + elapsed * permitsPerSecond / 1_000.0);
+        lastRefillMillis = nowMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TokenBucket{" + "permitsPerSecond=" + permitsPerSecond + ", capacity=" + capacity + ", permits=" + permits + '}';
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.IOException;
+import java.net.URL;
+
+import com.google.gson.stream.JsonWriter;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern;
+import tech.sirwellington.alchemy.http.HttpResponse;
+import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
+
+import static tech.sirwellington.alchemy.annotations.designs.patterns.StrategyPattern.Role.INTERFACE;
+
+/**
+ * Sends the posts that forward Messages to outside Webhooks, such as Slack and Gitter.
+ * <p>
+ * Keeping this behind an interface lets the HTTP engine be swapped without touching the
+ * {@linkplain Action Actions}.
+ *
+ * @author SirWellington
+ * @see PooledWebhookClient
+ */
+@StrategyPattern(role = INTERFACE)
+public interface WebhookClient
+{
+
+    /**
+     * Posts the JSON body to the URL and waits for the response.
+     *
+     * @param url  The Webhook to post to.
+     * @param body Writes the JSON payload. It may be written more than once if the post is retried.
+     *
+     * @return The response, when the Webhook accepted the post.
+     *
+     * @throws AlchemyHttpException If the post could not be made, or the Webhook responded with an error.
+     *                              The exception carries the response when there was one.
+     */
+    HttpResponse post(@Required URL url, @Required Payload body) throws AlchemyHttpException;
+
+    /**
+     * Writes the JSON body of a post straight into the request, with no intermediate tree of the document.
+     */
+    @FunctionalInterface
+    interface Payload
+    {
+
+        void writeTo(JsonWriter json) throws IOException;
+    }
+
+}
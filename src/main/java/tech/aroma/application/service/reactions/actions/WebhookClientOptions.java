@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Tunes the connection pools a {@link PooledWebhookClient} keeps to each Webhook host.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class WebhookClientOptions extends Options
+{
+
+    /**
+     * Posts to a single URL go out one at a time, so a handful of connections per host
+     * covers the channels that share it.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 64;
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 5_000L;
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 15_000L;
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 60_000L;
+
+    private static final WebhookClientOptions DEFAULTS = new WebhookClientOptions(DEFAULT_MAX_CONNECTIONS_PER_HOST,
+                                                                                  DEFAULT_MAX_CONNECTIONS_TOTAL,
+                                                                                  DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                                                                                  DEFAULT_READ_TIMEOUT_MILLIS,
+                                                                                  DEFAULT_KEEP_ALIVE_MILLIS);
+
+    private final int maxConnectionsPerHost;
+    private final int maxConnectionsTotal;
+    private final long connectTimeoutMillis;
+    private final long readTimeoutMillis;
+    private final long keepAliveMillis;
+
+    private WebhookClientOptions(int maxConnectionsPerHost,
+                                 int maxConnectionsTotal,
+                                 long connectTimeoutMillis,
+                                 long readTimeoutMillis,
+                                 long keepAliveMillis)
+    {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    public static WebhookClientOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param maxConnectionsPerHost The most connections kept open to a single Webhook host.
+     * @param maxConnectionsTotal   The most connections kept open across all hosts.
+     * @param connectTimeoutMillis  How long to wait for a new connection to be established.
+     * @param readTimeoutMillis     How long to wait for the Webhook to respond once the post is sent.
+     * @param keepAliveMillis       How long an idle connection is kept for reuse, unless the host asks for less.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If any of the options are not positive, or the total is less than the per-host limit.
+     */
+    public static WebhookClientOptions of(int maxConnectionsPerHost,
+                                          int maxConnectionsTotal,
+                                          long connectTimeoutMillis,
+                                          long readTimeoutMillis,
+                                          long keepAliveMillis) throws IllegalArgumentException
+    {
+        checkThat(maxConnectionsPerHost)
+            .usingMessage("connection limits must be at least 1")
+            .is(greaterThanOrEqualTo(1));
+
+        checkThat(maxConnectionsTotal)
+            .usingMessage("total connections must be at least the connections per host")
+            .is(greaterThanOrEqualTo(maxConnectionsPerHost));
+
+        checkThat(connectTimeoutMillis, readTimeoutMillis, keepAliveMillis)
+            .usingMessage("durations must be positive")
+            .are(positiveLong());
+
+        checkThat(connectTimeoutMillis, readTimeoutMillis)
+            .usingMessage("timeouts must fit in an int")
+            .are(lessThanOrEqualTo((long) Integer.MAX_VALUE));
+
+        return new WebhookClientOptions(maxConnectionsPerHost,
+                                        maxConnectionsTotal,
+                                        connectTimeoutMillis,
+                                        readTimeoutMillis,
+                                        keepAliveMillis);
+    }
+
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+
+    public int getMaxConnectionsTotal()
+    {
+        return maxConnectionsTotal;
+    }
+
+    public long getConnectTimeoutMillis()
+    {
+        return connectTimeoutMillis;
+    }
+
+    public long getReadTimeoutMillis()
+    {
+        return readTimeoutMillis;
+    }
+
+    public long getKeepAliveMillis()
+    {
+        return keepAliveMillis;
+    }
+
+}
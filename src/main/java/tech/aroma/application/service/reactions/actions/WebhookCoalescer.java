@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.*;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.NonEmpty;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Combines Messages headed to the same Webhook destination into a single digest, according to the
+ * {@link WebhookDigestOptions}. When digests are disabled, every Message is flushed right away on the
+ * calling Thread.
+ * <p>
+ * {@linkplain #close() Close} it when shutting down, so that the Messages waiting out a digest window are
+ * sent rather than lost.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+public final class WebhookCoalescer implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(WebhookCoalescer.class);
+
+    private final WebhookDigestOptions options;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, Digest> digests = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    @Inject
+    WebhookCoalescer(WebhookDigestOptions options, ScheduledExecutorService scheduler)
+    {
+        checkThat(options, scheduler)
+            .are(notNull());
+
+        this.options = options;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Adds a Message to the digest for the destination, which will eventually be handed to the {@link Flusher}.
+     *
+     * @param destination Identifies the Webhook, and everything the Flusher renders a digest with, such as the
+     *                    channel or the template. Messages are only combined with others sent to the same
+     *                    destination.
+     * @param message     The Message to forward.
+     * @param flusher     Sends a complete digest. If a digest is already open for the destination, the Flusher
+     *                    it was opened with is used.
+     */
+    void submit(@NonEmpty String destination, @Required Message message, @Required Flusher flusher)
+    {
+        checkThat(destination)
+            .usingMessage("destination cannot be empty")
+            .is(nonEmptyString());
+
+        checkThat(message, flusher)
+            .are(notNull());
+
+        if (!options.isEnabled() || closed)
+        {
+            tryToFlush(destination, flusher, Lists.createFrom(message));
+            return;
+        }
+
+        while (true)
+        {
+            Digest digest = digests.computeIfAbsent(destination, key -> new Digest(key, flusher));
+            List<Message> fullDigest;
+
+            synchronized (digest)
+            {
+                if (digest.closed)
+                {
+                    //It was flushed before we got to it.
+                    continue;
+                }
+
+                digest.messages.add(message);
+                boolean scheduled = digest.messages.size() > 1 || scheduleFlushOf(digest);
+
+                if (scheduled && digest.messages.size() < options.getMaxMessages())
+                {
+                    return;
+                }
+
+                //Either the digest is full, or the scheduler is shutting down and there is no window to wait out.
+                fullDigest = closeDigest(digest);
+            }
+
+            tryToFlush(digest.destination, digest.flusher, fullDigest);
+            return;
+        }
+    }
+
+    /**
+     * Flushes every open digest right away, on the calling Thread. Messages submitted after this are flushed
+     * as they arrive.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+
+        LOG.info("Flushing {} open Webhook digests", digests.size());
+        digests.values().forEach(this::flushIfOpen);
+    }
+
+    int getNumberOfOpenDigests()
+    {
+        return digests.size();
+    }
+
+    private boolean scheduleFlushOf(Digest digest)
+    {
+        try
+        {
+            digest.scheduledFlush = scheduler.schedule(() -> flushIfOpen(digest),
+                                                       options.getWindowMillis(),
+                                                       TimeUnit.MILLISECONDS);
+            return true;
+        }
+        catch (RejectedExecutionException ex)
+        {
+            return false;
+        }
+    }
+
+    private void flushIfOpen(Digest digest)
+    {
+        List<Message> messages;
+
+        synchronized (digest)
+        {
+            if (digest.closed)
+            {
+                return;
+            }
+
+            messages = closeDigest(digest);
+        }
+
+        tryToFlush(digest.destination, digest.flusher, messages);
+    }
+
+    private List<Message> closeDigest(Digest digest)
+    {
+        digest.closed = true;
+        digests.remove(digest.destination, digest);
+
+        if (digest.scheduledFlush != null)
+        {
+            digest.scheduledFlush.cancel(false);
+        }
+
+        return digest.messages;
+    }
+
+    private void tryToFlush(String destination, Flusher flusher, List<Message> messages)
+    {
+        LOG.debug("Flushing digest of {} messages to {}", messages.size(), destination);
+
+        try
+        {
+            flusher.flush(messages);
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.error("Failed to flush digest of {} messages to {}", messages.size(), destination, ex);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WebhookCoalescer{" + "options=" + options + ", openDigests=" + digests.size() + '}';
+    }
+
+    /**
+     * Sends a digest of one or more Messages to a Webhook.
+     */
+    @FunctionalInterface
+    interface Flusher
+    {
+
+        void flush(List<Message> messages);
+    }
+
+    private static final class Digest
+    {
+
+        private final String destination;
+        private final Flusher flusher;
+        private final List<Message> messages = Lists.create();
+        private ScheduledFuture<?> scheduledFlush;
+        private boolean closed = false;
+
+        private Digest(String destination, Flusher flusher)
+        {
+            this.destination = destination;
+            this.flusher = flusher;
+        }
+
+    }
+
+}
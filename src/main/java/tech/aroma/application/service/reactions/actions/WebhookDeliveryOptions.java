@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThan;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls how fast Messages are posted to a single Webhook URL, how long a failed post
+ * keeps being retried before it is dropped, how many posts are in flight at once, and how
+ * long an idle URL is remembered.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class WebhookDeliveryOptions extends Options
+{
+
+    /**
+     * Slack asks that incoming Webhooks receive no more than about one Message per second.
+     */
+    public static final double DEFAULT_PERMITS_PER_SECOND = 1.0;
+    public static final int DEFAULT_BURST = 5;
+    public static final int DEFAULT_MAX_PENDING_PER_DESTINATION = 1_000;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 500L;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 30_000L;
+    public static final long DEFAULT_DEADLINE_MILLIS = 5 * 60_000L;
+    public static final int DEFAULT_DELIVERY_THREADS = 16;
+    public static final long DEFAULT_IDLE_DESTINATION_MILLIS = 15 * 60_000L;
+
+    private static final WebhookDeliveryOptions DEFAULTS = new WebhookDeliveryOptions(DEFAULT_PERMITS_PER_SECOND,
+                                                                                      DEFAULT_BURST,
+                                                                                      DEFAULT_MAX_PENDING_PER_DESTINATION,
+                                                                                      DEFAULT_INITIAL_BACKOFF_MILLIS,
+                                                                                      DEFAULT_MAX_BACKOFF_MILLIS,
+                                                                                      DEFAULT_DEADLINE_MILLIS,
+                                                                                      DEFAULT_DELIVERY_THREADS,
+                                                                                      DEFAULT_IDLE_DESTINATION_MILLIS);
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxPendingPerDestination;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long deadlineMillis;
+    private final int deliveryThreads;
+    private final long idleDestinationMillis;
+
+    private WebhookDeliveryOptions(double permitsPerSecond,
+                                   int burst,
+                                   int maxPendingPerDestination,
+                                   long initialBackoffMillis,
+                                   long maxBackoffMillis,
+                                   long deadlineMillis,
+                                   int deliveryThreads,
+                                   long idleDestinationMillis)
+    {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxPendingPerDestination = maxPendingPerDestination;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.deadlineMillis = deadlineMillis;
+        this.deliveryThreads = deliveryThreads;
+        this.idleDestinationMillis = idleDestinationMillis;
+    }
+
+    public static WebhookDeliveryOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param permitsPerSecond         The sustained rate of posts allowed to a single Webhook URL.
+     * @param burst                    How many posts may go out back-to-back after the Webhook has been idle.
+     * @param maxPendingPerDestination Posts beyond this many waiting for the same URL are dropped.
+     * @param initialBackoffMillis     The delay before the first retry. Each retry after that doubles it.
+     * @param maxBackoffMillis         The longest delay between two retries.
+     * @param deadlineMillis           How long after it was queued a post may still be retried.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If any of the options are not positive, or the backoffs are out of order.
+     */
+    public static WebhookDeliveryOptions of(double permitsPerSecond,
+                                            int burst,
+                                            int maxPendingPerDestination,
+                                            long initialBackoffMillis,
+                                            long maxBackoffMillis,
+                                            long deadlineMillis) throws IllegalArgumentException
+    {
+        checkThat(permitsPerSecond)
+            .usingMessage("permits per second must be positive")
+            .is(greaterThan(0.0));
+
+        checkThat(burst, maxPendingPerDestination)
+            .usingMessage("limits must be at least 1")
+            .are(greaterThanOrEqualTo(1));
+
+        checkThat(initialBackoffMillis, maxBackoffMillis, deadlineMillis)
+            .usingMessage("durations must be positive")
+            .are(positiveLong());
+
+        checkThat(maxBackoffMillis)
+            .usingMessage("max backoff must be at least the initial backoff")
+            .is(greaterThanOrEqualTo(initialBackoffMillis));
+
+        return new WebhookDeliveryOptions(permitsPerSecond,
+                                          burst,
+                                          maxPendingPerDestination,
+                                          initialBackoffMillis,
+                                          maxBackoffMillis,
+                                          deadlineMillis,
+                                          DEFAULT_DELIVERY_THREADS,
+                                          DEFAULT_IDLE_DESTINATION_MILLIS);
+    }
+
+    /**
+     * Creates a copy of these options that posts on a different number of Threads.
+     *
+     * @param deliveryThreads The most posts in flight at once, across every Webhook URL.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If it is less than 1.
+     */
+    public WebhookDeliveryOptions withDeliveryThreads(int deliveryThreads) throws IllegalArgumentException
+    {
+        checkThat(deliveryThreads)
+            .usingMessage("delivery threads must be at least 1")
+            .is(greaterThanOrEqualTo(1));
+
+        return new WebhookDeliveryOptions(permitsPerSecond,
+                                          burst,
+                                          maxPendingPerDestination,
+                                          initialBackoffMillis,
+                                          maxBackoffMillis,
+                                          deadlineMillis,
+                                          deliveryThreads,
+                                          idleDestinationMillis);
+    }
+
+    /**
+     * Creates a copy of these options that forgets idle Webhook URLs after a different time.
+     *
+     * @param idleDestinationMillis How long a URL with nothing waiting for it is remembered, along with its
+     *                              rate limit and circuit, after its last post.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException If it is not positive.
+     */
+    public WebhookDeliveryOptions withIdleDestinationMillis(long idleDestinationMillis) throws IllegalArgumentException
+    {
+        checkThat(idleDestinationMillis)
+            .usingMessage("idle time must be positive")
+            .is(positiveLong());
+
+        return new WebhookDeliveryOptions(permitsPerSecond,
+                                          burst,
+                                          maxPendingPerDestination,
+                                          initialBackoffMillis,
+                                          maxBackoffMillis,
+                                          deadlineMillis,
+                                          deliveryThreads,
+                                          idleDestinationMillis);
+    }
+
+    public double getPermitsPerSecond()
+    {
+        return permitsPerSecond;
+    }
+
+    public int getBurst()
+    {
+        return burst;
+    }
+
+    public int getMaxPendingPerDestination()
+    {
+        return maxPendingPerDestination;
+    }
+
+    public long getInitialBackoffMillis()
+    {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis()
+    {
+        return maxBackoffMillis;
+    }
+
+    public long getDeadlineMillis()
+    {
+        return deadlineMillis;
+    }
+
+    public int getDeliveryThreads()
+    {
+        return deliveryThreads;
+    }
+
+    public long getIdleDestinationMillis()
+    {
+        return idleDestinationMillis;
+    }
+
+}
@@ -0,0 +1,636 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.Closeable;
+import java.net.URL;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+import tech.sirwellington.alchemy.http.HttpResponse;
+import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Posts to Webhooks through one queue per URL.
+ * <p>
+ * Each URL gets its own {@link TokenBucket}, and only one post to a given URL is in flight at a time.
+ * Posts rejected with {@code 429 Too Many Requests} wait for the {@code Retry-After} the Webhook asks for;
+ * server errors and connection failures are retried with jittered exponential backoff, until the
+ * deadline in the {@link WebhookDeliveryOptions} runs out. Posts still waiting when their deadline passes
+ * are dropped instead of sent.
+ * <p>
+ * Every URL also has a {@link CircuitBreaker}. While it is open, new posts to that URL are dropped
+ * right away instead of tying up a connection, and the posts already queued wait for a trial post
+ * to succeed.
+ * <p>
+ * Posts go out on the queue's own {@linkplain WebhookDeliveryOptions#getDeliveryThreads() bounded set of Threads},
+ * so slow Webhooks never hold up the Threads that accept Messages. URLs that have been idle for
+ * {@linkplain WebhookDeliveryOptions#getIdleDestinationMillis() long enough} are forgotten, along with their
+ * rate limit and circuit.
+ * <p>
+ * {@linkplain #close() Close} it when shutting down, to give the posts already being sent a chance to finish.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Singleton
+@ThreadSafe
+public final class WebhookDeliveryQueue implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(WebhookDeliveryQueue.class);
+
+    static final String METRIC_DELIVERED = MetricRegistry.name(WebhookDeliveryQueue.class, "delivered");
+    static final String METRIC_RETRIED = MetricRegistry.name(WebhookDeliveryQueue.class, "retried");
+    static final String METRIC_DROPPED = MetricRegistry.name(WebhookDeliveryQueue.class, "dropped");
+    static final String METRIC_SHORT_CIRCUITED = MetricRegistry.name(WebhookDeliveryQueue.class, "short-circuited");
+    static final String METRIC_CIRCUITS_OPENED = MetricRegistry.name(WebhookDeliveryQueue.class, "circuits", "opened");
+    static final String METRIC_CIRCUITS_HALF_OPENED = MetricRegistry.name(WebhookDeliveryQueue.class, "circuits", "half-opened");
+    static final String METRIC_CIRCUITS_CLOSED = MetricRegistry.name(WebhookDeliveryQueue.class, "circuits", "closed");
+    static final String METRIC_DESTINATIONS_EVICTED = MetricRegistry.name(WebhookDeliveryQueue.class, "destinations", "evicted");
+
+    /**
+     * How long {@link #close()} waits for the posts already being sent.
+     */
+    static final long SHUTDOWN_WAIT_MILLIS = 5_000L;
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int NOT_FOUND = 404;
+    private static final int GONE = 410;
+    private static final int SERVER_ERROR = 500;
+
+    private final WebhookDeliveryOptions options;
+    private final CircuitBreakerOptions circuitBreakerOptions;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, Destination> destinations = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter dropped;
+    private final Counter shortCircuited;
+    private final Counter circuitsOpened;
+    private final Counter circuitsHalfOpened;
+    private final Counter circuitsClosed;
+    private final Counter destinationsEvicted;
+
+    @Inject
+    WebhookDeliveryQueue(WebhookDeliveryOptions options,
+                         CircuitBreakerOptions circuitBreakerOptions,
+                         ScheduledExecutorService scheduler,
+                         MetricRegistry metrics)
+    {
+        this(options, circuitBreakerOptions, newDeliveryExecutor(options), scheduler, metrics);
+    }
+
+    WebhookDeliveryQueue(WebhookDeliveryOptions options,
+                         CircuitBreakerOptions circuitBreakerOptions,
+                         ExecutorService executor,
+                         ScheduledExecutorService scheduler,
+                         MetricRegistry metrics)
+    {
+        checkThat(options, circuitBreakerOptions, executor, scheduler, metrics)
+            .are(notNull());
+
+        this.options = options;
+        this.circuitBreakerOptions = circuitBreakerOptions;
+        this.executor = executor;
+        this.scheduler = scheduler;
+
+        this.delivered = metrics.counter(METRIC_DELIVERED);
+        this.retried = metrics.counter(METRIC_RETRIED);
+        this.dropped = metrics.counter(METRIC_DROPPED);
+        this.shortCircuited = metrics.counter(METRIC_SHORT_CIRCUITED);
+        this.circuitsOpened = metrics.counter(METRIC_CIRCUITS_OPENED);
+        this.circuitsHalfOpened = metrics.counter(METRIC_CIRCUITS_HALF_OPENED);
+        this.circuitsClosed = metrics.counter(METRIC_CIRCUITS_CLOSED);
+        this.destinationsEvicted = metrics.counter(METRIC_DESTINATIONS_EVICTED);
+        this.nextSweepAt.set(System.currentTimeMillis() + options.getIdleDestinationMillis());
+    }
+
+    /**
+     * Only one post per URL is in flight at a time, so the queue never holds more posts than there are URLs.
+     */
+    private static ExecutorService newDeliveryExecutor(WebhookDeliveryOptions options)
+    {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threads = runnable ->
+        {
+            Thread thread = new Thread(runnable, "webhook-delivery-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(options.getDeliveryThreads(),
+                                                             options.getDeliveryThreads(),
+                                                             60L, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(),
+                                                             threads);
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     * Queues a post to the Webhook at the given URL. The {@link Delivery} may be called more than once
+     * if earlier attempts fail.
+     */
+    void enqueue(@Required URL url, @Required Delivery delivery)
+    {
+        checkThat(url, delivery)
+            .are(notNull());
+
+        long now = System.currentTimeMillis();
+        evictIdleDestinations(now);
+
+        Destination destination;
+
+        while (true)
+        {
+            destination = destinations.computeIfAbsent(url.toString(), key -> new Destination(key, now));
+
+            if (destination.circuit.millisUntilTrial(now) > 0)
+            {
+                LOG.debug("Circuit for {} is open. Dropping post.", url);
+                shortCircuited.inc();
+                dropped.inc();
+                return;
+            }
+
+            synchronized (destination)
+            {
+                if (destination.evicted)
+                {
+                    //It was forgotten just before we got to it.
+                    continue;
+                }
+
+                if (destination.pending.size() >= options.getMaxPendingPerDestination())
+                {
+                    LOG.warn("Dropping post to {} because {} posts are already waiting for it", url, destination.pending.size());
+                    dropped.inc();
+                    return;
+                }
+
+                destination.pending.addLast(new Attempt(delivery, now + options.getDeadlineMillis()));
+                destination.lastActiveAt = now;
+            }
+
+            break;
+        }
+
+        drain(destination);
+    }
+
+    /**
+     * Stops sending posts. The posts already handed to the delivery Threads get up to {@value #SHUTDOWN_WAIT_MILLIS}ms
+     * to finish; the rest, including those waiting out a rate limit or a backoff, are dropped.
+     */
+    @Override
+    public void close()
+    {
+        executor.shutdown();
+
+        try
+        {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS))
+            {
+                LOG.warn("Posts to Webhooks were still being sent after {}ms", SHUTDOWN_WAIT_MILLIS);
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            LOG.warn("Interrupted while waiting on posts to Webhooks", ex);
+            Thread.currentThread().interrupt();
+        }
+
+        int pending = getNumberOfPendingDeliveries();
+
+        if (pending > 0)
+        {
+            LOG.warn("Shut down with {} posts to Webhooks still waiting", pending);
+        }
+    }
+
+    /**
+     * @return The state of the circuit for the URL. URLs that have never been posted to are {@linkplain CircuitBreaker.State#CLOSED closed}.
+     */
+    CircuitBreaker.State getCircuitStateOf(@Required URL url)
+    {
+        checkThat(url).is(notNull());
+
+        Destination destination = destinations.get(url.toString());
+        return destination != null ? destination.circuit.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    int getNumberOfDestinations()
+    {
+        return destinations.size();
+    }
+
+    int getNumberOfPendingDeliveries()
+    {
+        return destinations.values()
+            .stream()
+            .mapToInt(Destination::getNumberPending)
+            .sum();
+    }
+
+    private void drain(Destination destination)
+    {
+        Attempt attempt;
+
+        synchronized (destination)
+        {
+            if (destination.busy)
+            {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            Attempt next = destination.pending.peekFirst();
+
+            while (next != null && hasExpired(destination, next, now))
+            {
+                destination.pending.pollFirst();
+                next = destination.pending.peekFirst();
+            }
+
+            if (next == null)
+            {
+                return;
+            }
+
+            attempt = next;
+
+            long wait = Math.max(attempt.notBefore, destination.pausedUntil) - now;
+            wait = Math.max(wait, destination.circuit.millisUntilTrial(now));
+
+            if (wait <= 0 && destination.circuit.allowRequest(now))
+            {
+                wait = destination.bucket.tryAcquire(now);
+            }
+
+            destination.busy = true;
+
+            if (wait > 0)
+            {
+                scheduler.schedule(() -> resume(destination), wait, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            destination.pending.pollFirst();
+        }
+
+        try
+        {
+            executor.submit(() -> tryToDeliver(destination, attempt));
+        }
+        catch (RejectedExecutionException ex)
+        {
+            LOG.error("Failed to submit post to {}", destination.url, ex);
+            dropped.inc();
+            resume(destination);
+        }
+    }
+
+    private void resume(Destination destination)
+    {
+        synchronized (destination)
+        {
+            destination.busy = false;
+            destination.lastActiveAt = System.currentTimeMillis();
+        }
+
+        drain(destination);
+    }
+
+    /**
+     * Forgets the URLs that have had nothing to post for the idle time. This runs at most once per idle time,
+     * on whichever Thread enqueues first after it is due.
+     */
+    private void evictIdleDestinations(long now)
+    {
+        long sweepAt = nextSweepAt.get();
+
+        if (now < sweepAt || !nextSweepAt.compareAndSet(sweepAt, now + options.getIdleDestinationMillis()))
+        {
+            return;
+        }
+
+        long idleSince = now - options.getIdleDestinationMillis();
+        int evicted = 0;
+
+        for (Map.Entry<String, Destination> entry : destinations.entrySet())
+        {
+            Destination destination = entry.getValue();
+
+            if (destination.evictIfIdleSince(idleSince) && destinations.remove(entry.getKey(), destination))
+            {
+                ++evicted;
+            }
+        }
+
+        if (evicted > 0)
+        {
+            LOG.debug("Forgot {} idle Webhook URLs", evicted);
+            destinationsEvicted.inc(evicted);
+        }
+    }
+
+    private void tryToDeliver(Destination destination, Attempt attempt)
+    {
+        try
+        {
+            if (hasExpired(destination, attempt, System.currentTimeMillis()))
+            {
+                return;
+            }
+
+            HttpResponse response = attempt.delivery.send();
+            LOG.debug("Successfully posted to {} | {}", destination.url, response);
+            destination.circuit.onSuccess();
+            delivered.inc();
+        }
+        catch (AlchemyHttpException ex)
+        {
+            onFailure(destination, attempt, ex);
+        }
+        catch (RuntimeException ex)
+        {
+            LOG.error("Failed to post to {}", destination.url, ex);
+            destination.circuit.onFailure(System.currentTimeMillis());
+            dropped.inc();
+        }
+        finally
+        {
+            resume(destination);
+        }
+    }
+
+    /**
+     * Posts that waited out their deadline in the queue, behind a rate limit or an open circuit, are dropped
+     * rather than sent late.
+     */
+    private boolean hasExpired(Destination destination, Attempt attempt, long nowMillis)
+    {
+        if (nowMillis <= attempt.deadline)
+        {
+            return false;
+        }
+
+        LOG.warn("Dropping post to {} because its deadline passed while it waited", destination.url);
+        dropped.inc();
+        return true;
+    }
+
+        private void onFailure(Destination destination, Attempt attempt, AlchemyHttpException ex)
+    {
+        int statusCode = ex.hasResponse() ? ex.getResponse().statusCode() : 0;
+        long now = System.currentTimeMillis();
+        long delay;
+
+        if (isEndpointFailure(statusCode))
+        {
+            destination.circuit.onFailure(now);
+        }
+        else
+        {
+            //The Webhook answered, so it is alive.
+            destination.circuit.onSuccess();
+        }
+
+        if (statusCode == TOO_MANY_REQUESTS)
+        {
+            delay = retryAfterMillisOf(ex.getResponse(), now).orElseGet(() -> backoffFor(attempt.number));
+
+            synchronized (destination)
+            {
+                destination.pausedUntil = Math.max(destination.pausedUntil, now + delay);
+            }
+        }
+        else if (statusCode == 0 || statusCode >= SERVER_ERROR)
+        {
+            delay = backoffFor(attempt.number);
+        }
+        else
+        {
+            LOG.error("Post to {} was rejected with status {}. Dropping it.", destination.url, statusCode, ex);
+            dropped.inc();
+            return;
+        }
+
+        if (now + delay > attempt.deadline)
+        {
+            LOG.error("Giving up on post to {} after {} attempts", destination.url, attempt.number, ex);
+            dropped.inc();
+            return;
+        }
+
+        LOG.warn("Post to {} failed with status {}. Retrying in {}ms", destination.url, statusCode, delay);
+
+        attempt.number += 1;
+        attempt.notBefore = now + delay;
+
+        synchronized (destination)
+        {
+            destination.pending.addFirst(attempt);
+        }
+
+        retried.inc();
+    }
+
+    /**
+     * Connection failures and server errors count against the circuit, as do the responses Slack gives
+     * for Webhooks that have been removed.
+     */
+    private static boolean isEndpointFailure(int statusCode)
+    {
+        return statusCode == 0 || statusCode >= SERVER_ERROR || statusCode == NOT_FOUND || statusCode == GONE;
+    }
+
+    private void onCircuitTransition(String url, CircuitBreaker.State from, CircuitBreaker.State to)
+    {
+        switch (to)
+        {
+            case OPEN:
+                LOG.warn("Circuit for {} is now open, after being {}", url, from);
+                circuitsOpened.inc();
+                break;
+            case HALF_OPEN:
+                LOG.info("Circuit for {} is now half-open. Sending a trial post.", url);
+                circuitsHalfOpened.inc();
+                break;
+            default:
+                LOG.info("Circuit for {} is closed again", url);
+                circuitsClosed.inc();
+                break;
+        }
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half of the delay is fixed, and the other half is random.
+     */
+    private long backoffFor(int attemptNumber)
+    {
+        int shift = Math.min(attemptNumber - 1, 20);
+        long backoff = Math.min(options.getMaxBackoffMillis(), options.getInitialBackoffMillis() << shift);
+        long half = backoff / 2;
+
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    /**
+     * Reads the {@code Retry-After} header, which is either a number of seconds or an HTTP date.
+     */
+    static Optional<Long> retryAfterMillisOf(HttpResponse response, long nowMillis)
+    {
+        Map<String, String> headers = response.responseHeaders();
+
+        if (headers == null)
+        {
+            return Optional.empty();
+        }
+
+        String retryAfter = headers.entrySet()
+            .stream()
+            .filter(header -> "Retry-After".equalsIgnoreCase(header.getKey()))
+            .map(Map.Entry::getValue)
+            .filter(Objects::nonNull)
+            .map(String::trim)
+            .findFirst()
+            .orElse(null);
+
+        if (retryAfter == null || retryAfter.isEmpty())
+        {
+            return Optional.empty();
+        }
+
+        try
+        {
+            long seconds = Long.parseLong(retryAfter);
+            return Optional.of(Math.max(0L, TimeUnit.SECONDS.toMillis(seconds)));
+        }
+        catch (NumberFormatException ex)
+        {
+            //Not a number of seconds. Try it as a date.
+        }
+
+        try
+        {
+            Instant retryAt = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Optional.of(Math.max(0L, retryAt.toEpochMilli() - nowMillis));
+        }
+        catch (DateTimeParseException ex)
+        {
+            LOG.warn("Ignoring unreadable Retry-After header: {}", retryAfter);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WebhookDeliveryQueue{" + "options=" + options + ", circuitBreakerOptions=" + circuitBreakerOptions + ", destinations=" + destinations.size() + '}';
+    }
+
+    /**
+     * Makes a single, synchronous attempt to post to a Webhook.
+     */
+    @FunctionalInterface
+    interface Delivery
+    {
+
+        HttpResponse send() throws AlchemyHttpException;
+    }
+
+    private final class Destination
+    {
+
+        private final String url;
+        private final TokenBucket bucket;
+        private final CircuitBreaker circuit;
+        private final Deque<Attempt> pending = new ArrayDeque<>();
+        private boolean busy = false;
+        private boolean evicted = false;
+        private long pausedUntil = 0L;
+        private long lastActiveAt;
+
+        private Destination(String url, long nowMillis)
+        {
+            this.url = url;
+            this.bucket = new TokenBucket(options.getPermitsPerSecond(), options.getBurst(), nowMillis);
+            this.circuit = new CircuitBreaker(url, circuitBreakerOptions, WebhookDeliveryQueue.this::onCircuitTransition);
+            this.lastActiveAt = nowMillis;
+        }
+
+        private synchronized int getNumberPending()
+        {
+            return pending.size();
+        }
+
+        /**
+         * Once evicted, a Destination takes no more posts.
+         */
+        private synchronized boolean evictIfIdleSince(long idleSince)
+        {
+            if (!busy && pending.isEmpty() && lastActiveAt <= idleSince)
+            {
+                evicted = true;
+            }
+
+            return evicted;
+        }
+
+    }
+
+    private static final class Attempt
+    {
+
+        private final Delivery delivery;
+        private final long deadline;
+        private int number = 1;
+        private long notBefore = 0L;
+
+        private Attempt(Delivery delivery, long deadline)
+        {
+            this.delivery = delivery;
+            this.deadline = deadline;
+        }
+
+    }
+
+}
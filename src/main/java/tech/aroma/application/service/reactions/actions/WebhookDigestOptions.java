@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import tech.aroma.application.service.Options;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls whether Messages forwarded to the same Webhook are combined into a single digest,
+ * and how long and how large a digest may grow before it is sent.
+ *
+ * @author SirWellington
+ */
+@Immutable
+public final class WebhookDigestOptions extends Options
+{
+
+    public static final long DEFAULT_WINDOW_MILLIS = 2_000L;
+    public static final int DEFAULT_MAX_MESSAGES = 20;
+
+    private static final WebhookDigestOptions DISABLED = new WebhookDigestOptions(false, 0L, 1);
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxMessages;
+
+    private WebhookDigestOptions(boolean enabled, long windowMillis, int maxMessages)
+    {
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxMessages = maxMessages;
+    }
+
+    /**
+     * Every Message is posted on its own, as soon as it arrives.
+     */
+    public static WebhookDigestOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    public static WebhookDigestOptions defaults()
+    {
+        return of(DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_MESSAGES);
+    }
+
+    /**
+     * @param windowMillis How long to wait after the first Message of a digest before sending it.
+     * @param maxMessages  The digest is sent immediately once it reaches this many Messages.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    public static WebhookDigestOptions of(long windowMillis, int maxMessages) throws IllegalArgumentException
+    {
+        checkThat(windowMillis)
+            .usingMessage("digest window must be positive")
+            .is(positiveLong());
+
+        checkThat(maxMessages)
+            .usingMessage("digest must allow at least 1 message")
+            .is(greaterThanOrEqualTo(1));
+
+        return new WebhookDigestOptions(true, windowMillis, maxMessages);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getWindowMillis()
+    {
+        return windowMillis;
+    }
+
+    public int getMaxMessages()
+    {
+        return maxMessages;
+    }
+
+}
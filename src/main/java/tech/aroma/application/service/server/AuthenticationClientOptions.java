@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import tech.aroma.application.service.Options;
+import tech.aroma.thrift.authentication.service.AuthenticationServiceConstants;
+import tech.aroma.thrift.endpoint.TcpEndpoint;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validPort;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+import static tech.sirwellington.alchemy.arguments.assertions.StringAssertions.nonEmptyString;
+
+/**
+ * Controls the pool of connections a {@link PooledAuthenticationService} keeps open to the
+ * Authentication Service.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Immutable
+final class AuthenticationClientOptions extends Options
+{
+
+    static final int DEFAULT_POOL_SIZE = 8;
+    static final long DEFAULT_TIMEOUT_MILLIS = 5_000L;
+    static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 2_000L;
+    static final long DEFAULT_VALIDATE_AFTER_IDLE_MILLIS = 30_000L;
+
+    private static final AuthenticationClientOptions DISABLED = new AuthenticationClientOptions(false,
+                                                                                               new TcpEndpoint(AuthenticationServiceConstants.BETA_ENDPOINT),
+                                                                                               DEFAULT_POOL_SIZE,
+                                                                                               DEFAULT_TIMEOUT_MILLIS,
+                                                                                               DEFAULT_BORROW_TIMEOUT_MILLIS,
+                                                                                               DEFAULT_VALIDATE_AFTER_IDLE_MILLIS,
+                                                                                               false);
+
+    private final boolean enabled;
+    private final TcpEndpoint endpoint;
+    private final int poolSize;
+    private final long timeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long validateAfterIdleMillis;
+    private final boolean framed;
+
+    private AuthenticationClientOptions(boolean enabled,
+                                        TcpEndpoint endpoint,
+                                        int poolSize,
+                                        long timeoutMillis,
+                                        long borrowTimeoutMillis,
+                                        long validateAfterIdleMillis,
+                                        boolean framed)
+    {
+        this.enabled = enabled;
+        this.endpoint = endpoint;
+        this.poolSize = poolSize;
+        this.timeoutMillis = timeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+        this.framed = framed;
+    }
+
+    /**
+     * No pool is kept, and the Authentication Service is not called at all.
+     */
+    static AuthenticationClientOptions disabled()
+    {
+        return DISABLED;
+    }
+
+    /**
+     * Connects to the same endpoint, with the same unframed Binary Protocol, as the clients
+     * in {@link tech.aroma.thrift.services.Clients}.
+     */
+    static AuthenticationClientOptions defaults()
+    {
+        return of(AuthenticationServiceConstants.BETA_ENDPOINT,
+                  DEFAULT_POOL_SIZE,
+                  DEFAULT_TIMEOUT_MILLIS,
+                  DEFAULT_BORROW_TIMEOUT_MILLIS,
+                  DEFAULT_VALIDATE_AFTER_IDLE_MILLIS,
+                  false);
+    }
+
+    /**
+     * @param endpoint                Where the Authentication Service is listening.
+     * @param poolSize                The number of connections kept open, which is also the most calls made at once.
+     * @param timeoutMillis           How long to wait to connect, and for each response.
+     * @param borrowTimeoutMillis     How long a call waits for a connection to free up before failing.
+     * @param validateAfterIdleMillis A connection idle for longer than this is checked before it is used again.
+     * @param framed                  Whether to use the Framed Transport. This must match the server.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    static AuthenticationClientOptions of(TcpEndpoint endpoint,
+                                          int poolSize,
+                                          long timeoutMillis,
+                                          long borrowTimeoutMillis,
+                                          long validateAfterIdleMillis,
+                                          boolean framed) throws IllegalArgumentException
+    {
+        checkThat(endpoint)
+            .is(notNull());
+
+        checkThat(endpoint.hostname)
+            .usingMessage("endpoint is missing a hostname")
+            .is(nonEmptyString());
+
+        checkThat(endpoint.port)
+            .is(validPort());
+
+        checkThat(poolSize)
+            .usingMessage("pool must have at least 1 connection")
+            .is(greaterThanOrEqualTo(1));
+
+        checkThat(timeoutMillis, borrowTimeoutMillis, validateAfterIdleMillis)
+            .usingMessage("durations must be positive")
+            .are(positiveLong());
+
+        checkThat(timeoutMillis)
+            .usingMessage("timeout must fit in an int")
+            .is(lessThanOrEqualTo((long) Integer.MAX_VALUE));
+
+        return new AuthenticationClientOptions(true,
+                                               new TcpEndpoint(endpoint),
+                                               poolSize,
+                                               timeoutMillis,
+                                               borrowTimeoutMillis,
+                                               validateAfterIdleMillis,
+                                               framed);
+    }
+
+    boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    String getHostname()
+    {
+        return endpoint.hostname;
+    }
+
+    int getPort()
+    {
+        return endpoint.port;
+    }
+
+    int getPoolSize()
+    {
+        return poolSize;
+    }
+
+    long getTimeoutMillis()
+    {
+        return timeoutMillis;
+    }
+
+    long getBorrowTimeoutMillis()
+    {
+        return borrowTimeoutMillis;
+    }
+
+    long getValidateAfterIdleMillis()
+    {
+        return validateAfterIdleMillis;
+    }
+
+    boolean isFramed()
+    {
+        return framed;
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import tech.aroma.application.service.operations.SendMessageBatchResponse.Status;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * A cumulative acknowledgement sent back on a Message stream.
+ * <p>
+ * Every Message sent on a stream is numbered, starting at 1. An Ack for sequence {@code N} covers every
+ * Message up to and including {@code N}; the only Messages it lists are the ones that were not accepted.
+ * <p>
+ * On the wire, an Ack is the status byte, the sequence as an 8-byte long, the number of problems as a
+ * 4-byte int, and then for each problem its sequence and the ordinal of its {@link Status} as a byte.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Immutable
+final class IngestAck
+{
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_INVALID_TOKEN = 1;
+    static final byte STATUS_BAD_FRAME = 2;
+    static final byte STATUS_UNAVAILABLE = 3;
+
+    private final byte status;
+    private final long acknowledgedThrough;
+    private final SortedMap<Long, Status> problems;
+
+    private IngestAck(byte status, long acknowledgedThrough, SortedMap<Long, Status> problems)
+    {
+        this.status = status;
+        this.acknowledgedThrough = acknowledgedThrough;
+        this.problems = Collections.unmodifiableSortedMap(problems);
+    }
+
+    static IngestAck ok(long acknowledgedThrough, Map<Long, Status> problems)
+    {
+        checkThat(problems).is(notNull());
+
+        return new IngestAck(STATUS_OK, acknowledgedThrough, new TreeMap<>(problems));
+    }
+
+    static IngestAck invalidToken()
+    {
+        return new IngestAck(STATUS_INVALID_TOKEN, 0L, new TreeMap<>());
+    }
+
+    /**
+     * The Token could not be checked. The client may try again later.
+     */
+    static IngestAck unavailable()
+    {
+        return new IngestAck(STATUS_UNAVAILABLE, 0L, new TreeMap<>());
+    }
+
+    static IngestAck badFrame(long acknowledgedThrough)
+    {
+        return new IngestAck(STATUS_BAD_FRAME, acknowledgedThrough, new TreeMap<>());
+    }
+
+    byte getStatus()
+    {
+        return status;
+    }
+
+    long getAcknowledgedThrough()
+    {
+        return acknowledgedThrough;
+    }
+
+    /**
+     * @return The sequence numbers of the Messages that were not accepted, and why.
+     */
+    SortedMap<Long, Status> getProblems()
+    {
+        return problems;
+    }
+
+    byte[] toBytes()
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(13 + problems.size() * 9);
+
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(status);
+            out.writeLong(acknowledgedThrough);
+            out.writeInt(problems.size());
+
+            for (Map.Entry<Long, Status> problem : problems.entrySet())
+            {
+                out.writeLong(problem.getKey());
+                out.writeByte(problem.getValue().ordinal());
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    static IngestAck fromBytes(byte[] frame) throws IOException
+    {
+        checkThat(frame).is(notNull());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+
+        byte status = in.readByte();
+        long acknowledgedThrough = in.readLong();
+        int numberOfProblems = in.readInt();
+
+        SortedMap<Long, Status> problems = new TreeMap<>();
+
+        for (int i = 0; i < numberOfProblems; ++i)
+        {
+            long sequence = in.readLong();
+            int ordinal = in.readUnsignedByte();
+
+            if (ordinal >= Status.values().length)
+            {
+                throw new IOException("Unknown Message Status: " + ordinal);
+            }
+
+            problems.put(sequence, Status.values()[ordinal]);
+        }
+
+        return new IngestAck(status, acknowledgedThrough, problems);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 3;
+        hash = 59 * hash + this.status;
+        hash = 59 * hash + Long.hashCode(this.acknowledgedThrough);
+        hash = 59 * hash + this.problems.hashCode();
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        final IngestAck other = (IngestAck) obj;
+        return this.status == other.status &&
+               this.acknowledgedThrough == other.acknowledgedThrough &&
+               this.problems.equals(other.problems);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IngestAck{" + "status=" + status + ", acknowledgedThrough=" + acknowledgedThrough + ", problems=" + problems + '}';
+    }
+
+}
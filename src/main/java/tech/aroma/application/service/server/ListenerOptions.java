@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import tech.aroma.application.service.Options;
+import tech.aroma.thrift.application.service.ApplicationServiceConstants;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.arguments.Optional;
+import tech.sirwellington.alchemy.annotations.arguments.Required;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validPort;
+
+/**
+ * Describes a port the Application Service listens on, and how clients talk to it.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Immutable
+final class ListenerOptions extends Options
+{
+
+    private static final ListenerOptions DEFAULTS = new ListenerOptions(ApplicationServiceConstants.SERVICE_PORT, null, false);
+
+    private final int port;
+    private final WireProtocol protocol;
+    private final boolean framed;
+
+    private ListenerOptions(int port, WireProtocol protocol, boolean framed)
+    {
+        this.port = port;
+        this.protocol = protocol;
+        this.framed = framed;
+    }
+
+    /**
+     * Auto-detects the Protocol and Transport at {@link ApplicationServiceConstants#SERVICE_PORT}, so existing
+     * Binary clients keep working.
+     */
+    static ListenerOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * Works out the Protocol and whether the Transport is framed from the first bytes each client sends.
+     */
+    static ListenerOptions autoDetect(int port) throws IllegalArgumentException
+    {
+        checkThat(port).is(validPort());
+
+        return new ListenerOptions(port, null, false);
+    }
+
+    /**
+     * Only accepts the given Protocol. A framed listener runs on a non-blocking server.
+     */
+    static ListenerOptions of(int port, @Required WireProtocol protocol, boolean framed) throws IllegalArgumentException
+    {
+        checkThat(port).is(validPort());
+        checkThat(protocol).is(notNull());
+
+        return new ListenerOptions(port, protocol, framed);
+    }
+
+    int getPort()
+    {
+        return port;
+    }
+
+    boolean isAutoDetect()
+    {
+        return protocol == null;
+    }
+
+    /**
+     * @return {@code null} if the Protocol is auto-detected.
+     */
+    @Optional
+    WireProtocol getProtocol()
+    {
+        return protocol;
+    }
+
+    boolean isFramed()
+    {
+        return framed;
+    }
+
+}
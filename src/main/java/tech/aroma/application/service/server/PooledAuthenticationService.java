@@ -0,0 +1,380 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import java.io.Closeable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolException;
+import org.apache.thrift.transport.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * An {@link AuthenticationService.Iface} that makes its calls over a fixed pool of persistent
+ * connections, instead of opening a new connection for every call.
+ * <p>
+ * Each connection carries one call at a time. A call waits up to the borrow timeout for a
+ * connection to free up, and a connection that has been idle for a while is checked with a cheap
+ * call before it is trusted again. A connection is returned to the pool after a call that succeeded,
+ * or that failed with one of the exceptions the Authentication Service declares, such as an
+ * {@code InvalidTokenException}: those arrive as complete replies and leave the connection in a clean
+ * state. A transport, protocol, or application error, or any unexpected RuntimeException, may leave
+ * unread bytes or an out-of-sequence reply behind, so it throws the connection away, and it is
+ * replaced on the next call.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class PooledAuthenticationService implements AuthenticationService.Iface, Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(PooledAuthenticationService.class);
+
+    static final String METRIC_BORROW_TIME = MetricRegistry.name(PooledAuthenticationService.class, "borrow-time");
+    static final String METRIC_CALL_TIME = MetricRegistry.name(PooledAuthenticationService.class, "call-time");
+    static final String METRIC_CONNECTIONS_OPENED = MetricRegistry.name(PooledAuthenticationService.class, "connections", "opened");
+    static final String METRIC_CONNECTIONS_DISCARDED = MetricRegistry.name(PooledAuthenticationService.class, "connections", "discarded");
+    static final String METRIC_CONNECTIONS_IDLE = MetricRegistry.name(PooledAuthenticationService.class, "connections", "idle");
+    static final String METRIC_CONNECTIONS_LEASED = MetricRegistry.name(PooledAuthenticationService.class, "connections", "leased");
+    static final String METRIC_HEALTH_CHECK_FAILURES = MetricRegistry.name(PooledAuthenticationService.class, "health-check-failures");
+
+    private final AuthenticationClientOptions options;
+    private final Connector connector;
+
+    private final Semaphore permits;
+    private final BlockingDeque<Connection> idle;
+    private final AtomicInteger leased = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    private final Timer borrowTime;
+    private final Timer callTime;
+    private final Counter connectionsOpened;
+    private final Counter connectionsDiscarded;
+    private final Counter healthCheckFailures;
+
+    PooledAuthenticationService(AuthenticationClientOptions options, MetricRegistry metrics)
+    {
+        this(options, metrics, () -> connectTo(options));
+    }
+
+    PooledAuthenticationService(AuthenticationClientOptions options, MetricRegistry metrics, Connector connector)
+    {
+        checkThat(options, metrics, connector)
+            .are(notNull());
+
+        this.options = options;
+        this.connector = connector;
+        this.permits = new Semaphore(options.getPoolSize(), true);
+        this.idle = new LinkedBlockingDeque<>(options.getPoolSize());
+
+        this.borrowTime = metrics.timer(METRIC_BORROW_TIME);
+        this.callTime = metrics.timer(METRIC_CALL_TIME);
+        this.connectionsOpened = metrics.counter(METRIC_CONNECTIONS_OPENED);
+        this.connectionsDiscarded = metrics.counter(METRIC_CONNECTIONS_DISCARDED);
+        this.healthCheckFailures = metrics.counter(METRIC_HEALTH_CHECK_FAILURES);
+
+        metrics.register(METRIC_CONNECTIONS_IDLE, (Gauge<Integer>) idle::size);
+        metrics.register(METRIC_CONNECTIONS_LEASED, (Gauge<Integer>) leased::get);
+    }
+
+    @Override
+    public double getApiVersion() throws TException
+    {
+        return call(AuthenticationService.Iface::getApiVersion);
+    }
+
+    @Override
+    public CreateTokenResponse createToken(CreateTokenRequest request) throws TException
+    {
+        return call(client -> client.createToken(request));
+    }
+
+    @Override
+    public GetTokenInfoResponse getTokenInfo(GetTokenInfoRequest request) throws TException
+    {
+        return call(client -> client.getTokenInfo(request));
+    }
+
+    @Override
+    public InvalidateTokenResponse invalidateToken(InvalidateTokenRequest request) throws TException
+    {
+        return call(client -> client.invalidateToken(request));
+    }
+
+    @Override
+    public VerifyTokenResponse verifyToken(VerifyTokenRequest request) throws TException
+    {
+        return call(client -> client.verifyToken(request));
+    }
+
+    int getNumberOfIdleConnections()
+    {
+        return idle.size();
+    }
+
+    int getNumberOfLeasedConnections()
+    {
+        return leased.get();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+
+        Connection connection;
+        while ((connection = idle.poll()) != null)
+        {
+            connection.close();
+        }
+    }
+
+    private <T> T call(Call<T> call) throws TException
+    {
+        Connection connection = borrow();
+        boolean reusable = false;
+
+        try (Timer.Context time = callTime.time())
+        {
+            T result = call.on(connection.client);
+            reusable = true;
+            return result;
+        }
+        catch (TTransportException ex)
+        {
+            LOG.warn("Connection to Authentication Service at {}:{} failed. Discarding it.", options.getHostname(), options.getPort(), ex);
+            throw ex;
+        }
+        catch (TProtocolException | TApplicationException ex)
+        {
+            LOG.debug("Call to Authentication Service left its connection in an unknown state. Discarding it.", ex);
+            throw ex;
+        }
+        catch (TException ex)
+        {
+            //A declared exception is a complete reply, so the connection is still clean.
+            reusable = true;
+            throw ex;
+        }
+        finally
+        {
+            giveBack(connection, reusable);
+        }
+    }
+
+    private Connection borrow() throws TException
+    {
+        if (closed)
+        {
+            throw new OperationFailedException("Authentication Service client is closed");
+        }
+
+        try (Timer.Context time = borrowTime.time())
+        {
+            if (!permits.tryAcquire(options.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS))
+            {
+                throw new OperationFailedException("Timed out waiting for a connection to the Authentication Service");
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new OperationFailedException("Interrupted while waiting for a connection to the Authentication Service");
+        }
+
+        try
+        {
+            Connection connection = takeHealthyIdleConnection();
+
+            if (connection == null)
+            {
+                connection = connector.connect();
+                connectionsOpened.inc();
+            }
+
+            leased.incrementAndGet();
+            return connection;
+        }
+        catch (TException | RuntimeException ex)
+        {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return null if no idle connection could be used.
+     */
+    private Connection takeHealthyIdleConnection()
+    {
+        Connection connection;
+
+        //Most recently used first, so that connections beyond what the load needs go stale and are discarded.
+        while ((connection = idle.pollFirst()) != null)
+        {
+            if (isHealthy(connection))
+            {
+                return connection;
+            }
+
+            discard(connection);
+        }
+
+        return null;
+    }
+
+    private boolean isHealthy(Connection connection)
+    {
+        if (!connection.transport.isOpen())
+        {
+            return false;
+        }
+
+        long idleMillis = System.currentTimeMillis() - connection.lastUsed;
+
+        if (idleMillis < options.getValidateAfterIdleMillis())
+        {
+            return true;
+        }
+
+        try
+        {
+            connection.client.getApiVersion();
+            return true;
+        }
+        catch (TException | RuntimeException ex)
+        {
+            healthCheckFailures.inc();
+            LOG.debug("Idle connection to Authentication Service failed its health check", ex);
+            return false;
+        }
+    }
+
+    private void giveBack(Connection connection, boolean reusable)
+    {
+        leased.decrementAndGet();
+
+        try
+        {
+            if (reusable && !closed)
+            {
+                connection.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(connection);
+            }
+            else
+            {
+                discard(connection);
+            }
+        }
+        finally
+        {
+            permits.release();
+        }
+    }
+
+    private void discard(Connection connection)
+    {
+        connectionsDiscarded.inc();
+        connection.close();
+    }
+
+    private static Connection connectTo(AuthenticationClientOptions options) throws TTransportException
+    {
+        TSocket socket = new TSocket(options.getHostname(), options.getPort(), (int) options.getTimeoutMillis());
+        TTransport transport = options.isFramed() ? new TFramedTransport(socket) : socket;
+        transport.open();
+
+        TProtocol protocol = new TBinaryProtocol(transport);
+
+        LOG.debug("Opened connection to Authentication Service at {}:{}", options.getHostname(), options.getPort());
+
+        return new Connection(transport, new AuthenticationService.Client(protocol));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PooledAuthenticationService{" + "options=" + options + ", idle=" + idle.size() + ", leased=" + leased.get() + '}';
+    }
+
+    /**
+     * Opens a new connection to the Authentication Service.
+     */
+    @FunctionalInterface
+    interface Connector
+    {
+
+        Connection connect() throws TTransportException;
+    }
+
+    @FunctionalInterface
+    private interface Call<T>
+    {
+
+        T on(AuthenticationService.Iface client) throws TException;
+    }
+
+    static final class Connection
+    {
+
+        private final TTransport transport;
+        private final AuthenticationService.Iface client;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        Connection(TTransport transport, AuthenticationService.Iface client)
+        {
+            checkThat(transport, client)
+                .are(notNull());
+
+            this.transport = transport;
+            this.client = client;
+        }
+
+        private void close()
+        {
+            try
+            {
+                transport.close();
+            }
+            catch (RuntimeException ex)
+            {
+                LOG.debug("Failed to close connection to Authentication Service", ex);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Lets a single blocking listener serve clients using any {@link WireProtocol}, framed or not.
+ * <p>
+ * The first bytes each client sends decide how its connection is read. A framed message begins with a
+ * 4-byte length, whose first byte is 0 for any frame under 16 MB. The Protocols can each be told apart by
+ * the first byte of a message. Non-strict Binary clients, which also begin with a 0, are not supported.
+ * <p>
+ * The {@linkplain #wrap(TProcessor) processor} does the negotiation once per connection, and then
+ * hands the Protocol it picked to the real processor.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class ProtocolNegotiator
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(ProtocolNegotiator.class);
+
+    /**
+     * Thrift asks for the input and output Transports separately. Both must be the same
+     * {@link NegotiatedTransport}, so they share what was read while negotiating.
+     */
+    private final Map<TTransport, NegotiatedTransport> connections = Collections.synchronizedMap(new WeakHashMap<>());
+
+    TTransportFactory transportFactory()
+    {
+        return new TTransportFactory()
+        {
+            @Override
+            public TTransport getTransport(TTransport client)
+            {
+                return connections.computeIfAbsent(client, NegotiatedTransport::new);
+            }
+        };
+    }
+
+    TProcessor wrap(TProcessor processor)
+    {
+        checkThat(processor).is(notNull());
+
+        return (in, out) ->
+        {
+            TProtocol protocol = negotiate(in.getTransport());
+            return processor.process(protocol, protocol);
+        };
+    }
+
+    private TProtocol negotiate(TTransport transport) throws TException
+    {
+        if (!(transport instanceof NegotiatedTransport))
+        {
+            throw new TTransportException("Connection was not created by the ProtocolNegotiator");
+        }
+
+        return ((NegotiatedTransport) transport).getProtocol();
+    }
+
+    /**
+     * Replays the bytes read while negotiating, and then reads from the client directly.
+     */
+    static final class NegotiatedTransport extends TTransport
+    {
+
+        private final TTransport client;
+
+        private byte[] peeked = new byte[0];
+        private int peekedPosition = 0;
+
+        private TTransport transport;
+        private TProtocol protocol;
+        private WireProtocol wireProtocol;
+        private boolean framed;
+
+        NegotiatedTransport(TTransport client)
+        {
+            this.client = client;
+        }
+
+        TProtocol getProtocol() throws TTransportException
+        {
+            if (protocol == null)
+            {
+                negotiate();
+            }
+
+            return protocol;
+        }
+
+        WireProtocol getWireProtocol()
+        {
+            return wireProtocol;
+        }
+
+        boolean isFramed()
+        {
+            return framed;
+        }
+
+        private void negotiate() throws TTransportException
+        {
+            byte[] header = new byte[5];
+            client.readAll(header, 0, 1);
+
+            framed = header[0] == 0;
+
+            if (framed)
+            {
+                client.readAll(header, 1, 4);
+                peeked = header;
+                wireProtocol = WireProtocol.fromFirstByte(header[4]);
+            }
+            else
+            {
+                peeked = new byte[] { header[0] };
+                wireProtocol = WireProtocol.fromFirstByte(header[0]);
+            }
+
+            TTransport replaying = new Replaying();
+            transport = framed ? new TFramedTransport(replaying) : replaying;
+            protocol = wireProtocol.getFactory().getProtocol(transport);
+
+            LOG.debug("Negotiated {} Protocol, framed: {}", wireProtocol, framed);
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return client.isOpen();
+        }
+
+        @Override
+        public void open() throws TTransportException
+        {
+            client.open();
+        }
+
+        @Override
+        public void close()
+        {
+            client.close();
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws TTransportException
+        {
+            return transport != null ? transport.read(buf, off, len) : client.read(buf, off, len);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws TTransportException
+        {
+            if (transport != null)
+            {
+                transport.write(buf, off, len);
+            }
+            else
+            {
+                client.write(buf, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws TTransportException
+        {
+            if (transport != null)
+            {
+                transport.flush();
+            }
+            else
+            {
+                client.flush();
+            }
+        }
+
+        private final class Replaying extends TTransport
+        {
+
+            @Override
+            public boolean isOpen()
+            {
+                return client.isOpen();
+            }
+
+            @Override
+            public void open() throws TTransportException
+            {
+                client.open();
+            }
+
+            @Override
+            public void close()
+            {
+                client.close();
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws TTransportException
+            {
+                int remaining = peeked.length - peekedPosition;
+
+                if (remaining <= 0)
+                {
+                    return client.read(buf, off, len);
+                }
+
+                int count = Math.min(remaining, len);
+                System.arraycopy(peeked, peekedPosition, buf, off, count);
+                peekedPosition += count;
+                return count;
+            }
+
+            @Override
+            public void write(byte[] buf, int off, int len) throws TTransportException
+            {
+                client.write(buf, off, len);
+            }
+
+            @Override
+            public void flush() throws TTransportException
+            {
+                client.flush();
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import tech.aroma.application.service.Options;
+import tech.aroma.application.service.operations.SendMessageBatchOperation;
+import tech.aroma.thrift.application.service.ApplicationServiceConstants;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.Immutable;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.NetworkAssertions.validPort;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.greaterThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.lessThanOrEqualTo;
+import static tech.sirwellington.alchemy.arguments.assertions.NumberAssertions.positiveLong;
+
+/**
+ * Controls the listener a {@link StreamingIngestServer} accepts Message streams on.
+ *
+ * @author SirWellington
+ */
+@Internal
+@Immutable
+final class StreamingIngestOptions extends Options
+{
+
+    static final int DEFAULT_PORT = ApplicationServiceConstants.SERVICE_PORT + 1;
+    static final int DEFAULT_MAX_CONNECTIONS = 256;
+    static final int DEFAULT_MAX_MESSAGES_PER_ACK = 100;
+    static final int DEFAULT_MAX_FRAME_BYTES = 64 * 1024;
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1_000L;
+
+    private static final StreamingIngestOptions DEFAULTS = new StreamingIngestOptions(DEFAULT_PORT,
+                                                                                      DEFAULT_MAX_CONNECTIONS,
+                                                                                      DEFAULT_MAX_MESSAGES_PER_ACK,
+                                                                                      DEFAULT_MAX_FRAME_BYTES,
+                                                                                      DEFAULT_IDLE_TIMEOUT_MILLIS);
+
+    private final int port;
+    private final int maxConnections;
+    private final int maxMessagesPerAck;
+    private final int maxFrameBytes;
+    private final long idleTimeoutMillis;
+
+    private StreamingIngestOptions(int port,
+                                   int maxConnections,
+                                   int maxMessagesPerAck,
+                                   int maxFrameBytes,
+                                   long idleTimeoutMillis)
+    {
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.maxMessagesPerAck = maxMessagesPerAck;
+        this.maxFrameBytes = maxFrameBytes;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    static StreamingIngestOptions defaults()
+    {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param port              The port to listen on.
+     * @param maxConnections    The most streams open at once. Further connections are refused.
+     * @param maxMessagesPerAck The most Messages processed together before an Ack is sent. An Ack is also sent
+     *                          whenever the client pauses, so this only matters for senders that never stop.
+     * @param maxFrameBytes     The largest frame accepted. Larger frames close the connection.
+     * @param idleTimeoutMillis How long a connection may go without sending anything before it is closed.
+     *
+     * @return
+     *
+     * @throws IllegalArgumentException
+     */
+    static StreamingIngestOptions of(int port,
+                                     int maxConnections,
+                                     int maxMessagesPerAck,
+                                     int maxFrameBytes,
+                                     long idleTimeoutMillis) throws IllegalArgumentException
+    {
+        checkThat(port)
+            .is(validPort());
+
+        checkThat(maxConnections, maxMessagesPerAck, maxFrameBytes)
+            .usingMessage("limits must be at least 1")
+            .are(greaterThanOrEqualTo(1));
+
+        checkThat(maxMessagesPerAck)
+            .usingMessage("maxMessagesPerAck cannot exceed the size of a batch")
+            .is(lessThanOrEqualTo(SendMessageBatchOperation.MAX_MESSAGES_PER_BATCH));
+
+        checkThat(idleTimeoutMillis)
+            .usingMessage("idle timeout must be positive")
+            .is(positiveLong());
+
+        checkThat(idleTimeoutMillis)
+            .usingMessage("idle timeout must fit in an int")
+            .is(lessThanOrEqualTo((long) Integer.MAX_VALUE));
+
+        return new StreamingIngestOptions(port, maxConnections, maxMessagesPerAck, maxFrameBytes, idleTimeoutMillis);
+    }
+
+    int getPort()
+    {
+        return port;
+    }
+
+    int getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    int getMaxMessagesPerAck()
+    {
+        return maxMessagesPerAck;
+    }
+
+    int getMaxFrameBytes()
+    {
+        return maxFrameBytes;
+    }
+
+    long getIdleTimeoutMillis()
+    {
+        return idleTimeoutMillis;
+    }
+
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
+import sir.wellington.alchemy.collections.maps.Maps;
+import tech.aroma.application.service.operations.SendMessageBatchOperation;
+import tech.aroma.application.service.operations.SendMessageBatchOperation.Session;
+import tech.aroma.application.service.operations.SendMessageBatchResponse;
+import tech.aroma.application.service.operations.SendMessageBatchResponse.Result;
+import tech.aroma.application.service.operations.SendMessageBatchResponse.Status;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.aroma.thrift.authentication.ApplicationToken;
+import tech.aroma.thrift.exceptions.InvalidTokenException;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+import tech.sirwellington.alchemy.annotations.concurrency.ThreadSafe;
+
+import static tech.sirwellington.alchemy.arguments.Arguments.*;
+import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
+
+/**
+ * Accepts long-lived streams of Messages from Applications that send at a high rate.
+ * <p>
+ * Every frame on a stream, in both directions, is a 4-byte length followed by that many bytes.
+ * The first frame a client sends is its {@link ApplicationToken}, encoded with the
+ * {@linkplain TCompactProtocol Compact Protocol}. The Token is checked once, and the server answers with an
+ * {@link IngestAck}. After that, the client sends one {@link SendMessageRequest} per frame, back-to-back,
+ * without waiting for a response.
+ * <p>
+ * The server reads as many Messages as have already arrived, up to
+ * {@link StreamingIngestOptions#getMaxMessagesPerAck()}, processes them as one batch, and answers with a
+ * single cumulative {@link IngestAck}. A client is expected to keep the Messages it has sent until they
+ * are acknowledged.
+ *
+ * @author SirWellington
+ */
+@Internal
+@ThreadSafe
+final class StreamingIngestServer implements Closeable
+{
+
+    private final static Logger LOG = LoggerFactory.getLogger(StreamingIngestServer.class);
+
+    static final String METRIC_CONNECTIONS_OPEN = MetricRegistry.name(StreamingIngestServer.class, "connections", "open");
+    static final String METRIC_CONNECTIONS_REFUSED = MetricRegistry.name(StreamingIngestServer.class, "connections", "refused");
+    static final String METRIC_AUTHENTICATION_FAILURES = MetricRegistry.name(StreamingIngestServer.class, "authentication-failures");
+    static final String METRIC_MESSAGES_RECEIVED = MetricRegistry.name(StreamingIngestServer.class, "messages", "received");
+    static final String METRIC_MESSAGES_NOT_ACCEPTED = MetricRegistry.name(StreamingIngestServer.class, "messages", "not-accepted");
+    static final String METRIC_MESSAGES_PER_ACK = MetricRegistry.name(StreamingIngestServer.class, "messages-per-ack");
+
+    private final SendMessageBatchOperation batchOperation;
+    private final StreamingIngestOptions options;
+
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ThreadPoolExecutor workers;
+
+    private final Counter connectionsRefused;
+    private final Counter authenticationFailures;
+    private final Counter messagesReceived;
+    private final Counter messagesNotAccepted;
+    private final Histogram messagesPerAck;
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean closed = false;
+
+    StreamingIngestServer(SendMessageBatchOperation batchOperation,
+                          StreamingIngestOptions options,
+                          MetricRegistry metrics)
+    {
+        checkThat(batchOperation, options, metrics)
+            .are(notNull());
+
+        this.batchOperation = batchOperation;
+        this.options = options;
+
+        this.workers = new ThreadPoolExecutor(0,
+                                              options.getMaxConnections(),
+                                              60L,
+                                              TimeUnit.SECONDS,
+                                              new SynchronousQueue<>(),
+                                              this::newThread);
+
+        this.connectionsRefused = metrics.counter(METRIC_CONNECTIONS_REFUSED);
+        this.authenticationFailures = metrics.counter(METRIC_AUTHENTICATION_FAILURES);
+        this.messagesReceived = metrics.counter(METRIC_MESSAGES_RECEIVED);
+        this.messagesNotAccepted = metrics.counter(METRIC_MESSAGES_NOT_ACCEPTED);
+        this.messagesPerAck = metrics.histogram(METRIC_MESSAGES_PER_ACK);
+
+        metrics.register(METRIC_CONNECTIONS_OPEN, (Gauge<Integer>) openConnections::get);
+    }
+
+    /**
+     * Binds to the port and begins accepting streams in the background.
+     */
+    synchronized void start() throws IOException
+    {
+        if (serverSocket != null || closed)
+        {
+            throw new IllegalStateException("server already started");
+        }
+
+        serverSocket = new ServerSocket(options.getPort());
+
+        Thread acceptor = newThread(this::acceptConnections);
+        acceptor.setName("streaming-ingest-acceptor");
+        acceptor.start();
+
+        LOG.info("Accepting Message streams at port {}", serverSocket.getLocalPort());
+    }
+
+    int getPort()
+    {
+        return serverSocket != null ? serverSocket.getLocalPort() : options.getPort();
+    }
+
+    int getNumberOfOpenConnections()
+    {
+        return openConnections.get();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+
+        if (serverSocket != null)
+        {
+            serverSocket.close();
+        }
+
+        for (Socket socket : openSockets)
+        {
+            closeQuietly(socket);
+        }
+
+        workers.shutdownNow();
+    }
+
+    private void acceptConnections()
+    {
+        while (!closed)
+        {
+            Socket socket;
+
+            try
+            {
+                socket = serverSocket.accept();
+            }
+            catch (IOException ex)
+            {
+                if (!closed)
+                {
+                    LOG.error("Failed to accept connection", ex);
+                }
+
+                continue;
+            }
+
+            try
+            {
+                workers.execute(() -> serve(socket));
+            }
+            catch (RejectedExecutionException ex)
+            {
+                LOG.warn("Refusing stream from {}: already at {} connections", socket.getRemoteSocketAddress(), options.getMaxConnections());
+                connectionsRefused.inc();
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private void serve(Socket socket)
+    {
+        openSockets.add(socket);
+        openConnections.incrementAndGet();
+
+        try
+        {
+            new Stream(socket).run();
+        }
+        catch (EOFException | SocketException ex)
+        {
+            LOG.debug("Stream from {} ended: {}", socket.getRemoteSocketAddress(), ex.getMessage());
+        }
+        catch (Exception ex)
+        {
+            LOG.warn("Stream from {} failed", socket.getRemoteSocketAddress(), ex);
+        }
+        finally
+        {
+            openConnections.decrementAndGet();
+            openSockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private Thread newThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "streaming-ingest");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(Socket socket)
+    {
+        try
+        {
+            socket.close();
+        }
+        catch (IOException ex)
+        {
+            LOG.debug("Failed to close socket", ex);
+        }
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @return {@code null} if the stream ended cleanly, between frames.
+     *
+     * @throws BadFrameException If the frame is larger than {@code maxFrameBytes}.
+     * @throws IOException       If the stream ends in the middle of the frame.
+     */
+    static byte[] readFrame(DataInputStream in, int maxFrameBytes) throws IOException
+    {
+        int first = in.read();
+
+        if (first < 0)
+        {
+            return null;
+        }
+
+        int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+
+        if (length < 0 || length > maxFrameBytes)
+        {
+            throw new BadFrameException("Frame of " + length + " bytes is too large");
+        }
+
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    static void writeFrame(DataOutputStream out, byte[] frame) throws IOException
+    {
+        out.writeInt(frame.length);
+        out.write(frame);
+        out.flush();
+    }
+
+    /**
+     * Thrown when a frame is too large, or cannot be decoded. The stream cannot continue after one.
+     */
+    static final class BadFrameException extends IOException
+    {
+
+        BadFrameException(String message)
+        {
+            super(message);
+        }
+
+    }
+
+    /**
+     * Handles a single connection.
+     */
+    private final class Stream
+    {
+
+        private final Socket socket;
+        private final TDeserializer deserializer = new TDeserializer(new TCompactProtocol.Factory());
+
+        private DataInputStream in;
+        private DataOutputStream out;
+        private long sequence = 0L;
+
+        private Stream(Socket socket)
+        {
+            this.socket = socket;
+        }
+
+        private void run() throws IOException
+        {
+            socket.setSoTimeout((int) options.getIdleTimeoutMillis());
+            socket.setTcpNoDelay(true);
+
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            Session session = authenticate();
+
+            if (session == null)
+            {
+                return;
+            }
+
+            List<SendMessageRequest> pending = Lists.create();
+
+            while (true)
+            {
+                SendMessageRequest request;
+
+                try
+                {
+                    request = read(new SendMessageRequest());
+                }
+                catch (BadFrameException ex)
+                {
+                    //Everything read before the bad frame is still processed and acknowledged.
+                    send(session, pending);
+                    writeFrame(out, IngestAck.badFrame(sequence).toBytes());
+                    throw ex;
+                }
+
+                if (request == null)
+                {
+                    send(session, pending);
+                    return;
+                }
+
+                ++sequence;
+                messagesReceived.inc();
+                pending.add(request);
+
+                if (pending.size() >= options.getMaxMessagesPerAck() || in.available() == 0)
+                {
+                    send(session, pending);
+                }
+            }
+        }
+
+        private Session authenticate() throws IOException
+        {
+            ApplicationToken token;
+
+            try
+            {
+                token = read(new ApplicationToken());
+            }
+            catch (BadFrameException ex)
+            {
+                writeFrame(out, IngestAck.badFrame(0L).toBytes());
+                throw ex;
+            }
+
+            if (token == null)
+            {
+                return null;
+            }
+
+            try
+            {
+                Session session = batchOperation.authenticate(token);
+                LOG.debug("Opened stream from {} for Application {}", socket.getRemoteSocketAddress(), session.getApplicationId());
+                writeFrame(out, IngestAck.ok(0L, Maps.create()).toBytes());
+                return session;
+            }
+            catch (InvalidTokenException ex)
+            {
+                LOG.warn("Stream from {} has an invalid token", socket.getRemoteSocketAddress());
+                authenticationFailures.inc();
+                writeFrame(out, IngestAck.invalidToken().toBytes());
+                return null;
+            }
+            catch (TException ex)
+            {
+                LOG.error("Could not authenticate stream from {}", socket.getRemoteSocketAddress(), ex);
+                writeFrame(out, IngestAck.unavailable().toBytes());
+                return null;
+            }
+        }
+
+        private void send(Session session, List<SendMessageRequest> pending) throws IOException
+        {
+            if (pending.isEmpty())
+            {
+                return;
+            }
+
+            long firstSequence = sequence - pending.size() + 1;
+            Map<Long, Status> problems = Maps.create();
+
+            try
+            {
+                SendMessageBatchResponse response = session.send(pending);
+
+                for (Result result : response.getResults())
+                {
+                    if (result.getStatus() != Status.ACCEPTED)
+                    {
+                        problems.put(firstSequence + result.getIndex(), result.getStatus());
+                    }
+                }
+            }
+            catch (TException ex)
+            {
+                LOG.error("Failed to process {} streamed Messages for Application {}", pending.size(), session.getApplicationId(), ex);
+
+                for (int i = 0; i < pending.size(); ++i)
+                {
+                    problems.put(firstSequence + i, Status.FAILED);
+                }
+            }
+
+            messagesPerAck.update(pending.size());
+            messagesNotAccepted.inc(problems.size());
+            pending.clear();
+
+            writeFrame(out, IngestAck.ok(sequence, problems).toBytes());
+        }
+
+        private <T extends TBase<?, ?>> T read(T struct) throws IOException
+        {
+            byte[] frame = readFrame(in, options.getMaxFrameBytes());
+
+            if (frame == null)
+            {
+                return null;
+            }
+
+            try
+            {
+                deserializer.deserialize(struct, frame);
+                return struct;
+            }
+            catch (TException ex)
+            {
+                throw new BadFrameException("Could not decode frame: " + ex.getMessage());
+            }
+        }
+
+    }
+
+}
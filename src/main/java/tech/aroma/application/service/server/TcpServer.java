@@ -18,17 +18,31 @@ package tech.aroma.application.service.server;
  */
 
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Singleton;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.*;
 import com.notnoop.apns.ApnsService;
+import org.apache.thrift.TProcessor;
 import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TThreadPoolServer;
-import org.apache.thrift.transport.TServerSocket;
-import org.apache.thrift.transport.TTransportException;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.apache.thrift.transport.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sir.wellington.alchemy.collections.lists.Lists;
 import tech.aroma.application.service.ModuleApplicationService;
+import tech.aroma.application.service.latency.PrometheusEndpoint;
+import tech.aroma.application.service.latency.SendPathLatencies;
+import tech.aroma.application.service.operations.SendMessageBatchOperation;
+import tech.aroma.application.service.reactions.actions.WebhookCoalescer;
+import tech.aroma.application.service.reactions.actions.WebhookDeliveryQueue;
 import tech.aroma.data.cassandra.ModuleCassandraDataRepositories;
 import tech.aroma.data.cassandra.ModuleCassandraDevCluster;
 import tech.aroma.thrift.application.service.ApplicationService;
@@ -53,32 +67,140 @@ public final class TcpServer
     private final static Logger LOG = LoggerFactory.getLogger(TcpServer.class);
     private static final int PORT = ApplicationServiceConstants.SERVICE_PORT;
 
-    public static void main(String[] args) throws TTransportException, SocketException
+    /**
+     * Where Prometheus scrapes the latencies of the send path, and the rest of the metrics, from.
+     */
+    private static final int METRICS_PORT = PORT + 3;
+
+    /**
+     * The first listener auto-detects, so existing Binary clients keep working on the same port.
+     * The second is for clients that want a non-blocking server; they must use the Compact Protocol over
+     * the Framed Transport.
+     */
+    private static final List<ListenerOptions> LISTENERS = Lists.createFrom(ListenerOptions.autoDetect(PORT),
+                                                                            ListenerOptions.of(PORT + 2, WireProtocol.COMPACT, true));
+
+    /**
+     * Enable this to call the real Authentication Service over a pool of persistent connections.
+     * While disabled, every token is accepted.
+     */
+    private static final AuthenticationClientOptions AUTHENTICATION = AuthenticationClientOptions.disabled();
+
+    public static void main(String[] args) throws TTransportException, IOException
     {
         Injector injector = Guice.createInjector(new AromaServicesProvider(),
                                                  new ModuleApplicationService(),
                                                  new ModuleCassandraDataRepositories(),
                                                  new ModuleCassandraDevCluster());
 
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutDownWebhooks(injector), "shutdown-webhooks"));
+
         ApplicationService.Iface applicationService = injector.getInstance(ApplicationService.Iface.class);
         ApplicationService.Processor processor = new ApplicationService.Processor<>(applicationService);
 
-        TServerSocket socket = new TServerSocket(PORT);
-        socket.getServerSocket().setSoTimeout((int) SECONDS.toMillis(30));
+        StreamingIngestServer ingestServer = new StreamingIngestServer(injector.getInstance(SendMessageBatchOperation.class),
+                                                                       StreamingIngestOptions.defaults(),
+                                                                       injector.getInstance(MetricRegistry.class));
+        ingestServer.start();
+
+        PrometheusEndpoint metricsEndpoint = PrometheusEndpoint.start(METRICS_PORT,
+                                                                      injector.getInstance(SendPathLatencies.class),
+                                                                      injector.getInstance(MetricRegistry.class));
+
+        List<TServer> servers = Lists.create();
+
+        for (ListenerOptions listener : LISTENERS)
+        {
+            servers.add(createServer(listener, processor));
+        }
+
+        for (int i = 1; i < servers.size(); ++i)
+        {
+            TServer server = servers.get(i);
+            Thread thread = new Thread(server::serve, "listener-" + LISTENERS.get(i).getPort());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        TServer server = servers.get(0);
+        server.serve();
+
+        servers.forEach(TServer::stop);
+        ingestServer.close();
+        metricsEndpoint.close();
+        shutDownWebhooks(injector);
+
+        AuthenticationService.Iface authenticationService = injector.getInstance(AuthenticationService.Iface.class);
+        if (authenticationService instanceof Closeable)
+        {
+            ((Closeable) authenticationService).close();
+        }
+    }
+
+    /**
+     * Sends the Messages still waiting on a Webhook digest, gives the posts in flight a chance to finish,
+     * then stops the shared scheduler. This runs when the listeners stop, or when the process is told to exit.
+     */
+    private static void shutDownWebhooks(Injector injector)
+    {
+        injector.getInstance(WebhookCoalescer.class).close();
+        injector.getInstance(WebhookDeliveryQueue.class).close();
+        injector.getInstance(ScheduledExecutorService.class).shutdownNow();
+    }
+
+    /**
+     * Creates a server for the listener. Framed listeners with a fixed Protocol run on a non-blocking server;
+     * the rest use a pool of threads.
+     */
+    static TServer createServer(ListenerOptions listener, TProcessor processor) throws TTransportException
+    {
+        LOG.info("Starting Application Service at port {} with {}", listener.getPort(), listener);
+
+        if (!listener.isAutoDetect() && listener.isFramed())
+        {
+            TNonblockingServerSocket socket = new TNonblockingServerSocket(listener.getPort());
+
+            TThreadedSelectorServer.Args serverArgs = new TThreadedSelectorServer.Args(socket)
+                .selectorThreads(2)
+                .workerThreads(100)
+                .protocolFactory(listener.getProtocol().getFactory())
+                .transportFactory(new TFramedTransport.Factory())
+                .processor(processor);
+
+            return new TThreadedSelectorServer(serverArgs);
+        }
+
+        TServerSocket socket = new TServerSocket(listener.getPort());
+        try
+        {
+            socket.getServerSocket().setSoTimeout((int) SECONDS.toMillis(30));
+        }
+        catch (SocketException ex)
+        {
+            throw new TTransportException(ex);
+        }
 
         TThreadPoolServer.Args serverArgs = new TThreadPoolServer.Args(socket)
-            .protocolFactory(new TBinaryProtocol.Factory())
-            .processor(processor)
             .requestTimeout(60)
             .requestTimeoutUnit(SECONDS)
             .minWorkerThreads(5)
             .maxWorkerThreads(100);
 
-        LOG.info("Starting Application Service at port {}", PORT);
+        if (listener.isAutoDetect())
+        {
+            ProtocolNegotiator negotiator = new ProtocolNegotiator();
 
-        TThreadPoolServer server = new TThreadPoolServer(serverArgs);
-        server.serve();
-        server.stop();
+            serverArgs.transportFactory(negotiator.transportFactory())
+                .protocolFactory(new TBinaryProtocol.Factory())
+                .processor(negotiator.wrap(processor));
+        }
+        else
+        {
+            serverArgs.protocolFactory(listener.getProtocol().getFactory())
+                .processor(processor);
+        }
+
+        return new TThreadPoolServer(serverArgs);
     }
 
     private static class AromaServicesProvider extends AbstractModule
@@ -87,15 +209,21 @@ public final class TcpServer
         @Override
         protected void configure()
         {
+            bind(AuthenticationClientOptions.class).toInstance(AUTHENTICATION);
         }
 
+        @Singleton
         @Provides
-        AuthenticationService.Iface provideAuthenticationService()
+        AuthenticationService.Iface provideAuthenticationService(AuthenticationClientOptions options, MetricRegistry metrics)
         {
-            try
+            if (!options.isEnabled())
             {
                 return new NoOpAuthenticationService();
-//                return Clients.newPerRequestAuthenticationServiceClient();
+            }
+
+            try
+            {
+                return new PooledAuthenticationService(options, metrics);
             }
             catch (Exception ex)
             {
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import org.apache.thrift.protocol.*;
+import tech.sirwellington.alchemy.annotations.access.Internal;
+
+/**
+ * The Thrift Protocols the Application Service can speak.
+ *
+ * @author SirWellington
+ */
+@Internal
+enum WireProtocol
+{
+    /**
+     * The original Protocol, and the one every existing client uses.
+     */
+    BINARY((byte) 0x80, new TBinaryProtocol.Factory()),
+    /**
+     * Variable-length integers and packed field headers. Usually the smallest on the wire.
+     */
+    COMPACT((byte) 0x82, new TCompactProtocol.Factory()),
+    /**
+     * Human-readable, meant for debugging.
+     */
+    JSON((byte) '[', new TJSONProtocol.Factory());
+
+    private final byte firstByte;
+    private final TProtocolFactory factory;
+
+    private WireProtocol(byte firstByte, TProtocolFactory factory)
+    {
+        this.firstByte = firstByte;
+        this.factory = factory;
+    }
+
+    TProtocolFactory getFactory()
+    {
+        return factory;
+    }
+
+    /**
+     * Identifies the Protocol from the first byte of a message.
+     *
+     * @return {@link #BINARY} if the byte is not recognized, so that an unrecognized client fails the
+     *         same way it always has.
+     */
+    static WireProtocol fromFirstByte(byte firstByte)
+    {
+        for (WireProtocol protocol : values())
+        {
+            if (protocol.firstByte == firstByte)
+            {
+                return protocol;
+            }
+        }
+
+        return BINARY;
+    }
+
+}
@@ -16,24 +16,31 @@
 
 package tech.aroma.application.service;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.*;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.thrift.TException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
+import tech.aroma.application.service.operations.ApplicationThrottledException;
+import tech.aroma.application.service.operations.ServiceAtCapacityException;
+import tech.aroma.application.service.pipeline.*;
 import tech.aroma.thrift.AromaConstants;
 import tech.aroma.thrift.application.service.SendMessageRequest;
 import tech.aroma.thrift.application.service.SendMessageResponse;
 import tech.aroma.thrift.exceptions.InvalidArgumentException;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.aroma.thrift.exceptions.ThroughoutExceededException;
 import tech.sirwellington.alchemy.test.junit.runners.*;
 import tech.sirwellington.alchemy.thrift.operations.ThriftOperation;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
 
@@ -63,10 +70,19 @@ public class ApplicationServiceBaseTest
     @Captor
     private ArgumentCaptor<Callable> callableCaptor;
 
+    private StagedPipeline pipeline;
+
+    private RingBufferOptions ringBufferOptions;
+
+    private MetricRegistry metrics;
+
     @Before
     public void setUp() throws TException
     {
-        instance = new ApplicationServiceBase(sendMessageOperation, executor);
+        pipeline = StagedPipeline.inline();
+        ringBufferOptions = RingBufferOptions.disabled();
+        metrics = new MetricRegistry();
+        instance = new ApplicationServiceBase(sendMessageOperation, executor, pipeline, ringBufferOptions, metrics);
 
         verifyZeroInteractions(sendMessageOperation);
 
@@ -78,10 +94,19 @@ public class ApplicationServiceBaseTest
     @Test
     public void testConstructor()
     {
-        assertThrows(() -> new ApplicationServiceBase(null, executor))
+        assertThrows(() -> new ApplicationServiceBase(null, executor, pipeline, ringBufferOptions, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new ApplicationServiceBase(sendMessageOperation, null, pipeline, ringBufferOptions, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new ApplicationServiceBase(sendMessageOperation, executor, null, ringBufferOptions, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new ApplicationServiceBase(sendMessageOperation, executor, pipeline, null, metrics))
             .isInstanceOf(IllegalArgumentException.class);
 
-        assertThrows(() -> new ApplicationServiceBase(sendMessageOperation, null))
+        assertThrows(() -> new ApplicationServiceBase(sendMessageOperation, executor, pipeline, ringBufferOptions, null))
             .isInstanceOf(IllegalArgumentException.class);
     }
 
@@ -112,6 +137,50 @@ public class ApplicationServiceBaseTest
         verifyZeroInteractions(sendMessageOperation);
     }
 
+    @Test
+    public void testSendMessageWhenThrottled() throws Exception
+    {
+        when(sendMessageOperation.process(request))
+            .thenThrow(new ThroughoutExceededException());
+
+        assertThrows(() -> instance.sendMessage(request))
+            .isInstanceOf(OperationFailedException.class);
+    }
+
+    @Test
+    public void testSendMessageWhenApplicationIsRateLimited() throws Exception
+    {
+        when(sendMessageOperation.process(request))
+            .thenThrow(new ApplicationThrottledException("limited"));
+
+        try
+        {
+            instance.sendMessage(request);
+            fail("Expected an OperationFailedException");
+        }
+        catch (OperationFailedException ex)
+        {
+            assertThat(ex.getMessage(), containsString("Rate Limited"));
+        }
+    }
+
+    @Test
+    public void testSendMessageWhenServiceIsAtCapacity() throws Exception
+    {
+        when(sendMessageOperation.process(request))
+            .thenThrow(new ServiceAtCapacityException("full"));
+
+        try
+        {
+            instance.sendMessage(request);
+            fail("Expected an OperationFailedException");
+        }
+        catch (OperationFailedException ex)
+        {
+            assertThat(ex.getMessage(), containsString("At Capacity"));
+        }
+    }
+
     @Test
     public void testSendMessageAsync() throws Exception
     {
@@ -128,6 +197,55 @@ public class ApplicationServiceBaseTest
         verify(sendMessageOperation).process(request);
     }
 
+    @DontRepeat
+    @Test
+    public void testSendMessageAsyncWithStagedPipeline() throws Exception
+    {
+        pipeline = StagedPipeline.newInstance(PipelineOptions.defaults(), metrics);
+        instance = new ApplicationServiceBase(sendMessageOperation, executor, pipeline, ringBufferOptions, metrics);
+
+        CountDownLatch processed = new CountDownLatch(1);
+        when(sendMessageOperation.process(request))
+            .thenAnswer(invocation ->
+            {
+                processed.countDown();
+                return response;
+            });
+
+        try
+        {
+            instance.sendMessageAsync(request);
+
+            assertThat(processed.await(5, TimeUnit.SECONDS), is(true));
+            verifyZeroInteractions(executor);
+        }
+        finally
+        {
+            pipeline.close();
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testSendMessageAsyncWithRingBuffer() throws Exception
+    {
+        ringBufferOptions = RingBufferOptions.of(16, 1, WaitStrategy.BLOCKING);
+        instance = new ApplicationServiceBase(sendMessageOperation, executor, pipeline, ringBufferOptions, metrics);
+
+        CountDownLatch processed = new CountDownLatch(1);
+        when(sendMessageOperation.process(request))
+            .thenAnswer(invocation ->
+            {
+                processed.countDown();
+                return response;
+            });
+
+        instance.sendMessageAsync(request);
+
+        assertThat(processed.await(5, TimeUnit.SECONDS), is(true));
+        verifyZeroInteractions(executor);
+    }
+
     @DontRepeat
     @Test
     public void testSendMessageAsyncWithBadArgs() throws Exception
@@ -24,6 +24,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import tech.aroma.application.service.latency.LatencyOptions;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import tech.aroma.thrift.application.service.*;
 import tech.aroma.thrift.authentication.*;
 import tech.aroma.thrift.authentication.service.*;
@@ -35,6 +37,8 @@ import tech.sirwellington.alchemy.test.junit.runners.*;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
+import static tech.aroma.application.service.latency.SendPathStage.GET_TOKEN_INFO;
+import static tech.aroma.application.service.latency.SendPathStage.VERIFY_TOKEN;
 import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
 import static tech.sirwellington.alchemy.generator.NumberGenerators.doubles;
 import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
@@ -58,6 +62,8 @@ public class AuthenticationLayerTest
     @Mock
     private Function<AuthenticationToken, ApplicationToken> tokenMapper;
 
+    private SendPathLatencies latencies;
+
     @GeneratePojo
     private SendMessageRequest request;
 
@@ -83,7 +89,8 @@ public class AuthenticationLayerTest
     @Before
     public void setUp() throws TException
     {
-        instance = new AuthenticationLayer(authenticationService, delegate, tokenMapper);
+        latencies = SendPathLatencies.newInstance(LatencyOptions.defaults());
+        instance = new AuthenticationLayer(authenticationService, delegate, tokenMapper, latencies);
         verifyZeroInteractions(authenticationService, delegate);
         
         setupData();
@@ -120,13 +127,16 @@ public class AuthenticationLayerTest
     @Test
     public void testConstructor()
     {
-        assertThrows(() -> new AuthenticationLayer(null, delegate, tokenMapper))
+        assertThrows(() -> new AuthenticationLayer(null, delegate, tokenMapper, latencies))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new AuthenticationLayer(authenticationService, null, tokenMapper, latencies))
             .isInstanceOf(IllegalArgumentException.class);
 
-        assertThrows(() -> new AuthenticationLayer(authenticationService, null, tokenMapper))
+        assertThrows(() -> new AuthenticationLayer(authenticationService, delegate, null, latencies))
             .isInstanceOf(IllegalArgumentException.class);
 
-        assertThrows(() -> new AuthenticationLayer(authenticationService, delegate, null))
+        assertThrows(() -> new AuthenticationLayer(authenticationService, delegate, tokenMapper, null))
             .isInstanceOf(IllegalArgumentException.class);
     }
 
@@ -163,6 +173,9 @@ public class AuthenticationLayerTest
         verify(delegate).sendMessage(request);
 
         verify(authenticationService).verifyToken(expectedVerifyRequest);
+
+        assertThat(latencies.getCount(VERIFY_TOKEN), is(1L));
+        assertThat(latencies.getCount(GET_TOKEN_INFO), is(0L));
     }
     
     @Test
@@ -189,6 +202,8 @@ public class AuthenticationLayerTest
         ApplicationToken expectedToken = new ApplicationToken(appToken).setApplicationId(appId);
         SendMessageRequest capturedRequest = captor.getValue();
         assertThat(capturedRequest.applicationToken, is(expectedToken));
+
+        assertThat(latencies.getCount(GET_TOKEN_INFO), is(1L));
     }
 
     @Test
@@ -16,21 +16,26 @@
 
 package tech.aroma.application.service;
 
-import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.*;
 import com.notnoop.apns.ApnsService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
+import tech.aroma.application.service.reactions.actions.PooledWebhookClient;
+import tech.aroma.application.service.reactions.actions.WebhookClient;
+import tech.aroma.application.service.reactions.actions.WebhookClientOptions;
 import tech.aroma.data.memory.ModuleMemoryDataRepositories;
 import tech.aroma.thrift.application.service.ApplicationService;
 import tech.aroma.thrift.authentication.service.AuthenticationService;
 import tech.aroma.thrift.notification.service.NotificationService;
 import tech.sirwellington.alchemy.annotations.testing.IntegrationTest;
-import tech.sirwellington.alchemy.http.AlchemyHttp;
 import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
@@ -90,10 +95,19 @@ public class ModuleApplicationServiceTest
     }
 
     @Test
-    public void testProvideHttpClient()
+    public void testProvideWebhookClient() throws Exception
+    {
+        WebhookClient client = instance.provideWebhookClient(WebhookClientOptions.defaults(), new MetricRegistry());
+        assertThat(client, instanceOf(PooledWebhookClient.class));
+        ((PooledWebhookClient) client).close();
+    }
+
+    @Test
+    public void testProvideScheduledExecutor()
     {
-        AlchemyHttp client = instance.provideHttpClient(MoreExecutors.newDirectExecutorService());
-        assertThat(client, notNullValue());
+        ScheduledExecutorService scheduler = instance.provideScheduledExecutor();
+        assertThat(scheduler, notNullValue());
+        scheduler.shutdownNow();
     }
 
 }
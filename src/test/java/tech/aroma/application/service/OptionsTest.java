@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class OptionsTest
+{
+
+    private int count;
+    private String name;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        count = one(integers(1, 1_000));
+        name = one(alphabeticStrings());
+    }
+
+    @Test
+    public void testEqualsWhenFieldsMatch()
+    {
+        Sample first = new Sample(count, name);
+        Sample second = new Sample(count, name);
+
+        assertThat(first, is(second));
+        assertThat(first.hashCode(), is(second.hashCode()));
+    }
+
+    @Test
+    public void testEqualsWhenAnyFieldDiffers()
+    {
+        Sample sample = new Sample(count, name);
+
+        assertThat(sample, not(new Sample(count + 1, name)));
+        assertThat(sample, not(new Sample(count, name + "-other")));
+        assertThat(sample, not(new Sample(count, null)));
+    }
+
+    @Test
+    public void testEqualsWhenClassesDiffer()
+    {
+        Sample sample = new Sample(count, name);
+        OtherSample other = new OtherSample(count, name);
+
+        assertThat(sample, not((Object) other));
+        assertThat(other, not((Object) sample));
+    }
+
+    @Test
+    public void testToString()
+    {
+        Sample sample = new Sample(count, name);
+
+        assertThat(sample.toString(), is("Sample{count=" + count + ", name=" + name + "}"));
+        assertThat(new Sample(count, null).toString(), is("Sample{count=" + count + ", name=null}"));
+    }
+
+    private static final class Sample extends Options
+    {
+
+        private static final Sample IGNORED = null;
+
+        private final int count;
+        private final String name;
+
+        private Sample(int count, String name)
+        {
+            this.count = count;
+            this.name = name;
+        }
+    }
+
+    private static final class OtherSample extends Options
+    {
+
+        private final int count;
+        private final String name;
+
+        private OtherSample(int count, String name)
+        {
+            this.count = count;
+            this.name = name;
+        }
+    }
+
+}
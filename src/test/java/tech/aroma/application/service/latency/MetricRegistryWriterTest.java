@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class MetricRegistryWriterTest
+{
+
+    private MetricRegistry metrics;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        metrics = new MetricRegistry();
+    }
+
+    @Test
+    public void testWriteCounter() throws Exception
+    {
+        metrics.counter("tech.aroma.Some-Class.dropped").inc(2);
+
+        String output = write();
+        assertThat(output, containsString("# TYPE aroma_tech_aroma_Some_Class_dropped counter\n"));
+        assertThat(output, containsString("aroma_tech_aroma_Some_Class_dropped 2\n"));
+    }
+
+    @Test
+    public void testWriteGauges() throws Exception
+    {
+        metrics.register("pending", (Gauge<Integer>) () -> 7);
+        metrics.register("open", (Gauge<Boolean>) () -> true);
+        metrics.register("name", (Gauge<String>) () -> "not a number");
+
+        String output = write();
+        assertThat(output, containsString("aroma_pending 7.0\n"));
+        assertThat(output, containsString("aroma_open 1\n"));
+        assertThat(output, not(containsString("aroma_name")));
+    }
+
+    @Test
+    public void testWriteMeter() throws Exception
+    {
+        metrics.meter("retries").mark(4);
+
+        assertThat(write(), containsString("aroma_retries 4\n"));
+    }
+
+    @Test
+    public void testWriteHistogram() throws Exception
+    {
+        metrics.histogram("flush-size").update(10);
+
+        String output = write();
+        assertThat(output, containsString("# TYPE aroma_flush_size summary\n"));
+        assertThat(output, containsString("aroma_flush_size{quantile=\"0.5\"} 10.0\n"));
+        assertThat(output, containsString("aroma_flush_size_count 1\n"));
+    }
+
+    @Test
+    public void testWriteTimerInSeconds() throws Exception
+    {
+        metrics.timer("wait").update(1_500, TimeUnit.MILLISECONDS);
+
+        String output = write();
+        assertThat(output, containsString("aroma_wait_seconds{quantile=\"0.99\"} 1.5\n"));
+        assertThat(output, containsString("aroma_wait_seconds_count 1\n"));
+    }
+
+    @Test
+    public void testWriteEmptyTimer() throws Exception
+    {
+        metrics.timer("wait");
+
+        String output = write();
+        assertThat(output, containsString("aroma_wait_seconds{quantile=\"0.5\"} NaN\n"));
+        assertThat(output, containsString("aroma_wait_seconds_count 0\n"));
+    }
+
+    private String write() throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        MetricRegistryWriter.writePrometheus(metrics, writer);
+        return writer.toString();
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class PrometheusEndpointTest
+{
+
+    private SendPathLatencies latencies;
+    private MetricRegistry metrics;
+
+    private PrometheusEndpoint instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        latencies = SendPathLatencies.newInstance(LatencyOptions.defaults());
+        metrics = new MetricRegistry();
+        instance = PrometheusEndpoint.start(0, latencies, metrics);
+    }
+
+    @After
+    public void tearDown()
+    {
+        instance.close();
+    }
+
+    @DontRepeat
+    @Test
+    public void testStartWithBadArgs()
+    {
+        assertThrows(() -> PrometheusEndpoint.start(-1, latencies, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PrometheusEndpoint.start(70_000, latencies, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PrometheusEndpoint.start(0, null, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PrometheusEndpoint.start(0, latencies, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testScrape() throws Exception
+    {
+        latencies.record(SendPathStage.REACT, latencies.start());
+
+        HttpURLConnection connection = open("GET");
+
+        assertThat(connection.getResponseCode(), is(200));
+        assertThat(connection.getContentType(), is(PrometheusEndpoint.CONTENT_TYPE));
+
+        String body = read(connection.getInputStream());
+        assertThat(body, containsString(SendPathLatencies.STAGE_METRIC + "_count{stage=\"react\"} 1\n"));
+    }
+
+    @Test
+    public void testScrapeIncludesRegistry() throws Exception
+    {
+        metrics.counter("dropped").inc(3);
+
+        String body = read(open("GET").getInputStream());
+        assertThat(body, containsString(MetricRegistryWriter.PREFIX + "dropped 3\n"));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithOtherMethods() throws Exception
+    {
+        HttpURLConnection connection = open("POST");
+
+        assertThat(connection.getResponseCode(), is(405));
+    }
+
+    private HttpURLConnection open(String method) throws Exception
+    {
+        URL url = new URL("http://localhost:" + instance.getPort() + PrometheusEndpoint.PATH);
+
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+
+        return connection;
+    }
+
+    private static String read(InputStream stream) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+
+        try (InputStream in = stream)
+        {
+            while ((read = in.read(buffer)) != -1)
+            {
+                bytes.write(buffer, 0, read);
+            }
+        }
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.latency;
+
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.aroma.application.service.latency.SendPathStage.*;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.EnumGenerators.enumValueOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class SendPathLatenciesTest
+{
+
+    private SendPathStage stage;
+    private int times;
+
+    private SendPathLatencies instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        stage = enumValueOf(SendPathStage.class).get();
+        times = one(integers(1, 100));
+
+        instance = SendPathLatencies.newInstance(LatencyOptions.defaults());
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new SendPathLatencies(null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> SendPathLatencies.newInstance(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRecord()
+    {
+        for (int i = 0; i < times; ++i)
+        {
+            instance.record(stage, instance.start());
+        }
+
+        assertThat(instance.getCount(stage), is((long) times));
+
+        for (SendPathStage other : SendPathStage.values())
+        {
+            if (other != stage)
+            {
+                assertThat(instance.getCount(other), is(0L));
+            }
+        }
+    }
+
+    @Test
+    public void testRecordAction()
+    {
+        for (int i = 0; i < times; ++i)
+        {
+            instance.recordAction(String.class, instance.start());
+        }
+
+        assertThat(instance.getActionCount(String.class), is((long) times));
+        assertThat(instance.getActionCount(Integer.class), is(0L));
+    }
+
+    @DontRepeat
+    @Test
+    public void testRecordWithBadArgs()
+    {
+        assertThrows(() -> instance.record(null, instance.start()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.recordAction(null, instance.start()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testWhenDisabled()
+    {
+        instance = SendPathLatencies.disabled();
+        assertThat(instance.isEnabled(), is(false));
+
+        instance.record(stage, instance.start());
+        instance.recordAction(String.class, instance.start());
+
+        assertThat(instance.getCount(stage), is(0L));
+        assertThat(instance.getActionCount(String.class), is(0L));
+    }
+
+    @Test
+    public void testWritePrometheus() throws Exception
+    {
+        for (int i = 0; i < times; ++i)
+        {
+            instance.record(stage, instance.start());
+            instance.recordAction(String.class, instance.start());
+        }
+
+        StringWriter writer = new StringWriter();
+        instance.writePrometheus(writer);
+        String result = writer.toString();
+
+        String stageLabel = "{stage=\"" + stage.getShortName() + "\"";
+        String actionLabel = "{action=\"java.lang.String\"";
+
+        assertThat(result, containsString("# TYPE " + SendPathLatencies.STAGE_METRIC + " summary\n"));
+        assertThat(result, containsString("# TYPE " + SendPathLatencies.ACTION_METRIC + " summary\n"));
+        assertThat(result, containsString(SendPathLatencies.STAGE_METRIC + stageLabel + ",quantile=\"0.99\"} "));
+        assertThat(result, containsString(SendPathLatencies.STAGE_METRIC + "_count" + stageLabel + "} " + times + "\n"));
+        assertThat(result, containsString(SendPathLatencies.ACTION_METRIC + "_count" + actionLabel + "} " + times + "\n"));
+
+        for (SendPathStage other : SendPathStage.values())
+        {
+            assertThat(result, containsString("{stage=\"" + other.getShortName() + "\""));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testActionsWithTheSameSimpleNameAreKeptApart() throws Exception
+    {
+        instance.recordAction(java.util.Date.class, instance.start());
+        instance.recordAction(java.sql.Date.class, instance.start());
+        instance.recordAction(java.sql.Date.class, instance.start());
+
+        StringWriter writer = new StringWriter();
+        instance.writePrometheus(writer);
+        String result = writer.toString();
+
+        assertThat(result, containsString(SendPathLatencies.ACTION_METRIC + "_count{action=\"java.util.Date\"} 1\n"));
+        assertThat(result, containsString(SendPathLatencies.ACTION_METRIC + "_count{action=\"java.sql.Date\"} 2\n"));
+    }
+
+    @Test
+    public void testQuantilesCoverTheTimeSinceTheLastExport() throws Exception
+    {
+        instance.record(stage, instance.start());
+        instance.writePrometheus(new StringWriter());
+
+        StringWriter writer = new StringWriter();
+        instance.writePrometheus(writer);
+        String result = writer.toString();
+
+        String stageLabel = "{stage=\"" + stage.getShortName() + "\"";
+
+        assertThat(result, containsString(SendPathLatencies.STAGE_METRIC + stageLabel + ",quantile=\"0.5\"} NaN\n"));
+        assertThat(result, containsString(SendPathLatencies.STAGE_METRIC + "_count" + stageLabel + "} 1\n"));
+    }
+
+    @DontRepeat
+    @Test
+    public void testStagesAreRecordedSeparately()
+    {
+        instance.record(VERIFY_TOKEN, instance.start());
+        instance.record(VERIFY_TOKEN, instance.start());
+        instance.record(RUN_ACTIONS, instance.start());
+
+        assertThat(instance.getCount(VERIFY_TOKEN), is(2L));
+        assertThat(instance.getCount(RUN_ACTIONS), is(1L));
+    }
+
+}
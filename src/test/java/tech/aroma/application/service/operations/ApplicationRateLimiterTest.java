@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+import static tech.sirwellington.alchemy.test.junit.runners.GenerateString.Type.UUID;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class ApplicationRateLimiterTest
+{
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private MetricRegistry metrics;
+    private RateLimitOptions options;
+
+    @GenerateString(UUID)
+    private String appId;
+
+    @GenerateString(UUID)
+    private String otherAppId;
+
+    private int rate;
+    private int burst;
+
+    private ApplicationRateLimiter instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        rate = one(integers(1, 100));
+        burst = one(integers(1, 100));
+
+        metrics = new MetricRegistry();
+        options = RateLimitOptions.of(rate, burst);
+
+        instance = new ApplicationRateLimiter(options, metrics, clock::get);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new ApplicationRateLimiter(null, metrics));
+        assertThrows(() -> new ApplicationRateLimiter(options, null));
+        assertThrows(() -> new ApplicationRateLimiter(options, metrics, null));
+    }
+
+    @Test
+    public void testTryAcquireAllowsBurst()
+    {
+        int result = instance.tryAcquire(appId, burst);
+        assertThat(result, is(burst));
+        assertThat(metrics.counter(ApplicationRateLimiter.METRIC_THROTTLED).getCount(), is(0L));
+    }
+
+    @Test
+    public void testTryAcquireBeyondBurst()
+    {
+        int extra = one(integers(1, 100));
+
+        int result = instance.tryAcquire(appId, burst + extra);
+        assertThat(result, is(burst));
+        assertThat(instance.tryAcquire(appId, 1), is(0));
+        assertThat(metrics.counter(ApplicationRateLimiter.METRIC_THROTTLED).getCount(), is((long) extra + 1));
+    }
+
+    @Test
+    public void testTryAcquireRefillsOverTime()
+    {
+        instance.tryAcquire(appId, burst);
+        assertThat(instance.tryAcquire(appId, 1), is(0));
+
+        clock.addAndGet(SECONDS.toNanos(1));
+
+        int result = instance.tryAcquire(appId, burst + rate);
+        assertThat(result, is(Math.min(rate, burst)));
+    }
+
+    @Test
+    public void testApplicationsHaveSeparateBuckets()
+    {
+        instance.tryAcquire(appId, burst);
+
+        assertThat(instance.tryAcquire(otherAppId, burst), is(burst));
+        assertThat(instance.getNumberOfTrackedApplications(), is(2));
+    }
+
+    @Test
+    public void testCheckAllowed() throws Exception
+    {
+        for (int i = 0; i < burst; ++i)
+        {
+            instance.checkAllowed(appId);
+        }
+
+        assertThrows(() -> instance.checkAllowed(appId))
+            .isInstanceOf(ApplicationThrottledException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testFullBucketsAreForgottenAtMostOncePerInterval()
+    {
+        //Buckets of one refill within a millisecond
+        instance = new ApplicationRateLimiter(RateLimitOptions.of(1_000, 1), metrics, clock::get);
+
+        for (int i = 0; i <= ApplicationRateLimiter.MAX_TRACKED_APPLICATIONS; ++i)
+        {
+            instance.tryAcquire("app-" + i, 1);
+        }
+
+        clock.addAndGet(MILLISECONDS.toNanos(1));
+        instance.tryAcquire(appId, 1);
+        assertThat(instance.getNumberOfTrackedApplications(), is(1));
+
+        for (int i = 0; i <= ApplicationRateLimiter.MAX_TRACKED_APPLICATIONS; ++i)
+        {
+            instance.tryAcquire("app-" + i, 1);
+        }
+
+        //Within the same interval, the buckets are kept even though they fill back up
+        clock.addAndGet(MILLISECONDS.toNanos(1));
+        instance.tryAcquire(otherAppId, 1);
+        assertThat(instance.getNumberOfTrackedApplications(), is(ApplicationRateLimiter.MAX_TRACKED_APPLICATIONS + 3));
+
+        clock.addAndGet(ApplicationRateLimiter.SWEEP_INTERVAL_NANOS);
+        instance.tryAcquire(otherAppId, 1);
+        assertThat(instance.getNumberOfTrackedApplications(), is(1));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenDisabled() throws Exception
+    {
+        instance = new ApplicationRateLimiter(RateLimitOptions.disabled(), metrics, clock::get);
+
+        int messages = one(integers(1_000, 100_000));
+        assertThat(instance.tryAcquire(appId, messages), is(messages));
+        instance.checkAllowed(appId);
+        assertThat(instance.getNumberOfTrackedApplications(), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testTryAcquireWithBadArgs()
+    {
+        assertThrows(() -> instance.tryAcquire("", 1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.tryAcquire(appId, -1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.function.Function;
+
+import org.apache.thrift.TException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.aroma.thrift.authentication.*;
+import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.exceptions.*;
+import tech.aroma.thrift.functions.TokenFunctions;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+import static tech.sirwellington.alchemy.test.junit.runners.GenerateString.Type.UUID;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class ApplicationTokenResolverTest
+{
+
+    @Mock
+    private AuthenticationService.Iface authenticationService;
+
+    @Mock
+    private Function<AuthenticationToken, ApplicationToken> tokenMapper;
+
+    @GeneratePojo
+    private ApplicationToken appToken;
+
+    @GenerateString(UUID)
+    private String appId;
+
+    private AuthenticationToken authToken;
+
+    private ApplicationTokenResolver instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        instance = new ApplicationTokenResolver(authenticationService, tokenMapper);
+
+        appToken.applicationId = appId;
+        authToken = TokenFunctions.appTokenToAuthTokenFunction().apply(appToken);
+
+        GetTokenInfoRequest expectedRequest = new GetTokenInfoRequest()
+            .setTokenId(appToken.tokenId)
+            .setTokenType(TokenType.APPLICATION);
+
+        when(authenticationService.getTokenInfo(expectedRequest))
+            .thenReturn(new GetTokenInfoResponse().setToken(authToken));
+
+        when(tokenMapper.apply(authToken)).thenReturn(appToken);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new ApplicationTokenResolver(null, tokenMapper));
+        assertThrows(() -> new ApplicationTokenResolver(authenticationService, null));
+    }
+
+    @Test
+    public void testVerify() throws Exception
+    {
+        instance.verify(appToken);
+
+        VerifyTokenRequest expected = new VerifyTokenRequest()
+            .setTokenId(appToken.tokenId)
+            .setOwnerId(appId);
+
+        verify(authenticationService).verifyToken(expected);
+    }
+
+    @Test
+    public void testVerifyWhenTokenIsInvalid() throws Exception
+    {
+        when(authenticationService.verifyToken(any()))
+            .thenThrow(new InvalidTokenException());
+
+        assertThrows(() -> instance.verify(appToken))
+            .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    public void testVerifyWhenServiceFails() throws Exception
+    {
+        when(authenticationService.verifyToken(any()))
+            .thenThrow(new TException());
+
+        assertThrows(() -> instance.verify(appToken))
+            .isInstanceOf(OperationFailedException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testVerifyWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.verify(null))
+            .isInstanceOf(InvalidTokenException.class);
+
+        assertThrows(() -> instance.verify(new ApplicationToken()))
+            .isInstanceOf(InvalidTokenException.class);
+
+        verifyZeroInteractions(authenticationService);
+    }
+
+    @Test
+    public void testResolve() throws Exception
+    {
+        ApplicationToken result = instance.resolve(appToken);
+        assertThat(result, is(appToken));
+    }
+
+    @Test
+    public void testResolveWhenTokenMapperFails() throws Exception
+    {
+        when(tokenMapper.apply(authToken)).thenThrow(new RuntimeException());
+
+        assertThrows(() -> instance.resolve(appToken))
+            .isInstanceOf(OperationFailedException.class);
+    }
+
+    @Test
+    public void testResolveWhenAppIdIsInvalid() throws Exception
+    {
+        ApplicationToken badToken = new ApplicationToken(appToken).setApplicationId("not-a-uuid");
+        when(tokenMapper.apply(authToken)).thenReturn(badToken);
+
+        assertThrows(() -> instance.resolve(appToken))
+            .isInstanceOf(OperationFailedException.class);
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.*;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class ConcurrencyLimitOptionsTest
+{
+
+    private int minLimit;
+    private int initialLimit;
+    private int maxLimit;
+    private long targetLatency;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        minLimit = one(integers(1, 100));
+        initialLimit = minLimit + one(integers(0, 100));
+        maxLimit = initialLimit + one(integers(0, 100));
+        targetLatency = one(longs(1, 10_000));
+    }
+
+    @Test
+    public void testOfWhenInitialLimitIsOutsideTheBounds()
+    {
+        assertThrows(() -> ConcurrencyLimitOptions.of(minLimit - 1, minLimit, maxLimit, targetLatency))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> ConcurrencyLimitOptions.of(maxLimit + 1, minLimit, maxLimit, targetLatency))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testOfWhenMaxLimitIsBelowMinLimit()
+    {
+        assertThrows(() -> ConcurrencyLimitOptions.of(minLimit, minLimit, minLimit - 1, targetLatency))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testOfWhenLimitsAreEqual()
+    {
+        ConcurrencyLimitOptions result = ConcurrencyLimitOptions.of(minLimit, minLimit, minLimit, targetLatency);
+        assertThat(result.getInitialLimit(), is(minLimit));
+        assertThat(result.getMaxLimit(), is(minLimit));
+    }
+
+}
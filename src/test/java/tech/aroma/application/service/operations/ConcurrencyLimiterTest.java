@@ -0,0 +1,277 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.aroma.application.service.operations.ConcurrencyLimiter.Permit;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class ConcurrencyLimiterTest
+{
+
+    private static final int INITIAL_LIMIT = 10;
+    private static final int MIN_LIMIT = 2;
+    private static final int MAX_LIMIT = 20;
+    private static final long TARGET_LATENCY = 100;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private MetricRegistry metrics;
+    private ConcurrencyLimitOptions options;
+
+    private ConcurrencyLimiter instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        metrics = new MetricRegistry();
+        options = ConcurrencyLimitOptions.of(INITIAL_LIMIT, MIN_LIMIT, MAX_LIMIT, TARGET_LATENCY);
+
+        instance = new ConcurrencyLimiter(options, metrics, clock::get);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new ConcurrencyLimiter(null, metrics));
+        assertThrows(() -> new ConcurrencyLimiter(options, null));
+        assertThrows(() -> new ConcurrencyLimiter(options, metrics, null));
+    }
+
+    @Test
+    public void testAcquireAndClose() throws Exception
+    {
+        Permit permit = instance.acquire();
+        assertThat(instance.getInFlight(), is(1));
+
+        permit.close();
+        permit.close();
+        assertThat(instance.getInFlight(), is(0));
+    }
+
+    @Test
+    public void testShedsWhenAtLimit() throws Exception
+    {
+        for (int i = 0; i < INITIAL_LIMIT; ++i)
+        {
+            instance.acquire();
+        }
+
+        assertThrows(() -> instance.acquire())
+            .isInstanceOf(ServiceAtCapacityException.class);
+
+        assertThat(metrics.counter(ConcurrencyLimiter.METRIC_SHED).getCount(), is(1L));
+        assertThat(instance.getInFlight(), is(INITIAL_LIMIT));
+    }
+
+    @Test
+    public void testLimitGrowsWhenFastAndBusy() throws Exception
+    {
+        Permit[] permits = new Permit[INITIAL_LIMIT];
+
+        for (int i = 0; i < permits.length; ++i)
+        {
+            permits[i] = instance.acquire();
+        }
+
+        clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY / 2));
+        permits[permits.length - 1].started();
+
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT + 1));
+    }
+
+    @Test
+    public void testLimitStaysWhenIdle() throws Exception
+    {
+        try (Permit permit = instance.acquire())
+        {
+            clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY / 2));
+            permit.started();
+        }
+
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT));
+    }
+
+    @Test
+    public void testLimitShrinksWhenSlow() throws Exception
+    {
+        clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY));
+
+        Permit first = instance.acquire();
+        Permit second = instance.acquire();
+
+        clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY * 2));
+        first.started();
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT - 1));
+
+        //A second long wait within the same interval does not shrink it again
+        second.started();
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT - 1));
+    }
+
+    @Test
+    public void testSlowWorkDoesNotShrinkLimit() throws Exception
+    {
+        try (Permit permit = instance.acquire())
+        {
+            permit.started();
+            clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY * 10));
+        }
+
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT));
+        assertThat(metrics.timer(ConcurrencyLimiter.METRIC_LATENCY).getCount(), is(1L));
+    }
+
+    @Test
+    public void testStartedOnlyCountsOnce() throws Exception
+    {
+        clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY));
+
+        try (Permit permit = instance.acquire())
+        {
+            permit.started();
+            clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY * 2));
+            permit.started();
+        }
+
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT));
+        assertThat(metrics.timer(ConcurrencyLimiter.METRIC_WAIT).getCount(), is(1L));
+    }
+
+    @Test
+    public void testPermitClosedWithoutStarting() throws Exception
+    {
+        clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY));
+
+        Permit permit = instance.acquire();
+        clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY * 2));
+        permit.close();
+        permit.started();
+
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT));
+        assertThat(instance.getInFlight(), is(0));
+        assertThat(metrics.timer(ConcurrencyLimiter.METRIC_WAIT).getCount(), is(0L));
+    }
+
+    @Test
+    public void testLimitGrowsWithSteadyServiceTimeWhenBusy() throws Exception
+    {
+        for (int round = 0; round < 5; ++round)
+        {
+            runUnqueued(instance.getLimit(), TARGET_LATENCY * 10);
+        }
+
+        assertThat(instance.getLimit(), greaterThan(INITIAL_LIMIT));
+        assertThat(instance.getLimit(), lessThanOrEqualTo(MAX_LIMIT));
+    }
+
+    @Test
+    public void testLimitStaysWithSteadyServiceTimeWhenIdle() throws Exception
+    {
+        for (int i = 0; i < 50; ++i)
+        {
+            runUnqueued(1, TARGET_LATENCY * 10);
+        }
+
+        assertThat(instance.getLimit(), is(INITIAL_LIMIT));
+    }
+
+    @Test
+    public void testLimitShrinksWhenServiceTimeRises() throws Exception
+    {
+        for (int i = 0; i < 50; ++i)
+        {
+            runUnqueued(1, 10);
+        }
+
+        for (int i = 0; i < 20; ++i)
+        {
+            runUnqueued(1, 100);
+        }
+
+        assertThat(instance.getLimit(), lessThan(INITIAL_LIMIT));
+        assertThat(instance.getLimit(), greaterThanOrEqualTo(MIN_LIMIT));
+    }
+
+    @Test
+    public void testLimitNeverShrinksBelowMin() throws Exception
+    {
+        for (int i = 0; i < INITIAL_LIMIT * 2; ++i)
+        {
+            Permit permit = instance.acquire();
+            clock.addAndGet(MILLISECONDS.toNanos(TARGET_LATENCY * 2));
+            permit.started();
+            permit.close();
+        }
+
+        assertThat(instance.getLimit(), is(MIN_LIMIT));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenDisabled() throws Exception
+    {
+        instance = new ConcurrencyLimiter(ConcurrencyLimitOptions.disabled(), metrics, clock::get);
+
+        for (int i = 0; i < MAX_LIMIT * 10; ++i)
+        {
+            instance.acquire();
+        }
+
+        assertThat(instance.getInFlight(), is(0));
+        assertThat(metrics.getGauges().containsKey(ConcurrencyLimiter.METRIC_LIMIT), is(false));
+    }
+
+    /**
+     * Runs {@code concurrently} Permits that are closed without being started, as when no stage queue exists.
+     */
+    private void runUnqueued(int concurrently, long serviceMillis) throws Exception
+    {
+        Permit[] permits = new Permit[concurrently];
+
+        for (int i = 0; i < permits.length; ++i)
+        {
+            permits[i] = instance.acquire();
+        }
+
+        clock.addAndGet(MILLISECONDS.toNanos(serviceMillis));
+
+        for (Permit permit : permits)
+        {
+            permit.close();
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.longs;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+import static tech.sirwellington.alchemy.test.junit.runners.GenerateString.Type.UUID;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class DuplicateMessageFilterTest
+{
+
+    private static final long WINDOW = 1_000;
+    private static final int MAX_ENTRIES = 10;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private MetricRegistry metrics;
+    private DeduplicationOptions options;
+
+    @GenerateString(UUID)
+    private String appId;
+
+    @GenerateString(UUID)
+    private String messageId;
+
+    @GenerateString(UUID)
+    private String retryMessageId;
+
+    @GeneratePojo
+    private SendMessageRequest request;
+
+    private UUID fingerprint;
+
+    private DuplicateMessageFilter instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        request.setTimeOfMessage(one(longs(1, Long.MAX_VALUE)));
+
+        metrics = new MetricRegistry();
+        options = DeduplicationOptions.of(WINDOW, MAX_ENTRIES);
+        fingerprint = DuplicateMessageFilter.fingerprintOf(appId, request);
+
+        instance = new DuplicateMessageFilter(options, metrics, clock::get);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new DuplicateMessageFilter(null, metrics));
+        assertThrows(() -> new DuplicateMessageFilter(options, null));
+        assertThrows(() -> new DuplicateMessageFilter(options, metrics, null));
+    }
+
+    @Test
+    public void testFingerprintOf()
+    {
+        assertThat(fingerprint, notNullValue());
+        assertThat(DuplicateMessageFilter.fingerprintOf(appId, new SendMessageRequest(request)), is(fingerprint));
+
+        SendMessageRequest otherTime = new SendMessageRequest(request).setTimeOfMessage(request.timeOfMessage - 1);
+        assertThat(DuplicateMessageFilter.fingerprintOf(appId, otherTime), not(fingerprint));
+
+        SendMessageRequest otherTitle = new SendMessageRequest(request).setTitle(request.title + "!");
+        assertThat(DuplicateMessageFilter.fingerprintOf(appId, otherTitle), not(fingerprint));
+
+        SendMessageRequest otherHost = new SendMessageRequest(request).setHostname(request.hostname + "!");
+        assertThat(DuplicateMessageFilter.fingerprintOf(appId, otherHost), not(fingerprint));
+
+        assertThat(DuplicateMessageFilter.fingerprintOf(appId + "!", request), not(fingerprint));
+    }
+
+    @Test
+    public void testFingerprintOfWithoutTimeOfMessage()
+    {
+        request.unsetTimeOfMessage();
+
+        assertThat(DuplicateMessageFilter.fingerprintOf(appId, request), nullValue());
+        assertThat(DuplicateMessageFilter.fingerprintOf(null, request), nullValue());
+        assertThat(DuplicateMessageFilter.fingerprintOf(appId, null), nullValue());
+    }
+
+    @Test
+    public void testClaim()
+    {
+        assertThat(instance.claim(fingerprint, messageId), nullValue());
+        assertThat(instance.claim(fingerprint, retryMessageId), is(messageId));
+        assertThat(metrics.counter(DuplicateMessageFilter.METRIC_DUPLICATES).getCount(), is(1L));
+    }
+
+    @Test
+    public void testClaimAfterWindow()
+    {
+        instance.claim(fingerprint, messageId);
+
+        clock.addAndGet(MILLISECONDS.toNanos(WINDOW));
+
+        assertThat(instance.claim(fingerprint, retryMessageId), nullValue());
+        assertThat(instance.size(), is(1));
+    }
+
+    @Test
+    public void testClaimForgetsOldestWhenFull()
+    {
+        instance.claim(fingerprint, messageId);
+
+        for (int i = 0; i < MAX_ENTRIES; ++i)
+        {
+            instance.claim(java.util.UUID.randomUUID(), messageId);
+        }
+
+        assertThat(instance.size(), is(MAX_ENTRIES));
+        assertThat(instance.claim(fingerprint, retryMessageId), nullValue());
+    }
+
+    @Test
+    public void testClaimWithoutFingerprint()
+    {
+        assertThat(instance.claim(null, messageId), nullValue());
+        assertThat(instance.claim(null, retryMessageId), nullValue());
+        assertThat(instance.size(), is(0));
+    }
+
+    @Test
+    public void testRelease()
+    {
+        instance.claim(fingerprint, messageId);
+
+        instance.release(fingerprint, retryMessageId);
+        assertThat(instance.size(), is(1));
+
+        instance.release(fingerprint, messageId);
+        assertThat(instance.claim(fingerprint, retryMessageId), nullValue());
+    }
+
+    @DontRepeat
+    @Test
+    public void testClaimFromManyThreads() throws Exception
+    {
+        int threads = 8;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicInteger winners = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try
+        {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int i = 0; i < threads; ++i)
+            {
+                String id = java.util.UUID.randomUUID().toString();
+
+                results.add(executor.submit(() ->
+                {
+                    barrier.await();
+
+                    if (instance.claim(fingerprint, id) == null)
+                    {
+                        winners.incrementAndGet();
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> result : results)
+            {
+                result.get(5, SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertThat(winners.get(), is(1));
+        assertThat(metrics.counter(DuplicateMessageFilter.METRIC_DUPLICATES).getCount(), is((long) threads - 1));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenDisabled()
+    {
+        instance = new DuplicateMessageFilter(DeduplicationOptions.disabled(), metrics, clock::get);
+
+        assertThat(instance.claim(fingerprint, messageId), nullValue());
+        assertThat(instance.claim(fingerprint, retryMessageId), nullValue());
+        assertThat(instance.size(), is(0));
+    }
+
+}
@@ -16,20 +16,28 @@
 
 package tech.aroma.application.service.operations;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.*;
 import com.notnoop.apns.ApnsService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import tech.aroma.application.service.latency.LatencyOptions;
+import tech.aroma.application.service.pipeline.PipelineOptions;
+import tech.aroma.application.service.pipeline.RingBufferOptions;
+import tech.aroma.application.service.reactions.SingleFlightOptions;
+import tech.aroma.application.service.reactions.StormCollapseOptions;
+import tech.aroma.application.service.reactions.actions.*;
 import tech.aroma.data.memory.ModuleMemoryDataRepositories;
 import tech.aroma.thrift.authentication.ApplicationToken;
 import tech.aroma.thrift.authentication.AuthenticationToken;
 import tech.aroma.thrift.authentication.service.AuthenticationService;
 import tech.aroma.thrift.notification.service.NotificationService;
 import tech.sirwellington.alchemy.annotations.testing.IntegrationTest;
-import tech.sirwellington.alchemy.http.AlchemyHttp;
 import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
 
 import static org.hamcrest.Matchers.notNullValue;
@@ -78,7 +86,22 @@ public class ModuleApplicationServiceOperationsTest
         @Override
         protected void configure()
         {
-
+            bind(ExecutorService.class).toInstance(mock(ExecutorService.class));
+            bind(ScheduledExecutorService.class).toInstance(mock(ScheduledExecutorService.class));
+            bind(MetricRegistry.class).toInstance(new MetricRegistry());
+            bind(ActionRunnerLimits.class).toInstance(ActionRunnerLimits.defaults());
+            bind(WebhookDigestOptions.class).toInstance(WebhookDigestOptions.disabled());
+            bind(WebhookDeliveryOptions.class).toInstance(WebhookDeliveryOptions.defaults());
+            bind(CircuitBreakerOptions.class).toInstance(CircuitBreakerOptions.defaults());
+            bind(NotificationDispatchOptions.class).toInstance(NotificationDispatchOptions.disabled());
+            bind(RateLimitOptions.class).toInstance(RateLimitOptions.defaults());
+            bind(ConcurrencyLimitOptions.class).toInstance(ConcurrencyLimitOptions.defaults());
+            bind(DeduplicationOptions.class).toInstance(DeduplicationOptions.disabled());
+            bind(StormCollapseOptions.class).toInstance(StormCollapseOptions.disabled());
+            bind(SingleFlightOptions.class).toInstance(SingleFlightOptions.disabled());
+            bind(PipelineOptions.class).toInstance(PipelineOptions.disabled());
+            bind(RingBufferOptions.class).toInstance(RingBufferOptions.disabled());
+            bind(LatencyOptions.class).toInstance(LatencyOptions.disabled());
         }
 
         @Provides
@@ -94,11 +117,11 @@ public class ModuleApplicationServiceOperationsTest
         }
         
         @Provides
-        AlchemyHttp provideAlchemyHttp()
+        WebhookClient provideWebhookClient()
         {
-            return mock(AlchemyHttp.class);
+            return mock(WebhookClient.class);
         }
-        
+
         @Provides
         ApnsService provideApnsService()
         {
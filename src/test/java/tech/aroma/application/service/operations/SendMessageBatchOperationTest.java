@@ -0,0 +1,389 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.operations;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.thrift.TException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.*;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.operations.SendMessageBatchResponse.Result;
+import tech.aroma.application.service.operations.SendMessageBatchResponse.Status;
+import tech.aroma.application.service.pipeline.PipelineOptions;
+import tech.aroma.application.service.pipeline.Stage;
+import tech.aroma.application.service.pipeline.StagedPipeline;
+import tech.aroma.application.service.reactions.MessageReactor;
+import tech.aroma.application.service.reactions.PartialReactionException;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.aroma.thrift.application.service.SendMessageResponse;
+import tech.aroma.thrift.authentication.*;
+import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.exceptions.*;
+import tech.aroma.thrift.functions.TokenFunctions;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+import static tech.sirwellington.alchemy.test.junit.runners.GenerateString.Type.UUID;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class SendMessageBatchOperationTest
+{
+
+    @Mock
+    private AuthenticationService.Iface authenticationService;
+
+    @Mock
+    private MessageReactor messageReactor;
+
+    @Mock
+    private Function<AuthenticationToken, ApplicationToken> tokenMapper;
+
+    @Captor
+    private ArgumentCaptor<List<Message>> captor;
+
+    @GenerateString(UUID)
+    private String appId;
+
+    private ApplicationToken appToken;
+    private AuthenticationToken authToken;
+
+    private List<SendMessageRequest> requests;
+    private SendMessageBatchRequest batch;
+
+    private MetricRegistry metrics = new MetricRegistry();
+    private ApplicationRateLimiter rateLimiter;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private DuplicateMessageFilter duplicateFilter;
+    private StagedPipeline pipeline;
+
+    private SendMessageBatchOperation instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        rateLimiter = new ApplicationRateLimiter(RateLimitOptions.disabled(), metrics);
+        concurrencyLimiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.disabled(), metrics);
+        duplicateFilter = new DuplicateMessageFilter(DeduplicationOptions.disabled(), metrics);
+        pipeline = StagedPipeline.inline();
+
+        instance = new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline);
+
+        setupData();
+        setupMocks();
+    }
+
+    private void setupData() throws Exception
+    {
+        appToken = one(pojos(ApplicationToken.class));
+        appToken.applicationId = appId;
+
+        authToken = TokenFunctions.appTokenToAuthTokenFunction().apply(appToken);
+
+        requests = Lists.create();
+        for (int i = 0; i < 5; ++i)
+        {
+            requests.add(one(pojos(SendMessageRequest.class)));
+        }
+
+        batch = new SendMessageBatchRequest(appToken, requests);
+    }
+
+    private void setupMocks() throws Exception
+    {
+        GetTokenInfoRequest expectedRequest = new GetTokenInfoRequest()
+            .setTokenId(appToken.tokenId)
+            .setTokenType(TokenType.APPLICATION);
+
+        when(authenticationService.getTokenInfo(expectedRequest))
+            .thenReturn(new GetTokenInfoResponse().setToken(authToken));
+
+        when(tokenMapper.apply(authToken)).thenReturn(appToken);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new SendMessageBatchOperation(null, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline));
+        assertThrows(() -> new SendMessageBatchOperation(authenticationService, null, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline));
+        assertThrows(() -> new SendMessageBatchOperation(authenticationService, messageReactor, null, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline));
+        assertThrows(() -> new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, null, concurrencyLimiter, duplicateFilter, pipeline));
+        assertThrows(() -> new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, null, duplicateFilter, pipeline));
+        assertThrows(() -> new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, null, pipeline));
+        assertThrows(() -> new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, null));
+    }
+
+    @Test
+    public void testProcess() throws Exception
+    {
+        SendMessageBatchResponse response = instance.process(batch);
+        assertThat(response, notNullValue());
+        assertThat(response.getResults().size(), is(requests.size()));
+        assertThat(response.getNumberOf(Status.ACCEPTED), is(requests.size()));
+
+        verify(authenticationService, times(1)).verifyToken(any());
+        verify(authenticationService, times(1)).getTokenInfo(any());
+        verify(messageReactor).reactToMessages(captor.capture());
+
+        List<Message> messages = captor.getValue();
+        assertThat(messages.size(), is(requests.size()));
+
+        for (int i = 0; i < requests.size(); ++i)
+        {
+            Result result = response.getResults().get(i);
+            Message message = messages.get(i);
+
+            assertThat(result.getIndex(), is(i));
+            assertThat(result.getMessageId(), is(message.messageId));
+            assertThat(message.title, is(requests.get(i).title));
+            assertThat(message.applicationId, is(appId));
+        }
+    }
+
+    @Test
+    public void testProcessWithInvalidMessage() throws Exception
+    {
+        requests.get(1).unsetTitle();
+        requests.set(3, null);
+        batch = new SendMessageBatchRequest(appToken, requests);
+
+        SendMessageBatchResponse response = instance.process(batch);
+        assertThat(response.getNumberOf(Status.ACCEPTED), is(requests.size() - 2));
+        assertThat(response.getNumberOf(Status.REJECTED), is(2));
+
+        Result rejected = response.getResults().get(1);
+        assertThat(rejected.getIndex(), is(1));
+        assertThat(rejected.getStatus(), is(Status.REJECTED));
+        assertThat(rejected.getMessageId(), nullValue());
+        assertThat(rejected.getReason(), not(isEmptyOrNullString()));
+
+        verify(messageReactor).reactToMessages(captor.capture());
+        assertThat(captor.getValue().size(), is(requests.size() - 2));
+    }
+
+    @Test
+    public void testProcessWhenReactorFails() throws Exception
+    {
+        when(messageReactor.reactToMessages(any()))
+            .thenThrow(new OperationFailedException());
+
+        SendMessageBatchResponse response = instance.process(batch);
+        assertThat(response.getNumberOf(Status.FAILED), is(requests.size()));
+
+        for (Result result : response.getResults())
+        {
+            assertThat(result.getMessageId(), not(isEmptyOrNullString()));
+        }
+    }
+
+    @Test
+    public void testProcessWhenReactorFailsPartWay() throws Exception
+    {
+        duplicateFilter = new DuplicateMessageFilter(DeduplicationOptions.defaults(), metrics);
+        instance = new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < requests.size(); ++i)
+        {
+            requests.get(i).setTimeOfMessage(now + i);
+        }
+
+        int reacted = 2;
+        when(messageReactor.reactToMessages(any()))
+            .thenAnswer(invocation ->
+            {
+                List<Message> messages = (List<Message>) invocation.getArguments()[0];
+                List<SendMessageResponse> responses = Lists.create();
+
+                for (int i = 0; i < reacted; ++i)
+                {
+                    responses.add(new SendMessageResponse().setMessageId(messages.get(i).messageId));
+                }
+
+                throw new PartialReactionException(responses, new OperationFailedException());
+            })
+            .thenReturn(Lists.create());
+
+        SendMessageBatchResponse first = instance.process(batch);
+        assertThat(first.getNumberOf(Status.ACCEPTED), is(reacted));
+        assertThat(first.getNumberOf(Status.FAILED), is(requests.size() - reacted));
+
+        //Only the Messages that were not reacted to are let through again.
+        SendMessageBatchResponse retry = instance.process(batch);
+        assertThat(retry.getNumberOf(Status.ACCEPTED), is(requests.size()));
+
+        for (int i = 0; i < reacted; ++i)
+        {
+            assertThat(retry.getResults().get(i).getMessageId(), is(first.getResults().get(i).getMessageId()));
+        }
+
+        verify(messageReactor, times(2)).reactToMessages(captor.capture());
+        assertThat(captor.getAllValues().get(1).size(), is(requests.size() - reacted));
+    }
+
+    @DontRepeat
+    @Test
+    public void testProcessWithStagedPipeline() throws Exception
+    {
+        pipeline = StagedPipeline.newInstance(PipelineOptions.defaults(), metrics);
+        instance = new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline);
+
+        AtomicReference<String> matchThread = new AtomicReference<>();
+        when(messageReactor.reactToMessages(any()))
+            .thenAnswer(invocation ->
+            {
+                matchThread.set(Thread.currentThread().getName());
+                return Lists.create();
+            });
+
+        try
+        {
+            SendMessageBatchResponse response = instance.process(batch);
+
+            assertThat(response.getNumberOf(Status.ACCEPTED), is(requests.size()));
+            //The caller waits for the result anyway, so it runs the stage's work itself.
+            assertThat(matchThread.get(), is(Thread.currentThread().getName()));
+            assertThat(metrics.timer(MetricRegistry.name(Stage.class, "match", "service-time")).getCount(), greaterThan(0L));
+        }
+        finally
+        {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void testProcessWhenBatchIsRetried() throws Exception
+    {
+        duplicateFilter = new DuplicateMessageFilter(DeduplicationOptions.defaults(), metrics);
+        instance = new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < requests.size(); ++i)
+        {
+            requests.get(i).setTimeOfMessage(now + i);
+        }
+
+        SendMessageBatchResponse first = instance.process(batch);
+        SendMessageBatchResponse retry = instance.process(batch);
+
+        assertThat(retry.getNumberOf(Status.ACCEPTED), is(requests.size()));
+
+        for (int i = 0; i < requests.size(); ++i)
+        {
+            assertThat(retry.getResults().get(i).getMessageId(), is(first.getResults().get(i).getMessageId()));
+        }
+
+        verify(messageReactor, times(2)).reactToMessages(captor.capture());
+        assertThat(captor.getAllValues().get(0).size(), is(requests.size()));
+        assertThat(captor.getAllValues().get(1).size(), is(0));
+    }
+
+    @Test
+    public void testProcessWhenRateLimited() throws Exception
+    {
+        int allowed = 2;
+        rateLimiter = new ApplicationRateLimiter(RateLimitOptions.of(0.001, allowed), metrics);
+        instance = new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline);
+
+        SendMessageBatchResponse response = instance.process(batch);
+        assertThat(response.getNumberOf(Status.ACCEPTED), is(allowed));
+        assertThat(response.getNumberOf(Status.THROTTLED), is(requests.size() - allowed));
+
+        for (int i = allowed; i < requests.size(); ++i)
+        {
+            Result throttled = response.getResults().get(i);
+            assertThat(throttled.getIndex(), is(i));
+            assertThat(throttled.getMessageId(), nullValue());
+        }
+
+        verify(messageReactor).reactToMessages(captor.capture());
+        assertThat(captor.getValue().size(), is(allowed));
+    }
+
+    @DontRepeat
+    @Test
+    public void testProcessWhenAtCapacity() throws Exception
+    {
+        concurrencyLimiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.of(1, 1, 1, 1_000), metrics);
+        instance = new SendMessageBatchOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline);
+
+        try (ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire())
+        {
+            SendMessageBatchResponse response = instance.process(batch);
+            assertThat(response.getNumberOf(Status.THROTTLED), is(requests.size()));
+        }
+
+        verify(messageReactor, never()).reactToMessages(any());
+    }
+
+    @DontRepeat
+    @Test
+    public void testProcessWhenTokenIsInvalid() throws Exception
+    {
+        when(authenticationService.verifyToken(any()))
+            .thenThrow(new InvalidTokenException());
+
+        assertThrows(() -> instance.process(batch))
+            .isInstanceOf(InvalidTokenException.class);
+
+        verifyZeroInteractions(messageReactor);
+    }
+
+    @DontRepeat
+    @Test
+    public void testProcessWhenBatchIsTooLarge() throws Exception
+    {
+        List<SendMessageRequest> tooMany = Lists.create();
+        for (int i = 0; i <= SendMessageBatchOperation.MAX_MESSAGES_PER_BATCH; ++i)
+        {
+            tooMany.add(requests.get(0));
+        }
+
+        assertThrows(() -> instance.process(new SendMessageBatchRequest(appToken, tooMany)))
+            .isInstanceOf(InvalidArgumentException.class);
+
+        verifyZeroInteractions(authenticationService, messageReactor);
+    }
+
+    @DontRepeat
+    @Test
+    public void testProcessWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.process(null))
+            .isInstanceOf(InvalidArgumentException.class);
+    }
+
+}
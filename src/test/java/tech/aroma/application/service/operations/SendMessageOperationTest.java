@@ -16,8 +16,10 @@
 
 package tech.aroma.application.service.operations;
 
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+import com.codahale.metrics.MetricRegistry;
 import junit.framework.AssertionFailedError;
 import org.apache.thrift.TApplicationException;
 import org.apache.thrift.TException;
@@ -25,6 +27,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
+import tech.aroma.application.service.pipeline.PipelineOptions;
+import tech.aroma.application.service.pipeline.Stage;
+import tech.aroma.application.service.latency.LatencyOptions;
+import tech.aroma.application.service.latency.SendPathLatencies;
+import tech.aroma.application.service.pipeline.StagedPipeline;
 import tech.aroma.application.service.reactions.MessageReactor;
 import tech.aroma.thrift.Application;
 import tech.aroma.thrift.Message;
@@ -32,14 +39,17 @@ import tech.aroma.thrift.application.service.SendMessageRequest;
 import tech.aroma.thrift.application.service.SendMessageResponse;
 import tech.aroma.thrift.authentication.*;
 import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.exceptions.OperationFailedException;
 import tech.aroma.thrift.functions.TokenFunctions;
 import tech.sirwellington.alchemy.test.junit.runners.*;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
+import static tech.aroma.application.service.latency.SendPathStage.*;
 import static tech.aroma.data.assertions.RequestAssertions.validApplicationId;
 import static tech.aroma.data.assertions.RequestAssertions.validMessageId;
 import static tech.aroma.thrift.application.service.ApplicationServiceConstants.MAX_CHARACTERS_IN_BODY;
@@ -71,6 +81,14 @@ public class SendMessageOperationTest
     @Captor
     private ArgumentCaptor<Message> captor;
 
+    private MetricRegistry metrics = new MetricRegistry();
+    private ApplicationRateLimiter rateLimiter;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private DuplicateMessageFilter duplicateFilter;
+    private StagedPipeline pipeline;
+
+    private SendPathLatencies latencies;
+
     private SendMessageOperation instance;
 
     private GetTokenInfoRequest expectedAuthenticationRequest;
@@ -97,7 +115,13 @@ public class SendMessageOperationTest
     @Before
     public void setUp() throws Exception
     {
-        instance = new SendMessageOperation(authenticationService, messageReactor, tokenMapper);
+        rateLimiter = new ApplicationRateLimiter(RateLimitOptions.disabled(), metrics);
+        concurrencyLimiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.disabled(), metrics);
+        duplicateFilter = new DuplicateMessageFilter(DeduplicationOptions.disabled(), metrics);
+        pipeline = StagedPipeline.inline();
+        latencies = SendPathLatencies.newInstance(LatencyOptions.defaults());
+
+        instance = new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies);
 
         verifyZeroInteractions(authenticationService, messageReactor);
 
@@ -109,9 +133,14 @@ public class SendMessageOperationTest
     @Test
     public void testConstructor()
     {
-        assertThrows(() -> new SendMessageOperation(null, messageReactor, tokenMapper));
-        assertThrows(() -> new SendMessageOperation(authenticationService, null, tokenMapper));
-        assertThrows(() -> new SendMessageOperation(authenticationService, messageReactor, null));
+        assertThrows(() -> new SendMessageOperation(null, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies));
+        assertThrows(() -> new SendMessageOperation(authenticationService, null, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies));
+        assertThrows(() -> new SendMessageOperation(authenticationService, messageReactor, null, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies));
+        assertThrows(() -> new SendMessageOperation(authenticationService, messageReactor, tokenMapper, null, concurrencyLimiter, duplicateFilter, pipeline, latencies));
+        assertThrows(() -> new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, null, duplicateFilter, pipeline, latencies));
+        assertThrows(() -> new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, null, pipeline, latencies));
+        assertThrows(() -> new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, null, latencies));
+        assertThrows(() -> new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, null));
     }
 
     @Test
@@ -136,6 +165,9 @@ public class SendMessageOperationTest
         assertThat(message.hostname, is(request.hostname));
         assertThat(message.timeOfCreation, is(request.timeOfMessage));
 
+        assertThat(latencies.getCount(RESOLVE_TOKEN), is(1L));
+        assertThat(latencies.getCount(BUILD_MESSAGE), is(1L));
+        assertThat(latencies.getCount(REACT), is(1L));
     }
 
     @Test
@@ -188,6 +220,105 @@ public class SendMessageOperationTest
         assertThat(savedMessage.messageId, is(result.messageId));
     }
     
+    @Test
+    public void testWhenMessageIsRetried() throws Exception
+    {
+        duplicateFilter = new DuplicateMessageFilter(DeduplicationOptions.defaults(), metrics);
+        instance = new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies);
+        request.setTimeOfMessage(System.currentTimeMillis());
+
+        SendMessageResponse first = instance.process(request);
+        SendMessageResponse retry = instance.process(request);
+
+        assertThat(retry.messageId, is(first.messageId));
+        verify(messageReactor, times(1)).reactToMessage(any());
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenRetriedAfterFailure() throws Exception
+    {
+        duplicateFilter = new DuplicateMessageFilter(DeduplicationOptions.defaults(), metrics);
+        instance = new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies);
+        request.setTimeOfMessage(System.currentTimeMillis());
+
+        when(messageReactor.reactToMessage(any()))
+            .thenThrow(new OperationFailedException())
+            .thenReturn(response);
+
+        assertThrows(() -> instance.process(request))
+            .isInstanceOf(OperationFailedException.class);
+
+        instance.process(request);
+        verify(messageReactor, times(2)).reactToMessage(any());
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenRateLimited() throws Exception
+    {
+        rateLimiter = new ApplicationRateLimiter(RateLimitOptions.of(0.001, 1), metrics);
+        instance = new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies);
+
+        instance.process(request);
+
+        assertThrows(() -> instance.process(request))
+            .isInstanceOf(ApplicationThrottledException.class);
+
+        verify(messageReactor, times(1)).reactToMessage(any());
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithStagedPipeline() throws Exception
+    {
+        pipeline = StagedPipeline.newInstance(PipelineOptions.defaults(), metrics);
+        instance = new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies);
+
+        AtomicReference<String> matchThread = new AtomicReference<>();
+        when(messageReactor.reactToMessage(any()))
+            .thenAnswer(invocation ->
+            {
+                matchThread.set(Thread.currentThread().getName());
+                return response;
+            });
+
+        try
+        {
+            SendMessageResponse result = instance.process(request);
+
+            assertThat(result, notNullValue());
+            //The caller waits for the result anyway, so it runs the stage's work itself.
+            assertThat(matchThread.get(), is(Thread.currentThread().getName()));
+            assertThat(metrics.timer(MetricRegistry.name(Stage.class, "match", "service-time")).getCount(), greaterThan(0L));
+            verify(authenticationService).getTokenInfo(expectedAuthenticationRequest);
+        }
+        finally
+        {
+            pipeline.close();
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenAtCapacity() throws Exception
+    {
+        concurrencyLimiter = new ConcurrencyLimiter(ConcurrencyLimitOptions.of(1, 1, 1, 1_000), metrics);
+        instance = new SendMessageOperation(authenticationService, messageReactor, tokenMapper, rateLimiter, concurrencyLimiter, duplicateFilter, pipeline, latencies);
+
+        try (ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire())
+        {
+            assertThrows(() -> instance.process(request))
+                .isInstanceOf(ServiceAtCapacityException.class);
+        }
+
+        verifyZeroInteractions(authenticationService, messageReactor);
+        instance.process(request);
+
+        //The Message's wait ends once its first stage picks it up
+        assertThat(metrics.timer(ConcurrencyLimiter.METRIC_WAIT).getCount(), is(1L));
+    }
+
     @DontRepeat
     @Test
     public void testWhenTokenMapperFails() throws Exception
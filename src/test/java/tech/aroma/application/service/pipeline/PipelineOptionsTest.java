@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.EnumGenerators.enumValueOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.*;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class PipelineOptionsTest
+{
+
+    private StageName stage;
+    private StageOptions stageOptions;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        stage = enumValueOf(StageName.class).get();
+        stageOptions = StageOptions.of(one(integers(1, 100)), one(integers(1, 10_000)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testDisabled()
+    {
+        PipelineOptions result = PipelineOptions.disabled();
+        assertThat(result.isEnabled(), is(false));
+
+        for (StageName name : StageName.values())
+        {
+            assertThat(result.getStage(name), nullValue());
+        }
+    }
+
+    @Test
+    public void testWithStage()
+    {
+        PipelineOptions result = PipelineOptions.disabled().withStage(stage, stageOptions);
+        assertThat(result.isEnabled(), is(true));
+        assertThat(result.getStage(stage), is(stageOptions));
+
+        for (StageName name : StageName.values())
+        {
+            if (name != stage)
+            {
+                assertThat(result.getStage(name), is(PipelineOptions.defaults().getStage(name)));
+            }
+        }
+
+        assertThat(result, is(PipelineOptions.defaults().withStage(stage, stageOptions)));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithStageWithBadArgs()
+    {
+        assertThrows(() -> PipelineOptions.defaults().withStage(null, stageOptions))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> PipelineOptions.defaults().withStage(stage, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.EnumGenerators.enumValueOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class RingBufferTest
+{
+
+    private static final int CAPACITY = 64;
+
+    private MetricRegistry metrics;
+    private WaitStrategy waitStrategy;
+    private RingBufferOptions options;
+
+    private RingBuffer<Integer> instance;
+
+    @GenerateString
+    private String name;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        metrics = new MetricRegistry();
+        waitStrategy = enumValueOf(WaitStrategy.class).get();
+        options = RingBufferOptions.of(CAPACITY, one(integers(1, 4)), waitStrategy);
+    }
+
+    @After
+    public void tearDown()
+    {
+        if (instance != null)
+        {
+            instance.close();
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testStartWithBadArgs()
+    {
+        Consumer<Integer> handler = i -> {};
+
+        assertThrows(() -> RingBuffer.start(null, name, handler, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> RingBuffer.start(RingBufferOptions.disabled(), name, handler, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> RingBuffer.start(options, "", handler, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> RingBuffer.start(options, name, null, metrics))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> RingBuffer.start(options, name, handler, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testEveryEntryIsHandledOnce() throws Exception
+    {
+        int producers = 4;
+        int perProducer = 2_000;
+
+        Set<Integer> handled = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(producers * perProducer);
+
+        instance = RingBuffer.start(options, name, entry ->
+                                {
+                                    assertThat(handled.add(entry), is(true));
+                                    done.countDown();
+                                }, metrics);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; ++p)
+        {
+            int first = p * perProducer;
+            threads[p] = new Thread(() ->
+            {
+                for (int i = first; i < first + perProducer; ++i)
+                {
+                    while (!instance.tryPublish(i))
+                    {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertThat(done.await(10, SECONDS), is(true));
+        assertThat(handled.size(), is(producers * perProducer));
+        assertThat(instance.size(), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenFull() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch taken = new CountDownLatch(1);
+
+        options = RingBufferOptions.of(CAPACITY, 1, waitStrategy);
+        instance = RingBuffer.start(options, name, entry ->
+                                {
+                                    taken.countDown();
+                                    awaitQuietly(release);
+                                }, metrics);
+
+        //The first entry occupies the only consumer.
+        assertThat(instance.tryPublish(-1), is(true));
+        assertThat(taken.await(5, SECONDS), is(true));
+
+        for (int i = 0; i < CAPACITY; ++i)
+        {
+            assertThat(instance.tryPublish(i), is(true));
+        }
+
+        assertThat(instance.size(), is(CAPACITY));
+        assertThat(instance.tryPublish(CAPACITY), is(false));
+        assertThat(metrics.counter(MetricRegistry.name(RingBuffer.class, name, "dropped")).getCount(), is(1L));
+
+        release.countDown();
+    }
+
+    @Test
+    public void testWhenHandlerFails() throws Exception
+    {
+        CountDownLatch handled = new CountDownLatch(2);
+
+        instance = RingBuffer.start(options, name, entry ->
+                                {
+                                    handled.countDown();
+                                    throw new RuntimeException();
+                                }, metrics);
+
+        instance.tryPublish(1);
+        instance.tryPublish(2);
+
+        assertThat(handled.await(5, SECONDS), is(true));
+    }
+
+    @Test
+    public void testAfterClose() throws Exception
+    {
+        instance = RingBuffer.start(options, name, entry -> {}, metrics);
+        instance.close();
+
+        assertThat(instance.tryPublish(1), is(false));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
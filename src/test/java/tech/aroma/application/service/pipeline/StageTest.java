@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import java.util.concurrent.*;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.aroma.thrift.exceptions.InvalidArgumentException;
+import tech.aroma.thrift.exceptions.ThroughoutExceededException;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class StageTest
+{
+
+    private MetricRegistry metrics;
+    private StagedPipeline pipeline;
+    private Stage instance;
+
+    private CountDownLatch release;
+
+    @GenerateString
+    private String value;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        metrics = new MetricRegistry();
+        PipelineOptions options = PipelineOptions.defaults()
+            .withStage(StageName.MATCH, StageOptions.of(1, 1));
+
+        pipeline = StagedPipeline.newInstance(options, metrics);
+        instance = pipeline.stage(StageName.MATCH);
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown()
+    {
+        release.countDown();
+        pipeline.close();
+    }
+
+    @Test
+    public void testCall() throws Exception
+    {
+        String thread = instance.call(() -> Thread.currentThread().getName());
+        assertThat(thread, is(Thread.currentThread().getName()));
+
+        String result = instance.call(() -> value);
+        assertThat(result, is(value));
+
+        assertThat(metrics.timer(MetricRegistry.name(Stage.class, "match", "service-time")).getCount(), is(2L));
+    }
+
+    @Test
+    public void testCallWaitsItsTurn() throws Exception
+    {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(1);
+
+        try
+        {
+            callers.submit(() -> instance.call(() ->
+            {
+                started.countDown();
+                awaitRelease();
+                return null;
+            }));
+
+            assertThat(started.await(5, SECONDS), is(true));
+
+            Future<String> waiting = callers.submit(() -> instance.call(() -> value));
+
+            while (instance.getQueueDepth() < 1)
+            {
+                Thread.sleep(1);
+            }
+
+            assertThat(waiting.isDone(), is(false));
+
+            release.countDown();
+            assertThat(waiting.get(5, SECONDS), is(value));
+            assertThat(instance.getQueueDepth(), is(0));
+        }
+        finally
+        {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCallWhenTaskFails() throws Exception
+    {
+        assertThrows(() -> instance.call(() ->
+        {
+            throw new InvalidArgumentException(value);
+        }))
+            .isInstanceOf(InvalidArgumentException.class);
+
+        assertThrows(() -> instance.call(() ->
+        {
+            throw new IllegalStateException(value);
+        }))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testCallFromTheSameStage() throws Exception
+    {
+        //With a single Thread, this would never finish if it were queued again.
+        String result = instance.call(() -> instance.call(() -> value));
+        assertThat(result, is(value));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWhenStageIsFull() throws Exception
+    {
+        fillStage();
+
+        assertThrows(() -> instance.execute(() -> {}))
+            .isInstanceOf(ThroughoutExceededException.class);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            //Callers run the task themselves, so a full queue does not turn them away, but they still wait for the slot.
+            Future<String> submitted = callers.submit(() -> instance.submit(() -> Thread.currentThread().getName()).get());
+            Future<String> called = callers.submit(() -> instance.call(() -> value));
+
+            while (instance.getQueueDepth() < 3)
+            {
+                Thread.sleep(1);
+            }
+
+            assertThat(submitted.isDone(), is(false));
+            assertThat(called.isDone(), is(false));
+
+            release.countDown();
+            assertThat(submitted.get(5, SECONDS), not(startsWith("pipeline-match-")));
+            assertThat(called.get(5, SECONDS), is(value));
+        }
+        finally
+        {
+            callers.shutdownNow();
+        }
+
+        assertThat(metrics.counter(MetricRegistry.name(Stage.class, "match", "rejected")).getCount(), is(2L));
+    }
+
+    @Test
+    public void testThreadsWaitForCallers() throws Exception
+    {
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch executed = new CountDownLatch(1);
+
+        try
+        {
+            callers.submit(() -> instance.call(() ->
+            {
+                started.countDown();
+                awaitRelease();
+                return null;
+            }));
+
+            assertThat(started.await(5, SECONDS), is(true));
+
+            //The stage has a single slot, and the caller holds it.
+            instance.execute(executed::countDown);
+            assertThat(executed.await(50, TimeUnit.MILLISECONDS), is(false));
+
+            release.countDown();
+            assertThat(executed.await(5, SECONDS), is(true));
+        }
+        finally
+        {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSubmit() throws Exception
+    {
+        CompletableFuture<String> result = instance.submit(() -> Thread.currentThread().getName());
+        assertThat(result.get(5, SECONDS), startsWith("pipeline-match-"));
+
+        assertThat(metrics.timer(MetricRegistry.name(Stage.class, "match", "service-time")).getCount(), greaterThan(0L));
+    }
+
+    @Test
+    public void testInline() throws Exception
+    {
+        Stage inline = StagedPipeline.inline().stage(StageName.MATCH);
+        assertThat(inline.isInline(), is(true));
+
+        String caller = Thread.currentThread().getName();
+        assertThat(inline.call(() -> Thread.currentThread().getName()), is(caller));
+        assertThat(inline.submit(() -> Thread.currentThread().getName()).get(), is(caller));
+    }
+
+    /**
+     * Occupies the only Thread of the stage, and the only spot in its queue.
+     */
+    private void fillStage() throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+
+        instance.execute(() ->
+        {
+            started.countDown();
+            awaitRelease();
+        });
+
+        assertThat(started.await(5, SECONDS), is(true));
+        instance.execute(this::awaitRelease);
+    }
+
+    private void awaitRelease()
+    {
+        try
+        {
+            release.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.pipeline;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class StagedPipelineTest
+{
+
+    @DontRepeat
+    @Test
+    public void testNewInstanceWithBadArgs()
+    {
+        assertThrows(() -> StagedPipeline.newInstance(null, new MetricRegistry()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> StagedPipeline.newInstance(PipelineOptions.defaults(), null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testNewInstance()
+    {
+        MetricRegistry metrics = new MetricRegistry();
+
+        try (StagedPipeline instance = StagedPipeline.newInstance(PipelineOptions.defaults(), metrics))
+        {
+            assertThat(instance.isEnabled(), is(true));
+
+            for (StageName name : StageName.values())
+            {
+                Stage stage = instance.stage(name);
+                assertThat(stage.getName(), is(name));
+                assertThat(stage.isInline(), is(false));
+                assertThat(metrics.getGauges().containsKey(MetricRegistry.name(Stage.class, name.getShortName(), "queue-depth")), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void testInline()
+    {
+        StagedPipeline instance = StagedPipeline.inline();
+        assertThat(instance.isEnabled(), is(false));
+
+        for (StageName name : StageName.values())
+        {
+            assertThat(instance.stage(name).isInline(), is(true));
+        }
+    }
+
+}
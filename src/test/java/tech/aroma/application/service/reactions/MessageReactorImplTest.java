@@ -17,31 +17,40 @@
 package tech.aroma.application.service.reactions;
 
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.thrift.TException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.latency.LatencyOptions;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import tech.aroma.application.service.reactions.actions.*;
 import tech.aroma.application.service.reactions.matchers.MatchAlgorithm;
 import tech.aroma.data.ReactionRepository;
 import tech.aroma.thrift.Message;
 import tech.aroma.thrift.application.service.SendMessageResponse;
+import tech.aroma.thrift.exceptions.OperationFailedException;
 import tech.aroma.thrift.reactions.*;
 import tech.sirwellington.alchemy.test.junit.runners.*;
 
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
+import static tech.aroma.application.service.latency.SendPathStage.*;
 import static tech.aroma.thrift.generators.MessageGenerators.messages;
 import static tech.aroma.thrift.generators.ReactionGenerators.reactions;
 import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
 import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+import static tech.sirwellington.alchemy.test.junit.runners.GenerateString.Type.UUID;
 
 /**
  *
@@ -64,6 +73,9 @@ public class MessageReactorImplTest
     @Mock
     private ActionRunner actionRunner;
 
+    @Mock
+    private ScheduledExecutorService scheduler;
+
     @Mock
     private ActionFactory actionFactory;
 
@@ -80,7 +92,14 @@ public class MessageReactorImplTest
     private Message message;
     private String appId;
     private String messageId;
+
+    @GenerateString(UUID)
+    private String repeatMessageId;
     
+    private StormCollapser stormCollapser;
+
+    private SendPathLatencies latencies;
+
     private MessageReactorImpl instance;
     
     @Captor
@@ -93,7 +112,10 @@ public class MessageReactorImplTest
         setupData();
         setupMocks();
         
-        instance = new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, reactionRepo);
+        stormCollapser = StormCollapser.disabled();
+        latencies = SendPathLatencies.newInstance(LatencyOptions.defaults());
+
+        instance = new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, reactionRepo, stormCollapser, latencies);
         verifyZeroInteractions(actionFactory, actionFactory, matchAlgorithm, reactionRepo);
     }
     
@@ -152,10 +174,12 @@ public class MessageReactorImplTest
     @Test
     public void testConstructor()
     {
-        assertThrows(() -> new MessageReactorImpl(null, actionFactory, matchAlgorithm, reactionRepo));
-        assertThrows(() -> new MessageReactorImpl(actionRunner, null, matchAlgorithm, reactionRepo));
-        assertThrows(() -> new MessageReactorImpl(actionRunner, actionFactory, null, reactionRepo));
-        assertThrows(() -> new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, null));
+        assertThrows(() -> new MessageReactorImpl(null, actionFactory, matchAlgorithm, reactionRepo, stormCollapser, latencies));
+        assertThrows(() -> new MessageReactorImpl(actionRunner, null, matchAlgorithm, reactionRepo, stormCollapser, latencies));
+        assertThrows(() -> new MessageReactorImpl(actionRunner, actionFactory, null, reactionRepo, stormCollapser, latencies));
+        assertThrows(() -> new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, null, stormCollapser, latencies));
+        assertThrows(() -> new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, reactionRepo, null, latencies));
+        assertThrows(() -> new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, reactionRepo, stormCollapser, null));
     }
 
     @Test
@@ -172,6 +196,10 @@ public class MessageReactorImplTest
         
         List<Action> actions = actionCaptor.getValue();
         assertThat(actions, hasItems(actionRunThroughInboxes, actionToStore, genericAction));
+
+        assertThat(latencies.getCount(LOOKUP_REACTIONS), is(1L));
+        assertThat(latencies.getCount(MATCH_REACTIONS), is(1L));
+        assertThat(latencies.getCount(RUN_ACTIONS), is(1L));
     }
     
     @Test
@@ -252,12 +280,111 @@ public class MessageReactorImplTest
         assertThat(actions, not(hasItem(actionToStore)));
     }
     
+    @Test
+    public void testReactToMessages() throws Exception
+    {
+        Message secondMessage = one(messages());
+        secondMessage.applicationId = appId;
+
+        when(matchAlgorithm.matches(secondMessage, reaction.matchers))
+            .thenReturn(true);
+
+        List<SendMessageResponse> responses = instance.reactToMessages(Lists.createFrom(message, secondMessage));
+        assertThat(responses.size(), is(2));
+        assertThat(responses.get(0).messageId, is(messageId));
+        assertThat(responses.get(1).messageId, is(secondMessage.messageId));
+
+        verify(reactionRepo, times(1)).getReactionsForApplication(appId);
+        verify(actionRunner).runThroughActions(eq(message), any());
+        verify(actionRunner).runThroughActions(eq(secondMessage), any());
+    }
+
+    @Test
+    public void testReactToMessagesWhenOneFails() throws Exception
+    {
+        Message secondMessage = one(messages());
+        Message thirdMessage = new Message(message);
+
+        when(reactionRepo.getReactionsForApplication(secondMessage.applicationId))
+            .thenThrow(new OperationFailedException());
+
+        try
+        {
+            instance.reactToMessages(Lists.createFrom(message, secondMessage, thirdMessage));
+            fail("Expected reacting to the second Message to fail");
+        }
+        catch (PartialReactionException ex)
+        {
+            assertThat(ex.getResponses().size(), is(1));
+            assertThat(ex.getResponses().get(0).messageId, is(messageId));
+            assertThat(ex.getCause(), instanceOf(OperationFailedException.class));
+        }
+
+        verify(actionRunner).runThroughActions(eq(message), any());
+        verify(actionRunner, never()).runThroughActions(eq(secondMessage), any());
+    }
+
+    @Test
+    public void testReactToMessagesWhenEmpty() throws Exception
+    {
+        List<SendMessageResponse> responses = instance.reactToMessages(Lists.emptyList());
+        assertThat(responses, is(empty()));
+
+        verifyZeroInteractions(reactionRepo, actionRunner);
+    }
+
+    @Test
+    public void testReactToMessageWhenCollapsed() throws Exception
+    {
+        stormCollapser = new StormCollapser(StormCollapseOptions.defaults(), scheduler, MoreExecutors.directExecutor(), new MetricRegistry());
+        instance = new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, reactionRepo, stormCollapser, latencies);
+
+        Message repeat = new Message(message).setMessageId(repeatMessageId);
+
+        instance.reactToMessage(message);
+
+        SendMessageResponse response = instance.reactToMessage(repeat);
+        assertThat(response.messageId, is(repeat.messageId));
+
+        verify(reactionRepo, times(1)).getReactionsForApplication(appId);
+        verify(actionRunner, times(1)).runThroughActions(any(), any());
+    }
+
+    @Test
+    public void testRollUpRunsThroughActions() throws Exception
+    {
+        stormCollapser = new StormCollapser(StormCollapseOptions.defaults(), scheduler, MoreExecutors.directExecutor(), new MetricRegistry());
+        instance = new MessageReactorImpl(actionRunner, actionFactory, matchAlgorithm, reactionRepo, stormCollapser, latencies);
+
+        Message repeat = new Message(message).setMessageId(repeatMessageId);
+        instance.reactToMessages(Lists.createFrom(message, repeat));
+
+        ArgumentCaptor<Runnable> windowEnd = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(windowEnd.capture(), anyLong(), any());
+
+        windowEnd.getValue().run();
+
+        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(actionRunner, times(2)).runThroughActions(messageCaptor.capture(), any());
+
+        Message rollUp = messageCaptor.getAllValues().get(1);
+        assertThat(rollUp.applicationId, is(appId));
+        assertThat(rollUp.title, is(message.title));
+        assertThat(rollUp.messageId, not(messageId));
+        assertThat(rollUp.body, startsWith("Repeated 1 more times"));
+
+        //The roll-up's lookup is timed like any other.
+        assertThat(latencies.getCount(LOOKUP_REACTIONS), is(2L));
+    }
+
     @DontRepeat
     @Test
     public void testWithBadArgs() throws Exception
     {
         assertThrows(() -> instance.reactToMessage(null))
             .isInstanceOf(TException.class);
+
+        assertThrows(() -> instance.reactToMessages(null));
     }
 
 }
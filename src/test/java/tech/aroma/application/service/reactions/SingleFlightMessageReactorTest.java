@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import org.apache.thrift.TException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.latency.SendPathLatencies;
+import tech.aroma.application.service.reactions.actions.*;
+import tech.aroma.application.service.reactions.matchers.MatchAlgorithm;
+import tech.aroma.data.ReactionRepository;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.application.service.SendMessageResponse;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static tech.aroma.thrift.generators.MessageGenerators.messages;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class SingleFlightMessageReactorTest
+{
+
+    private static final long LONG_WINDOW = 60_000L;
+
+    @Mock
+    private ActionRunner actionRunner;
+
+    @Mock
+    private ActionFactory actionFactory;
+
+    @Mock
+    private MatchAlgorithm matchAlgorithm;
+
+    @Mock
+    private ReactionRepository reactionRepo;
+
+    private MessageReactorImpl delegate;
+
+    private Message message;
+    private String appId;
+
+    private ExecutorService executor;
+
+    private SingleFlightMessageReactor instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        message = one(messages());
+        appId = message.applicationId;
+        executor = Executors.newCachedThreadPool();
+
+        when(reactionRepo.getReactionsForApplication(any()))
+            .thenReturn(Lists.create());
+
+        delegate = new MessageReactorImpl(actionRunner,
+                                          actionFactory,
+                                          matchAlgorithm,
+                                          reactionRepo,
+                                          StormCollapser.disabled(),
+                                          SendPathLatencies.disabled());
+
+        instance = new SingleFlightMessageReactor(delegate, SingleFlightOptions.of(LONG_WINDOW, 10));
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new SingleFlightMessageReactor(null, SingleFlightOptions.disabled()));
+        assertThrows(() -> new SingleFlightMessageReactor(delegate, null));
+    }
+
+    @Test
+    public void testReactToMessageWhenDisabled() throws Exception
+    {
+        instance = new SingleFlightMessageReactor(delegate, SingleFlightOptions.disabled());
+
+        SendMessageResponse response = instance.reactToMessage(message);
+        assertThat(response.messageId, is(message.messageId));
+
+        verify(reactionRepo).getReactionsForApplication(appId);
+        verify(actionRunner).runThroughActions(eq(message), any());
+    }
+
+    @Test
+    public void testReactToMessageWhenAlone() throws Exception
+    {
+        SendMessageResponse response = instance.reactToMessage(message);
+        assertThat(response.messageId, is(message.messageId));
+
+        verify(reactionRepo).getReactionsForApplication(appId);
+        verify(actionRunner).runThroughActions(eq(message), any());
+        assertThat(instance.getNumberOfLookupsInFlight(), is(0));
+    }
+
+    @Test
+    public void testReactToMessageSharesLookupButNotThread() throws Exception
+    {
+        int size = 3;
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch lookupMayFinish = new CountDownLatch(1);
+
+        when(reactionRepo.getReactionsForApplication(appId)).then(invocation ->
+        {
+            lookupStarted.countDown();
+            lookupMayFinish.await(10, TimeUnit.SECONDS);
+            return Lists.create();
+        });
+
+        Set<Thread> reactingThreads = ConcurrentHashMap.newKeySet();
+        when(actionRunner.runThroughActions(any(), any())).then(invocation ->
+        {
+            reactingThreads.add(Thread.currentThread());
+            return 0;
+        });
+
+        List<Message> messages = Lists.create();
+        for (int i = 0; i < size; ++i)
+        {
+            messages.add(one(messages()).setApplicationId(appId));
+        }
+
+        List<Future<SendMessageResponse>> responses = Lists.create();
+        responses.add(executor.submit(() -> instance.reactToMessage(messages.get(0))));
+        assertThat(lookupStarted.await(10, TimeUnit.SECONDS), is(true));
+
+        for (Message next : messages.subList(1, size))
+        {
+            responses.add(executor.submit(() -> instance.reactToMessage(next)));
+        }
+
+        awaitMessagesSharing(size);
+        lookupMayFinish.countDown();
+
+        for (int i = 0; i < size; ++i)
+        {
+            SendMessageResponse response = responses.get(i).get(10, TimeUnit.SECONDS);
+            assertThat(response.messageId, is(messages.get(i).messageId));
+        }
+
+        verify(reactionRepo, times(1)).getReactionsForApplication(appId);
+        verify(actionRunner, times(size)).runThroughActions(any(), any());
+        assertThat(reactingThreads, hasSize(size));
+        assertThat(instance.getNumberOfLookupsInFlight(), is(0));
+    }
+
+    @Test
+    public void testReactToMessageDoesNotShareLookupAfterWindow() throws Exception
+    {
+        instance = new SingleFlightMessageReactor(delegate, SingleFlightOptions.of(1, 10));
+
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch lookupMayFinish = new CountDownLatch(1);
+
+        when(reactionRepo.getReactionsForApplication(appId)).then(invocation ->
+        {
+            lookupStarted.countDown();
+            lookupMayFinish.await(10, TimeUnit.SECONDS);
+            return Lists.create();
+        });
+
+        Message second = one(messages()).setApplicationId(appId);
+
+        Future<SendMessageResponse> first = executor.submit(() -> instance.reactToMessage(message));
+        assertThat(lookupStarted.await(10, TimeUnit.SECONDS), is(true));
+        Thread.sleep(5);
+
+        Future<SendMessageResponse> late = executor.submit(() -> instance.reactToMessage(second));
+        lookupMayFinish.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS).messageId, is(message.messageId));
+        assertThat(late.get(10, TimeUnit.SECONDS).messageId, is(second.messageId));
+
+        verify(reactionRepo, times(2)).getReactionsForApplication(appId);
+    }
+
+    @Test
+    public void testReactToMessageFailsOnlyItsOwnCaller() throws Exception
+    {
+        Message failing = one(messages()).setApplicationId(appId);
+
+        when(actionRunner.runThroughActions(eq(failing), any()))
+            .thenThrow(new IllegalStateException());
+
+        assertThrows(() -> instance.reactToMessage(failing))
+            .isInstanceOf(IllegalStateException.class);
+
+        SendMessageResponse response = instance.reactToMessage(message);
+        assertThat(response.messageId, is(message.messageId));
+    }
+
+    @Test
+    public void testReactToMessageWhenLookupFails() throws Exception
+    {
+        when(reactionRepo.getReactionsForApplication(appId))
+            .thenThrow(new OperationFailedException());
+
+        assertThrows(() -> instance.reactToMessage(message))
+            .isInstanceOf(OperationFailedException.class);
+
+        verify(actionRunner, never()).runThroughActions(any(), any());
+        assertThat(instance.getNumberOfLookupsInFlight(), is(0));
+    }
+
+    @Test
+    public void testReactToMessages() throws Exception
+    {
+        Message other = one(messages()).setApplicationId(appId);
+        List<Message> messages = Lists.createFrom(message, other);
+
+        List<SendMessageResponse> responses = instance.reactToMessages(messages);
+        assertThat(responses, hasSize(2));
+
+        verify(reactionRepo, times(1)).getReactionsForApplication(appId);
+    }
+
+    @DontRepeat
+    @Test
+    public void testReactToMessageWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.reactToMessage(null))
+            .isInstanceOf(TException.class);
+
+        verifyZeroInteractions(reactionRepo, actionRunner);
+    }
+
+    private void awaitMessagesSharing(int expected) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10_000L;
+
+        while (instance.getNumberOfMessagesSharing(appId) < expected && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(1);
+        }
+
+        assertThat(instance.getNumberOfMessagesSharing(appId), is(expected));
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static tech.aroma.thrift.generators.MessageGenerators.messages;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+import static tech.sirwellington.alchemy.test.junit.runners.GenerateString.Type.UUID;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class StormCollapserTest
+{
+
+    private static final long WINDOW_MILLIS = 30_000L;
+    private static final int MAX_TRACKED = 2;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private Executor rollUpSenders;
+
+    private MetricRegistry metrics;
+    private StormCollapseOptions options;
+
+    private Message message;
+
+    @GenerateString(UUID)
+    private String repeatMessageId;
+
+    private List<Message> rollUps;
+    private StormCollapser.RollUpSender sender;
+
+    private StormCollapser instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        message = one(messages());
+
+        rollUps = Lists.create();
+        sender = rollUps::add;
+
+        metrics = new MetricRegistry();
+        options = StormCollapseOptions.of(WINDOW_MILLIS, MAX_TRACKED);
+        rollUpSenders = MoreExecutors.directExecutor();
+
+        instance = new StormCollapser(options, scheduler, rollUpSenders, metrics);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new StormCollapser(null, scheduler, metrics));
+        assertThrows(() -> new StormCollapser(options, null, metrics));
+        assertThrows(() -> new StormCollapser(options, scheduler, null));
+        assertThrows(() -> new StormCollapser(options, scheduler, null, metrics));
+
+        new StormCollapser(StormCollapseOptions.disabled(), null, metrics);
+        new StormCollapser(StormCollapseOptions.disabled(), null, null, metrics);
+    }
+
+    @Test
+    public void testAdmitWhenDisabled()
+    {
+        instance = StormCollapser.disabled();
+
+        assertThat(instance.admit(message, sender), is(true));
+        assertThat(instance.admit(message, sender), is(true));
+        assertThat(instance.getNumberOfOpenStorms(), is(0));
+        verifyZeroInteractions(scheduler);
+    }
+
+    @Test
+    public void testAdmitCollapsesRepeats()
+    {
+        assertThat(instance.admit(message, sender), is(true));
+        assertThat(instance.admit(repeatOf(message), sender), is(false));
+        assertThat(instance.admit(repeatOf(message), sender), is(false));
+
+        assertThat(instance.getNumberOfOpenStorms(), is(1));
+        assertThat(metrics.counter(StormCollapser.METRIC_COLLAPSED).getCount(), is(2L));
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testAdmitTracksAlertsSeparately()
+    {
+        Message otherHost = repeatOf(message).setHostname(message.hostname + "-2");
+        Message otherTitle = repeatOf(message).setTitle(message.title + "!");
+
+        assertThat(instance.admit(message, sender), is(true));
+        assertThat(instance.admit(otherHost, sender), is(true));
+        assertThat(instance.getNumberOfOpenStorms(), is(2));
+
+        //Too many alerts are tracked already, so this one goes through untracked.
+        assertThat(instance.admit(otherTitle, sender), is(true));
+        assertThat(instance.admit(repeatOf(otherTitle), sender), is(true));
+    }
+
+    @Test
+    public void testRollUpWhenWindowEnds()
+    {
+        instance.admit(message, sender);
+
+        Message lastRepeat = repeatOf(message);
+        instance.admit(repeatOf(message), sender);
+        instance.admit(lastRepeat, sender);
+
+        endWindow();
+
+        assertThat(rollUps, hasSize(1));
+
+        Message rollUp = rollUps.get(0);
+        assertThat(rollUp.applicationId, is(message.applicationId));
+        assertThat(rollUp.title, is(message.title));
+        assertThat(rollUp.hostname, is(message.hostname));
+        assertThat(rollUp.messageId, not(isOneOf(message.messageId, lastRepeat.messageId)));
+        assertThat(rollUp.body, startsWith("Repeated 2 more times"));
+
+        //The window stays open while the storm continues
+        assertThat(instance.getNumberOfOpenStorms(), is(1));
+        assertThat(instance.admit(repeatOf(message), sender), is(false));
+    }
+
+    @Test
+    public void testWindowClosesWhenStormIsOver()
+    {
+        instance.admit(message, sender);
+        endWindow();
+
+        assertThat(rollUps, is(empty()));
+        assertThat(instance.getNumberOfOpenStorms(), is(0));
+
+        assertThat(instance.admit(repeatOf(message), sender), is(true));
+    }
+
+    @Test
+    public void testRollUpWhenSenderFails()
+    {
+        instance.admit(message, rollUp ->
+        {
+            throw new RuntimeException();
+        });
+
+        instance.admit(repeatOf(message), sender);
+
+        endWindow();
+        assertThat(instance.getNumberOfOpenStorms(), is(1));
+    }
+
+    @Test
+    public void testRollUpIsSentOffTheScheduler()
+    {
+        Executor senders = mock(Executor.class);
+        instance = new StormCollapser(options, scheduler, senders, metrics);
+
+        instance.admit(message, sender);
+        instance.admit(repeatOf(message), sender);
+
+        endWindow();
+        assertThat(rollUps, is(empty()));
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(senders).execute(captor.capture());
+
+        captor.getValue().run();
+        assertThat(rollUps, hasSize(1));
+    }
+
+    @Test
+    public void testRollUpWhenTooManyAreWaiting()
+    {
+        Executor senders = mock(Executor.class);
+        doThrow(new RejectedExecutionException()).when(senders).execute(any());
+        instance = new StormCollapser(options, scheduler, senders, metrics);
+
+        instance.admit(message, sender);
+        instance.admit(repeatOf(message), sender);
+
+        endWindow();
+
+        assertThat(rollUps, is(empty()));
+        assertThat(metrics.counter(StormCollapser.METRIC_DROPPED_ROLL_UPS).getCount(), is(1L));
+        assertThat(instance.getNumberOfOpenStorms(), is(1));
+    }
+
+    @DontRepeat
+    @Test
+    public void testAdmitWithBadArgs()
+    {
+        assertThrows(() -> instance.admit(null, sender));
+        assertThrows(() -> instance.admit(message, null));
+    }
+
+    private Message repeatOf(Message message)
+    {
+        return new Message(message).setMessageId(repeatMessageId);
+    }
+
+    private void endWindow()
+    {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(captor.capture(), eq(WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        List<Runnable> scheduled = captor.getAllValues();
+        scheduled.get(scheduled.size() - 1).run();
+    }
+
+}
@@ -16,6 +16,10 @@
 
 package tech.aroma.application.service.reactions.actions;
 
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.notnoop.apns.ApnsService;
 import org.junit.Before;
 import org.junit.Test;
@@ -27,10 +31,9 @@ import tech.aroma.thrift.Message;
 import tech.aroma.thrift.User;
 import tech.aroma.thrift.notification.service.NotificationService;
 import tech.aroma.thrift.reactions.*;
-import tech.sirwellington.alchemy.http.AlchemyHttp;
 import tech.sirwellington.alchemy.test.junit.runners.*;
 
-import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 import static tech.aroma.thrift.generators.MessageGenerators.messages;
@@ -39,6 +42,7 @@ import static tech.aroma.thrift.generators.UserGenerators.users;
 import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
 import static tech.sirwellington.alchemy.generator.NetworkGenerators.httpUrls;
 import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
 import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
 
 /**
@@ -51,7 +55,7 @@ public class ActionFactoryImplTest
 {
 
     @Mock
-    private AlchemyHttp http;
+    private WebhookClient http;
     
     @Mock
     private ApnsService apns;
@@ -77,6 +81,15 @@ public class ActionFactoryImplTest
     @Mock
     private NotificationService.Iface notificationService;
 
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private WebhookCoalescer webhookCoalescer;
+
+    private WebhookDeliveryQueue webhookDeliveryQueue;
+
+    private NotificationDispatcher notificationDispatcher;
+
 
     private ActionFactoryImpl instance;
  
@@ -91,7 +104,18 @@ public class ActionFactoryImplTest
         setupData();
         setupMocks();
         
-        instance = new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService);
+        webhookCoalescer = new WebhookCoalescer(WebhookDigestOptions.disabled(), scheduler);
+        webhookDeliveryQueue = new WebhookDeliveryQueue(WebhookDeliveryOptions.defaults(),
+                                                        CircuitBreakerOptions.defaults(),
+                                                        MoreExecutors.newDirectExecutorService(),
+                                                        scheduler,
+                                                        new MetricRegistry());
+        notificationDispatcher = new NotificationDispatcher(notificationService,
+                                                      NotificationDispatchOptions.disabled(),
+                                                      scheduler,
+                                                      MoreExecutors.directExecutor(),
+                                                      new MetricRegistry());
+        instance = new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue);
         verifyZeroInteractions(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService);
     }
 
@@ -112,15 +136,17 @@ public class ActionFactoryImplTest
     @Test
     public void testConstructor() 
     {
-        assertThrows(() -> new ActionFactoryImpl(null, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, null, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, apns, null, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, null, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, null, messageRepo, reactionRepo, userPreferencesRepo, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, null, reactionRepo, userPreferencesRepo, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, null, userPreferencesRepo, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, null, notificationService));
-        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, null));
+        assertThrows(() -> new ActionFactoryImpl(null, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, null, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, null, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, null, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, null, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, null, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, null, userPreferencesRepo, notificationDispatcher, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, null, notificationService, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, null, webhookCoalescer, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationService, null, webhookDeliveryQueue));
+        assertThrows(() -> new ActionFactoryImpl(http, apns, followerRepo, inboxRepo, matchAlgorithm, messageRepo, reactionRepo, userPreferencesRepo, notificationDispatcher, webhookCoalescer, null));
     }
 
     @Test
@@ -151,9 +177,22 @@ public class ActionFactoryImplTest
     public void testActionToSendToGitterWithBadArgs()
     {
         assertThrows(() -> instance.actionToSendToGitter(null));
-        
+    }
+
+    @Test
+    public void testActionToSendToGitterWithBadUrl()
+    {
         ActionForwardToGitter gitterWithoutUrl = new ActionForwardToGitter();
-        assertThrows(() -> instance.actionToSendToGitter(gitterWithoutUrl));
+        assertThat(instance.actionToSendToGitter(gitterWithoutUrl), instanceOf(DoNothingAction.class));
+
+        ActionForwardToGitter gitter = new ActionForwardToGitter(one(alphabeticStrings()));
+
+        Action first = instance.actionToSendToGitter(gitter);
+        assertThat(first, instanceOf(DoNothingAction.class));
+
+        //Asking again for the same invalid URL also does nothing
+        Action second = instance.actionToSendToGitter(new ActionForwardToGitter(gitter));
+        assertThat(second, sameInstance(first));
     }
     
     @Test
@@ -164,6 +203,45 @@ public class ActionFactoryImplTest
         checkAction(result);
     }
 
+    @Test
+    public void testActionToSendToSlackChannelIsReused()
+    {
+        ActionForwardToSlackChannel slack = new ActionForwardToSlackChannel()
+            .setWebhookUrl(one(httpUrls()).toString())
+            .setSlackChannel(one(alphabeticStrings()));
+
+        Action first = instance.actionToSendToSlackChannel(slack);
+        assertThat(first, instanceOf(ForwardToSlackChannelAction.class));
+
+        Action second = instance.actionToSendToSlackChannel(new ActionForwardToSlackChannel(slack));
+        assertThat(second, sameInstance(first));
+
+        //Changing the original config afterwards should not affect the cached Action
+        slack.setSlackChannel(slack.slackChannel + "-other");
+        Action third = instance.actionToSendToSlackChannel(slack);
+        assertThat(third, not(sameInstance(first)));
+    }
+
+    @Test
+    public void testActionToSendToSlackChannelWithBadUrl()
+    {
+        ActionForwardToSlackChannel slack = new ActionForwardToSlackChannel()
+            .setWebhookUrl(one(alphabeticStrings()));
+
+        Action result = instance.actionToSendToSlackChannel(slack);
+        assertThat(result, instanceOf(DoNothingAction.class));
+    }
+
+    @Test
+    public void testActionToSendToGitterIsReused()
+    {
+        ActionForwardToGitter gitter = new ActionForwardToGitter(one(httpUrls()).toString());
+
+        Action first = instance.actionToSendToGitter(gitter);
+        Action second = instance.actionToSendToGitter(new ActionForwardToGitter(gitter));
+        assertThat(second, sameInstance(first));
+    }
+
     @Test
     public void testActionToSendToSlackUser()
     {
@@ -200,6 +278,25 @@ public class ActionFactoryImplTest
         checkAction(result);
     }
 
+    @Test
+    public void testStatelessActionsAreShared()
+    {
+        assertThat(instance.actionToStoreMessage(message), sameInstance(instance.actionToStoreMessage(message)));
+        assertThat(instance.actionToSendNotifications(message), sameInstance(instance.actionToSendNotifications(message)));
+        assertThat(instance.actionToDoNothing(), sameInstance(instance.actionToDoNothing()));
+    }
+
+    @Test
+    public void testActionToRunThroughInboxIsBoundToUser()
+    {
+        Action result = instance.actionToRunThroughInbox(user);
+        assertThat(result, instanceOf(BoundAction.class));
+
+        BoundAction<?> bound = (BoundAction<?>) result;
+        assertThat(bound.getParameter(), is(user));
+        assertThat(bound.getAction(), instanceOf(RunThroughInboxAction.class));
+    }
+
     @Test
     public void testActionToStoreInInbox()
     {
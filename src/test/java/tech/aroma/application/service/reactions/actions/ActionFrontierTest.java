@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class ActionFrontierTest
+{
+
+    private ActionRunnerLimits limits;
+    private List<Action> actions;
+    private int chunkSize;
+
+    private ActionFrontier instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        chunkSize = one(integers(1, 10));
+        limits = ActionRunnerLimits.of(3, 1_000, chunkSize);
+        actions = listOf(() -> mock(Action.class), 40);
+
+        instance = new ActionFrontier(limits, actions);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new ActionFrontier(null, actions));
+        assertThrows(() -> new ActionFrontier(limits, null));
+    }
+
+    @Test
+    public void testNextChunk()
+    {
+        List<Action> pulled = Lists.create();
+
+        while (instance.hasMore())
+        {
+            ActionFrontier.Chunk chunk = instance.nextChunk();
+            assertThat(chunk.size(), lessThanOrEqualTo(chunkSize));
+            assertThat(chunk.depth, is(1));
+            pulled.addAll(chunk.actions);
+        }
+
+        assertThat(pulled, is(actions));
+        assertThat(instance.getTotalPulled(), is(actions.size()));
+        assertThat(instance.nextChunk().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testChildrenAreDrainedFirst()
+    {
+        ActionFrontier.Chunk first = instance.nextChunk();
+        List<Action> children = listOf(() -> mock(Action.class), 5);
+        instance.addChildrenOf(first, children);
+
+        ActionFrontier.Chunk next = instance.nextChunk();
+        assertThat(next.depth, is(2));
+        assertThat(children, hasItems(next.actions.toArray(new Action[0])));
+    }
+
+    @Test
+    public void testWhenMaxDepthExceeded()
+    {
+        instance = new ActionFrontier(limits, Lists.createFrom(mock(Action.class)));
+
+        ActionFrontier.Chunk chunk = instance.nextChunk();
+
+        while (chunk.depth < limits.getMaxDepth())
+        {
+            instance.addChildrenOf(chunk, Lists.createFrom(mock(Action.class)));
+            chunk = instance.nextChunk();
+        }
+
+        instance.addChildrenOf(chunk, Lists.createFrom(mock(Action.class)));
+        assertThat(instance.hasMore(), is(false));
+    }
+
+    @Test
+    public void testWhenMaxTotalActionsReached()
+    {
+        int maxTotal = one(integers(1, actions.size()));
+        limits = ActionRunnerLimits.of(3, maxTotal, chunkSize);
+        instance = new ActionFrontier(limits, actions);
+
+        while (instance.hasMore())
+        {
+            instance.nextChunk();
+        }
+
+        assertThat(instance.getTotalPulled(), is(maxTotal));
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+}
@@ -44,5 +44,17 @@ public class ActionRunnerAsynchronousTest
     {
         ActionRunnerTest.testActionRunner(instance);
     }
-    
+
+    @Test
+    public void testWithLimits() throws Exception
+    {
+        ActionRunnerTest.testActionRunnerLimits(ActionRunnerAsynchronous::new);
+    }
+
+    @Test
+    public void testRecordsLatencies() throws Exception
+    {
+        ActionRunnerTest.testActionRunnerLatencies(ActionRunnerAsynchronous::new);
+    }
+
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.codahale.metrics.MetricRegistry;
+import com.notnoop.apns.ApnsService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.pipeline.PipelineOptions;
+import tech.aroma.application.service.pipeline.StageName;
+import tech.aroma.application.service.pipeline.StagedPipeline;
+import tech.aroma.data.*;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.User;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+import static tech.aroma.thrift.generators.MessageGenerators.messages;
+import static tech.aroma.thrift.generators.UserGenerators.users;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class ActionRunnerStagedTest
+{
+
+    @Mock
+    private MessageRepository messageRepo;
+
+    @Mock
+    private InboxRepository inboxRepo;
+
+    @Mock
+    private FollowerRepository followerRepo;
+
+    @Mock
+    private UserPreferencesRepository userPreferencesRepo;
+
+    @Mock
+    private ApnsService apns;
+
+    @Mock
+    private ActionFactory actionFactory;
+
+    @Mock
+    private Action action;
+
+    private User user;
+
+    @GenerateString
+    private String deviceToken;
+
+    private Message message;
+
+    private StagedPipeline pipeline;
+
+    private ActionRunnerStaged instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        message = one(messages());
+        user = one(users());
+        pipeline = StagedPipeline.newInstance(PipelineOptions.defaults(), new MetricRegistry());
+        instance = new ActionRunnerStaged(ActionRunnerLimits.defaults(), pipeline);
+    }
+
+    @After
+    public void tearDown()
+    {
+        pipeline.close();
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new ActionRunnerStaged(null, pipeline))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new ActionRunnerStaged(ActionRunnerLimits.defaults(), null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> new ActionRunnerStaged(ActionRunnerLimits.defaults(), pipeline, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRunThroughActions() throws Exception
+    {
+        ActionRunnerTest.testActionRunner(instance);
+    }
+
+    @Test
+    public void testWithLimits() throws Exception
+    {
+        ActionRunnerTest.testActionRunnerLimits(limits -> new ActionRunnerStaged(limits, pipeline));
+    }
+
+    @Test
+    public void testRecordsLatencies() throws Exception
+    {
+        ActionRunnerTest.testActionRunnerLatencies((limits, latencies) -> new ActionRunnerStaged(limits, pipeline, latencies));
+    }
+
+    @Test
+    public void testWhenPipelineIsDisabled() throws Exception
+    {
+        instance = new ActionRunnerStaged(ActionRunnerLimits.defaults(), StagedPipeline.inline());
+
+        ActionRunnerTest.testActionRunner(instance);
+    }
+
+    @Test
+    public void testActionsRunOnTheirStage() throws Exception
+    {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        Action last = mock(Action.class);
+
+        when(action.actOnMessage(message))
+            .thenAnswer(invocation ->
+            {
+                threads.add(Thread.currentThread().getName());
+                return null;
+            });
+
+        int result = instance.runThroughActions(message, Lists.createFrom(action, last));
+
+        assertThat(result, is(2));
+        assertThat(threads.size(), is(1));
+        assertThat(threads.get(0), startsWith("pipeline-fan-out-"));
+        verify(last).actOnMessage(message);
+    }
+
+    @Test
+    public void testCallerRunsTheLastActionOfEachChunk() throws Exception
+    {
+        List<String> threads = new CopyOnWriteArrayList<>();
+
+        when(action.actOnMessage(message))
+            .thenAnswer(invocation ->
+            {
+                threads.add(Thread.currentThread().getName());
+                return null;
+            });
+
+        int result = instance.runThroughActions(message, Lists.createFrom(action));
+
+        assertThat(result, is(1));
+        assertThat(threads, contains(Thread.currentThread().getName()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testStageFor() throws Exception
+    {
+        assertThat(ActionRunnerStaged.stageFor(new StoreMessageAction(messageRepo)), is(StageName.PERSIST));
+        assertThat(ActionRunnerStaged.stageFor(new BoundAction<>(new StoreInInboxAction(inboxRepo), user)),
+                   is(StageName.PERSIST));
+
+        SendPushNotificationAction push = new SendPushNotificationAction(apns, userPreferencesRepo);
+        assertThat(ActionRunnerStaged.stageFor(new BoundAction<>(push, deviceToken)), is(StageName.NOTIFY));
+
+        assertThat(ActionRunnerStaged.stageFor(new RunThroughFollowerInboxesAction(actionFactory, followerRepo)),
+                   is(StageName.FAN_OUT));
+        assertThat(ActionRunnerStaged.stageFor(action), is(StageName.FAN_OUT));
+    }
+
+}
@@ -45,5 +45,17 @@ public class ActionRunnerSynchronousTest
     {
         ActionRunnerTest.testActionRunner(instance);
     }
-    
-}
\ No newline at end of file
+
+    @Test
+    public void testWithLimits() throws Exception
+    {
+        ActionRunnerTest.testActionRunnerLimits(ActionRunnerSynchronous::new);
+    }
+
+    @Test
+    public void testRecordsLatencies() throws Exception
+    {
+        ActionRunnerTest.testActionRunnerLatencies(ActionRunnerSynchronous::new);
+    }
+
+}
@@ -17,15 +17,20 @@
 package tech.aroma.application.service.reactions.actions;
 
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.latency.LatencyOptions;
+import tech.aroma.application.service.latency.SendPathLatencies;
 import tech.aroma.thrift.Message;
 import tech.sirwellington.alchemy.test.junit.runners.AlchemyTestRunner;
 import tech.sirwellington.alchemy.test.junit.runners.Repeat;
 
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
@@ -75,6 +80,32 @@ public class ActionRunnerTest
         testWhenAnActionFails(runner);
     }
 
+    static void testActionRunnerLimits(Function<ActionRunnerLimits, ActionRunner> runnerFactory) throws Exception
+    {
+        testWithActionThatRepeatsItself(runnerFactory);
+        testWithTooManyActions(runnerFactory);
+    }
+
+    /**
+     * Every Action run is timed, including the ones that fail.
+     */
+    static void testActionRunnerLatencies(BiFunction<ActionRunnerLimits, SendPathLatencies, ActionRunner> runnerFactory) throws Exception
+    {
+        SendPathLatencies latencies = SendPathLatencies.newInstance(LatencyOptions.defaults());
+        ActionRunner runner = runnerFactory.apply(ActionRunnerLimits.defaults(), latencies);
+
+        Message message = one(messages());
+        List<Action> actions = listOf(() -> mock(Action.class), 20);
+
+        Action failingAction = Lists.oneOf(actions);
+        when(failingAction.actOnMessage(message))
+            .thenThrow(new RuntimeException());
+
+        runner.runThroughActions(message, actions);
+
+        assertThat(latencies.getActionCount(failingAction.getClass()), is((long) actions.size()));
+    }
+
     private static void testWithOnlyOneRoundOfAction(ActionRunner runner) throws Exception
     {
         Message message = one(messages());
@@ -131,4 +162,33 @@ public class ActionRunnerTest
         }
     }
 
+    private static void testWithActionThatRepeatsItself(Function<ActionRunnerLimits, ActionRunner> runnerFactory) throws Exception
+    {
+        Message message = one(messages());
+        int maxDepth = one(integers(2, 10));
+
+        ActionRunner runner = runnerFactory.apply(ActionRunnerLimits.of(maxDepth, 1_000, 10));
+
+        Action action = mock(Action.class);
+        when(action.actOnMessage(message)).thenReturn(Lists.createFrom(action));
+
+        int result = runner.runThroughActions(message, Lists.createFrom(action));
+        assertThat(result, is(maxDepth));
+
+        verify(action, times(maxDepth)).actOnMessage(message);
+    }
+
+    private static void testWithTooManyActions(Function<ActionRunnerLimits, ActionRunner> runnerFactory) throws Exception
+    {
+        Message message = one(messages());
+        int maxTotalActions = one(integers(1, 20));
+
+        ActionRunner runner = runnerFactory.apply(ActionRunnerLimits.of(5, maxTotalActions, 3));
+
+        List<Action> actions = listOf(() -> mock(Action.class), 30);
+
+        int result = runner.runThroughActions(message, actions);
+        assertThat(result, is(maxTotalActions));
+    }
+
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.aroma.application.service.reactions.actions.CircuitBreaker.State.*;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.longs;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class CircuitBreakerTest
+{
+
+    private static final long OPEN_MILLIS = 1_000L;
+
+    @GenerateString
+    private String name;
+
+    private int failureThreshold;
+    private long now;
+
+    private List<CircuitBreaker.State> transitions;
+
+    private CircuitBreaker instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        failureThreshold = one(integers(1, 10));
+        now = one(longs(1_000, 1_000_000));
+        transitions = Lists.create();
+
+        CircuitBreakerOptions options = CircuitBreakerOptions.of(failureThreshold, OPEN_MILLIS, 1);
+        instance = new CircuitBreaker(name, options, (circuit, from, to) -> transitions.add(to));
+    }
+
+    private void openCircuit()
+    {
+        for (int i = 0; i < failureThreshold; ++i)
+        {
+            instance.onFailure(now);
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        CircuitBreakerOptions options = CircuitBreakerOptions.defaults();
+        CircuitBreaker.Listener listener = (circuit, from, to) -> {};
+
+        assertThrows(() -> new CircuitBreaker("", options, listener));
+        assertThrows(() -> new CircuitBreaker(name, null, listener));
+        assertThrows(() -> new CircuitBreaker(name, options, null));
+    }
+
+    @Test
+    public void testStartsClosed()
+    {
+        assertThat(instance.getState(), is(CLOSED));
+        assertThat(instance.allowRequest(now), is(true));
+        assertThat(instance.millisUntilTrial(now), is(0L));
+    }
+
+    @Test
+    public void testOpensAfterThreshold()
+    {
+        for (int i = 1; i < failureThreshold; ++i)
+        {
+            instance.onFailure(now);
+        }
+
+        assertThat(instance.getState(), is(CLOSED));
+
+        instance.onFailure(now);
+        assertThat(instance.getState(), is(OPEN));
+        assertThat(instance.allowRequest(now), is(false));
+        assertThat(instance.millisUntilTrial(now), is(OPEN_MILLIS));
+        assertThat(transitions, contains(OPEN));
+    }
+
+    @Test
+    public void testSuccessResetsFailures()
+    {
+        for (int i = 1; i < failureThreshold; ++i)
+        {
+            instance.onFailure(now);
+        }
+
+        instance.onSuccess();
+        instance.onFailure(now);
+
+        if (failureThreshold > 1)
+        {
+            assertThat(instance.getState(), is(CLOSED));
+        }
+    }
+
+    @Test
+    public void testHalfOpenThenClose()
+    {
+        openCircuit();
+
+        long later = now + OPEN_MILLIS;
+        assertThat(instance.millisUntilTrial(later), is(0L));
+        assertThat(instance.allowRequest(later), is(true));
+        assertThat(instance.getState(), is(HALF_OPEN));
+
+        instance.onSuccess();
+        assertThat(instance.getState(), is(CLOSED));
+        assertThat(transitions, contains(OPEN, HALF_OPEN, CLOSED));
+    }
+
+    @Test
+    public void testHalfOpenThenReopen()
+    {
+        openCircuit();
+
+        long later = now + OPEN_MILLIS;
+        instance.allowRequest(later);
+        instance.onFailure(later);
+
+        assertThat(instance.getState(), is(OPEN));
+        assertThat(instance.millisUntilTrial(later), is(OPEN_MILLIS));
+        assertThat(transitions, contains(OPEN, HALF_OPEN, OPEN));
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+}
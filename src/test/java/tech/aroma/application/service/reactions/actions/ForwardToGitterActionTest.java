@@ -18,21 +18,25 @@ package tech.aroma.application.service.reactions.actions;
 
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import tech.aroma.thrift.Message;
-import tech.aroma.thrift.exceptions.InvalidArgumentException;
 import tech.aroma.thrift.reactions.ActionForwardToGitter;
-import tech.sirwellington.alchemy.http.*;
+import tech.sirwellington.alchemy.http.HttpResponse;
 import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
-import tech.sirwellington.alchemy.http.mock.AlchemyHttpMock;
 import tech.sirwellington.alchemy.test.junit.runners.*;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
 import static tech.aroma.thrift.generators.MessageGenerators.messages;
 import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
 import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
@@ -48,18 +52,23 @@ import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
 public class ForwardToGitterActionTest 
 {
 
-    private AlchemyHttp http;
+    @Mock
+    private WebhookClient http;
     
     private ActionForwardToGitter gitter;
     
-    @Mock
-    private HttpRequest request;
-    
     @Mock
     private HttpResponse response;
     
     @GenerateURL
     private URL url;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private WebhookCoalescer coalescer;
+
+    private WebhookDeliveryQueue deliveryQueue;
     
     private Message message;
     
@@ -72,7 +81,13 @@ public class ForwardToGitterActionTest
         setupData();
         setupMocks();
         
-        instance = new ForwardToGitterAction(http, gitter);
+        coalescer = new WebhookCoalescer(WebhookDigestOptions.disabled(), scheduler);
+        deliveryQueue = new WebhookDeliveryQueue(WebhookDeliveryOptions.defaults(),
+                                                 CircuitBreakerOptions.defaults(),
+                                                 MoreExecutors.newDirectExecutorService(),
+                                                 scheduler,
+                                                 new MetricRegistry());
+        instance = new ForwardToGitterAction(http, gitter, coalescer, deliveryQueue);
     }
 
 
@@ -86,22 +101,20 @@ public class ForwardToGitterActionTest
 
     private void setupMocks() throws Exception
     {
-        http = AlchemyHttpMock.begin()
-            .whenPost()
-            .anyBody()
-            .at(url)
-            .thenReturnResponse(response)
-            .build();
+        when(http.post(eq(url), any())).thenReturn(response);
     }
 
     @DontRepeat
     @Test
     public void testConstructor()
     {
-        assertThrows(() -> new ForwardToGitterAction(null, gitter));
-        assertThrows(() -> new ForwardToGitterAction(http, null));
+        assertThrows(() -> new ForwardToGitterAction(null, gitter, coalescer, deliveryQueue));
+        assertThrows(() -> new ForwardToGitterAction(null, gitter, coalescer, deliveryQueue));
+        assertThrows(() -> new ForwardToGitterAction(http, null, coalescer, deliveryQueue));
+        assertThrows(() -> new ForwardToGitterAction(http, gitter, null, deliveryQueue));
+        assertThrows(() -> new ForwardToGitterAction(http, gitter, coalescer, null));
         
-        assertThrows(() -> new ForwardToGitterAction(http, new ActionForwardToGitter()));
+        assertThrows(() -> new ForwardToGitterAction(http, new ActionForwardToGitter(), coalescer, deliveryQueue));
     }
     
     @Test
@@ -111,34 +124,58 @@ public class ForwardToGitterActionTest
         assertThat(actions, notNullValue());
         assertThat(actions, is(empty()));
         
-        AlchemyHttpMock.verifyAllRequestsMade(http);
+        verify(http).post(eq(url), any());
     }
     
     @Test
     public void testWhenHttpCallFail() throws Exception
     {
-        http = AlchemyHttpMock.begin()
-            .whenPost()
-            .anyBody()
-            .at(url)
-            .thenThrow(new AlchemyHttpException())
-            .build();
-        
-        instance = new ForwardToGitterAction(http, gitter);
-        
+        when(http.post(eq(url), any())).thenThrow(new AlchemyHttpException());
+
         List<Action> actions = instance.actOnMessage(message);
         assertThat(actions, notNullValue());
-        AlchemyHttpMock.verifyAllRequestsMade(http);
+        verify(http).post(eq(url), any());
+
+        //The failed post should be waiting to be retried
+        assertThat(deliveryQueue.getNumberOfPendingDeliveries(), is(1));
     }
     
+    @Test
+    public void testActOnMessageWithDigest() throws Exception
+    {
+        coalescer = new WebhookCoalescer(WebhookDigestOptions.of(60_000, 2), scheduler);
+        instance = new ForwardToGitterAction(http, gitter, coalescer, deliveryQueue);
+
+        instance.actOnMessage(message);
+        assertThat(coalescer.getNumberOfOpenDigests(), is(1));
+
+        instance.actOnMessage(one(messages()));
+        assertThat(coalescer.getNumberOfOpenDigests(), is(0));
+    }
+
+    @Test
+    public void testDigestsAreKeptApartByIncludeBody() throws Exception
+    {
+        coalescer = new WebhookCoalescer(WebhookDigestOptions.of(60_000, 2), scheduler);
+        instance = new ForwardToGitterAction(http, gitter, coalescer, deliveryQueue);
+
+        ActionForwardToGitter otherGitter = new ActionForwardToGitter(gitter).setIncludeBody(!gitter.includeBody);
+        ForwardToGitterAction otherInstance = new ForwardToGitterAction(http, otherGitter, coalescer, deliveryQueue);
+
+        instance.actOnMessage(message);
+        otherInstance.actOnMessage(one(messages()));
+
+        assertThat(coalescer.getNumberOfOpenDigests(), is(2));
+    }
+
     @Test
     public void testWithBadUrl()
     {
         String badUrl = one(alphabeticStrings());
         gitter.gitterWebhookUrl = badUrl;
         
-        assertThrows(() -> instance.actOnMessage(message))
-            .isInstanceOf(InvalidArgumentException.class);
+        assertThrows(() -> new ForwardToGitterAction(http, gitter, coalescer, deliveryQueue))
+            .isInstanceOf(IllegalArgumentException.class);
     }
     
     @Test
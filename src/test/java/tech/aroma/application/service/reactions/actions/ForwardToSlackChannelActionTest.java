@@ -18,7 +18,10 @@ package tech.aroma.application.service.reactions.actions;
 
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.thrift.TException;
 import org.junit.Before;
 import org.junit.Test;
@@ -26,16 +29,18 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import tech.aroma.thrift.Message;
 import tech.aroma.thrift.reactions.ActionForwardToSlackChannel;
-import tech.sirwellington.alchemy.http.AlchemyHttp;
 import tech.sirwellington.alchemy.http.HttpResponse;
 import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
-import tech.sirwellington.alchemy.http.mock.AlchemyHttpMock;
 import tech.sirwellington.alchemy.test.junit.runners.*;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
 import static tech.aroma.thrift.generators.MessageGenerators.messages;
 import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
 import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
 
 /**
@@ -48,7 +53,7 @@ public class ForwardToSlackChannelActionTest
 {
 
     @Mock
-    private AlchemyHttp http;
+    private WebhookClient http;
 
     @GeneratePojo
     private ActionForwardToSlackChannel slack;
@@ -63,6 +68,13 @@ public class ForwardToSlackChannelActionTest
     @Mock
     private HttpResponse response;
 
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private WebhookCoalescer coalescer;
+
+    private WebhookDeliveryQueue deliveryQueue;
+
     @Before
     public void setUp() throws Exception
     {
@@ -70,7 +82,13 @@ public class ForwardToSlackChannelActionTest
         setupData();
         setupMocks();
 
-        instance = new ForwardToSlackChannelAction(slack, http);
+        coalescer = new WebhookCoalescer(WebhookDigestOptions.disabled(), scheduler);
+        deliveryQueue = new WebhookDeliveryQueue(WebhookDeliveryOptions.defaults(),
+                                                 CircuitBreakerOptions.defaults(),
+                                                 MoreExecutors.newDirectExecutorService(),
+                                                 scheduler,
+                                                 new MetricRegistry());
+        instance = new ForwardToSlackChannelAction(slack, http, coalescer, deliveryQueue);
     }
 
     private void setupData() throws Exception
@@ -81,20 +99,26 @@ public class ForwardToSlackChannelActionTest
 
     private void setupMocks() throws Exception
     {
-        http = AlchemyHttpMock.begin()
-            .whenPost()
-            .anyBody()
-            .at(webhookUrl)
-            .thenReturnResponse(response)
-            .build();
+        when(http.post(eq(webhookUrl), any())).thenReturn(response);
     }
 
     @DontRepeat
     @Test
     public void testConstructor()
     {
-        assertThrows(() -> new ForwardToSlackChannelAction(null, http));
-        assertThrows(() -> new ForwardToSlackChannelAction(slack, null));
+        assertThrows(() -> new ForwardToSlackChannelAction(null, http, coalescer, deliveryQueue));
+        assertThrows(() -> new ForwardToSlackChannelAction(slack, null, coalescer, deliveryQueue));
+        assertThrows(() -> new ForwardToSlackChannelAction(slack, http, null, deliveryQueue));
+        assertThrows(() -> new ForwardToSlackChannelAction(slack, http, coalescer, null));
+    }
+
+    @Test
+    public void testConstructorWithBadUrl()
+    {
+        slack.webhookUrl = one(alphabeticStrings());
+
+        assertThrows(() -> new ForwardToSlackChannelAction(slack, http, coalescer, deliveryQueue))
+            .isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
@@ -104,24 +128,33 @@ public class ForwardToSlackChannelActionTest
         assertThat(actions, notNullValue());
         assertThat(actions, is(empty()));
         
-        AlchemyHttpMock.verifyAllRequestsMade(http);
+        verify(http).post(eq(webhookUrl), any());
     }
     
     @Test
     public void testWhenHttpCallFails() throws Exception
     {
-        http = AlchemyHttpMock.begin()
-            .whenPost()
-            .anyBody()
-            .at(webhookUrl)
-            .thenThrow(new AlchemyHttpException())
-            .build();
-        
-        instance = new ForwardToSlackChannelAction(slack, http);
-        
+        when(http.post(eq(webhookUrl), any())).thenThrow(new AlchemyHttpException());
+
         List<Action> actions = instance.actOnMessage(message);
         assertThat(actions, notNullValue());
         assertThat(actions, is(empty()));
+
+        //The failed post should be waiting to be retried
+        assertThat(deliveryQueue.getNumberOfPendingDeliveries(), is(1));
+    }
+
+    @Test
+    public void testActOnMessageWithDigest() throws Exception
+    {
+        coalescer = new WebhookCoalescer(WebhookDigestOptions.of(60_000, 2), scheduler);
+        instance = new ForwardToSlackChannelAction(slack, http, coalescer, deliveryQueue);
+
+        instance.actOnMessage(message);
+        assertThat(coalescer.getNumberOfOpenDigests(), is(1));
+
+        instance.actOnMessage(one(messages()));
+        assertThat(coalescer.getNumberOfOpenDigests(), is(0));
     }
 
     @DontRepeat
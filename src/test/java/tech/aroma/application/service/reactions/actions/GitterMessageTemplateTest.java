@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.Urgency;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.aroma.thrift.generators.MessageGenerators.messages;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class GitterMessageTemplateTest
+{
+
+    private Message message;
+
+    private GitterMessageTemplate instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        message = one(messages());
+        message.urgency = Urgency.LOW;
+
+        instance = new GitterMessageTemplate(true);
+    }
+
+    @Test
+    public void testRender() throws Exception
+    {
+        JsonObject result = render(Lists.createFrom(message));
+
+        String expected = String.format("**%s** - *via Aroma*\n**%s**\n\nFrom Device: %s\n\n%s",
+                                        message.applicationName,
+                                        message.title,
+                                        message.hostname,
+                                        message.body);
+
+        assertThat(result.get("message").getAsString(), is(expected));
+        assertThat(result.get("level").getAsString(), is(GitterMessageTemplate.GITTER_LEVEL_INFO));
+    }
+
+    @Test
+    public void testRenderWithoutBody() throws Exception
+    {
+        instance = new GitterMessageTemplate(false);
+
+        JsonObject result = render(Lists.createFrom(message));
+        assertThat(result.get("message").getAsString(), endsWith("From Device: " + message.hostname));
+    }
+
+    @Test
+    public void testRenderWhenUrgent() throws Exception
+    {
+        message.urgency = Urgency.HIGH;
+
+        JsonObject result = render(Lists.createFrom(message));
+        assertThat(result.get("level").getAsString(), is(GitterMessageTemplate.GITTER_LEVEL_ERROR));
+    }
+
+    @Test
+    public void testRenderDigest() throws Exception
+    {
+        int size = one(integers(2, 10));
+        List<Message> digest = listOf(messages(), size);
+        digest.forEach(m -> m.urgency = Urgency.LOW);
+        digest.get(size - 1).urgency = Urgency.HIGH;
+
+        JsonObject result = render(digest);
+
+        String text = result.get("message").getAsString();
+        assertThat(text.split(GitterMessageTemplate.DIGEST_SEPARATOR, -1).length, is(size));
+        assertThat(result.get("level").getAsString(), is(GitterMessageTemplate.GITTER_LEVEL_ERROR));
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+    private JsonObject render(List<Message> messages) throws Exception
+    {
+        StringWriter body = new StringWriter();
+        instance.payloadFor(messages).writeTo(new JsonWriter(body));
+
+        return new JsonParser().parse(body.toString()).getAsJsonObject();
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.longs;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class NotificationDispatchOptionsTest
+{
+
+    private int flushThreshold;
+    private long lingerMillis;
+    private int maxConcurrentSends;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        flushThreshold = one(integers(1, 500));
+        lingerMillis = one(longs(1, 10_000));
+        maxConcurrentSends = one(integers(1, 64));
+    }
+
+    @Test
+    public void testOfWhenMaxPendingIsBelowFlushThreshold()
+    {
+        assertThrows(() -> NotificationDispatchOptions.of(flushThreshold, lingerMillis, flushThreshold - 1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> NotificationDispatchOptions.of(flushThreshold, lingerMillis, flushThreshold - 1, maxConcurrentSends))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testOfWhenMaxPendingIsTheFlushThreshold()
+    {
+        NotificationDispatchOptions result = NotificationDispatchOptions.of(flushThreshold, lingerMillis, flushThreshold);
+        assertThat(result.getMaxPending(), is(flushThreshold));
+        assertThat(result.getMaxConcurrentSends(), is(NotificationDispatchOptions.DEFAULT_MAX_CONCURRENT_SENDS));
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.thrift.TException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import tech.aroma.thrift.notification.service.NotificationService;
+import tech.aroma.thrift.notification.service.SendNotificationRequest;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class NotificationDispatcherTest
+{
+
+    private static final int FLUSH_THRESHOLD = 3;
+    private static final long LINGER_MILLIS = 500L;
+    private static final int MAX_PENDING = 5;
+
+    @Mock
+    private NotificationService.Iface notificationService;
+
+    @Mock
+    private ScheduledExecutorService flusher;
+
+    private Executor senders;
+
+    @GeneratePojo
+    private SendNotificationRequest request;
+
+    private MetricRegistry metrics;
+    private NotificationDispatchOptions options;
+
+    private NotificationDispatcher instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        metrics = new MetricRegistry();
+        options = NotificationDispatchOptions.of(FLUSH_THRESHOLD, LINGER_MILLIS, MAX_PENDING);
+        senders = MoreExecutors.directExecutor();
+
+        instance = new NotificationDispatcher(notificationService, options, flusher, senders, metrics);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new NotificationDispatcher(null, options, flusher, senders, metrics));
+        assertThrows(() -> new NotificationDispatcher(notificationService, null, flusher, senders, metrics));
+        assertThrows(() -> new NotificationDispatcher(notificationService, options, null, senders, metrics));
+        assertThrows(() -> new NotificationDispatcher(notificationService, options, flusher, null, metrics));
+        assertThrows(() -> new NotificationDispatcher(notificationService, options, flusher, senders, null));
+    }
+
+    @Test
+    public void testSubmitWhenDisabled() throws Exception
+    {
+        metrics = new MetricRegistry();
+        instance = new NotificationDispatcher(notificationService, NotificationDispatchOptions.disabled(), flusher, senders, metrics);
+
+        assertThat(instance.submit(request), is(true));
+
+        verify(notificationService).sendNotification(request);
+        verifyZeroInteractions(flusher);
+        assertThat(metrics.counter(NotificationDispatcher.METRIC_SENT).getCount(), is(1L));
+    }
+
+    @Test
+    public void testSubmitSchedulesFlushAfterLinger() throws Exception
+    {
+        instance.submit(request);
+        instance.submit(request);
+
+        verifyZeroInteractions(notificationService);
+        assertThat(instance.getNumberOfPendingNotifications(), is(2));
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(flusher, times(1)).schedule(captor.capture(), eq(LINGER_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        captor.getValue().run();
+
+        verify(notificationService, times(2)).sendNotification(request);
+        assertThat(instance.getNumberOfPendingNotifications(), is(0));
+        assertThat(metrics.histogram(NotificationDispatcher.METRIC_FLUSH_SIZE).getSnapshot().getMax(), is(2L));
+    }
+
+    @Test
+    public void testSubmitFlushesAtThreshold() throws Exception
+    {
+        List<SendNotificationRequest> requests = listOf(pojos(SendNotificationRequest.class), FLUSH_THRESHOLD);
+        requests.forEach(instance::submit);
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(flusher).execute(captor.capture());
+
+        captor.getValue().run();
+
+        InOrder inOrder = inOrder(notificationService);
+
+        for (SendNotificationRequest sent : requests)
+        {
+            inOrder.verify(notificationService).sendNotification(sent);
+        }
+
+        assertThat(instance.getNumberOfPendingNotifications(), is(0));
+    }
+
+    @Test
+    public void testSubmitWhenTooManyArePending() throws Exception
+    {
+        for (int i = 0; i < MAX_PENDING; ++i)
+        {
+            assertThat(instance.submit(request), is(true));
+        }
+
+        assertThat(instance.submit(request), is(false));
+        assertThat(instance.submit(request), is(false));
+
+        assertThat(instance.getNumberOfPendingNotifications(), is(MAX_PENDING));
+        assertThat(metrics.counter(NotificationDispatcher.METRIC_DROPPED).getCount(), is(2L));
+        assertThat(metrics.getGauges().get(NotificationDispatcher.METRIC_PENDING).getValue(), is(MAX_PENDING));
+    }
+
+    @Test
+    public void testFlushDrainsUpToThresholdAtATime() throws Exception
+    {
+        for (int i = 0; i < MAX_PENDING; ++i)
+        {
+            instance.submit(request);
+        }
+
+        instance.flush();
+
+        verify(notificationService, times(MAX_PENDING)).sendNotification(request);
+        assertThat(metrics.histogram(NotificationDispatcher.METRIC_FLUSH_SIZE).getCount(), is(2L));
+    }
+
+    @Test
+    public void testFlushSendsConcurrently() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(FLUSH_THRESHOLD);
+        metrics = new MetricRegistry();
+        instance = new NotificationDispatcher(notificationService, options, flusher, pool, metrics);
+
+        CyclicBarrier allInFlight = new CyclicBarrier(FLUSH_THRESHOLD);
+
+        when(notificationService.sendNotification(any())).then(invocation ->
+        {
+            allInFlight.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+
+        try
+        {
+            for (int i = 0; i < FLUSH_THRESHOLD; ++i)
+            {
+                instance.submit(request);
+            }
+
+            instance.flush();
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        assertThat(metrics.counter(NotificationDispatcher.METRIC_SENT).getCount(), is((long) FLUSH_THRESHOLD));
+        assertThat(metrics.counter(NotificationDispatcher.METRIC_FAILED).getCount(), is(0L));
+    }
+
+    @Test
+    public void testFlushWhenNotificationServiceFails() throws Exception
+    {
+        when(notificationService.sendNotification(any()))
+            .thenThrow(new TException())
+            .thenReturn(null);
+
+        instance.submit(request);
+        instance.submit(request);
+        instance.flush();
+
+        verify(notificationService, times(2)).sendNotification(request);
+        assertThat(metrics.counter(NotificationDispatcher.METRIC_FAILED).getCount(), is(1L));
+        assertThat(metrics.counter(NotificationDispatcher.METRIC_SENT).getCount(), is(1L));
+    }
+
+    @Test
+    public void testFlushWhenEmpty() throws Exception
+    {
+        instance.flush();
+
+        verifyZeroInteractions(notificationService);
+    }
+
+    @DontRepeat
+    @Test
+    public void testSubmitWithBadArgs()
+    {
+        assertThrows(() -> instance.submit(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+}
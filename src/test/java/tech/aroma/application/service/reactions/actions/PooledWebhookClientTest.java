@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.annotations.testing.IntegrationTest;
+import tech.sirwellington.alchemy.http.HttpResponse;
+import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.StringGenerators.alphabeticStrings;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ * Runs the client against a stub Webhook served locally.
+ *
+ * @author SirWellington
+ */
+@IntegrationTest
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class PooledWebhookClientTest
+{
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private HttpServer server;
+    private URL webhookUrl;
+
+    private volatile int statusCode;
+    private volatile String responseBody;
+    private List<String> receivedBodies;
+    private Set<Integer> clientPorts;
+
+    private MetricRegistry metrics;
+    private WebhookClientOptions options;
+
+    private JsonObject payload;
+
+    private PooledWebhookClient instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        statusCode = 200;
+        responseBody = "ok";
+        receivedBodies = new CopyOnWriteArrayList<>();
+        clientPorts = ConcurrentHashMap.newKeySet();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/services/hook", this::handle);
+        server.start();
+
+        webhookUrl = new URL("http://localhost:" + server.getAddress().getPort() + "/services/hook");
+
+        payload = new JsonObject();
+        payload.addProperty("text", one(alphabeticStrings()));
+
+        metrics = new MetricRegistry();
+        options = WebhookClientOptions.of(2, 4, 1_000, 2_000, 30_000);
+        instance = new PooledWebhookClient(options, metrics);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        instance.close();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+
+        try (InputStream request = exchange.getRequestBody())
+        {
+            receivedBodies.add(new Scanner(request, "UTF-8").useDelimiter("\\A").next());
+        }
+
+        byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Retry-After", "3");
+        exchange.sendResponseHeaders(statusCode, body.length);
+
+        try (OutputStream response = exchange.getResponseBody())
+        {
+            response.write(body);
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new PooledWebhookClient(null, metrics));
+        assertThrows(() -> new PooledWebhookClient(options, null));
+    }
+
+    @Test
+    public void testPost() throws Exception
+    {
+        HttpResponse response = instance.post(webhookUrl, bodyOf(payload));
+
+        assertThat(response.statusCode(), is(200));
+        assertThat(response.bodyAsString(), containsString("ok"));
+        assertThat(receivedBodies, contains(payload.toString()));
+    }
+
+    @Test
+    public void testPostEncodesBodyLikeToString() throws Exception
+    {
+        JsonObject large = new JsonObject();
+        large.addProperty("text", "<@channel> & \u00e9\u4e16 " + one(alphabeticStrings()));
+        large.addProperty("body", new String(new char[PooledWebhookClient.MAX_RETAINED_BUFFER_BYTES * 2]).replace('\0', 'a'));
+
+        instance.post(webhookUrl, bodyOf(large));
+        instance.post(webhookUrl, bodyOf(payload));
+
+        assertThat(receivedBodies, contains(large.toString(), payload.toString()));
+    }
+
+    @Test
+    public void testPostAfterPayloadFailedPartWay() throws Exception
+    {
+        WebhookClient.Payload broken = json ->
+        {
+            json.beginObject().name("text").value(one(alphabeticStrings()));
+            throw new IllegalStateException("Payload failed");
+        };
+
+        assertThrows(() -> instance.post(webhookUrl, broken))
+            .isInstanceOf(IllegalStateException.class);
+
+        instance.post(webhookUrl, bodyOf(payload));
+
+        assertThat(receivedBodies, contains(payload.toString()));
+    }
+
+    @Test
+    public void testPostWithJsonResponse() throws Exception
+    {
+        responseBody = "{\"ok\":true}";
+
+        HttpResponse response = instance.post(webhookUrl, bodyOf(payload));
+        assertThat(response.body().getAsJsonObject().get("ok").getAsBoolean(), is(true));
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws Exception
+    {
+        for (int i = 0; i < 5; ++i)
+        {
+            instance.post(webhookUrl, bodyOf(payload));
+        }
+
+        assertThat(receivedBodies, hasSize(5));
+        assertThat(clientPorts, hasSize(1));
+
+        PoolStats stats = instance.getPoolStatsFor(webhookUrl);
+        assertThat(stats.getLeased(), is(0));
+        assertThat(stats.getAvailable(), is(1));
+        assertThat(stats.getMax(), is(options.getMaxConnectionsPerHost()));
+    }
+
+    @Test
+    public void testPostWhenWebhookFails() throws Exception
+    {
+        statusCode = 429;
+
+        AlchemyHttpException ex = assertThrowsAlchemyHttp(() -> instance.post(webhookUrl, bodyOf(payload)));
+        assertThat(ex.hasResponse(), is(true));
+        assertThat(ex.getResponse().statusCode(), is(429));
+        assertThat(WebhookDeliveryQueue.retryAfterMillisOf(ex.getResponse(), 0L).get(), is(3_000L));
+
+        assertThat(metrics.counter(PooledWebhookClient.METRIC_FAILURES).getCount(), is(1L));
+    }
+
+    @DontRepeat
+    @Test
+    public void testPostWhenWebhookIsDown() throws Exception
+    {
+        server.stop(0);
+
+        AlchemyHttpException ex = assertThrowsAlchemyHttp(() -> instance.post(webhookUrl, bodyOf(payload)));
+        assertThat(ex.hasResponse(), is(false));
+    }
+
+    @Test
+    public void testMetrics() throws Exception
+    {
+        instance.post(webhookUrl, bodyOf(payload));
+
+        assertThat(metrics.timer(PooledWebhookClient.METRIC_POSTS).getCount(), is(1L));
+
+        Gauge<?> available = metrics.getGauges().get(PooledWebhookClient.METRIC_CONNECTIONS_AVAILABLE);
+        assertThat(available.getValue(), is(1));
+
+        Gauge<?> leased = metrics.getGauges().get(PooledWebhookClient.METRIC_CONNECTIONS_LEASED);
+        assertThat(leased.getValue(), is(0));
+    }
+
+    @DontRepeat
+    @Test
+    public void testPostWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.post(null, bodyOf(payload)))
+            .isInstanceOf(AlchemyHttpException.class);
+
+        assertThrows(() -> instance.post(webhookUrl, null))
+            .isInstanceOf(AlchemyHttpException.class);
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+    /**
+     * Writes the JSON just as {@link JsonObject#toString()} does.
+     */
+    private static WebhookClient.Payload bodyOf(JsonObject json)
+    {
+        return writer -> GSON.toJson(json, writer);
+    }
+
+    private static AlchemyHttpException assertThrowsAlchemyHttp(Callable<HttpResponse> post) throws Exception
+    {
+        try
+        {
+            post.call();
+        }
+        catch (AlchemyHttpException ex)
+        {
+            return ex;
+        }
+
+        throw new AssertionError("Expected post to fail");
+    }
+
+}
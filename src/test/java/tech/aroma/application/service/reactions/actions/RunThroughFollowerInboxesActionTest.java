@@ -89,6 +89,7 @@ public class RunThroughFollowerInboxesActionTest
 
         when(factory.actionFor(any())).thenReturn(genericAction);
         when(factory.actionToRunThroughInbox(any())).thenReturn(actionToRunThroughInbox);
+        when(factory.actionToDoNothing()).thenReturn(genericAction);
     }
 
     @DontRepeat
@@ -105,10 +106,36 @@ public class RunThroughFollowerInboxesActionTest
         List<Action> actions = instance.actOnMessage(message);
         assertThat(actions, notNullValue());
         assertThat(actions, not(empty()));
+        assertThat(actions.size(), is(followers.size()));
         
+        actions.forEach(action -> assertThat(action, is(actionToRunThroughInbox)));
         followers.forEach(follower -> verify(factory).actionToRunThroughInbox(follower));
     }
 
+    @Test
+    public void testActOnMessageCreatesActionsLazily() throws Exception
+    {
+        List<Action> actions = instance.actOnMessage(message);
+        assertThat(actions, notNullValue());
+
+        verify(factory, never()).actionToRunThroughInbox(any());
+
+        Action first = actions.get(0);
+        assertThat(first, is(actionToRunThroughInbox));
+        verify(factory).actionToRunThroughInbox(followers.get(0));
+    }
+
+    @Test
+    public void testActOnMessageWhenFactoryFails() throws Exception
+    {
+        when(factory.actionToRunThroughInbox(any()))
+            .thenThrow(new IllegalArgumentException());
+
+        List<Action> actions = instance.actOnMessage(message);
+
+        actions.forEach(action -> assertThat(action, is(genericAction)));
+    }
+
     @Test
     public void testToString()
     {
@@ -87,7 +87,7 @@ public class RunThroughInboxActionTest
         setupData();
         setupMocks();
         
-        instance = new RunThroughInboxAction(actionFactory, matchAlgorithm, reactionRepo, user);
+        instance = new RunThroughInboxAction(actionFactory, matchAlgorithm, reactionRepo);
         verifyZeroInteractions(actionFactory, matchAlgorithm, reactionRepo);
     }
     
@@ -147,7 +147,7 @@ public class RunThroughInboxActionTest
     @Test
     public void testActOnMessage() throws Exception
     {
-        List<Action> actions = instance.actOnMessage(message);
+        List<Action> actions = instance.actOnMessage(user, message);
         assertThat(actions, notNullValue());
         assertThat(actions, hasItems(genericAction, actionToStoreInInbox));
         
@@ -161,7 +161,7 @@ public class RunThroughInboxActionTest
         when(reactionRepo.getReactionsForUser(user.userId))
             .thenReturn(Lists.createFrom(reactionThatDontStoreMessage));
         
-        List<Action> actions = instance.actOnMessage(message);
+        List<Action> actions = instance.actOnMessage(user, message);
         assertThat(actions, not(hasItems(actionToStoreInInbox)));
         assertThat(actions, hasItem(genericAction));
         
@@ -174,7 +174,7 @@ public class RunThroughInboxActionTest
         when(reactionRepo.getReactionsForUser(user.userId))
             .thenReturn(Lists.createFrom(reactionThatSkipInbox));
         
-        List<Action> actions = instance.actOnMessage(message);
+        List<Action> actions = instance.actOnMessage(user, message);
         assertThat(actions, hasItem(genericAction));
         assertThat(actions, not(hasItem(actionToStoreInInbox)));
     }
@@ -185,7 +185,7 @@ public class RunThroughInboxActionTest
         when(reactionRepo.getReactionsForUser(user.userId))
             .thenReturn(Lists.createFrom(reactionThatSkipPush));
         
-        List<Action> actions = instance.actOnMessage(message);
+        List<Action> actions = instance.actOnMessage(user, message);
         assertThat(actions, hasItem(genericAction));
         assertThat(actions, not(hasItem(actionToSendPushNotification)));
         
@@ -195,7 +195,13 @@ public class RunThroughInboxActionTest
     @Test
     public void testWithBadArgs() throws Exception
     {
-        assertThrows(() -> instance.actOnMessage(null))
+        assertThrows(() -> instance.actOnMessage(user, null))
+            .isInstanceOf(TException.class);
+
+        assertThrows(() -> instance.actOnMessage(null, message))
+            .isInstanceOf(TException.class);
+
+        assertThrows(() -> instance.actOnMessage(new User(), message))
             .isInstanceOf(TException.class);
     }
     
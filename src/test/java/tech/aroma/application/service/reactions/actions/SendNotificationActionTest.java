@@ -17,12 +17,16 @@
 package tech.aroma.application.service.reactions.actions;
 
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import tech.aroma.thrift.Message;
+import tech.aroma.thrift.exceptions.OperationFailedException;
 import tech.aroma.thrift.notification.service.*;
 import tech.sirwellington.alchemy.test.junit.runners.*;
 
@@ -35,6 +39,7 @@ import static tech.sirwellington.alchemy.arguments.Arguments.*;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.equalTo;
 import static tech.sirwellington.alchemy.arguments.assertions.Assertions.notNull;
 import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.positiveLongs;
 import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
 
 
@@ -52,6 +57,11 @@ public class SendNotificationActionTest
     
     private Message message;
     
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private NotificationDispatcher notificationDispatcher;
+
     private SendNotificationAction instance;
     
     @Captor
@@ -67,7 +77,12 @@ public class SendNotificationActionTest
         setupData();
         setupMocks();
         
-        instance = new SendNotificationAction(notificationService);
+        notificationDispatcher = new NotificationDispatcher(notificationService,
+                                                      NotificationDispatchOptions.disabled(),
+                                                      scheduler,
+                                                      MoreExecutors.directExecutor(),
+                                                      new MetricRegistry());
+        instance = new SendNotificationAction(notificationDispatcher);
         verifyZeroInteractions(notificationService);
     }
 
@@ -75,6 +90,7 @@ public class SendNotificationActionTest
     {
 
         message = one(messages());
+        message.timeMessageReceived = one(positiveLongs());
     }
 
     private void setupMocks() throws Exception
@@ -106,6 +122,58 @@ public class SendNotificationActionTest
         
         checkThat(request.event.applicationId)
             .is(equalTo(message.applicationId));
+
+        assertThat(request.event.eventId, not(isEmptyOrNullString()));
+        assertThat(request.event.timestamp, is(message.timeMessageReceived));
+        assertThat(request.event.eventType.getApplicationSentMessage().messageId, is(message.messageId));
+    }
+
+    @Test
+    public void testActOnMessageWhenDispatching() throws Exception
+    {
+        notificationDispatcher = new NotificationDispatcher(notificationService,
+                                                      NotificationDispatchOptions.of(10, 1_000L, 100),
+                                                      scheduler,
+                                                      MoreExecutors.directExecutor(),
+                                                      new MetricRegistry());
+        instance = new SendNotificationAction(notificationDispatcher);
+
+        instance.actOnMessage(message);
+        verifyZeroInteractions(notificationService);
+        assertThat(notificationDispatcher.getNumberOfPendingNotifications(), is(1));
+
+        notificationDispatcher.flush();
+        verify(notificationService).sendNotification(any());
+    }
+
+    @Test
+    public void testActOnMessageWhenDispatcherIsFull() throws Exception
+    {
+        notificationDispatcher = new NotificationDispatcher(notificationService,
+                                                      NotificationDispatchOptions.of(1, 1_000L, 1),
+                                                      scheduler,
+                                                      MoreExecutors.directExecutor(),
+                                                      new MetricRegistry());
+        instance = new SendNotificationAction(notificationDispatcher);
+
+        instance.actOnMessage(message);
+
+        assertThrows(() -> instance.actOnMessage(message))
+            .isInstanceOf(OperationFailedException.class);
+
+        verifyZeroInteractions(notificationService);
+    }
+
+    @Test
+    public void testEventIdsAreUnique() throws Exception
+    {
+        instance.actOnMessage(message);
+        instance.actOnMessage(message);
+
+        verify(notificationService, times(2)).sendNotification(captor.capture());
+
+        List<SendNotificationRequest> requests = captor.getAllValues();
+        assertThat(requests.get(0).event.eventId, not(requests.get(1).event.eventId));
     }
 
     @Test
@@ -84,7 +84,7 @@ public class SendPushNotificationActionTest
         setupData();
         setupMocks();
         
-        instance = new SendPushNotificationAction(apns, userPreferencesRepo, userId);
+        instance = new SendPushNotificationAction(apns, userPreferencesRepo);
         verifyZeroInteractions(apns, userPreferencesRepo);
     }
 
@@ -113,15 +113,14 @@ public class SendPushNotificationActionTest
     @Test
     public void testConstructor() throws Exception
     {
-        assertThrows(() -> new SendPushNotificationAction(null, userPreferencesRepo, userId));
-        assertThrows(() -> new SendPushNotificationAction(apns, null, userId));
-        assertThrows(() -> new SendPushNotificationAction(apns, userPreferencesRepo, ""));
+        assertThrows(() -> new SendPushNotificationAction(null, userPreferencesRepo));
+        assertThrows(() -> new SendPushNotificationAction(apns, null));
     }
     
     @Test
     public void testActOnMessage() throws Exception
     {
-        instance.actOnMessage(message);
+        instance.actOnMessage(userId, message);
         
         for (IOSDevice device : iosDevices)
         {
@@ -148,7 +147,7 @@ public class SendPushNotificationActionTest
         when(apns.push(eq(failingDevice.getDeviceToken()), any()))
             .thenThrow(new NetworkIOException());
         
-        instance.actOnMessage(message);
+        instance.actOnMessage(userId, message);
         
         for (IOSDevice device : iosDevices)
         {
@@ -174,22 +173,33 @@ public class SendPushNotificationActionTest
         when(userPreferencesRepo.getMobileDevices(userId))
             .thenReturn(Sets.emptySet());
         
-        instance.actOnMessage(message);
+        instance.actOnMessage(userId, message);
         
         verifyZeroInteractions(apns);
     }
     
     
+    @Test
+    public void testBoundTo() throws Exception
+    {
+        Action action = instance.boundTo(userId);
+        action.actOnMessage(message);
+
+        verify(userPreferencesRepo).getMobileDevices(userId);
+    }
+
     @Test
     public void testWithBadArgs() throws Exception
     {
-        assertThrows(() -> instance.actOnMessage(null)).isInstanceOf(InvalidArgumentException.class);
+        assertThrows(() -> instance.actOnMessage(userId, null)).isInstanceOf(InvalidArgumentException.class);
         
         Message emptyMessage = new Message();
-        assertThrows(() -> instance.actOnMessage(emptyMessage)).isInstanceOf(InvalidArgumentException.class);
+        assertThrows(() -> instance.actOnMessage(userId, emptyMessage)).isInstanceOf(InvalidArgumentException.class);
         
         Message messageWithoutId = new Message();
-        assertThrows(() -> instance.actOnMessage(messageWithoutId)).isInstanceOf(InvalidArgumentException.class);
+        assertThrows(() -> instance.actOnMessage(userId, messageWithoutId)).isInstanceOf(InvalidArgumentException.class);
+
+        assertThrows(() -> instance.actOnMessage("", message)).isInstanceOf(InvalidArgumentException.class);
         
     }
 
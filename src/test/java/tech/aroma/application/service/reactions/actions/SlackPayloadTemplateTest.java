@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.Urgency;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.aroma.thrift.generators.MessageGenerators.messages;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class SlackPayloadTemplateTest
+{
+
+    @GenerateString
+    private String channel;
+
+    private Message message;
+
+    private SlackPayloadTemplate instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        message = one(messages());
+        instance = new SlackPayloadTemplate(channel);
+    }
+
+    @Test
+    public void testRender() throws Exception
+    {
+        JsonObject result = render(Lists.createFrom(message));
+
+        assertThat(result.get("icon_url").getAsString(), is(SlackPayloadTemplate.ICON_URL));
+        assertThat(result.get("username").getAsString(), is(SlackPayloadTemplate.USERNAME));
+        assertThat(result.get("channel").getAsString(), is(channel));
+        assertThat(result.get("mrkdwn").getAsBoolean(), is(true));
+        assertThat(result.get("text").getAsString(), is("*" + message.applicationName + "* - " + message.title));
+
+        JsonArray attachments = result.getAsJsonArray("attachments");
+        assertThat(attachments.size(), is(1));
+
+        JsonObject attachment = attachments.get(0).getAsJsonObject();
+        assertThat(attachment.has("pretext"), is(false));
+
+        JsonArray fields = attachment.getAsJsonArray("fields");
+        assertThat(fields.size(), is(2));
+        assertThat(fields.get(0).getAsJsonObject().get("title").getAsString(), is(message.title));
+        assertThat(fields.get(1).getAsJsonObject().get("value").getAsString(), is(message.hostname));
+    }
+
+    @Test
+    public void testRenderWithoutChannel() throws Exception
+    {
+        instance = new SlackPayloadTemplate(null);
+
+        JsonObject result = render(Lists.createFrom(message));
+        assertThat(result.has("channel"), is(false));
+    }
+
+    @Test
+    public void testRenderColors() throws Exception
+    {
+        message.urgency = Urgency.HIGH;
+        JsonObject result = render(Lists.createFrom(message));
+        assertThat(colorOf(result), is(SlackPayloadTemplate.COLOR_HIGH));
+
+        message.urgency = Urgency.MEDIUM;
+        result = render(Lists.createFrom(message));
+        assertThat(colorOf(result), is(SlackPayloadTemplate.COLOR_MEDIUM));
+
+        message.urgency = Urgency.LOW;
+        result = render(Lists.createFrom(message));
+        assertThat(colorOf(result), is(SlackPayloadTemplate.COLOR_LOW));
+    }
+
+    @Test
+    public void testRenderDigest() throws Exception
+    {
+        int size = one(integers(2, 10));
+        List<Message> digest = listOf(messages(), size);
+        digest.forEach(each -> each.setApplicationName(message.applicationName));
+
+        JsonObject result = render(digest);
+
+        assertThat(result.get("text").getAsString(), is("*" + message.applicationName + "* - " + size + " new messages"));
+
+        JsonArray attachments = result.getAsJsonArray("attachments");
+        assertThat(attachments.size(), is(size));
+
+        for (int i = 0; i < size; ++i)
+        {
+            JsonObject attachment = attachments.get(i).getAsJsonObject();
+            assertThat(attachment.get("pretext").getAsString(), is("*" + digest.get(i).applicationName + "*"));
+        }
+    }
+
+    @Test
+    public void testRenderDigestFromManyApplications() throws Exception
+    {
+        Message other = one(messages());
+        Message third = new Message(message).setTitle(other.title);
+
+        JsonObject result = render(Lists.createFrom(message, other, third));
+
+        String expected = "3 new messages from *" + message.applicationName + "*, *" + other.applicationName + "*";
+        assertThat(result.get("text").getAsString(), is(expected));
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+    private static String colorOf(JsonObject payload)
+    {
+        return payload.getAsJsonArray("attachments")
+            .get(0)
+            .getAsJsonObject()
+            .get("color")
+            .getAsString();
+    }
+
+    private JsonObject render(List<Message> messages) throws Exception
+    {
+        StringWriter body = new StringWriter();
+        instance.payloadFor(messages).writeTo(new JsonWriter(body));
+
+        return new JsonParser().parse(body.toString()).getAsJsonObject();
+    }
+
+}
@@ -65,7 +65,7 @@ public class StoreInInboxActionTest
 
         setupData();
         setupMocks();
-        instance = new StoreInInboxAction(inboxRepo, user);
+        instance = new StoreInInboxAction(inboxRepo);
         verifyZeroInteractions(inboxRepo);
     }
 
@@ -83,7 +83,7 @@ public class StoreInInboxActionTest
     @Test
     public void testActOnMessage() throws Exception
     {
-        List<Action> results = instance.actOnMessage(message);
+        List<Action> results = instance.actOnMessage(user, message);
         checkThat(results)
             .is(notNull())
             .is(emptyList());
@@ -95,8 +95,28 @@ public class StoreInInboxActionTest
     @Test
     public void testWithBadArgs() throws Exception
     {
-        assertThrows(() -> instance.actOnMessage(null))
+        assertThrows(() -> instance.actOnMessage(user, null))
             .isInstanceOf(TException.class);
+
+        assertThrows(() -> instance.actOnMessage(null, message))
+            .isInstanceOf(TException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new StoreInInboxAction(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testBoundTo() throws Exception
+    {
+        Action action = instance.boundTo(user);
+        action.actOnMessage(message);
+
+        verify(inboxRepo).saveMessageForUser(eq(user), eq(message), any());
     }
 
     @Test
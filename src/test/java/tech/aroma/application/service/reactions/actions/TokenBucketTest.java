@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.longs;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class TokenBucketTest
+{
+
+    private long now;
+    private int capacity;
+
+    private TokenBucket instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        now = one(longs(1_000, 1_000_000));
+        capacity = one(integers(1, 20));
+
+        //One permit every 100ms
+        instance = new TokenBucket(10.0, capacity, now);
+    }
+
+    @Test
+    public void testTryAcquireUpToCapacity()
+    {
+        for (int i = 0; i < capacity; ++i)
+        {
+            assertThat(instance.tryAcquire(now), is(0L));
+        }
+
+        long wait = instance.tryAcquire(now);
+        assertThat(wait, is(100L));
+    }
+
+    @Test
+    public void testTryAcquireRefills()
+    {
+        for (int i = 0; i < capacity; ++i)
+        {
+            instance.tryAcquire(now);
+        }
+
+        assertThat(instance.tryAcquire(now + 50), is(50L));
+        assertThat(instance.tryAcquire(now + 100), is(0L));
+        assertThat(instance.tryAcquire(now + 100), greaterThan(0L));
+    }
+
+    @Test
+    public void testRefillDoesNotExceedCapacity()
+    {
+        long later = now + one(longs(10_000, 100_000));
+
+        for (int i = 0; i < capacity; ++i)
+        {
+            assertThat(instance.tryAcquire(later), is(0L));
+        }
+
+        assertThat(instance.tryAcquire(later), greaterThan(0L));
+    }
+
+    @Test
+    public void testTakeUpToWhatIsAvailable()
+    {
+        assertThat(instance.take(capacity + 5, now), is(capacity));
+        assertThat(instance.take(1, now), is(0));
+
+        //Three permits refill in 300ms
+        assertThat(instance.take(capacity, now + 300), is(Math.min(3, capacity)));
+    }
+
+    @Test
+    public void testIsFull()
+    {
+        assertThat(instance.isFull(now), is(true));
+
+        instance.take(1, now);
+        assertThat(instance.isFull(now), is(false));
+        assertThat(instance.isFull(now + 100), is(true));
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.thrift.Message;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static tech.aroma.thrift.generators.MessageGenerators.messages;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.CollectionGenerators.listOf;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class WebhookCoalescerTest
+{
+
+    private static final long WINDOW_MILLIS = 5_000L;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private ScheduledFuture scheduledFlush;
+
+    @GenerateString
+    private String destination;
+
+    private Message message;
+
+    private List<List<Message>> flushed;
+    private WebhookCoalescer.Flusher flusher;
+
+    private WebhookCoalescer instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        message = one(messages());
+
+        flushed = Lists.create();
+        flusher = flushed::add;
+
+        when(scheduler.schedule(any(Runnable.class), eq(WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS)))
+            .thenReturn(scheduledFlush);
+
+        instance = new WebhookCoalescer(WebhookDigestOptions.of(WINDOW_MILLIS, 3), scheduler);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new WebhookCoalescer(null, scheduler));
+        assertThrows(() -> new WebhookCoalescer(WebhookDigestOptions.disabled(), null));
+    }
+
+    @Test
+    public void testSubmitWhenDisabled()
+    {
+        instance = new WebhookCoalescer(WebhookDigestOptions.disabled(), scheduler);
+
+        instance.submit(destination, message, flusher);
+
+        assertThat(flushed, hasSize(1));
+        assertThat(flushed.get(0), contains(message));
+        assertThat(instance.getNumberOfOpenDigests(), is(0));
+        verifyZeroInteractions(scheduler);
+    }
+
+    @Test
+    public void testSubmitFlushesWhenDigestIsFull()
+    {
+        List<Message> messages = listOf(messages(), 3);
+
+        instance.submit(destination, messages.get(0), flusher);
+        instance.submit(destination, messages.get(1), flusher);
+
+        assertThat(flushed, is(empty()));
+        assertThat(instance.getNumberOfOpenDigests(), is(1));
+
+        instance.submit(destination, messages.get(2), flusher);
+
+        assertThat(flushed, hasSize(1));
+        assertThat(flushed.get(0), is(messages));
+        assertThat(instance.getNumberOfOpenDigests(), is(0));
+
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS));
+        verify(scheduledFlush).cancel(false);
+    }
+
+    @Test
+    public void testSubmitFlushesWhenWindowEnds()
+    {
+        instance.submit(destination, message, flusher);
+        assertThat(flushed, is(empty()));
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(captor.capture(), eq(WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS));
+
+        captor.getValue().run();
+
+        assertThat(flushed, hasSize(1));
+        assertThat(flushed.get(0), contains(message));
+        assertThat(instance.getNumberOfOpenDigests(), is(0));
+
+        //Running it again should not send the digest twice
+        captor.getValue().run();
+        assertThat(flushed, hasSize(1));
+    }
+
+    @Test
+    public void testSubmitKeepsDestinationsApart()
+    {
+        String otherDestination = destination + "-other";
+        Message otherMessage = one(messages());
+
+        instance.submit(destination, message, flusher);
+        instance.submit(otherDestination, otherMessage, flusher);
+
+        assertThat(instance.getNumberOfOpenDigests(), is(2));
+        assertThat(flushed, is(empty()));
+    }
+
+    @Test
+    public void testCloseFlushesOpenDigests()
+    {
+        String otherDestination = destination + "-other";
+        Message otherMessage = one(messages());
+
+        instance.submit(destination, message, flusher);
+        instance.submit(otherDestination, otherMessage, flusher);
+        assertThat(flushed, is(empty()));
+
+        instance.close();
+
+        assertThat(flushed, containsInAnyOrder(contains(message), contains(otherMessage)));
+        assertThat(instance.getNumberOfOpenDigests(), is(0));
+        verify(scheduledFlush, times(2)).cancel(false);
+    }
+
+    @Test
+    public void testSubmitAfterClose()
+    {
+        instance.close();
+
+        instance.submit(destination, message, flusher);
+
+        assertThat(flushed, hasSize(1));
+        assertThat(flushed.get(0), contains(message));
+        assertThat(instance.getNumberOfOpenDigests(), is(0));
+        verifyZeroInteractions(scheduler);
+    }
+
+    @Test
+    public void testSubmitWhenSchedulerIsShutDown()
+    {
+        when(scheduler.schedule(any(Runnable.class), eq(WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS)))
+            .thenThrow(new RejectedExecutionException());
+
+        instance.submit(destination, message, flusher);
+
+        assertThat(flushed, hasSize(1));
+        assertThat(flushed.get(0), contains(message));
+        assertThat(instance.getNumberOfOpenDigests(), is(0));
+    }
+
+    @Test
+    public void testSubmitWhenFlusherFails()
+    {
+        instance = new WebhookCoalescer(WebhookDigestOptions.disabled(), scheduler);
+
+        instance.submit(destination, message, messages ->
+                    {
+                        throw new RuntimeException();
+                    });
+    }
+
+    @DontRepeat
+    @Test
+    public void testSubmitWithBadArgs()
+    {
+        assertThrows(() -> instance.submit("", message, flusher))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.submit(destination, null, flusher))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.submit(destination, message, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
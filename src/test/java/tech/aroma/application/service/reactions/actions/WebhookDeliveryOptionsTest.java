@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.longs;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class WebhookDeliveryOptionsTest
+{
+
+    private double permitsPerSecond;
+    private int burst;
+    private int maxPending;
+    private long initialBackoff;
+    private long maxBackoff;
+    private long deadline;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        permitsPerSecond = one(integers(1, 100)) / 10.0;
+        burst = one(integers(1, 100));
+        maxPending = one(integers(1, 1_000));
+        initialBackoff = one(longs(1, 1_000));
+        maxBackoff = initialBackoff + one(longs(0, 10_000));
+        deadline = one(longs(1, 100_000));
+    }
+
+    @Test
+    public void testWithDeliveryThreads()
+    {
+        int threads = one(integers(1, 100));
+        WebhookDeliveryOptions base = WebhookDeliveryOptions.of(permitsPerSecond, burst, maxPending, initialBackoff, maxBackoff, deadline);
+
+        WebhookDeliveryOptions result = base.withDeliveryThreads(threads);
+        assertThat(result.getDeliveryThreads(), is(threads));
+        assertThat(result.getDeadlineMillis(), is(deadline));
+        assertThat(result.getIdleDestinationMillis(), is(base.getIdleDestinationMillis()));
+
+        assertThrows(() -> base.withDeliveryThreads(one(integers(-100, 1))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testWithIdleDestinationMillis()
+    {
+        long idle = one(longs(1, 100_000));
+        WebhookDeliveryOptions base = WebhookDeliveryOptions.of(permitsPerSecond, burst, maxPending, initialBackoff, maxBackoff, deadline);
+
+        WebhookDeliveryOptions result = base.withIdleDestinationMillis(idle);
+        assertThat(result.getIdleDestinationMillis(), is(idle));
+        assertThat(result.getDeliveryThreads(), is(base.getDeliveryThreads()));
+        assertThat(result, not(base.withIdleDestinationMillis(idle + 1)));
+
+        assertThrows(() -> base.withIdleDestinationMillis(one(longs(-100, 0))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testOfWhenMaxBackoffIsLessThanInitial()
+    {
+        assertThrows(() -> WebhookDeliveryOptions.of(permitsPerSecond, burst, maxPending, initialBackoff + 1, initialBackoff, deadline))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
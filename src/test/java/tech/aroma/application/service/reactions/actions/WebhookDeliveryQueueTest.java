@@ -0,0 +1,427 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.aroma.application.service.reactions.actions;
+
+import java.net.URL;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import tech.sirwellington.alchemy.http.HttpResponse;
+import tech.sirwellington.alchemy.http.exceptions.AlchemyHttpException;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.NumberGenerators.integers;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class WebhookDeliveryQueueTest
+{
+
+    private static final long INITIAL_BACKOFF = 1_000L;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private HttpResponse response;
+
+    @GenerateURL
+    private URL url;
+
+    private MetricRegistry metrics;
+    private AtomicInteger attempts;
+
+    private WebhookDeliveryQueue instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        metrics = new MetricRegistry();
+        attempts = new AtomicInteger();
+
+        instance = createQueueWith(WebhookDeliveryOptions.of(1.0, 5, 100, INITIAL_BACKOFF, 10 * INITIAL_BACKOFF, 60_000L));
+    }
+
+    private WebhookDeliveryQueue createQueueWith(WebhookDeliveryOptions options)
+    {
+        return createQueueWith(options, CircuitBreakerOptions.defaults());
+    }
+
+    private WebhookDeliveryQueue createQueueWith(WebhookDeliveryOptions options, CircuitBreakerOptions circuitOptions)
+    {
+        return new WebhookDeliveryQueue(options, circuitOptions, MoreExecutors.newDirectExecutorService(), scheduler, metrics);
+    }
+
+    private WebhookDeliveryQueue.Delivery succeeding()
+    {
+        return () ->
+        {
+            attempts.incrementAndGet();
+            return response;
+        };
+    }
+
+    private WebhookDeliveryQueue.Delivery failingWith(int statusCode)
+    {
+        when(response.statusCode()).thenReturn(statusCode);
+
+        return () ->
+        {
+            attempts.incrementAndGet();
+            throw new AlchemyHttpException(response);
+        };
+    }
+
+    private long countOf(String metric)
+    {
+        return metrics.counter(metric).getCount();
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        WebhookDeliveryOptions options = WebhookDeliveryOptions.defaults();
+        CircuitBreakerOptions circuitOptions = CircuitBreakerOptions.defaults();
+
+        assertThrows(() -> new WebhookDeliveryQueue(null, circuitOptions, MoreExecutors.newDirectExecutorService(), scheduler, metrics));
+        assertThrows(() -> new WebhookDeliveryQueue(options, null, MoreExecutors.newDirectExecutorService(), scheduler, metrics));
+        assertThrows(() -> new WebhookDeliveryQueue(options, circuitOptions, null, scheduler, metrics));
+        assertThrows(() -> new WebhookDeliveryQueue(options, circuitOptions, MoreExecutors.newDirectExecutorService(), null, metrics));
+        assertThrows(() -> new WebhookDeliveryQueue(options, circuitOptions, MoreExecutors.newDirectExecutorService(), scheduler, null));
+    }
+
+    @Test
+    public void testEnqueue()
+    {
+        instance.enqueue(url, succeeding());
+
+        assertThat(attempts.get(), is(1));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DELIVERED), is(1L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(0));
+        verifyZeroInteractions(scheduler);
+    }
+
+    @Test
+    public void testIdleDestinationsAreForgotten() throws Exception
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.defaults().withIdleDestinationMillis(1L));
+        URL other = new URL(url.toString() + "/other");
+
+        instance.enqueue(url, succeeding());
+        assertThat(instance.getNumberOfDestinations(), is(1));
+
+        Thread.sleep(5);
+        instance.enqueue(other, succeeding());
+
+        assertThat(attempts.get(), is(2));
+        assertThat(instance.getNumberOfDestinations(), is(1));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DESTINATIONS_EVICTED), is(1L));
+        assertThat(instance.getCircuitStateOf(url), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void testDestinationsWithPendingPostsAreKept() throws Exception
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.of(0.01, 1, 100, INITIAL_BACKOFF, INITIAL_BACKOFF, 60_000L)
+            .withIdleDestinationMillis(1L));
+        URL other = new URL(url.toString() + "/other");
+
+        instance.enqueue(url, succeeding());
+        instance.enqueue(url, succeeding());
+        assertThat(instance.getNumberOfPendingDeliveries(), is(1));
+
+        Thread.sleep(5);
+        instance.enqueue(other, succeeding());
+
+        assertThat(instance.getNumberOfDestinations(), is(2));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(1));
+    }
+
+    @Test
+    public void testEnqueueWhenRateLimited()
+    {
+        int burst = one(integers(1, 10));
+        instance = createQueueWith(WebhookDeliveryOptions.of(0.01, burst, 100, INITIAL_BACKOFF, INITIAL_BACKOFF, 60_000L));
+
+        for (int i = 0; i <= burst; ++i)
+        {
+            instance.enqueue(url, succeeding());
+        }
+
+        assertThat(attempts.get(), is(burst));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(1));
+        verify(scheduler).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testEnqueueWhenQueueIsFull()
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.of(0.01, 1, 1, INITIAL_BACKOFF, INITIAL_BACKOFF, 60_000L));
+
+        instance.enqueue(url, succeeding());
+        instance.enqueue(url, succeeding());
+        instance.enqueue(url, succeeding());
+
+        assertThat(attempts.get(), is(1));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(1));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DROPPED), is(1L));
+    }
+
+    @Test
+    public void testEnqueueWhenServerFails()
+    {
+        int statusCode = one(integers(500, 600));
+
+        instance.enqueue(url, failingWith(statusCode));
+
+        assertThat(attempts.get(), is(1));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_RETRIED), is(1L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(1));
+
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler).schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.MILLISECONDS));
+        assertThat(delay.getValue(), lessThanOrEqualTo(INITIAL_BACKOFF));
+    }
+
+    @Test
+    public void testEnqueueWhenConnectionFails()
+    {
+        instance.enqueue(url, () ->
+                 {
+                     attempts.incrementAndGet();
+                     throw new AlchemyHttpException("timed out");
+                 });
+
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_RETRIED), is(1L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(1));
+    }
+
+    @Test
+    public void testEnqueueRetriesUntilDelivered() throws Exception
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.of(1.0, 5, 100, 50L, 50L, 60_000L));
+
+        instance.enqueue(url, () ->
+                 {
+                     if (attempts.incrementAndGet() == 1)
+                     {
+                         throw new AlchemyHttpException("timed out");
+                     }
+
+                     return response;
+                 });
+
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(retry.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+
+        //Let the backoff pass before running the retry
+        Thread.sleep(60);
+        retry.getValue().run();
+
+        assertThat(attempts.get(), is(2));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DELIVERED), is(1L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(0));
+    }
+
+    @Test
+    public void testEnqueueWhenTooManyRequests()
+    {
+        Map<String, String> headers = ImmutableMap.of("retry-after", "7");
+        when(response.responseHeaders()).thenReturn(headers);
+
+        instance.enqueue(url, failingWith(429));
+
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_RETRIED), is(1L));
+
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler).schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.MILLISECONDS));
+        assertThat(delay.getValue(), greaterThan(6_000L));
+        assertThat(delay.getValue(), lessThanOrEqualTo(7_000L));
+    }
+
+    @Test
+    public void testEnqueueWhenClientFails()
+    {
+        int statusCode = one(integers(400, 428));
+
+        instance.enqueue(url, failingWith(statusCode));
+
+        assertThat(attempts.get(), is(1));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DROPPED), is(1L));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_RETRIED), is(0L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(0));
+    }
+
+    @Test
+    public void testEnqueueWhenDeadlinePasses()
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.of(1.0, 5, 100, INITIAL_BACKOFF, INITIAL_BACKOFF, 1L));
+
+        instance.enqueue(url, failingWith(503));
+
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DROPPED), is(1L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(0));
+    }
+
+    @Test
+    public void testEnqueueWhenDeadlinePassesWhileWaiting() throws Exception
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.of(0.01, 1, 100, INITIAL_BACKOFF, INITIAL_BACKOFF, 100L));
+
+        instance.enqueue(url, succeeding());
+        instance.enqueue(url, succeeding());
+        assertThat(instance.getNumberOfPendingDeliveries(), is(1));
+
+        ArgumentCaptor<Runnable> resume = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(resume.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+
+        //Let the deadline pass while the post waits for the rate limit
+        Thread.sleep(120);
+        resume.getValue().run();
+
+        assertThat(attempts.get(), is(1));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DELIVERED), is(1L));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DROPPED), is(1L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(0));
+    }
+
+    @Test
+    public void testEnqueueAfterClose()
+    {
+        instance.close();
+
+        instance.enqueue(url, succeeding());
+
+        assertThat(attempts.get(), is(0));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_DROPPED), is(1L));
+        assertThat(instance.getNumberOfPendingDeliveries(), is(0));
+    }
+
+    @Test
+    public void testCircuitOpensAfterRepeatedFailures()
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.defaults(), CircuitBreakerOptions.of(2, 60_000L, 1));
+        assertThat(instance.getCircuitStateOf(url), is(CircuitBreaker.State.CLOSED));
+
+        WebhookDeliveryQueue.Delivery delivery = failingWith(404);
+        instance.enqueue(url, delivery);
+        instance.enqueue(url, delivery);
+
+        assertThat(instance.getCircuitStateOf(url), is(CircuitBreaker.State.OPEN));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_CIRCUITS_OPENED), is(1L));
+
+        //Fails fast without calling the Webhook
+        instance.enqueue(url, succeeding());
+        assertThat(attempts.get(), is(2));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_SHORT_CIRCUITED), is(1L));
+    }
+
+    @Test
+    public void testCircuitClosesAfterSuccessfulTrial() throws Exception
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.defaults(), CircuitBreakerOptions.of(1, 50L, 1));
+
+        instance.enqueue(url, failingWith(404));
+        assertThat(instance.getCircuitStateOf(url), is(CircuitBreaker.State.OPEN));
+
+        Thread.sleep(60);
+        instance.enqueue(url, succeeding());
+
+        assertThat(attempts.get(), is(2));
+        assertThat(instance.getCircuitStateOf(url), is(CircuitBreaker.State.CLOSED));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_CIRCUITS_HALF_OPENED), is(1L));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_CIRCUITS_CLOSED), is(1L));
+    }
+
+    @Test
+    public void testCircuitReopensWhenTrialFails() throws Exception
+    {
+        instance = createQueueWith(WebhookDeliveryOptions.defaults(), CircuitBreakerOptions.of(1, 50L, 1));
+
+        WebhookDeliveryQueue.Delivery delivery = failingWith(410);
+        instance.enqueue(url, delivery);
+        assertThat(instance.getCircuitStateOf(url), is(CircuitBreaker.State.OPEN));
+
+        Thread.sleep(60);
+        instance.enqueue(url, delivery);
+
+        assertThat(attempts.get(), is(2));
+        assertThat(instance.getCircuitStateOf(url), is(CircuitBreaker.State.OPEN));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_CIRCUITS_HALF_OPENED), is(1L));
+        assertThat(countOf(WebhookDeliveryQueue.METRIC_CIRCUITS_OPENED), is(2L));
+    }
+
+    @Test
+    public void testRetryAfterMillisOf()
+    {
+        long now = System.currentTimeMillis();
+
+        when(response.responseHeaders()).thenReturn(ImmutableMap.of("Retry-After", "3"));
+        assertThat(WebhookDeliveryQueue.retryAfterMillisOf(response, now), is(Optional.of(3_000L)));
+
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+        when(response.responseHeaders()).thenReturn(ImmutableMap.of("Retry-After", date));
+        Optional<Long> result = WebhookDeliveryQueue.retryAfterMillisOf(response, now);
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), greaterThan(50_000L));
+
+        when(response.responseHeaders()).thenReturn(ImmutableMap.of("Retry-After", "soon"));
+        assertThat(WebhookDeliveryQueue.retryAfterMillisOf(response, now), is(Optional.empty()));
+
+        when(response.responseHeaders()).thenReturn(ImmutableMap.of());
+        assertThat(WebhookDeliveryQueue.retryAfterMillisOf(response, now), is(Optional.empty()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testEnqueueWithBadArgs()
+    {
+        assertThrows(() -> instance.enqueue(null, succeeding()))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThrows(() -> instance.enqueue(url, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import java.net.ServerSocket;
+import java.util.concurrent.*;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TProtocolException;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.endpoint.TcpEndpoint;
+import tech.aroma.thrift.exceptions.InvalidTokenException;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.aroma.thrift.services.NoOpAuthenticationService;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(25)
+@RunWith(AlchemyTestRunner.class)
+public class PooledAuthenticationServiceTest
+{
+
+    private static final int POOL_SIZE = 2;
+
+    @Mock
+    private TTransport transport;
+
+    @Mock
+    private AuthenticationService.Iface client;
+
+    @GeneratePojo
+    private VerifyTokenRequest request;
+
+    @GeneratePojo
+    private VerifyTokenResponse response;
+
+    private AuthenticationClientOptions options;
+    private MetricRegistry metrics;
+    private PooledAuthenticationService.Connector connector;
+    private int connections;
+
+    private PooledAuthenticationService instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        connections = 0;
+        connector = () ->
+        {
+            ++connections;
+            return new PooledAuthenticationService.Connection(transport, client);
+        };
+
+        when(transport.isOpen()).thenReturn(true);
+        when(client.verifyToken(request)).thenReturn(response);
+
+        options = AuthenticationClientOptions.of(new TcpEndpoint("localhost", 7026), POOL_SIZE, 1_000L, 50L, 60_000L, false);
+        metrics = new MetricRegistry();
+
+        instance = new PooledAuthenticationService(options, metrics, connector);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        assertThrows(() -> new PooledAuthenticationService(null, metrics, connector));
+        assertThrows(() -> new PooledAuthenticationService(options, null, connector));
+        assertThrows(() -> new PooledAuthenticationService(options, metrics, null));
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception
+    {
+        for (int i = 0; i < 5; ++i)
+        {
+            assertThat(instance.verifyToken(request), is(response));
+        }
+
+        assertThat(connections, is(1));
+        assertThat(instance.getNumberOfIdleConnections(), is(1));
+        assertThat(instance.getNumberOfLeasedConnections(), is(0));
+        assertThat(metrics.timer(PooledAuthenticationService.METRIC_CALL_TIME).getCount(), is(5L));
+        assertThat(metrics.counter(PooledAuthenticationService.METRIC_CONNECTIONS_OPENED).getCount(), is(1L));
+    }
+
+    @Test
+    public void testConnectionIsKeptWhenServiceRejectsCall() throws Exception
+    {
+        when(client.verifyToken(request))
+            .thenThrow(new InvalidTokenException())
+            .thenReturn(response);
+
+        assertThrows(() -> instance.verifyToken(request))
+            .isInstanceOf(InvalidTokenException.class);
+
+        assertThat(instance.getNumberOfIdleConnections(), is(1));
+        verify(transport, never()).close();
+
+        assertThat(instance.verifyToken(request), is(response));
+        assertThat(connections, is(1));
+        assertThat(metrics.counter(PooledAuthenticationService.METRIC_CONNECTIONS_DISCARDED).getCount(), is(0L));
+    }
+
+    @Test
+    public void testConnectionIsDiscardedOnProtocolException() throws Exception
+    {
+        when(client.verifyToken(request))
+            .thenThrow(new TProtocolException())
+            .thenReturn(response);
+
+        assertThrows(() -> instance.verifyToken(request))
+            .isInstanceOf(TProtocolException.class);
+
+        assertThat(instance.getNumberOfIdleConnections(), is(0));
+        verify(transport).close();
+
+        assertThat(instance.verifyToken(request), is(response));
+        assertThat(connections, is(2));
+    }
+
+    @Test
+    public void testConnectionIsDiscardedOnApplicationException() throws Exception
+    {
+        when(client.verifyToken(request))
+            .thenThrow(new TApplicationException(TApplicationException.BAD_SEQUENCE_ID))
+            .thenReturn(response);
+
+        assertThrows(() -> instance.verifyToken(request))
+            .isInstanceOf(TApplicationException.class);
+
+        assertThat(instance.getNumberOfIdleConnections(), is(0));
+        assertThat(metrics.counter(PooledAuthenticationService.METRIC_CONNECTIONS_DISCARDED).getCount(), is(1L));
+        verify(transport).close();
+
+        assertThat(instance.verifyToken(request), is(response));
+        assertThat(connections, is(2));
+    }
+
+    @Test
+    public void testConnectionIsDiscardedWhenTransportFails() throws Exception
+    {
+        when(client.verifyToken(request))
+            .thenThrow(new TTransportException())
+            .thenReturn(response);
+
+        assertThrows(() -> instance.verifyToken(request))
+            .isInstanceOf(TTransportException.class);
+
+        assertThat(instance.getNumberOfIdleConnections(), is(0));
+        verify(transport).close();
+
+        assertThat(instance.verifyToken(request), is(response));
+        assertThat(connections, is(2));
+    }
+
+    @Test
+    public void testClosedIdleConnectionIsReplaced() throws Exception
+    {
+        instance.verifyToken(request);
+
+        when(transport.isOpen()).thenReturn(false);
+
+        instance.verifyToken(request);
+        assertThat(connections, is(2));
+        assertThat(metrics.counter(PooledAuthenticationService.METRIC_CONNECTIONS_DISCARDED).getCount(), is(1L));
+    }
+
+    @Test
+    public void testIdleConnectionIsHealthChecked() throws Exception
+    {
+        options = AuthenticationClientOptions.of(new TcpEndpoint("localhost", 7026), POOL_SIZE, 1_000L, 50L, 1L, false);
+        instance = new PooledAuthenticationService(options, metrics, connector);
+
+        instance.verifyToken(request);
+        Thread.sleep(5);
+
+        when(client.getApiVersion()).thenThrow(new TTransportException());
+
+        instance.verifyToken(request);
+
+        assertThat(connections, is(2));
+        assertThat(metrics.counter(PooledAuthenticationService.METRIC_HEALTH_CHECK_FAILURES).getCount(), is(1L));
+    }
+
+    @Test
+    public void testCallFailsWhenPoolIsExhausted() throws Exception
+    {
+        CountDownLatch callsStarted = new CountDownLatch(POOL_SIZE);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(client.verifyToken(request)).thenAnswer(invocation ->
+        {
+            callsStarted.countDown();
+            release.await();
+            return response;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+
+        try
+        {
+            for (int i = 0; i < POOL_SIZE; ++i)
+            {
+                executor.submit(() -> instance.verifyToken(request));
+            }
+
+            callsStarted.await(5, TimeUnit.SECONDS);
+            assertThat(instance.getNumberOfLeasedConnections(), is(POOL_SIZE));
+
+            assertThrows(() -> instance.verifyToken(request))
+                .isInstanceOf(OperationFailedException.class);
+        }
+        finally
+        {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(connections, is(POOL_SIZE));
+        assertThat(instance.getNumberOfIdleConnections(), is(POOL_SIZE));
+    }
+
+    @Test
+    public void testConnectFailure() throws Exception
+    {
+        instance = new PooledAuthenticationService(options, metrics, () ->
+                                               {
+                                                   throw new TTransportException("connection refused");
+                                               });
+
+        assertThrows(() -> instance.verifyToken(request))
+            .isInstanceOf(TTransportException.class);
+
+        assertThat(instance.getNumberOfLeasedConnections(), is(0));
+    }
+
+    @Test
+    public void testClose() throws Exception
+    {
+        instance.verifyToken(request);
+        instance.close();
+
+        verify(transport).close();
+        assertThat(instance.getNumberOfIdleConnections(), is(0));
+
+        assertThrows(() -> instance.verifyToken(request))
+            .isInstanceOf(OperationFailedException.class);
+    }
+
+    @Test
+    public void testOtherCalls() throws Exception
+    {
+        instance.getApiVersion();
+        instance.createToken(new CreateTokenRequest());
+        instance.getTokenInfo(new GetTokenInfoRequest());
+        instance.invalidateToken(new InvalidateTokenRequest());
+
+        verify(client).getApiVersion();
+        verify(client).createToken(any());
+        verify(client).getTokenInfo(any());
+        verify(client).invalidateToken(any());
+        assertThat(connections, is(1));
+    }
+
+    @DontRepeat
+    @Test
+    public void testAgainstThriftServer() throws Exception
+    {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0))
+        {
+            port = probe.getLocalPort();
+        }
+
+        TServerSocket socket = new TServerSocket(port);
+        TServer server = new TThreadPoolServer(new TThreadPoolServer.Args(socket)
+            .protocolFactory(new TBinaryProtocol.Factory())
+            .processor(new AuthenticationService.Processor<>(new NoOpAuthenticationService())));
+
+        ExecutorService serving = Executors.newSingleThreadExecutor();
+        serving.submit(server::serve);
+
+        options = AuthenticationClientOptions.of(new TcpEndpoint("localhost", port), POOL_SIZE, 1_000L, 1_000L, 60_000L, false);
+        instance = new PooledAuthenticationService(options, metrics);
+
+        try
+        {
+            for (int i = 0; i < 5; ++i)
+            {
+                instance.getApiVersion();
+            }
+
+            assertThat(metrics.counter(PooledAuthenticationService.METRIC_CONNECTIONS_OPENED).getCount(), is(1L));
+        }
+        finally
+        {
+            instance.close();
+            server.stop();
+            serving.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertThat(instance.toString(), not(isEmptyOrNullString()));
+    }
+
+}
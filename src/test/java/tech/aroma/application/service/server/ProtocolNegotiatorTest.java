@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.*;
+import tech.aroma.application.service.server.ProtocolNegotiator.NegotiatedTransport;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static tech.sirwellington.alchemy.generator.EnumGenerators.enumValueOf;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(50)
+@RunWith(AlchemyTestRunner.class)
+public class ProtocolNegotiatorTest
+{
+
+    @Mock
+    private TProcessor processor;
+
+    @Captor
+    private ArgumentCaptor<TProtocol> captor;
+
+    @GeneratePojo
+    private SendMessageRequest request;
+
+    private WireProtocol wireProtocol;
+
+    private ProtocolNegotiator instance;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        wireProtocol = enumValueOf(WireProtocol.class).get();
+
+        instance = new ProtocolNegotiator();
+    }
+
+    @Test
+    public void testUnframed() throws Exception
+    {
+        TMemoryBuffer client = new TMemoryBuffer(1024);
+        writeMessage(wireProtocol.getFactory().getProtocol(client));
+
+        NegotiatedTransport transport = (NegotiatedTransport) instance.transportFactory().getTransport(client);
+
+        SendMessageRequest result = readMessage(transport.getProtocol());
+
+        assertThat(result, is(request));
+        assertThat(transport.getWireProtocol(), is(wireProtocol));
+        assertThat(transport.isFramed(), is(false));
+    }
+
+    @Test
+    public void testFramed() throws Exception
+    {
+        TMemoryBuffer client = new TMemoryBuffer(1024);
+        TFramedTransport framed = new TFramedTransport(client);
+        writeMessage(wireProtocol.getFactory().getProtocol(framed));
+        framed.flush();
+
+        NegotiatedTransport transport = (NegotiatedTransport) instance.transportFactory().getTransport(client);
+
+        SendMessageRequest result = readMessage(transport.getProtocol());
+
+        assertThat(result, is(request));
+        assertThat(transport.getWireProtocol(), is(wireProtocol));
+        assertThat(transport.isFramed(), is(true));
+    }
+
+    @Test
+    public void testSameTransportForInputAndOutput() throws Exception
+    {
+        TMemoryBuffer client = new TMemoryBuffer(1024);
+        TTransportFactory factory = instance.transportFactory();
+
+        assertThat(factory.getTransport(client), sameInstance(factory.getTransport(client)));
+    }
+
+    @Test
+    public void testWrap() throws Exception
+    {
+        TMemoryBuffer client = new TMemoryBuffer(1024);
+        writeMessage(wireProtocol.getFactory().getProtocol(client));
+
+        TTransport transport = instance.transportFactory().getTransport(client);
+        TProtocol placeholder = WireProtocol.BINARY.getFactory().getProtocol(transport);
+
+        when(processor.process(any(), any())).thenReturn(true);
+
+        assertThat(instance.wrap(processor).process(placeholder, placeholder), is(true));
+
+        verify(processor).process(captor.capture(), captor.capture());
+        TProtocol negotiated = captor.getAllValues().get(0);
+        assertThat(negotiated, sameInstance(captor.getAllValues().get(1)));
+        assertThat(negotiated.getClass(), sameInstance(wireProtocol.getFactory().getProtocol(client).getClass()));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWrapWithBadArgs() throws Exception
+    {
+        assertThrows(() -> instance.wrap(null));
+
+        TProtocol notNegotiated = WireProtocol.BINARY.getFactory().getProtocol(new TMemoryBuffer(16));
+
+        assertThrows(() -> instance.wrap(processor).process(notNegotiated, notNegotiated))
+            .isInstanceOf(TTransportException.class);
+    }
+
+    @DontRepeat
+    @Test
+    public void testFromFirstByte()
+    {
+        assertThat(WireProtocol.fromFirstByte((byte) 0x80), is(WireProtocol.BINARY));
+        assertThat(WireProtocol.fromFirstByte((byte) 0x82), is(WireProtocol.COMPACT));
+        assertThat(WireProtocol.fromFirstByte((byte) '['), is(WireProtocol.JSON));
+        assertThat(WireProtocol.fromFirstByte((byte) 0x7F), is(WireProtocol.BINARY));
+    }
+
+    private void writeMessage(TProtocol protocol) throws Exception
+    {
+        protocol.writeMessageBegin(new TMessage("sendMessage", TMessageType.CALL, 1));
+        request.write(protocol);
+        protocol.writeMessageEnd();
+    }
+
+    private SendMessageRequest readMessage(TProtocol protocol) throws Exception
+    {
+        TMessage message = protocol.readMessageBegin();
+        assertThat(message.name, is("sendMessage"));
+
+        SendMessageRequest result = new SendMessageRequest();
+        result.read(protocol);
+        protocol.readMessageEnd();
+
+        return result;
+    }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2017 RedRoma, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.aroma.application.service.server;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.*;
+import sir.wellington.alchemy.collections.lists.Lists;
+import tech.aroma.application.service.operations.SendMessageBatchOperation;
+import tech.aroma.application.service.operations.SendMessageBatchResponse.Status;
+import tech.aroma.application.service.reactions.MessageReactor;
+import tech.aroma.thrift.Message;
+import tech.aroma.thrift.application.service.SendMessageRequest;
+import tech.aroma.thrift.authentication.*;
+import tech.aroma.thrift.authentication.service.*;
+import tech.aroma.thrift.exceptions.InvalidTokenException;
+import tech.aroma.thrift.exceptions.OperationFailedException;
+import tech.aroma.thrift.functions.TokenFunctions;
+import tech.sirwellington.alchemy.test.junit.runners.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static tech.sirwellington.alchemy.generator.AlchemyGenerator.Get.one;
+import static tech.sirwellington.alchemy.generator.ObjectGenerators.pojos;
+import static tech.sirwellington.alchemy.test.junit.ThrowableAssertion.*;
+import static tech.sirwellington.alchemy.test.junit.runners.GenerateString.Type.UUID;
+
+/**
+ *
+ * @author SirWellington
+ */
+@Repeat(10)
+@RunWith(AlchemyTestRunner.class)
+public class StreamingIngestServerTest
+{
+
+    private static final int MAX_FRAME_BYTES = 16 * 1024;
+
+    @Mock
+    private AuthenticationService.Iface authenticationService;
+
+    @Mock
+    private MessageReactor messageReactor;
+
+    @Mock
+    private Function<AuthenticationToken, ApplicationToken> tokenMapper;
+
+    @Captor
+    private ArgumentCaptor<List<Message>> captor;
+
+    @GenerateString(UUID)
+    private String appId;
+
+    private ApplicationToken appToken;
+
+    private MetricRegistry metrics;
+    private StreamingIngestOptions options;
+    private StreamingIngestServer instance;
+
+    private TSerializer serializer;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        setupData();
+        setupMocks();
+
+        metrics = new MetricRegistry();
+        options = StreamingIngestOptions.of(findFreePort(), 4, 50, MAX_FRAME_BYTES, 5_000L);
+
+        SendMessageBatchOperation batchOperation = SendMessageBatchOperation.newInstance(authenticationService,
+                                                                                         messageReactor,
+                                                                                         tokenMapper,
+                                                                                         metrics);
+        instance = new StreamingIngestServer(batchOperation, options, metrics);
+        instance.start();
+
+        serializer = new TSerializer(new TCompactProtocol.Factory());
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        instance.close();
+    }
+
+    private void setupData() throws Exception
+    {
+        appToken = one(pojos(ApplicationToken.class));
+        appToken.applicationId = appId;
+    }
+
+    private void setupMocks() throws Exception
+    {
+        AuthenticationToken authToken = TokenFunctions.appTokenToAuthTokenFunction().apply(appToken);
+
+        when(authenticationService.getTokenInfo(any()))
+            .thenReturn(new GetTokenInfoResponse().setToken(authToken));
+
+        when(tokenMapper.apply(authToken)).thenReturn(appToken);
+    }
+
+    @DontRepeat
+    @Test
+    public void testConstructor()
+    {
+        SendMessageBatchOperation batchOperation = SendMessageBatchOperation.newInstance(authenticationService,
+                                                                                         messageReactor,
+                                                                                         tokenMapper,
+                                                                                         metrics);
+
+        assertThrows(() -> new StreamingIngestServer(null, options, metrics));
+        assertThrows(() -> new StreamingIngestServer(batchOperation, null, metrics));
+        assertThrows(() -> new StreamingIngestServer(batchOperation, options, null));
+    }
+
+    @Test
+    public void testStreamIsAuthenticatedOnce() throws Exception
+    {
+        int numberOfMessages = 120;
+
+        try (Socket socket = connect())
+        {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            write(out, appToken);
+            assertThat(readAck(in).getStatus(), is(IngestAck.STATUS_OK));
+
+            for (int i = 0; i < numberOfMessages; ++i)
+            {
+                write(out, one(pojos(SendMessageRequest.class)));
+            }
+
+            IngestAck ack = readAck(in);
+            while (ack.getAcknowledgedThrough() < numberOfMessages)
+            {
+                assertThat(ack.getStatus(), is(IngestAck.STATUS_OK));
+                assertThat(ack.getProblems().isEmpty(), is(true));
+                ack = readAck(in);
+            }
+
+            assertThat(ack.getAcknowledgedThrough(), is((long) numberOfMessages));
+        }
+
+        verify(authenticationService, times(1)).verifyToken(any());
+        verify(authenticationService, times(1)).getTokenInfo(any());
+        verify(messageReactor, atLeast(3)).reactToMessages(captor.capture());
+
+        int totalReacted = captor.getAllValues().stream().mapToInt(List::size).sum();
+        assertThat(totalReacted, is(numberOfMessages));
+        assertThat(metrics.counter(StreamingIngestServer.METRIC_MESSAGES_RECEIVED).getCount(), is((long) numberOfMessages));
+    }
+
+    @Test
+    public void testAckListsRejectedMessages() throws Exception
+    {
+        try (Socket socket = connect())
+        {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            write(out, appToken);
+            readAck(in);
+
+            SendMessageRequest untitled = one(pojos(SendMessageRequest.class));
+            untitled.unsetTitle();
+
+            write(out, one(pojos(SendMessageRequest.class)));
+            write(out, untitled);
+            write(out, one(pojos(SendMessageRequest.class)));
+
+            IngestAck ack = readAck(in);
+            while (ack.getAcknowledgedThrough() < 3)
+            {
+                ack = readAck(in);
+            }
+
+            assertThat(ack.getProblems().get(2L), is(Status.REJECTED));
+        }
+    }
+
+    @Test
+    public void testAckWhenReactorFails() throws Exception
+    {
+        when(messageReactor.reactToMessages(any()))
+            .thenThrow(new OperationFailedException());
+
+        try (Socket socket = connect())
+        {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            write(out, appToken);
+            readAck(in);
+
+            write(out, one(pojos(SendMessageRequest.class)));
+
+            IngestAck ack = readAck(in);
+            assertThat(ack.getAcknowledgedThrough(), is(1L));
+            assertThat(ack.getProblems().get(1L), is(Status.FAILED));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithInvalidToken() throws Exception
+    {
+        when(authenticationService.verifyToken(any()))
+            .thenThrow(new InvalidTokenException());
+
+        try (Socket socket = connect())
+        {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            write(out, appToken);
+            assertThat(readAck(in).getStatus(), is(IngestAck.STATUS_INVALID_TOKEN));
+            assertThat(in.read(), is(-1));
+        }
+
+        verifyZeroInteractions(messageReactor);
+        assertThat(metrics.counter(StreamingIngestServer.METRIC_AUTHENTICATION_FAILURES).getCount(), is(1L));
+    }
+
+    @DontRepeat
+    @Test
+    public void testWithFrameTooLarge() throws Exception
+    {
+        try (Socket socket = connect())
+        {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            write(out, appToken);
+            readAck(in);
+
+            out.writeInt(MAX_FRAME_BYTES + 1);
+            out.flush();
+
+            IngestAck ack = readAck(in);
+            assertThat(ack.getStatus(), is(IngestAck.STATUS_BAD_FRAME));
+            assertThat(ack.getAcknowledgedThrough(), is(0L));
+        }
+    }
+
+    @DontRepeat
+    @Test
+    public void testAckRoundTrip() throws Exception
+    {
+        IngestAck ack = IngestAck.ok(10L, Collections.singletonMap(7L, Status.REJECTED));
+        assertThat(IngestAck.fromBytes(ack.toBytes()), is(ack));
+
+        assertThat(IngestAck.fromBytes(IngestAck.invalidToken().toBytes()), is(IngestAck.invalidToken()));
+    }
+
+    private Socket connect() throws IOException
+    {
+        Socket socket = new Socket("localhost", instance.getPort());
+        socket.setSoTimeout(5_000);
+        return socket;
+    }
+
+    private void write(DataOutputStream out, TBase<?, ?> struct) throws Exception
+    {
+        byte[] bytes = serializer.serialize(struct);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    private IngestAck readAck(DataInputStream in) throws IOException
+    {
+        return IngestAck.fromBytes(StreamingIngestServer.readFrame(in, MAX_FRAME_BYTES));
+    }
+
+    private static int findFreePort() throws IOException
+    {
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            return socket.getLocalPort();
+        }
+    }
+
+}